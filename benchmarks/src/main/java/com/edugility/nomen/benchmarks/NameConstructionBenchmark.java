@@ -0,0 +1,100 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import com.edugility.nomen.AbstractNamed;
+import com.edugility.nomen.Name;
+import com.edugility.nomen.NameType;
+import com.edugility.nomen.NameValue;
+
+import org.mvel2.templates.TemplateCompiler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link Name} construction for atomic and templated {@link
+ * NameValue}s, and raw template compilation.
+ *
+ * <p>Templated construction normally finds its compiled template in
+ * the shared {@link com.edugility.nomen.TemplateCatalog}; the {@link
+ * #compile()} benchmark measures the cost that catalog avoids.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+public class NameConstructionBenchmark {
+
+  private static final String TEMPLATE = "${title} ${firstName} ${lastName}";
+
+  private AbstractNamed named;
+
+  public NameConstructionBenchmark() {
+    super();
+  }
+
+  @Setup
+  public void setUp() {
+    this.named = new AbstractNamed() {
+        private static final long serialVersionUID = 1L;
+      };
+    this.named.putName(new NameType("firstName"), new Name(new NameValue("Laird", true)));
+  }
+
+  @Benchmark
+  public Name atomic() {
+    return new Name(this.named, new NameValue("Laird", true));
+  }
+
+  @Benchmark
+  public Name templated() {
+    return new Name(this.named, new NameValue(TEMPLATE));
+  }
+
+  @Benchmark
+  public Object compile() {
+    return TemplateCompiler.compileTemplate(TEMPLATE);
+  }
+
+}
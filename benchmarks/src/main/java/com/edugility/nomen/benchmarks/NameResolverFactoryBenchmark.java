@@ -0,0 +1,105 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import com.edugility.nomen.AbstractNamed;
+import com.edugility.nomen.Name;
+import com.edugility.nomen.NameType;
+import com.edugility.nomen.NameValue;
+
+import com.edugility.nomen.mvel.NameResolverFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures variable resolution through a {@link NameResolverFactory},
+ * both on a factory that has already resolved the variable and on a
+ * fresh one.
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+public class NameResolverFactoryBenchmark {
+
+  private AbstractNamed named;
+
+  private NameResolverFactory warmFactory;
+
+  public NameResolverFactoryBenchmark() {
+    super();
+  }
+
+  @Setup
+  public void setUp() {
+    this.named = new AbstractNamed() {
+        private static final long serialVersionUID = 1L;
+      };
+    this.named.putName(new NameType("firstName"), new Name(new NameValue("Laird", true)));
+    this.named.putName(new NameType("fullName"), new Name(new NameValue("${firstName} Nelson")));
+    this.warmFactory = new NameResolverFactory(this.named);
+    this.warmFactory.getVariableResolver("firstName");
+  }
+
+  @Benchmark
+  public Object warmAtomic() {
+    return this.warmFactory.getVariableResolver("firstName").getValue();
+  }
+
+  @Benchmark
+  public Object warmTemplated() {
+    return this.warmFactory.getVariableResolver("fullName").getValue();
+  }
+
+  @Benchmark
+  public Object cold() {
+    return new NameResolverFactory(this.named).getVariableResolver("firstName").getValue();
+  }
+
+  @Benchmark
+  public boolean unresolveable() {
+    return this.warmFactory.isResolveable("middleName");
+  }
+
+}
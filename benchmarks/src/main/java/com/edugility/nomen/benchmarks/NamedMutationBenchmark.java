@@ -0,0 +1,130 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen.benchmarks;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import java.util.concurrent.TimeUnit;
+
+import com.edugility.nomen.AbstractNamed;
+import com.edugility.nomen.Name;
+import com.edugility.nomen.NameType;
+import com.edugility.nomen.NameValue;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link AbstractNamed#putName(NameType, Name)}, {@link
+ * AbstractNamed#removeName(NameType)} and their bulk counterparts,
+ * including the ownership bookkeeping they perform.
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+public class NamedMutationBenchmark {
+
+  private static final NameType FIRST_NAME = new NameType("firstName");
+
+  private static final NameType NICKNAME = new NameType("nickname");
+
+  private AbstractNamed named;
+
+  private Name name;
+
+  private Map<NameType, Name> batch;
+
+  private Collection<NameType> batchTypes;
+
+  public NamedMutationBenchmark() {
+    super();
+  }
+
+  @Setup
+  public void setUp() {
+    this.named = new AbstractNamed() {
+        private static final long serialVersionUID = 1L;
+      };
+    this.name = new Name(new NameValue("Laird", true));
+    this.batch = new LinkedHashMap<NameType, Name>();
+    for (int i = 0; i < 8; i++) {
+      this.batch.put(new NameType("name" + i), new Name(new NameValue("Value" + i, true)));
+    }
+    this.batchTypes = Arrays.asList(this.batch.keySet().toArray(new NameType[this.batch.size()]));
+  }
+
+  @Benchmark
+  public Name putAndRemove() {
+    this.named.putName(FIRST_NAME, this.name);
+    return this.named.removeName(FIRST_NAME);
+  }
+
+  @Benchmark
+  public Name putAliasAndRemove() {
+    this.named.putName(FIRST_NAME, this.name);
+    this.named.putName(NICKNAME, this.name);
+    this.named.removeName(NICKNAME);
+    return this.named.removeName(FIRST_NAME);
+  }
+
+  @Benchmark
+  public AbstractNamed putEightAndRemoveEight() {
+    for (final Map.Entry<NameType, Name> entry : this.batch.entrySet()) {
+      this.named.putName(entry.getKey(), entry.getValue());
+    }
+    for (final NameType nameType : this.batchTypes) {
+      this.named.removeName(nameType);
+    }
+    return this.named;
+  }
+
+  @Benchmark
+  public AbstractNamed putNamesAndRemoveNames() {
+    this.named.putNames(this.batch);
+    this.named.removeNames(this.batchTypes);
+    return this.named;
+  }
+
+}
@@ -0,0 +1,156 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen.jfr;
+
+import com.edugility.nomen.NameProbe;
+import com.edugility.nomen.NameType;
+
+/**
+ * A {@link NameProbe} that emits {@code nomen.TemplateCompile}, {@code
+ * nomen.NameRender} and {@code nomen.NameResolve} Java Flight Recorder
+ * events.
+ *
+ * <p>Each event's duration is measured by Flight Recorder itself.
+ * When none of these events is enabled in a running recording, each
+ * instrumented operation costs one short-lived event allocation,
+ * which the JIT compiler normally eliminates, and an enablement
+ * check.</p>
+ *
+ * <p>Typical usage:</p>
+ *
+ * <blockquote><pre>JfrNameProbe.install();</pre></blockquote>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see NameProbe
+ */
+public final class JfrNameProbe extends NameProbe {
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new {@link JfrNameProbe}.
+   *
+   * @see #install()
+   */
+  public JfrNameProbe() {
+    super();
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  @Override
+  public final Object compileStarted(final String template) {
+    final TemplateCompileEvent event = new TemplateCompileEvent();
+    if (!event.isEnabled()) {
+      return null;
+    }
+    event.begin();
+    return event;
+  }
+
+  @Override
+  public final void compileFinished(final Object context, final String template, final boolean succeeded) {
+    final TemplateCompileEvent event = (TemplateCompileEvent)context;
+    event.end();
+    if (event.shouldCommit()) {
+      event.templateHash = template.hashCode();
+      event.succeeded = succeeded;
+      event.commit();
+    }
+  }
+
+  @Override
+  public final Object renderStarted(final String template, final NameType nameType, final int depth) {
+    final NameRenderEvent event = new NameRenderEvent();
+    if (!event.isEnabled()) {
+      return null;
+    }
+    event.begin();
+    return event;
+  }
+
+  @Override
+  public final void renderFinished(final Object context, final String template, final NameType nameType, final int depth, final boolean succeeded) {
+    final NameRenderEvent event = (NameRenderEvent)context;
+    event.end();
+    if (event.shouldCommit()) {
+      event.templateHash = template.hashCode();
+      event.nameType = nameType == null ? null : nameType.getValue();
+      event.depth = depth;
+      event.succeeded = succeeded;
+      event.commit();
+    }
+  }
+
+  @Override
+  public final Object resolveStarted(final NameType nameType, final int depth) {
+    final NameResolveEvent event = new NameResolveEvent();
+    if (!event.isEnabled()) {
+      return null;
+    }
+    event.begin();
+    return event;
+  }
+
+  @Override
+  public final void resolveFinished(final Object context, final NameType nameType, final int depth, final boolean succeeded) {
+    final NameResolveEvent event = (NameResolveEvent)context;
+    event.end();
+    if (event.shouldCommit()) {
+      event.nameType = nameType.getValue();
+      event.depth = depth;
+      event.succeeded = succeeded;
+      event.commit();
+    }
+  }
+
+
+  /*
+   * Static methods.
+   */
+
+
+  /**
+   * {@linkplain NameProbe#setInstance(NameProbe) Installs} a new
+   * {@link JfrNameProbe}.
+   */
+  public static final void install() {
+    NameProbe.setInstance(new JfrNameProbe());
+  }
+
+}
@@ -0,0 +1,74 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A {@code nomen.NameResolve} Java Flight Recorder event recording the
+ * resolution of a {@link com.edugility.nomen.Name} from within a
+ * template.
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see JfrNameProbe
+ */
+@Category("Nomen")
+@Description("Resolution of a name from within a template")
+@Label("Name Resolve")
+@Name("nomen.NameResolve")
+@StackTrace(false)
+final class NameResolveEvent extends Event {
+
+  /**
+   * The {@linkplain com.edugility.nomen.NameType#getValue() value}
+   * of the {@link com.edugility.nomen.NameType} being resolved.
+   */
+  @Label("Name Type")
+  String nameType;
+
+  /**
+   * The number of resolutions in progress on the resolving thread,
+   * including this one.
+   */
+  @Label("Depth")
+  int depth;
+
+  /**
+   * Whether resolution succeeded.
+   */
+  @Label("Succeeded")
+  boolean succeeded;
+
+}
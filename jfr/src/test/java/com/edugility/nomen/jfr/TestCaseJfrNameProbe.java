@@ -0,0 +1,114 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen.jfr;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.List;
+
+import com.edugility.nomen.AbstractNamed;
+import com.edugility.nomen.Name;
+import com.edugility.nomen.NameProbe;
+import com.edugility.nomen.NameType;
+import com.edugility.nomen.NameValue;
+
+import jdk.jfr.Recording;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestCaseJfrNameProbe {
+
+  public TestCaseJfrNameProbe() {
+    super();
+  }
+
+  @After
+  public void tearDown() {
+    NameProbe.setInstance(null);
+  }
+
+  @Test
+  public void testEvents() throws Exception {
+    JfrNameProbe.install();
+    final Path file = Files.createTempFile("nomen", ".jfr");
+    try {
+      try (final Recording recording = new Recording()) {
+        recording.enable("nomen.TemplateCompile").withoutThreshold();
+        recording.enable("nomen.NameRender").withoutThreshold();
+        recording.enable("nomen.NameResolve").withoutThreshold();
+        recording.start();
+
+        final AbstractNamed dude = new AbstractNamed() {
+            private static final long serialVersionUID = 1L;
+          };
+        dude.putName(new NameType("firstName"), new Name(new NameValue("Laird", true)));
+        final String template = "Hi, ${firstName} (jfr)";
+        final Name greeting = new Name(new NameValue(template));
+        dude.putName(new NameType("greeting"), greeting);
+        assertEquals("Hi, Laird (jfr)", greeting.getValue());
+
+        recording.stop();
+        recording.dump(file);
+
+        final List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        int compiles = 0;
+        int renders = 0;
+        int resolves = 0;
+        for (final RecordedEvent event : events) {
+          final String name = event.getEventType().getName();
+          if ("nomen.TemplateCompile".equals(name)) {
+            assertEquals(template.hashCode(), event.getInt("templateHash"));
+            compiles++;
+          } else if ("nomen.NameRender".equals(name)) {
+            assertEquals(template.hashCode(), event.getInt("templateHash"));
+            assertEquals("greeting", event.getString("nameType"));
+            assertEquals(0, event.getInt("depth"));
+            renders++;
+          } else if ("nomen.NameResolve".equals(name)) {
+            assertEquals("firstName", event.getString("nameType"));
+            assertEquals(1, event.getInt("depth"));
+            resolves++;
+          }
+        }
+        assertEquals(1, compiles);
+        assertEquals(1, renders);
+        assertEquals(1, resolves);
+      }
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+}
@@ -0,0 +1,210 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen.maven;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.maven.model.Resource;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Precompiles the templates in a template catalog file into {@link
+ * com.edugility.nomen.PrecompiledTemplate} subclasses and adds them
+ * to the project's sources, so that the shared {@link
+ * com.edugility.nomen.TemplateCatalog} holds them before any {@link
+ * com.edugility.nomen.Name} asks for them.
+ *
+ * <p>The template catalog file is read as UTF-8 text, one template
+ * per line.  Blank lines and lines beginning with {@code #} are
+ * ignored.  A template with a syntax error fails the build.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see TemplatePrecompiler
+ */
+@Mojo(name = "precompile", defaultPhase = LifecyclePhase.GENERATE_SOURCES, threadSafe = true)
+public class PrecompileMojo extends AbstractMojo {
+
+
+  /*
+   * Instance fields.
+   */
+
+
+  /**
+   * The template catalog file.
+   */
+  @Parameter(defaultValue = "${basedir}/src/main/nomen/templates.txt", required = true)
+  private File catalog;
+
+  /**
+   * The name of the package in which to generate classes.
+   *
+   * <p>If this is not set, a package {@linkplain
+   * TemplatePrecompiler#getDefaultPackageName(String, String) derived}
+   * from the project's group and artifact identifiers is used, so
+   * that the classes generated for different artifacts do not
+   * collide.</p>
+   */
+  @Parameter
+  private String packageName;
+
+  /**
+   * The directory beneath which to generate Java source code.
+   */
+  @Parameter(defaultValue = "${project.build.directory}/generated-sources/nomen", required = true)
+  private File sourceDirectory;
+
+  /**
+   * The directory beneath which to generate the {@code
+   * META-INF/services} file.
+   */
+  @Parameter(defaultValue = "${project.build.directory}/generated-resources/nomen", required = true)
+  private File resourceDirectory;
+
+  /**
+   * The {@link MavenProject} being built.
+   */
+  @Parameter(defaultValue = "${project}", readonly = true, required = true)
+  private MavenProject project;
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new {@link PrecompileMojo}.
+   */
+  public PrecompileMojo() {
+    super();
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Reads the template catalog file, precompiles its templates and
+   * adds the results to the project.
+   *
+   * @exception MojoExecutionException if a file could not be read or
+   * written
+   *
+   * @exception MojoFailureException if a template has a syntax error
+   */
+  @Override
+  public void execute() throws MojoExecutionException, MojoFailureException {
+    if (this.catalog == null || !this.catalog.isFile()) {
+      this.getLog().info("No template catalog at " + this.catalog + "; skipping");
+      return;
+    }
+    final List<String> templates;
+    try {
+      templates = read(this.catalog);
+    } catch (final IOException ioException) {
+      throw new MojoExecutionException("Could not read " + this.catalog, ioException);
+    }
+    String packageName = this.packageName;
+    if (packageName == null || packageName.isEmpty()) {
+      if (this.project == null) {
+        throw new MojoExecutionException("packageName must be set when there is no project");
+      }
+      packageName = TemplatePrecompiler.getDefaultPackageName(this.project.getGroupId(), this.project.getArtifactId());
+    }
+    final List<String> classNames;
+    try {
+      classNames = new TemplatePrecompiler(packageName).precompile(templates, this.sourceDirectory, this.resourceDirectory);
+    } catch (final IllegalArgumentException invalidTemplate) {
+      throw new MojoFailureException(invalidTemplate.getMessage(), invalidTemplate);
+    } catch (final IOException ioException) {
+      throw new MojoExecutionException("Could not generate precompiled templates", ioException);
+    }
+    this.getLog().info("Precompiled " + classNames.size() + " of " + templates.size() + " templates; the rest will be compiled at runtime");
+    if (this.project != null && !classNames.isEmpty()) {
+      this.project.addCompileSourceRoot(this.sourceDirectory.getPath());
+      final Resource resource = new Resource();
+      resource.setDirectory(this.resourceDirectory.getPath());
+      this.project.addResource(resource);
+    }
+  }
+
+
+  /*
+   * Static methods.
+   */
+
+
+  /**
+   * Returns the templates in the supplied template catalog file.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @param catalog the template catalog file; must not be {@code null}
+   *
+   * @return a non-{@code null} {@link List} of templates
+   *
+   * @exception IOException if {@code catalog} could not be read
+   */
+  static final List<String> read(final File catalog) throws IOException {
+    final List<String> returnValue = new ArrayList<String>();
+    final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(catalog), "UTF-8"));
+    try {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (!line.trim().isEmpty() && !line.startsWith("#")) {
+          returnValue.add(line);
+        }
+      }
+    } finally {
+      reader.close();
+    }
+    return returnValue;
+  }
+
+}
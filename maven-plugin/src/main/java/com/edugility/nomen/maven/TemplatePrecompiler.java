@@ -0,0 +1,430 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen.maven;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import javax.lang.model.SourceVersion;
+
+import com.edugility.nomen.PrecompiledTemplate;
+
+import org.mvel2.CompileException;
+
+import org.mvel2.templates.TemplateCompiler;
+
+/**
+ * Compiles templates into Java source code for {@link
+ * PrecompiledTemplate} subclasses, together with the {@code
+ * META-INF/services} file that lets {@link
+ * com.edugility.nomen.TemplateCatalog} discover them.
+ *
+ * <p>Every template is first compiled by <a
+ * href="http://mvel.codehaus.org/">MVEL</a> so that syntax errors are
+ * reported at build time.  Templates consisting only of literal text
+ * and {@code ${name}} or {@code @{name}} variable references are then
+ * translated into Java; any other template is left to be compiled at
+ * runtime as usual.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see PrecompileMojo
+ *
+ * @see PrecompiledTemplate
+ */
+public class TemplatePrecompiler {
+
+
+  /*
+   * Instance fields.
+   */
+
+
+  /**
+   * The name of the package in which classes are generated.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  private final String packageName;
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new {@link TemplatePrecompiler}.
+   *
+   * @param packageName the name of the package in which classes will
+   * be generated; must not be {@code null} and must be a valid Java
+   * package name
+   *
+   * @exception IllegalArgumentException if {@code packageName} is
+   * {@code null} or invalid
+   */
+  public TemplatePrecompiler(final String packageName) {
+    super();
+    if (packageName == null) {
+      throw new IllegalArgumentException("packageName", new NullPointerException("packageName"));
+    }
+    if (!SourceVersion.isName(packageName)) {
+      throw new IllegalArgumentException("packageName: " + packageName);
+    }
+    this.packageName = packageName;
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Validates the supplied templates, writes Java source code for
+   * those that can be precompiled beneath the supplied source
+   * directory, writes the corresponding {@code META-INF/services}
+   * file beneath the supplied resource directory, and returns the
+   * fully-qualified names of the generated classes.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @param templates the templates; must not be {@code null}
+   *
+   * @param sourceDirectory the directory beneath which to write Java
+   * source code; must not be {@code null}
+   *
+   * @param resourceDirectory the directory beneath which to write the
+   * {@code META-INF/services} file; must not be {@code null}
+   *
+   * @return a non-{@code null} {@link List} of the fully-qualified
+   * names of the generated classes
+   *
+   * @exception IllegalArgumentException if any parameter is {@code
+   * null} or a template has a syntax error
+   *
+   * @exception IOException if a file could not be written
+   */
+  public List<String> precompile(final Collection<? extends String> templates, final File sourceDirectory, final File resourceDirectory) throws IOException {
+    if (templates == null) {
+      throw new IllegalArgumentException("templates", new NullPointerException("templates"));
+    }
+    if (sourceDirectory == null) {
+      throw new IllegalArgumentException("sourceDirectory", new NullPointerException("sourceDirectory"));
+    }
+    if (resourceDirectory == null) {
+      throw new IllegalArgumentException("resourceDirectory", new NullPointerException("resourceDirectory"));
+    }
+    final List<String> returnValue = new ArrayList<String>();
+    final File packageDirectory = new File(sourceDirectory, this.packageName.replace('.', File.separatorChar));
+    int index = 0;
+    for (final String template : templates) {
+      if (template == null) {
+        continue;
+      }
+      try {
+        TemplateCompiler.compileTemplate(template);
+      } catch (final CompileException syntaxError) {
+        throw new IllegalArgumentException("Invalid template \"" + template + "\": " + syntaxError.getMessage(), syntaxError);
+      }
+      final List<Object> segments = parse(template);
+      if (segments != null) {
+        final String simpleName = "PrecompiledTemplate" + index++;
+        write(new File(packageDirectory, simpleName + ".java"), this.generate(simpleName, template, segments));
+        returnValue.add(this.packageName + "." + simpleName);
+      }
+    }
+    if (!returnValue.isEmpty()) {
+      final StringBuilder services = new StringBuilder();
+      for (final String className : returnValue) {
+        services.append(className).append('\n');
+      }
+      write(new File(resourceDirectory, "META-INF/services/" + PrecompiledTemplate.class.getName()), services.toString());
+    }
+    return returnValue;
+  }
+
+  /**
+   * Returns the Java source code of a {@link PrecompiledTemplate}
+   * subclass that renders the supplied parsed template.
+   *
+   * @param simpleName the simple name of the class; must not be
+   * {@code null}
+   *
+   * @param template the template source; must not be {@code null}
+   *
+   * @param segments the literal {@link String}s and {@link Reference}s
+   * the template consists of; must not be {@code null}
+   *
+   * @return Java source code; never {@code null}
+   */
+  private final String generate(final String simpleName, final String template, final List<Object> segments) {
+    final StringBuilder sb = new StringBuilder();
+    sb.append("package ").append(this.packageName).append(";\n\n");
+    sb.append("/**\n");
+    sb.append(" * Generated by ").append(TemplatePrecompiler.class.getName()).append("; do not edit.\n");
+    sb.append(" */\n");
+    sb.append("public final class ").append(simpleName).append(" extends ").append(PrecompiledTemplate.class.getName()).append(" {\n\n");
+    sb.append("  public ").append(simpleName).append("() {\n");
+    sb.append("    super();\n");
+    sb.append("  }\n\n");
+    sb.append("  @Override\n");
+    sb.append("  public final String getTemplate() {\n");
+    sb.append("    return ").append(quote(template)).append(";\n");
+    sb.append("  }\n\n");
+    sb.append("  @Override\n");
+    sb.append("  public final Object execute(final com.edugility.nomen.TemplateContext context) {\n");
+    sb.append("    final StringBuilder sb = new StringBuilder();\n");
+    for (final Object segment : segments) {
+      if (segment instanceof Reference) {
+        sb.append("    sb.append(resolve(context, ").append(quote(((Reference)segment).name)).append("));\n");
+      } else {
+        sb.append("    sb.append(").append(quote((String)segment)).append(");\n");
+      }
+    }
+    sb.append("    return sb.toString();\n");
+    sb.append("  }\n\n");
+    sb.append("}\n");
+    return sb.toString();
+  }
+
+
+  /*
+   * Static methods.
+   */
+
+
+  /**
+   * Returns the name of the package in which classes are generated
+   * for the project with the supplied coordinates when none is
+   * configured.
+   *
+   * <p>The name is formed from the group and artifact identifiers
+   * followed by {@code nomen}, so that the classes generated for
+   * different artifacts never collide on a shared classpath: {@code
+   * com.example} and {@code my-app} yield {@code
+   * com.example.my_app.nomen}.  Characters that may not appear in a
+   * Java identifier are replaced by underscores, and segments that
+   * are keywords or begin with a digit are prefixed with one.</p>
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @param groupId the group identifier; must not be {@code null}
+   *
+   * @param artifactId the artifact identifier; must not be {@code
+   * null}
+   *
+   * @return a valid Java package name; never {@code null}
+   *
+   * @exception IllegalArgumentException if either parameter is {@code
+   * null}
+   */
+  public static final String getDefaultPackageName(final String groupId, final String artifactId) {
+    if (groupId == null) {
+      throw new IllegalArgumentException("groupId", new NullPointerException("groupId"));
+    }
+    if (artifactId == null) {
+      throw new IllegalArgumentException("artifactId", new NullPointerException("artifactId"));
+    }
+    final StringBuilder sb = new StringBuilder();
+    for (final String segment : (groupId + "." + artifactId + ".nomen").split("\\.")) {
+      if (!segment.isEmpty()) {
+        if (sb.length() > 0) {
+          sb.append('.');
+        }
+        sb.append(toIdentifier(segment));
+      }
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Converts the supplied non-empty {@link String} into a valid Java
+   * identifier.
+   *
+   * @param s the {@link String} to convert; must not be {@code null}
+   * or empty
+   *
+   * @return a valid Java identifier; never {@code null}
+   */
+  private static final String toIdentifier(final String s) {
+    final StringBuilder sb = new StringBuilder(s.length() + 1);
+    for (int i = 0; i < s.length(); i++) {
+      final char c = s.charAt(i);
+      sb.append(Character.isJavaIdentifierPart(c) ? c : '_');
+    }
+    if (!Character.isJavaIdentifierStart(sb.charAt(0)) || SourceVersion.isKeyword(sb)) {
+      sb.insert(0, '_');
+    }
+    return sb.toString();
+  }
+
+
+  /**
+   * Parses the supplied template into a {@link List} of literal
+   * {@link String}s and {@link Reference}s, or returns {@code null}
+   * if it contains anything else.
+   *
+   * <p>Every {@code $} or {@code @} must begin a {@code ${name}} or
+   * {@code @{name}} variable reference; this excludes orb tags and
+   * escaped sigils such as <code>$${</code>, which are left to MVEL.</p>
+   *
+   * @param template the template to parse; must not be {@code null}
+   *
+   * @return a {@link List} of segments, or {@code null}
+   */
+  static final List<Object> parse(final String template) {
+    final List<Object> returnValue = new ArrayList<Object>();
+    final StringBuilder literal = new StringBuilder();
+    final int length = template.length();
+    int i = 0;
+    while (i < length) {
+      final char c = template.charAt(i);
+      if (c == '$' || c == '@') {
+        if (i + 1 >= length || template.charAt(i + 1) != '{') {
+          return null;
+        }
+        final int end = template.indexOf('}', i + 2);
+        if (end < 0) {
+          return null;
+        }
+        final String name = template.substring(i + 2, end).trim();
+        if (!SourceVersion.isIdentifier(name) || SourceVersion.isKeyword(name)) {
+          return null;
+        }
+        if (literal.length() > 0) {
+          returnValue.add(literal.toString());
+          literal.setLength(0);
+        }
+        returnValue.add(new Reference(name));
+        i = end + 1;
+      } else {
+        literal.append(c);
+        i++;
+      }
+    }
+    if (literal.length() > 0) {
+      returnValue.add(literal.toString());
+    }
+    return returnValue;
+  }
+
+  /**
+   * Writes the supplied text to the supplied {@link File} in UTF-8,
+   * creating its parent directories if necessary.
+   *
+   * @param file the {@link File} to write; must not be {@code null}
+   *
+   * @param text the text to write; must not be {@code null}
+   *
+   * @exception IOException if the {@link File} could not be written
+   */
+  private static final void write(final File file, final String text) throws IOException {
+    final File parent = file.getParentFile();
+    if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+      throw new IOException("Could not create directory " + parent);
+    }
+    final PrintWriter out = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+    try {
+      out.print(text);
+    } finally {
+      out.close();
+    }
+    if (out.checkError()) {
+      throw new IOException("Could not write " + file);
+    }
+  }
+
+  /**
+   * Returns a Java string literal representing the supplied {@link
+   * String}.
+   *
+   * <p>Control and non-ASCII characters are escaped, the former in
+   * octal so that no Unicode escape can introduce a line terminator
+   * into the generated source.</p>
+   *
+   * @param s the {@link String} to quote; must not be {@code null}
+   *
+   * @return a Java string literal; never {@code null}
+   */
+  private static final String quote(final String s) {
+    final StringBuilder sb = new StringBuilder("\"");
+    for (int i = 0; i < s.length(); i++) {
+      final char c = s.charAt(i);
+      if (c == '"' || c == '\\') {
+        sb.append('\\').append(c);
+      } else if (c < 0x20 || c == 0x7f) {
+        sb.append(String.format("\\%03o", Integer.valueOf(c)));
+      } else if (c > 0x7f) {
+        sb.append(String.format("\\u%04x", Integer.valueOf(c)));
+      } else {
+        sb.append(c);
+      }
+    }
+    return sb.append('"').toString();
+  }
+
+
+  /*
+   * Inner and nested classes.
+   */
+
+
+  /**
+   * A variable reference within a parsed template.
+   */
+  static final class Reference {
+
+    /**
+     * The name of the referenced variable; never {@code null}.
+     */
+    final String name;
+
+    /**
+     * Creates a new {@link Reference}.
+     *
+     * @param name the name of the referenced variable; must not be
+     * {@code null}
+     */
+    Reference(final String name) {
+      super();
+      assert name != null;
+      this.name = name;
+    }
+
+  }
+
+}
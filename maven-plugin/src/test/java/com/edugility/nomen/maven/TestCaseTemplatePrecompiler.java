@@ -0,0 +1,125 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen.maven;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import com.edugility.nomen.AbstractNamed;
+import com.edugility.nomen.Name;
+import com.edugility.nomen.NameType;
+import com.edugility.nomen.NameValue;
+import com.edugility.nomen.PrecompiledTemplate;
+import com.edugility.nomen.TemplateCatalog;
+import com.edugility.nomen.TemplateContext;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestCaseTemplatePrecompiler {
+
+  private File directory;
+
+  public TestCaseTemplatePrecompiler() {
+    super();
+  }
+
+  @Before
+  public void setUp() throws IOException {
+    this.directory = File.createTempFile("nomen-maven-plugin", "");
+    assertTrue(this.directory.delete());
+    assertTrue(this.directory.mkdirs());
+  }
+
+  @Test
+  public void testDefaultPackageName() {
+    assertEquals("com.example.my_app.nomen", TemplatePrecompiler.getDefaultPackageName("com.example", "my-app"));
+    assertEquals("org._1st._int.nomen", TemplatePrecompiler.getDefaultPackageName("org", "1st.int"));
+  }
+
+  @Test
+  public void testPrecompile() throws Exception {
+    final File sources = new File(this.directory, "sources");
+    final File resources = new File(this.directory, "resources");
+    final List<String> templates = Arrays.asList("${firstName}  ${ lastName }", "@if{true}x@end{}", "Dr. @{lastName} \"\u00e9\"");
+    final List<String> classNames = new TemplatePrecompiler("sample").precompile(templates, sources, resources);
+    assertEquals(Arrays.asList("sample.PrecompiledTemplate0", "sample.PrecompiledTemplate1"), classNames);
+
+    final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    assertNotNull(compiler);
+    final List<String> arguments = new ArrayList<String>(Arrays.asList("-classpath", System.getProperty("java.class.path"), "-d", resources.getPath()));
+    for (final String className : classNames) {
+      arguments.add(new File(sources, className.replace('.', File.separatorChar) + ".java").getPath());
+    }
+    assertEquals(0, compiler.run(null, null, null, arguments.toArray(new String[arguments.size()])));
+
+    final URLClassLoader loader = new URLClassLoader(new URL[] { resources.toURI().toURL() }, this.getClass().getClassLoader());
+    try {
+      final TemplateCatalog catalog = new TemplateCatalog();
+      assertEquals(2, catalog.loadPrecompiledTemplates(loader));
+      assertEquals(-1, catalog.getId("@if{true}x@end{}"));
+
+      final AbstractNamed dude = new AbstractNamed() {
+          private static final long serialVersionUID = 1L;
+        };
+      dude.putName(new NameType("firstName"), new Name(new NameValue("Laird", true)));
+      dude.putName(new NameType("lastName"), new Name(new NameValue("Nelson", true)));
+      final TemplateContext context = new TemplateContext(dude);
+      assertEquals("Laird  Nelson", ((PrecompiledTemplate)catalog.getCompiledTemplate(templates.get(0))).execute(context));
+      assertEquals("Dr. Nelson \"\u00e9\"", ((PrecompiledTemplate)catalog.getCompiledTemplate(templates.get(2))).execute(context));
+    } finally {
+      loader.close();
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSyntaxErrorFailsBuild() throws IOException {
+    new TemplatePrecompiler("sample").precompile(Arrays.asList("Dear @{firstName"), new File(this.directory, "sources"), new File(this.directory, "resources"));
+  }
+
+  @Test
+  public void testParse() {
+    assertEquals(3, TemplatePrecompiler.parse("a ${b} c").size());
+    assertNull(TemplatePrecompiler.parse("$${b}"));
+    assertNull(TemplatePrecompiler.parse("${b.c}"));
+    assertNull(TemplatePrecompiler.parse("a@b.com"));
+  }
+
+}
@@ -0,0 +1,147 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen.nativeimage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import com.edugility.nomen.LocalizedNameValue;
+import com.edugility.nomen.Name;
+import com.edugility.nomen.NameType;
+import com.edugility.nomen.NameValue;
+import com.edugility.nomen.Named;
+import com.edugility.nomen.SimpleTemplateEngine;
+import com.edugility.nomen.TemplateEngine;
+
+/**
+ * A smoke test that exercises template rendering, localization and
+ * serialization, and that is built and run as a GraalVM native image
+ * by this project's {@code native} profile.
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ */
+public final class NativeSmoke {
+
+  /**
+   * The {@link NameType} of a party's first name.
+   */
+  private static final NameType FIRST_NAME = new NameType("firstName");
+
+  /**
+   * The {@link NameType} of a party's last name.
+   */
+  private static final NameType LAST_NAME = new NameType("lastName");
+
+  /**
+   * The {@link NameType} of a party's full name.
+   */
+  private static final NameType FULL_NAME = new NameType("fullName");
+
+  /**
+   * Creates a new {@link NativeSmoke}.
+   */
+  private NativeSmoke() {
+    super();
+  }
+
+  /**
+   * Runs the smoke test, throwing an {@link IllegalStateException} if
+   * it fails.
+   *
+   * @exception IllegalStateException if the smoke test fails
+   *
+   * @exception IOException if serialization fails
+   *
+   * @exception ClassNotFoundException if deserialization fails
+   */
+  static final void run() throws IOException, ClassNotFoundException {
+    check("template engine", SimpleTemplateEngine.class.getName(), TemplateEngine.getInstance().getClass().getName());
+
+    final Party party = new Party();
+    party.putName(FIRST_NAME, new Name(new NameValue("Laird", true)));
+    final Map<Locale, String> lastNames = new HashMap<Locale, String>();
+    lastNames.put(Locale.JAPANESE, "NELSON");
+    party.putName(LAST_NAME, new Name(new LocalizedNameValue("Nelson", true, null, lastNames)));
+    final Map<Locale, String> fullNames = new HashMap<Locale, String>();
+    fullNames.put(Locale.JAPANESE, "${lastName} ${firstName}");
+    party.putName(FULL_NAME, new Name(new LocalizedNameValue("${firstName}  ${lastName}", fullNames)));
+
+    check("fullName", "Laird Nelson", party.getName(FULL_NAME).getValue());
+    check("fullName (ja)", "NELSON Laird", party.getName(FULL_NAME).getValue(Locale.JAPAN));
+
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    final ObjectOutputStream out = new ObjectOutputStream(bytes);
+    out.writeObject(party);
+    out.close();
+    final ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+    final Named copy = (Named)in.readObject();
+    in.close();
+    check("deserialized fullName", "Laird Nelson", copy.getName(FULL_NAME).getValue());
+  }
+
+  /**
+   * Throws an {@link IllegalStateException} if the supplied values
+   * are not equal.
+   *
+   * @param what a description of the value being checked; must not be
+   * {@code null}
+   *
+   * @param expected the expected value; must not be {@code null}
+   *
+   * @param actual the actual value; may be {@code null}
+   *
+   * @exception IllegalStateException if {@code expected} is not equal
+   * to {@code actual}
+   */
+  private static final void check(final String what, final String expected, final String actual) {
+    if (!expected.equals(actual)) {
+      throw new IllegalStateException(what + ": expected \"" + expected + "\" but was \"" + actual + "\"");
+    }
+  }
+
+  /**
+   * Runs the smoke test and exits with a non-zero status if it fails.
+   *
+   * @param args ignored
+   *
+   * @exception Exception if the smoke test fails
+   */
+  public static final void main(final String[] args) throws Exception {
+    run();
+    System.out.println("nomen native smoke test passed");
+  }
+
+}
@@ -0,0 +1,77 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen.processor;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares a templated {@link com.edugility.nomen.NameType} for the
+ * annotated interface or abstract class, from which the {@link
+ * NameTemplateProcessor} generates a {@link com.edugility.nomen.Named}
+ * implementation with a typed accessor that renders the template
+ * without <a href="http://mvel.codehaus.org/">MVEL</a>.
+ *
+ * <p>Several templates are declared with {@link NameTemplates}.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see NameTemplateProcessor
+ *
+ * @see NameTemplates
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface NameTemplate {
+
+  /**
+   * The {@linkplain com.edugility.nomen.NameType#getValue() value} of
+   * the {@link com.edugility.nomen.NameType} being declared, which
+   * must be a valid Java identifier, such as {@code fullName}.
+   *
+   * @return the value of the {@link com.edugility.nomen.NameType}
+   * being declared
+   */
+  String type();
+
+  /**
+   * The template, such as <code>${firstName} ${lastName}</code>.
+   * Only literal text and references to other {@link
+   * com.edugility.nomen.NameType}s, in either <code>${name}</code> or
+   * <code>@{name}</code> form, are permitted.
+   *
+   * @return the template
+   */
+  String value();
+
+}
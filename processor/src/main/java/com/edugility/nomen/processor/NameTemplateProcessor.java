@@ -0,0 +1,764 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen.processor;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.RoundEnvironment;
+
+import javax.lang.model.SourceVersion;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+
+import javax.lang.model.type.TypeMirror;
+
+import javax.lang.model.util.ElementFilter;
+
+import javax.tools.Diagnostic;
+
+/**
+ * An annotation processor that, for each interface or abstract class
+ * annotated with {@link NameTemplate} or {@link NameTemplates},
+ * generates a {@link com.edugility.nomen.Named} implementation with
+ * typed accessors whose templates are rendered by generated code
+ * rather than by <a href="http://mvel.codehaus.org/">MVEL</a>.
+ *
+ * <p>Each abstract, parameterless, {@link String}-returning {@code
+ * getX()} method of the annotated type declares an atomic {@link
+ * com.edugility.nomen.NameType} {@code x}, which the generated class
+ * stores in a field.  Each {@link NameTemplate} declares a templated
+ * {@link com.edugility.nomen.NameType}, for which the generated class
+ * has a {@code getX()} method that concatenates the values the
+ * template refers to and collapses runs of whitespace into single
+ * spaces, exactly as a {@link com.edugility.nomen.Name} with a
+ * non-atomic {@link com.edugility.nomen.NameValue} would.  The
+ * generated class also implements {@link
+ * com.edugility.nomen.Named#getName(com.edugility.nomen.NameType)}
+ * in terms of these accessors, and declares a {@link
+ * com.edugility.nomen.NameType} constant for each {@link
+ * com.edugility.nomen.NameType}.</p>
+ *
+ * <p>A template reference to an atomic {@link
+ * com.edugility.nomen.NameType} whose value is {@code null} is
+ * rendered according to the {@linkplain
+ * com.edugility.nomen.MissingNamePolicy#getInstance() installed
+ * <code>MissingNamePolicy</code>}, just as it would be by a {@link
+ * com.edugility.nomen.Name}: under {@link
+ * com.edugility.nomen.MissingNamePolicy#FAIL} the accessor throws an
+ * {@link IllegalStateException}.</p>
+ *
+ * <p>The generated {@link
+ * com.edugility.nomen.Named#getName(com.edugility.nomen.NameType)}
+ * implementation retains the {@link com.edugility.nomen.Name} it
+ * returns for each {@link com.edugility.nomen.NameType} and returns
+ * it again for as long as the value it was created with is
+ * current.</p>
+ *
+ * <p>The generated class is named after the annotated type with
+ * {@code Named} appended, and lives in the same package.</p>
+ *
+ * <p>Templates that refer to undeclared {@link
+ * com.edugility.nomen.NameType}s, that refer to each other
+ * circularly, or that contain anything besides literal text and
+ * variable references are reported as compilation errors.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see NameTemplate
+ */
+public class NameTemplateProcessor extends AbstractProcessor {
+
+
+  /*
+   * Static fields.
+   */
+
+
+  /**
+   * The name of the field in which generated classes retain the
+   * {@link com.edugility.nomen.Name}s they return; chosen so as not
+   * to collide with the field of any atomic {@link
+   * com.edugility.nomen.NameType}.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  private static final String NAMES_FIELD = "nomen$names";
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new {@link NameTemplateProcessor}.
+   */
+  public NameTemplateProcessor() {
+    super();
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Returns the names of {@link NameTemplate} and {@link
+   * NameTemplates}.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return a non-{@code null} {@link Set} of annotation type names
+   */
+  @Override
+  public Set<String> getSupportedAnnotationTypes() {
+    final Set<String> returnValue = new HashSet<String>();
+    returnValue.add(NameTemplate.class.getName());
+    returnValue.add(NameTemplates.class.getName());
+    return returnValue;
+  }
+
+  /**
+   * Returns {@link SourceVersion#latestSupported()}.
+   *
+   * @return {@link SourceVersion#latestSupported()}
+   */
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  /**
+   * Generates a {@link com.edugility.nomen.Named} implementation for
+   * each type annotated with {@link NameTemplate} or {@link
+   * NameTemplates}.
+   *
+   * @param annotations the annotation types requested to be
+   * processed; ignored
+   *
+   * @param roundEnvironment the {@link RoundEnvironment}; must not be
+   * {@code null}
+   *
+   * @return {@code true}, since the annotations are this processor's
+   * own
+   */
+  @Override
+  public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnvironment) {
+    final Set<Element> elements = new LinkedHashSet<Element>();
+    elements.addAll(roundEnvironment.getElementsAnnotatedWith(NameTemplate.class));
+    elements.addAll(roundEnvironment.getElementsAnnotatedWith(NameTemplates.class));
+    for (final Element element : elements) {
+      this.process(element);
+    }
+    return true;
+  }
+
+  /**
+   * Validates the supplied annotated {@link Element} and, if it is
+   * valid, generates a {@link com.edugility.nomen.Named}
+   * implementation for it.
+   *
+   * @param element the annotated {@link Element}; must not be {@code
+   * null}
+   */
+  private final void process(final Element element) {
+    assert element != null;
+    final Messager messager = this.processingEnv.getMessager();
+    if (!(element instanceof TypeElement)) {
+      messager.printMessage(Diagnostic.Kind.ERROR, "@NameTemplate is permitted only on interfaces and abstract classes", element);
+      return;
+    }
+    final TypeElement type = (TypeElement)element;
+    final boolean isInterface = type.getKind() == ElementKind.INTERFACE;
+    if (!isInterface && (type.getKind() != ElementKind.CLASS || !type.getModifiers().contains(Modifier.ABSTRACT))) {
+      messager.printMessage(Diagnostic.Kind.ERROR, "@NameTemplate is permitted only on interfaces and abstract classes", type);
+      return;
+    } else if (!type.getTypeParameters().isEmpty()) {
+      messager.printMessage(Diagnostic.Kind.ERROR, "@NameTemplate is not permitted on generic types", type);
+      return;
+    }
+
+    boolean valid = true;
+
+    // Gather the templates.
+    final List<NameTemplate> annotations = new ArrayList<NameTemplate>();
+    final NameTemplate single = type.getAnnotation(NameTemplate.class);
+    if (single != null) {
+      annotations.add(single);
+    }
+    final NameTemplates multiple = type.getAnnotation(NameTemplates.class);
+    if (multiple != null) {
+      Collections.addAll(annotations, multiple.value());
+    }
+    final Map<String, List<Object>> templates = new LinkedHashMap<String, List<Object>>();
+    for (final NameTemplate annotation : annotations) {
+      final String nameType = annotation.type();
+      if (!SourceVersion.isIdentifier(nameType) || SourceVersion.isKeyword(nameType)) {
+        messager.printMessage(Diagnostic.Kind.ERROR, "NameType \"" + nameType + "\" is not a valid Java identifier", type);
+        valid = false;
+      } else if (templates.containsKey(nameType)) {
+        messager.printMessage(Diagnostic.Kind.ERROR, "NameType \"" + nameType + "\" has more than one template", type);
+        valid = false;
+      } else {
+        try {
+          templates.put(nameType, parse(annotation.value()));
+        } catch (final IllegalArgumentException invalidTemplate) {
+          messager.printMessage(Diagnostic.Kind.ERROR, "Template for NameType \"" + nameType + "\" is not supported: " + invalidTemplate.getMessage(), type);
+          valid = false;
+        }
+      }
+    }
+
+    // Gather the abstract accessors.
+    final TypeMirror stringType = this.processingEnv.getElementUtils().getTypeElement(String.class.getName()).asType();
+    final Map<String, ExecutableElement> atomics = new LinkedHashMap<String, ExecutableElement>();
+    final Set<String> declaredTemplateAccessors = new HashSet<String>();
+    for (final ExecutableElement method : ElementFilter.methodsIn(this.processingEnv.getElementUtils().getAllMembers(type))) {
+      if (!method.getModifiers().contains(Modifier.ABSTRACT)) {
+        continue;
+      }
+      final String methodName = method.getSimpleName().toString();
+      if ("getName".equals(methodName) && method.getParameters().size() == 1) {
+        // Named#getName(NameType); generated below.
+        continue;
+      }
+      if (!methodName.startsWith("get") || methodName.length() <= 3 || !method.getParameters().isEmpty() || !this.processingEnv.getTypeUtils().isSameType(stringType, method.getReturnType())) {
+        messager.printMessage(Diagnostic.Kind.ERROR, "Only abstract, parameterless, String-returning getters are supported by @NameTemplate", method);
+        valid = false;
+        continue;
+      }
+      final String nameType = decapitalize(methodName.substring(3));
+      if (templates.containsKey(nameType)) {
+        declaredTemplateAccessors.add(nameType);
+      } else {
+        atomics.put(nameType, method);
+      }
+    }
+
+    // Check the references.
+    for (final Entry<String, List<Object>> entry : templates.entrySet()) {
+      for (final Object segment : entry.getValue()) {
+        if (segment instanceof Reference) {
+          final String reference = ((Reference)segment).nameType;
+          if (!atomics.containsKey(reference) && !templates.containsKey(reference)) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "Template for NameType \"" + entry.getKey() + "\" refers to unknown NameType \"" + reference + "\"", type);
+            valid = false;
+          }
+        }
+      }
+    }
+    if (valid) {
+      final String cycle = findCycle(templates);
+      if (cycle != null) {
+        messager.printMessage(Diagnostic.Kind.ERROR, "Templates refer to each other circularly: " + cycle, type);
+        valid = false;
+      }
+    }
+
+    if (valid) {
+      try {
+        this.generate(type, isInterface, atomics.keySet(), templates, declaredTemplateAccessors);
+      } catch (final IOException ioException) {
+        messager.printMessage(Diagnostic.Kind.ERROR, "Could not generate a Named implementation: " + ioException, type);
+      }
+    }
+  }
+
+  /**
+   * Writes the source of the {@link com.edugility.nomen.Named}
+   * implementation for the supplied {@link TypeElement}.
+   *
+   * @param type the annotated {@link TypeElement}; must not be {@code
+   * null}
+   *
+   * @param isInterface whether {@code type} is an interface
+   *
+   * @param atomics the atomic {@link com.edugility.nomen.NameType}
+   * values; must not be {@code null}
+   *
+   * @param templates the parsed templates indexed by {@link
+   * com.edugility.nomen.NameType} value; must not be {@code null}
+   *
+   * @param declaredTemplateAccessors the {@link
+   * com.edugility.nomen.NameType} values of the templates for which
+   * {@code type} declares an abstract getter; must not be {@code
+   * null}
+   *
+   * @exception IOException if the source could not be written
+   */
+  private final void generate(final TypeElement type, final boolean isInterface, final Set<String> atomics, final Map<String, List<Object>> templates, final Set<String> declaredTemplateAccessors) throws IOException {
+    final String packageName = this.processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+    final String typeName = type.getQualifiedName().toString();
+    final String simpleName = getGeneratedSimpleName(type);
+    final String qualifiedName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+    final Writer writer = this.processingEnv.getFiler().createSourceFile(qualifiedName, type).openWriter();
+    final PrintWriter out = new PrintWriter(writer);
+    try {
+      if (!packageName.isEmpty()) {
+        out.println("package " + packageName + ";");
+        out.println();
+      }
+      out.println("/**");
+      out.println(" * A {@link com.edugility.nomen.Named} {@link " + typeName + "}.");
+      out.println(" *");
+      out.println(" * <p>Generated by " + NameTemplateProcessor.class.getName() + "; do not edit.</p>");
+      out.println(" */");
+      if (isInterface) {
+        out.println("public class " + simpleName + " implements " + typeName + ", com.edugility.nomen.Named {");
+      } else {
+        out.println("public class " + simpleName + " extends " + typeName + " implements com.edugility.nomen.Named {");
+      }
+      out.println();
+      out.println("  private static final long serialVersionUID = 1L;");
+      out.println();
+      for (final String nameType : atomics) {
+        out.println("  public static final com.edugility.nomen.NameType " + constantName(nameType) + " = new com.edugility.nomen.NameType(\"" + nameType + "\");");
+        out.println();
+      }
+      for (final String nameType : templates.keySet()) {
+        out.println("  public static final com.edugility.nomen.NameType " + constantName(nameType) + " = new com.edugility.nomen.NameType(\"" + nameType + "\");");
+        out.println();
+      }
+      for (final String nameType : atomics) {
+        out.println("  private String " + nameType + ";");
+        out.println();
+      }
+      final List<String> all = new ArrayList<String>(atomics);
+      all.addAll(templates.keySet());
+      out.println("  private transient com.edugility.nomen.Name[] " + NAMES_FIELD + ";");
+      out.println();
+
+      // Constructors.
+      out.println("  public " + simpleName + "() {");
+      out.println("    super();");
+      out.println("  }");
+      out.println();
+      if (!atomics.isEmpty()) {
+        final StringBuilder parameters = new StringBuilder();
+        for (final String nameType : atomics) {
+          if (parameters.length() > 0) {
+            parameters.append(", ");
+          }
+          parameters.append("final String ").append(nameType);
+        }
+        out.println("  public " + simpleName + "(" + parameters + ") {");
+        out.println("    super();");
+        for (final String nameType : atomics) {
+          out.println("    this." + nameType + " = " + nameType + ";");
+        }
+        out.println("  }");
+        out.println();
+      }
+
+      // Atomic accessors.
+      for (final String nameType : atomics) {
+        out.println("  @Override");
+        out.println("  public String " + getterName(nameType) + "() {");
+        out.println("    return this." + nameType + ";");
+        out.println("  }");
+        out.println();
+        out.println("  public void set" + getterName(nameType).substring(3) + "(final String " + nameType + ") {");
+        out.println("    this." + nameType + " = " + nameType + ";");
+        out.println("  }");
+        out.println();
+      }
+
+      // Template accessors.
+      for (final Entry<String, List<Object>> entry : templates.entrySet()) {
+        if (declaredTemplateAccessors.contains(entry.getKey())) {
+          out.println("  @Override");
+        }
+        out.println("  public String " + getterName(entry.getKey()) + "() {");
+        out.println("    final StringBuilder sb = new StringBuilder();");
+        for (final Object segment : entry.getValue()) {
+          if (segment instanceof Reference) {
+            final String reference = ((Reference)segment).nameType;
+            out.println("    append(sb, this." + getterName(reference) + "(), \"" + reference + "\");");
+          } else {
+            out.println("    sb.append(" + quote((String)segment) + ");");
+          }
+        }
+        out.println("    return collapseWhitespace(sb);");
+        out.println("  }");
+        out.println();
+      }
+
+      // Named#getName(NameType).
+      out.println("  @Override");
+      out.println("  public com.edugility.nomen.Name getName(final com.edugility.nomen.NameType nameType) {");
+      out.println("    if (nameType == null) {");
+      out.println("      return null;");
+      out.println("    }");
+      out.println("    final String type = nameType.getValue();");
+      for (int i = 0; i < all.size(); i++) {
+        final String nameType = all.get(i);
+        out.println("    " + (i == 0 ? "" : "} else ") + "if (\"" + nameType + "\".equals(type)) {");
+        out.println("      return this.getName(" + i + ", this." + getterName(nameType) + "());");
+      }
+      if (!all.isEmpty()) {
+        out.println("    }");
+      }
+      out.println("    return null;");
+      out.println("  }");
+      out.println();
+      out.println("  private com.edugility.nomen.Name getName(final int index, final String value) {");
+      out.println("    if (value == null) {");
+      out.println("      return null;");
+      out.println("    }");
+      out.println("    com.edugility.nomen.Name[] names = this." + NAMES_FIELD + ";");
+      out.println("    if (names == null) {");
+      out.println("      names = new com.edugility.nomen.Name[" + all.size() + "];");
+      out.println("      this." + NAMES_FIELD + " = names;");
+      out.println("    }");
+      out.println("    com.edugility.nomen.Name name = names[index];");
+      out.println("    if (name == null || !value.equals(name.getNameValue().getValue())) {");
+      out.println("      name = new com.edugility.nomen.Name(this, new com.edugility.nomen.NameValue(value, true));");
+      out.println("      names[index] = name;");
+      out.println("    }");
+      out.println("    return name;");
+      out.println("  }");
+      out.println();
+
+      // Helpers.
+      out.println("  private static void append(final StringBuilder sb, final String value, final String nameType) {");
+      out.println("    if (value == null) {");
+      out.println("      final String missing = com.edugility.nomen.MissingNamePolicy.getInstance().getValue(nameType);");
+      out.println("      if (missing == null) {");
+      out.println("        throw new IllegalStateException(\"unable to resolve variable '\" + nameType + \"'\");");
+      out.println("      }");
+      out.println("      sb.append(missing);");
+      out.println("    } else {");
+      out.println("      sb.append(value);");
+      out.println("    }");
+      out.println("  }");
+      out.println();
+      out.println("  private static String collapseWhitespace(final CharSequence s) {");
+      out.println("    final StringBuilder sb = new StringBuilder(s.length());");
+      out.println("    boolean whitespace = false;");
+      out.println("    for (int i = 0; i < s.length(); i++) {");
+      out.println("      final char c = s.charAt(i);");
+      out.println("      if (c == ' ' || c == '\\t' || c == '\\n' || c == '\\013' || c == '\\f' || c == '\\r') {");
+      out.println("        whitespace = true;");
+      out.println("      } else {");
+      out.println("        if (whitespace) {");
+      out.println("          sb.append(' ');");
+      out.println("          whitespace = false;");
+      out.println("        }");
+      out.println("        sb.append(c);");
+      out.println("      }");
+      out.println("    }");
+      out.println("    if (whitespace) {");
+      out.println("      sb.append(' ');");
+      out.println("    }");
+      out.println("    return sb.toString();");
+      out.println("  }");
+      out.println();
+      out.println("}");
+    } finally {
+      out.close();
+    }
+  }
+
+
+  /*
+   * Static methods.
+   */
+
+
+  /**
+   * Parses the supplied template into a {@link List} of literal
+   * {@link String}s and {@link Reference}s.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @param template the template to parse; must not be {@code null}
+   *
+   * @return a non-{@code null} {@link List} of segments
+   *
+   * @exception IllegalArgumentException if the template contains
+   * anything besides literal text and variable references
+   */
+  static final List<Object> parse(final String template) {
+    final List<Object> returnValue = new ArrayList<Object>();
+    final StringBuilder literal = new StringBuilder();
+    final int length = template.length();
+    int i = 0;
+    while (i < length) {
+      final char c = template.charAt(i);
+      if ((c == '$' || c == '@') && i + 1 < length) {
+        if (template.charAt(i + 1) == '{') {
+          final int end = template.indexOf('}', i + 2);
+          if (end < 0) {
+            throw new IllegalArgumentException("unterminated expression at index " + i);
+          }
+          final String expression = template.substring(i + 2, end).trim();
+          if (!SourceVersion.isIdentifier(expression) || SourceVersion.isKeyword(expression)) {
+            throw new IllegalArgumentException("expression \"" + expression + "\" is not a variable reference");
+          }
+          if (literal.length() > 0) {
+            returnValue.add(literal.toString());
+            literal.setLength(0);
+          }
+          returnValue.add(new Reference(expression));
+          i = end + 1;
+          continue;
+        } else if (c == '@' && Character.isJavaIdentifierStart(template.charAt(i + 1))) {
+          int j = i + 1;
+          while (j < length && Character.isJavaIdentifierPart(template.charAt(j))) {
+            j++;
+          }
+          if (j < length && template.charAt(j) == '{') {
+            throw new IllegalArgumentException("orb tag \"" + template.substring(i, j) + "{\" is not supported");
+          }
+        }
+      }
+      literal.append(c);
+      i++;
+    }
+    if (literal.length() > 0) {
+      returnValue.add(literal.toString());
+    }
+    return returnValue;
+  }
+
+  /**
+   * Returns a description of a cycle among the supplied templates'
+   * references, or {@code null} if there is none.
+   *
+   * @param templates the parsed templates indexed by {@link
+   * com.edugility.nomen.NameType} value; must not be {@code null}
+   *
+   * @return a description of a cycle, or {@code null}
+   */
+  private static final String findCycle(final Map<String, List<Object>> templates) {
+    final Set<String> done = new HashSet<String>();
+    for (final String nameType : templates.keySet()) {
+      final String cycle = findCycle(nameType, templates, new ArrayList<String>(), done);
+      if (cycle != null) {
+        return cycle;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Depth-first search helper for {@link #findCycle(Map)}.
+   *
+   * @param nameType the {@link com.edugility.nomen.NameType} value to
+   * visit; must not be {@code null}
+   *
+   * @param templates the parsed templates; must not be {@code null}
+   *
+   * @param path the path being searched; must not be {@code null}
+   *
+   * @param done {@link com.edugility.nomen.NameType} values known to
+   * lie on no cycle; must not be {@code null}
+   *
+   * @return a description of a cycle, or {@code null}
+   */
+  private static final String findCycle(final String nameType, final Map<String, List<Object>> templates, final List<String> path, final Set<String> done) {
+    final int index = path.indexOf(nameType);
+    if (index >= 0) {
+      final StringBuilder sb = new StringBuilder();
+      for (final String element : path.subList(index, path.size())) {
+        sb.append(element).append(" -> ");
+      }
+      return sb.append(nameType).toString();
+    }
+    final List<Object> segments = templates.get(nameType);
+    if (segments == null || done.contains(nameType)) {
+      return null;
+    }
+    path.add(nameType);
+    for (final Object segment : segments) {
+      if (segment instanceof Reference) {
+        final String cycle = findCycle(((Reference)segment).nameType, templates, path, done);
+        if (cycle != null) {
+          return cycle;
+        }
+      }
+    }
+    path.remove(path.size() - 1);
+    done.add(nameType);
+    return null;
+  }
+
+  /**
+   * Returns the simple name of the class generated for the supplied
+   * {@link TypeElement}: the names of it and its enclosing types
+   * joined by underscores, followed by {@code Named}.
+   *
+   * @param type the annotated {@link TypeElement}; must not be {@code
+   * null}
+   *
+   * @return the simple name of the generated class; never {@code
+   * null}
+   */
+  private static final String getGeneratedSimpleName(final TypeElement type) {
+    final StringBuilder sb = new StringBuilder(type.getSimpleName());
+    for (Element enclosing = type.getEnclosingElement(); enclosing instanceof TypeElement; enclosing = enclosing.getEnclosingElement()) {
+      sb.insert(0, '_').insert(0, enclosing.getSimpleName());
+    }
+    return sb.append("Named").toString();
+  }
+
+  /**
+   * Returns the name of the getter for the supplied {@link
+   * com.edugility.nomen.NameType} value.
+   *
+   * @param nameType the {@link com.edugility.nomen.NameType} value;
+   * must not be {@code null} or empty
+   *
+   * @return the getter name; never {@code null}
+   */
+  private static final String getterName(final String nameType) {
+    return "get" + Character.toUpperCase(nameType.charAt(0)) + nameType.substring(1);
+  }
+
+  /**
+   * Converts the portion of a getter name following {@code get} into
+   * a {@link com.edugility.nomen.NameType} value following the
+   * JavaBeans conventions: {@code FirstName} becomes {@code
+   * firstName} but {@code URL} stays {@code URL}.
+   *
+   * @param s the {@link String} to convert; must not be {@code null}
+   * or empty
+   *
+   * @return the converted {@link String}; never {@code null}
+   */
+  private static final String decapitalize(final String s) {
+    if (s.length() > 1 && Character.isUpperCase(s.charAt(0)) && Character.isUpperCase(s.charAt(1))) {
+      return s;
+    }
+    return Character.toLowerCase(s.charAt(0)) + s.substring(1);
+  }
+
+  /**
+   * Converts the supplied {@link com.edugility.nomen.NameType} value
+   * into the name of a constant: {@code fullName} becomes {@code
+   * FULL_NAME}.
+   *
+   * @param nameType the {@link com.edugility.nomen.NameType} value;
+   * must not be {@code null}
+   *
+   * @return the constant name; never {@code null}
+   */
+  private static final String constantName(final String nameType) {
+    final StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < nameType.length(); i++) {
+      final char c = nameType.charAt(i);
+      if (i > 0 && Character.isUpperCase(c) && !Character.isUpperCase(nameType.charAt(i - 1))) {
+        sb.append('_');
+      }
+      sb.append(Character.toUpperCase(c));
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Returns a Java string literal representing the supplied {@link
+   * String}.
+   *
+   * <p>Control and non-ASCII characters are escaped, the former in
+   * octal so that no Unicode escape can introduce a line terminator
+   * into the generated source.</p>
+   *
+   * @param s the {@link String} to quote; must not be {@code null}
+   *
+   * @return a Java string literal; never {@code null}
+   */
+  private static final String quote(final String s) {
+    final StringBuilder sb = new StringBuilder("\"");
+    for (int i = 0; i < s.length(); i++) {
+      final char c = s.charAt(i);
+      if (c == '"' || c == '\\') {
+        sb.append('\\').append(c);
+      } else if (c < 0x20 || c == 0x7f) {
+        sb.append(String.format("\\%03o", Integer.valueOf(c)));
+      } else if (c > 0x7f) {
+        sb.append(String.format("\\u%04x", Integer.valueOf(c)));
+      } else {
+        sb.append(c);
+      }
+    }
+    return sb.append('"').toString();
+  }
+
+
+  /*
+   * Inner and nested classes.
+   */
+
+
+  /**
+   * A reference, within a parsed template, to a {@link
+   * com.edugility.nomen.NameType}.
+   */
+  static final class Reference {
+
+    /**
+     * The value of the referenced {@link
+     * com.edugility.nomen.NameType}; never {@code null}.
+     */
+    final String nameType;
+
+    /**
+     * Creates a new {@link Reference}.
+     *
+     * @param nameType the value of the referenced {@link
+     * com.edugility.nomen.NameType}; must not be {@code null}
+     */
+    Reference(final String nameType) {
+      super();
+      assert nameType != null;
+      this.nameType = nameType;
+    }
+
+  }
+
+}
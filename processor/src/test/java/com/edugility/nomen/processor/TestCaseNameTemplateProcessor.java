@@ -0,0 +1,215 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen.processor;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.nio.charset.Charset;
+
+import java.nio.file.Files;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import com.edugility.nomen.MissingNamePolicy;
+import com.edugility.nomen.Name;
+import com.edugility.nomen.NameType;
+import com.edugility.nomen.Named;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestCaseNameTemplateProcessor {
+
+  private File directory;
+
+  public TestCaseNameTemplateProcessor() {
+    super();
+  }
+
+  @Before
+  public void setUp() throws IOException {
+    this.directory = File.createTempFile("nomen-processor", "");
+    assertTrue(this.directory.delete());
+    assertTrue(this.directory.mkdirs());
+  }
+
+  private final List<Diagnostic<? extends JavaFileObject>> compile(final String className, final String source) throws IOException {
+    final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    assertNotNull(compiler);
+    final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+    final StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, null);
+    try {
+      final JavaFileObject file = new SimpleJavaFileObject(URI.create("string:///" + className.replace('.', '/') + ".java"), JavaFileObject.Kind.SOURCE) {
+          @Override
+          public CharSequence getCharContent(final boolean ignoreEncodingErrors) {
+            return source;
+          }
+        };
+      final List<String> options = Arrays.asList("-classpath", System.getProperty("java.class.path"), "-d", this.directory.getPath(), "-s", this.directory.getPath());
+      final JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, options, null, Collections.singleton(file));
+      task.setProcessors(Collections.singleton(new NameTemplateProcessor()));
+      task.call();
+    } finally {
+      fileManager.close();
+    }
+    final List<Diagnostic<? extends JavaFileObject>> errors = new ArrayList<Diagnostic<? extends JavaFileObject>>();
+    for (final Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+      if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+        errors.add(diagnostic);
+      }
+    }
+    return errors;
+  }
+
+  @Test
+  public void testGeneratedNamed() throws Exception {
+    final String source =
+      "package sample;\n" +
+      "import com.edugility.nomen.processor.NameTemplate;\n" +
+      "import com.edugility.nomen.processor.NameTemplates;\n" +
+      "@NameTemplates({\n" +
+      "  @NameTemplate(type = \"fullName\", value = \"${firstName}  ${lastName}\"),\n" +
+      "  @NameTemplate(type = \"formalName\", value = \"Dr. @{fullName}\")\n" +
+      "})\n" +
+      "public interface Person {\n" +
+      "  String getFirstName();\n" +
+      "  String getLastName();\n" +
+      "}\n";
+    final List<Diagnostic<? extends JavaFileObject>> errors = this.compile("sample.Person", source);
+    assertTrue(errors.toString(), errors.isEmpty());
+    final URLClassLoader loader = new URLClassLoader(new URL[] { this.directory.toURI().toURL() }, this.getClass().getClassLoader());
+    try {
+      final Class<?> c = loader.loadClass("sample.PersonNamed");
+      final Constructor<?> constructor = c.getConstructor(String.class, String.class);
+      final Named named = (Named)constructor.newInstance("Laird", "Nelson");
+      assertEquals("Laird Nelson", c.getMethod("getFullName").invoke(named));
+      assertEquals("Dr. Laird Nelson", c.getMethod("getFormalName").invoke(named));
+      assertEquals("Laird", named.getName(new NameType("firstName")).getValue());
+      assertEquals("Dr. Laird Nelson", named.getName(new NameType("formalName")).getValue());
+      assertSame(named, named.getName(new NameType("fullName")).getNamed());
+      assertNull(named.getName(new NameType("nickname")));
+      assertEquals(new NameType("fullName"), c.getField("FULL_NAME").get(null));
+
+      // The same Name is returned until its value changes.
+      final Name fullName = named.getName(new NameType("fullName"));
+      assertSame(fullName, named.getName(new NameType("fullName")));
+      c.getMethod("setFirstName", String.class).invoke(named, "Lee");
+      assertNotSame(fullName, named.getName(new NameType("fullName")));
+      assertEquals("Lee Nelson", named.getName(new NameType("fullName")).getValue());
+
+      // Missing atomic values honour the MissingNamePolicy.
+      c.getMethod("setFirstName", String.class).invoke(named, (Object)null);
+      try {
+        c.getMethod("getFullName").invoke(named);
+        fail();
+      } catch (final InvocationTargetException expected) {
+        assertTrue(expected.getCause() instanceof IllegalStateException);
+      }
+      MissingNamePolicy.setInstance(MissingNamePolicy.PLACEHOLDER);
+      try {
+        assertEquals("${firstName} Nelson", c.getMethod("getFullName").invoke(named));
+      } finally {
+        MissingNamePolicy.setInstance(null);
+      }
+    } finally {
+      loader.close();
+    }
+  }
+
+  @Test
+  public void testDeclaredTemplateAccessorIsOverridden() throws Exception {
+    final String source =
+      "package sample;\n" +
+      "import com.edugility.nomen.processor.NameTemplate;\n" +
+      "@NameTemplate(type = \"fullName\", value = \"${firstName} ${lastName}\")\n" +
+      "public interface Patient {\n" +
+      "  String getFirstName();\n" +
+      "  String getLastName();\n" +
+      "  String getFullName();\n" +
+      "}\n";
+    final List<Diagnostic<? extends JavaFileObject>> errors = this.compile("sample.Patient", source);
+    assertTrue(errors.toString(), errors.isEmpty());
+    final String generated = new String(Files.readAllBytes(new File(this.directory, "sample/PatientNamed.java").toPath()), Charset.forName("UTF-8"));
+    assertTrue(generated, generated.contains("@Override\n  public String getFullName()"));
+  }
+
+  @Test
+  public void testUnknownNameType() throws Exception {
+    final String source =
+      "package sample;\n" +
+      "import com.edugility.nomen.processor.NameTemplate;\n" +
+      "@NameTemplate(type = \"fullName\", value = \"${firstName} ${surname}\")\n" +
+      "public interface Broken {\n" +
+      "  String getFirstName();\n" +
+      "}\n";
+    final List<Diagnostic<? extends JavaFileObject>> errors = this.compile("sample.Broken", source);
+    assertEquals(1, errors.size());
+    assertTrue(errors.get(0).getMessage(null).contains("surname"));
+  }
+
+  @Test
+  public void testUnsupportedTemplates() throws Exception {
+    final String source =
+      "package sample;\n" +
+      "import com.edugility.nomen.processor.NameTemplate;\n" +
+      "import com.edugility.nomen.processor.NameTemplates;\n" +
+      "@NameTemplates({\n" +
+      "  @NameTemplate(type = \"a\", value = \"${b}\"),\n" +
+      "  @NameTemplate(type = \"b\", value = \"${a}\"),\n" +
+      "  @NameTemplate(type = \"c\", value = \"${firstName.toUpperCase()}\")\n" +
+      "})\n" +
+      "public interface Circular {\n" +
+      "  String getFirstName();\n" +
+      "}\n";
+    final List<Diagnostic<? extends JavaFileObject>> errors = this.compile("sample.Circular", source);
+    assertEquals(errors.toString(), 1, errors.size());
+    assertTrue(errors.get(0).getMessage(null).contains("not a variable reference"));
+  }
+
+}
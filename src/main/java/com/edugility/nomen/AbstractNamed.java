@@ -32,15 +32,34 @@ import java.io.ObjectInputStream;
 import java.io.Serializable;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 /**
  * An implementation of the {@link MutableNamed} interface that uses a
  * {@link NameSupport} delegate internally.
  *
+ * <p>Whenever the {@link Name}s indexed under some {@link NameType}s
+ * change, an {@link AbstractNamed} notifies its {@linkplain
+ * #addPropertyListener(String, PropertyListener) listeners} with a
+ * single change to its {@code names} property whose new value is an
+ * unmodifiable {@link Set} of those {@link NameType}s.</p>
+ *
+ * <p>An {@link AbstractNamed} also remembers which templated {@link
+ * Name}s looked up which {@link NameType}s in it the last time they
+ * were {@linkplain Name#getValue() rendered}, whether or not it had a
+ * {@link Name} indexed under them.  When a {@link Name} is put or
+ * removed under one of those {@link NameType}s, the listeners for
+ * those {@link Name}s' {@code value} property are notified.</p>
+ *
  * @author <a href="http://about.me/lairdnelson"
  * target="_parent">Laird Nelson</a>
  *
@@ -83,6 +102,70 @@ public abstract class AbstractNamed implements MutableNamed {
    */
   private transient NameSupport nameSupport;
 
+  /**
+   * The {@link PropertyListeners} notified when a bound property of
+   * this {@link AbstractNamed} changes.
+   *
+   * <p>This field may be {@code null} until a listener is first
+   * {@linkplain #addPropertyListener(String, PropertyListener)
+   * added}.</p>
+   */
+  private transient volatile PropertyListeners<AbstractNamed> listeners;
+
+  /**
+   * The number of {@linkplain #beginUpdate() updates} in progress.
+   *
+   * @see #beginUpdate()
+   *
+   * @see #commit()
+   */
+  private transient int updateDepth;
+
+  /**
+   * The {@link NameType}s whose {@link Name}s have changed during the
+   * updates in progress.
+   *
+   * <p>This field is {@code null} unless a change has been deferred
+   * while an update is in progress.</p>
+   *
+   * @see #commit()
+   */
+  private transient Set<NameType> deferredNameTypes;
+
+  /**
+   * The {@link NameTypeFallbacks} consulted by the {@link
+   * #resolveName(NameType)} method.
+   *
+   * <p>This field may be {@code null} in which case the {@linkplain
+   * NameTypeFallbacks#getInstance() shared
+   * <code>NameTypeFallbacks</code>} is consulted.</p>
+   *
+   * @see #setNameTypeFallbacks(NameTypeFallbacks)
+   */
+  private transient volatile NameTypeFallbacks nameTypeFallbacks;
+
+  /**
+   * A cache of the outcomes of walking fallback chains, discarded
+   * whenever this {@link AbstractNamed}'s {@link Name}s change.
+   *
+   * <p>This field may be {@code null}.</p>
+   *
+   * @see #resolveName(NameType)
+   */
+  private transient volatile FallbackPaths fallbackPaths;
+
+  /**
+   * The templated {@link Name}s whose most recent rendering looked up
+   * a {@link NameType} in this {@link AbstractNamed}, indexed by that
+   * {@link NameType}.
+   *
+   * <p>This field may be {@code null}.  The arrays it contains are
+   * replaced, never modified.</p>
+   *
+   * @see #addDependent(NameType, Name)
+   */
+  private transient volatile ConcurrentMap<NameType, Name[]> dependents;
+
 
   /*
    * Constructors.
@@ -110,16 +193,185 @@ public abstract class AbstractNamed implements MutableNamed {
     return this.names.get(nameType);
   }
 
+  /**
+   * Returns the {@link Name} indexed under the supplied {@link
+   * NameType} or, if there is none, the {@link Name} indexed under
+   * the first of its {@linkplain NameTypeFallbacks#getFallbacks(NameType)
+   * fallbacks} that has one.
+   *
+   * <p>This method may return {@code null}.</p>
+   *
+   * <p>Which fallback, if any, a {@link NameType} resolves to is
+   * cached until this {@link AbstractNamed}'s {@link Name}s or its
+   * {@linkplain #getNameTypeFallbacks() <code>NameTypeFallbacks</code>}
+   * change, so a missing {@link Name} costs a chain walk only
+   * once.</p>
+   *
+   * @param nameType the {@link NameType} in question; may be {@code
+   * null}
+   *
+   * @return the resolved {@link Name}, or {@code null}
+   *
+   * @see NameTypeFallbacks
+   */
+  public Name resolveName(final NameType nameType) {
+    Name returnValue = this.getName(nameType);
+    if (returnValue == null && nameType != null) {
+      final NameTypeFallbacks fallbacks = this.getNameTypeFallbacks();
+      if (!fallbacks.isEmpty()) {
+        final int version = fallbacks.getVersion();
+        FallbackPaths fallbackPaths = this.fallbackPaths;
+        if (fallbackPaths == null || fallbackPaths.fallbacks != fallbacks || fallbackPaths.version != version) {
+          fallbackPaths = new FallbackPaths(fallbacks, version);
+          this.fallbackPaths = fallbackPaths;
+        }
+        NameType resolved = fallbackPaths.paths.get(nameType);
+        if (resolved == null) {
+          resolved = fallbacks.getFallback(this, nameType);
+          if (resolved == null) {
+            // Record the absence of any fallback as a path to itself.
+            resolved = nameType;
+          }
+          fallbackPaths.paths.putIfAbsent(nameType, resolved);
+        }
+        if (resolved != nameType) {
+          returnValue = this.getName(resolved);
+        }
+      }
+    }
+    return returnValue;
+  }
+
+  /**
+   * Returns the {@link NameTypeFallbacks} consulted by the {@link
+   * #resolveName(NameType)} method.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return a non-{@code null} {@link NameTypeFallbacks}
+   *
+   * @see #setNameTypeFallbacks(NameTypeFallbacks)
+   */
+  public NameTypeFallbacks getNameTypeFallbacks() {
+    final NameTypeFallbacks nameTypeFallbacks = this.nameTypeFallbacks;
+    return nameTypeFallbacks == null ? NameTypeFallbacks.getInstance() : nameTypeFallbacks;
+  }
+
+  /**
+   * Sets the {@link NameTypeFallbacks} consulted by the {@link
+   * #resolveName(NameType)} method.
+   *
+   * @param nameTypeFallbacks the new {@link NameTypeFallbacks}; may
+   * be {@code null} in which case the {@linkplain
+   * NameTypeFallbacks#getInstance() shared one} will be used
+   */
+  public void setNameTypeFallbacks(final NameTypeFallbacks nameTypeFallbacks) {
+    this.nameTypeFallbacks = nameTypeFallbacks;
+    this.fallbackPaths = null;
+  }
+
+  /**
+   * Called after the {@link Name}s this {@link AbstractNamed} indexes
+   * have changed, and before anyone is notified, to discard whatever
+   * has been cached about them.
+   *
+   * <p>This implementation {@linkplain #clearFallbackPaths() discards
+   * the cache of fallback chain walks}.  Overrides must call it.</p>
+   *
+   * @param nameTypes the {@link NameType}s whose {@link Name}s
+   * changed; must not be {@code null}
+   */
+  void namesChanged(final Collection<? extends NameType> nameTypes) {
+    this.fallbackPaths = null;
+  }
+
+  /**
+   * Discards the cache of fallback chain walks maintained by the
+   * {@link #resolveName(NameType)} method, for use when the {@link
+   * Name}s this {@link AbstractNamed} {@linkplain #getName(NameType)
+   * returns} have changed by some means other than its own mutator
+   * methods.
+   */
+  final void clearFallbackPaths() {
+    this.fallbackPaths = null;
+  }
+
   @Override
   public Name putName(final NameType nameType, final Name name) {
     assert this.nameSupport != null;
-    return this.nameSupport.putName(this.names, nameType, name);
+    final Name.ValueChange valueChange = this.prepareValueChange(Collections.singleton(nameType));
+    final Name returnValue = this.nameSupport.putName(this.names, nameType, name);
+    this.namesChanged(Collections.singleton(nameType));
+    if (returnValue != name && this.listeners != null) {
+      this.fireNamesChange(Collections.singleton(nameType));
+    }
+    if (valueChange != null) {
+      valueChange.fire();
+    }
+    return returnValue;
   }
 
   @Override
   public Name removeName(final NameType nameType) {
     assert this.nameSupport != null;
-    return this.nameSupport.removeName(this.names, nameType);
+    final Name.ValueChange valueChange = this.prepareValueChange(Collections.singleton(nameType));
+    final Name returnValue = this.nameSupport.removeName(this.names, nameType);
+    this.namesChanged(Collections.singleton(nameType));
+    if (returnValue != null && this.listeners != null) {
+      this.fireNamesChange(Collections.singleton(nameType));
+    }
+    if (valueChange != null) {
+      valueChange.fire();
+    }
+    return returnValue;
+  }
+
+  /**
+   * Puts all the supplied {@link Name}s, indexed by {@link NameType},
+   * in one batch, notifying listeners once.
+   *
+   * @param names the {@link Name}s to put; must not be {@code null}
+   * and must not contain {@code null} keys or values
+   *
+   * @exception IllegalArgumentException if {@code names} is {@code
+   * null} or contains {@code null} keys or values
+   *
+   * @see NameSupport#putNames(Map, Map)
+   */
+  @Override
+  public void putNames(final Map<? extends NameType, ? extends Name> names) {
+    assert this.nameSupport != null;
+    final Name.ValueChange valueChange = names == null ? null : this.prepareValueChange(names.keySet());
+    final Set<NameType> changed = this.nameSupport.putNames(this.names, names);
+    this.namesChanged(changed);
+    this.fireNamesChange(changed);
+    if (valueChange != null) {
+      valueChange.fire();
+    }
+  }
+
+  /**
+   * Removes the {@link Name}s indexed under the supplied {@link
+   * NameType}s in one batch, notifying listeners once.
+   *
+   * @param nameTypes the {@link NameType}s whose {@link Name}s should
+   * be removed; must not be {@code null}
+   *
+   * @exception IllegalArgumentException if {@code nameTypes} is
+   * {@code null}
+   *
+   * @see NameSupport#removeNames(Map, Collection)
+   */
+  @Override
+  public void removeNames(final Collection<? extends NameType> nameTypes) {
+    assert this.nameSupport != null;
+    final Name.ValueChange valueChange = nameTypes == null ? null : this.prepareValueChange(nameTypes);
+    final Set<NameType> changed = this.nameSupport.removeNames(this.names, nameTypes);
+    this.namesChanged(changed);
+    this.fireNamesChange(changed);
+    if (valueChange != null) {
+      valueChange.fire();
+    }
   }
 
   public Set<? extends NameType> getNameTypes() {
@@ -132,6 +384,275 @@ public abstract class AbstractNamed implements MutableNamed {
     return this.nameSupport.getNames(this.names);
   }
 
+  /**
+   * Registers the supplied templated {@link Name} as having looked up
+   * the supplied {@link NameType} in this {@link AbstractNamed}, so
+   * that its listeners are notified when a {@link Name} is put or
+   * removed under it.
+   *
+   * @param nameType the {@link NameType} looked up; must not be
+   * {@code null}
+   *
+   * @param dependent the {@link Name} that looked it up; must not be
+   * {@code null}
+   *
+   * @see #removeDependent(NameType, Name)
+   */
+  final synchronized void addDependent(final NameType nameType, final Name dependent) {
+    assert nameType != null;
+    assert dependent != null;
+    ConcurrentMap<NameType, Name[]> dependents = this.dependents;
+    if (dependents == null) {
+      dependents = new ConcurrentHashMap<NameType, Name[]>();
+      this.dependents = dependents;
+    }
+    final Name[] old = dependents.get(nameType);
+    if (old == null) {
+      dependents.put(nameType, new Name[] { dependent });
+    } else {
+      for (final Name name : old) {
+        if (name == dependent) {
+          return;
+        }
+      }
+      final Name[] newDependents = new Name[old.length + 1];
+      System.arraycopy(old, 0, newDependents, 0, old.length);
+      newDependents[old.length] = dependent;
+      dependents.put(nameType, newDependents);
+    }
+  }
+
+  /**
+   * Unregisters the supplied templated {@link Name} as having looked
+   * up the supplied {@link NameType} in this {@link AbstractNamed}.
+   *
+   * @param nameType the {@link NameType}; must not be {@code null}
+   *
+   * @param dependent the {@link Name}; may be {@code null}
+   *
+   * @see #addDependent(NameType, Name)
+   */
+  final synchronized void removeDependent(final NameType nameType, final Name dependent) {
+    assert nameType != null;
+    final ConcurrentMap<NameType, Name[]> dependents = this.dependents;
+    if (dependents != null) {
+      final Name[] old = dependents.get(nameType);
+      if (old != null) {
+        for (int i = 0; i < old.length; i++) {
+          if (old[i] == dependent) {
+            if (old.length == 1) {
+              dependents.remove(nameType);
+            } else {
+              final Name[] newDependents = new Name[old.length - 1];
+              System.arraycopy(old, 0, newDependents, 0, i);
+              System.arraycopy(old, i + 1, newDependents, i, old.length - i - 1);
+              dependents.put(nameType, newDependents);
+            }
+            break;
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Adds to the supplied {@link Set} the templated {@link Name}s
+   * whose values may change when a {@link Name} is put or removed
+   * under the supplied {@link NameType} in this {@link
+   * AbstractNamed}, creating the {@link Set} if necessary.
+   *
+   * <p>This method may return {@code null}.</p>
+   *
+   * <p>This implementation adds the {@link Name}s {@linkplain
+   * #addDependent(NameType, Name) registered} for it.  Subclasses
+   * whose {@link Name}s are visible through other {@link Named}s add
+   * those {@link Named}s' too.</p>
+   *
+   * @param nameType the {@link NameType}; must not be {@code null}
+   *
+   * @param dependents the {@link Set} to add to, compared by
+   * identity; may be {@code null}
+   *
+   * @return {@code dependents}, or a new {@link Set} if it was {@code
+   * null} and there was something to add, or {@code null}
+   */
+  Set<Name> addDependents(final NameType nameType, final Set<Name> dependents) {
+    assert nameType != null;
+    Set<Name> returnValue = dependents;
+    final ConcurrentMap<NameType, Name[]> map = this.dependents;
+    if (map != null) {
+      final Name[] names = map.get(nameType);
+      if (names != null) {
+        if (returnValue == null) {
+          returnValue = Collections.newSetFromMap(new IdentityHashMap<Name, Boolean>());
+        }
+        Collections.addAll(returnValue, names);
+      }
+    }
+    return returnValue;
+  }
+
+  /**
+   * Returns a {@link Name.ValueChange} covering the templated {@link
+   * Name}s whose values may change when {@link Name}s are put or
+   * removed under the supplied {@link NameType}s, or {@code null} if
+   * there are none.
+   *
+   * @param nameTypes the {@link NameType}s about to change; must not
+   * be {@code null}
+   *
+   * @return a {@link Name.ValueChange}, or {@code null}
+   */
+  private final Name.ValueChange prepareValueChange(final Collection<? extends NameType> nameTypes) {
+    assert nameTypes != null;
+    Set<Name> dependents = null;
+    for (final NameType nameType : nameTypes) {
+      if (nameType != null) {
+        dependents = this.addDependents(nameType, dependents);
+      }
+    }
+    if (dependents == null || dependents.isEmpty()) {
+      return null;
+    }
+    return new Name.ValueChange(dependents);
+  }
+
+  /**
+   * Adds the supplied {@link PropertyListener} to this {@link
+   * AbstractNamed}, listening for changes to the property identified
+   * by the value of the {@code name} parameter.
+   *
+   * @param name the name of the property to be listened to, such as
+   * {@code names}; if {@code null} then the listener will be notified
+   * of changes to all properties
+   *
+   * @param listener the {@link PropertyListener} to add; if {@code
+   * null}, then no action will be taken
+   *
+   * @see #removePropertyListener(String, PropertyListener)
+   */
+  public void addPropertyListener(final String name, final PropertyListener<? super AbstractNamed> listener) {
+    if (listener != null) {
+      PropertyListeners<AbstractNamed> listeners = this.listeners;
+      if (listeners == null) {
+        synchronized (this) {
+          listeners = this.listeners;
+          if (listeners == null) {
+            listeners = new PropertyListeners<AbstractNamed>();
+            this.listeners = listeners;
+          }
+        }
+      }
+      listeners.add(name, listener);
+    }
+  }
+
+  /**
+   * Removes one occurrence of the supplied {@link PropertyListener}
+   * as it was {@linkplain #addPropertyListener(String,
+   * PropertyListener) added} for the property identified by the value
+   * of the {@code name} parameter.
+   *
+   * @param name the name of the property the listener was added for,
+   * or {@code null} if it was added for all properties
+   *
+   * @param listener the {@link PropertyListener} to remove; if {@code
+   * null}, then no action will be taken
+   *
+   * @see #addPropertyListener(String, PropertyListener)
+   */
+  public void removePropertyListener(final String name, final PropertyListener<? super AbstractNamed> listener) {
+    final PropertyListeners<AbstractNamed> listeners = this.listeners;
+    if (listener != null && listeners != null) {
+      listeners.remove(name, listener);
+    }
+  }
+
+  /**
+   * Returns {@code true} if a change to the property identified by
+   * the supplied {@code name} would be delivered to at least one
+   * {@link PropertyListener}.
+   *
+   * @param name the name of a property; may be {@code null} in which
+   * case only listeners to all properties are considered
+   *
+   * @return {@code true} if a change to the property would be
+   * delivered to at least one listener
+   */
+  public boolean hasPropertyListeners(final String name) {
+    final PropertyListeners<AbstractNamed> listeners = this.listeners;
+    return listeners != null && listeners.hasListeners(name);
+  }
+
+  /**
+   * Begins an update of this {@link AbstractNamed}.  Until the
+   * matching call to {@link #commit()}, changes to the {@code names}
+   * property are not delivered to listeners but accumulated, so that
+   * {@link #commit()} delivers at most one change naming every {@link
+   * NameType} whose {@link Name} changed.
+   *
+   * <p>Updates may be nested; changes are delivered when the
+   * outermost update is committed.  Updates are not a concurrency
+   * control mechanism.</p>
+   *
+   * @see #commit()
+   *
+   * @see Name#beginUpdate()
+   */
+  public void beginUpdate() {
+    this.updateDepth++;
+  }
+
+  /**
+   * Ends an update {@linkplain #beginUpdate() begun} earlier and, if
+   * it is the outermost one, delivers the change to the {@code names}
+   * property it accumulated, if any.
+   *
+   * @exception IllegalStateException if no update is in progress
+   *
+   * @see #beginUpdate()
+   */
+  public void commit() {
+    if (this.updateDepth <= 0) {
+      throw new IllegalStateException("no update in progress");
+    }
+    this.updateDepth--;
+    if (this.updateDepth == 0) {
+      final Set<NameType> deferredNameTypes = this.deferredNameTypes;
+      if (deferredNameTypes != null) {
+        this.deferredNameTypes = null;
+        this.fireNamesChange(deferredNameTypes);
+      }
+    }
+  }
+
+  /**
+   * Notifies {@link PropertyListener}s listening to the {@code names}
+   * property that the {@link Name}s indexed under the supplied {@link
+   * NameType}s have changed.
+   *
+   * @param nameTypes the {@link NameType}s whose {@link Name}s
+   * changed; may be {@code null} or empty in which case no action
+   * will be taken; while an update is in progress, not retained
+   */
+  private final void fireNamesChange(final Set<NameType> nameTypes) {
+    final PropertyListeners<AbstractNamed> listeners = this.listeners;
+    if (listeners != null && nameTypes != null && !nameTypes.isEmpty()) {
+      if (this.updateDepth > 0) {
+        if (listeners.hasListeners("names")) {
+          Set<NameType> deferredNameTypes = this.deferredNameTypes;
+          if (deferredNameTypes == null) {
+            deferredNameTypes = new LinkedHashSet<NameType>();
+            this.deferredNameTypes = deferredNameTypes;
+          }
+          deferredNameTypes.addAll(nameTypes);
+        }
+      } else {
+        listeners.fire(this, "names", null, Collections.unmodifiableSet(nameTypes));
+      }
+    }
+  }
+
   private void readObject(final ObjectInputStream stream) throws ClassNotFoundException, IOException {
     if (stream != null) {
       stream.defaultReadObject();
@@ -144,4 +665,57 @@ public abstract class AbstractNamed implements MutableNamed {
     }
   }
 
+
+
+  /*
+   * Inner and nested classes.
+   */
+
+
+  /**
+   * The outcomes of walking the chains of a particular version of a
+   * particular {@link NameTypeFallbacks}, indexed by the {@link
+   * NameType} heading each chain.
+   *
+   * @see AbstractNamed#resolveName(NameType)
+   */
+  private static final class FallbackPaths {
+
+    /**
+     * The {@link NameTypeFallbacks} whose chains were walked; never
+     * {@code null}.
+     */
+    private final NameTypeFallbacks fallbacks;
+
+    /**
+     * The {@linkplain NameTypeFallbacks#getVersion() version} of
+     * {@link #fallbacks} whose chains were walked.
+     */
+    private final int version;
+
+    /**
+     * The fallback each chain resolved to, or the {@link NameType}
+     * heading it if none did; never {@code null}.
+     */
+    private final ConcurrentMap<NameType, NameType> paths;
+
+    /**
+     * Creates a new, empty {@link FallbackPaths}.
+     *
+     * @param fallbacks the {@link NameTypeFallbacks} whose chains
+     * will be walked; must not be {@code null}
+     *
+     * @param version the {@linkplain NameTypeFallbacks#getVersion()
+     * version} of {@code fallbacks} whose chains will be walked
+     */
+    private FallbackPaths(final NameTypeFallbacks fallbacks, final int version) {
+      super();
+      assert fallbacks != null;
+      this.fallbacks = fallbacks;
+      this.version = version;
+      this.paths = new ConcurrentHashMap<NameType, NameType>();
+    }
+
+  }
+
 }
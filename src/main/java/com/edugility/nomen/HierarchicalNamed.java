@@ -0,0 +1,475 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+
+import java.lang.ref.WeakReference;
+
+import java.util.Collection;
+import java.util.Set;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An {@link AbstractNamed} that inherits, from a {@linkplain
+ * #getParent() parent} {@link HierarchicalNamed}, any {@link Name}
+ * it does not have itself, such as a division of an organization
+ * inheriting its legal entity name.
+ *
+ * <p>The {@link #getName(NameType)} method returns this {@link
+ * HierarchicalNamed}'s own {@link Name} if there is one, and
+ * otherwise its parent's, and so on up the hierarchy.  Template
+ * variables therefore {@linkplain
+ * com.edugility.nomen.mvel.NameResolverFactory resolve} through the
+ * hierarchy too.  The {@link #getNameTypes()} and {@link #getNames()}
+ * methods, by contrast, report only this {@link HierarchicalNamed}'s
+ * own {@link Name}s.</p>
+ *
+ * <p>Inherited {@link Name}s are cached per {@link HierarchicalNamed},
+ * so a deep hierarchy is walked at most once per {@link NameType}.
+ * The caches of a {@link HierarchicalNamed} and of all its
+ * descendants are discarded whenever its {@link Name}s or its parent
+ * change.  As with the rest of this library, a hierarchy is assumed
+ * to be modified by one thread at a time.</p>
+ *
+ * <p>A parent refers to its children only weakly, so a child that is
+ * otherwise unreachable may be garbage collected even while its
+ * parent is in use.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see #getName(NameType)
+ *
+ * @see #setParent(HierarchicalNamed)
+ */
+public class HierarchicalNamed extends AbstractNamed {
+
+
+  /*
+   * Static fields.
+   */
+
+
+  /**
+   * The version of this class for {@linkplain Serializable
+   * serialization purposes}.
+   *
+   * @see Serializable
+   */
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * A marker recorded in the {@link #inherited} cache for a {@link
+   * NameType} under which no ancestor has a {@link Name}.
+   */
+  private static final Object ABSENT = new Object();
+
+  /**
+   * An empty array of {@link ChildReference}s.
+   */
+  private static final ChildReference[] EMPTY_CHILD_REFERENCE_ARRAY = new ChildReference[0];
+
+
+  /*
+   * Instance fields.
+   */
+
+
+  /**
+   * The parent of this {@link HierarchicalNamed}.
+   *
+   * <p>This field may be {@code null}.</p>
+   *
+   * @see #getParent()
+   *
+   * @see #setParent(HierarchicalNamed)
+   */
+  private volatile HierarchicalNamed parent;
+
+  /**
+   * Weak references to the {@link HierarchicalNamed}s whose parent
+   * this one is.
+   *
+   * <p>This field is replaced, never modified, and is never {@code
+   * null}.  References that have been cleared are dropped the next
+   * time a child is added or removed.</p>
+   */
+  private transient volatile ChildReference[] children;
+
+  /**
+   * A cache of the {@link Name}s inherited from ancestors, or {@link
+   * #ABSENT}, indexed by {@link NameType}.
+   *
+   * <p>This field may be {@code null}.</p>
+   */
+  private transient volatile ConcurrentMap<NameType, Object> inherited;
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new {@link HierarchicalNamed} with no parent.
+   */
+  public HierarchicalNamed() {
+    this(null);
+  }
+
+  /**
+   * Creates a new {@link HierarchicalNamed}.
+   *
+   * @param parent the parent of the new {@link HierarchicalNamed};
+   * may be {@code null}
+   *
+   * @see #setParent(HierarchicalNamed)
+   */
+  public HierarchicalNamed(final HierarchicalNamed parent) {
+    super();
+    this.children = EMPTY_CHILD_REFERENCE_ARRAY;
+    this.setParent(parent);
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Returns the parent of this {@link HierarchicalNamed}.
+   *
+   * <p>This method may return {@code null}.</p>
+   *
+   * @return the parent of this {@link HierarchicalNamed}, or {@code
+   * null}
+   */
+  public HierarchicalNamed getParent() {
+    return this.parent;
+  }
+
+  /**
+   * Sets the parent of this {@link HierarchicalNamed}.
+   *
+   * @param parent the new parent; may be {@code null}
+   *
+   * @exception IllegalArgumentException if {@code parent} is this
+   * {@link HierarchicalNamed} or one of its descendants
+   */
+  public void setParent(final HierarchicalNamed parent) {
+    final HierarchicalNamed old = this.parent;
+    if (parent != old) {
+      for (HierarchicalNamed ancestor = parent; ancestor != null; ancestor = ancestor.parent) {
+        if (ancestor == this) {
+          throw new IllegalArgumentException("parent", new IllegalStateException("cycle"));
+        }
+      }
+      if (old != null) {
+        old.removeChild(this);
+      }
+      this.parent = parent;
+      if (parent != null) {
+        parent.addChild(this);
+      }
+      this.invalidate();
+    }
+  }
+
+  /**
+   * Returns the {@link Name} indexed under the supplied {@link
+   * NameType} in this {@link HierarchicalNamed} itself, without
+   * consulting its ancestors.
+   *
+   * <p>This method may return {@code null}.</p>
+   *
+   * @param nameType the {@link NameType} in question; may be {@code
+   * null}
+   *
+   * @return a {@link Name}, or {@code null}
+   */
+  public Name getLocalName(final NameType nameType) {
+    return super.getName(nameType);
+  }
+
+  /**
+   * Returns the {@link Name} indexed under the supplied {@link
+   * NameType} in this {@link HierarchicalNamed} or, failing that, in
+   * its nearest ancestor that has one.
+   *
+   * <p>This method may return {@code null}.</p>
+   *
+   * @param nameType the {@link NameType} in question; may be {@code
+   * null}
+   *
+   * @return a {@link Name}, or {@code null}
+   *
+   * @see #getLocalName(NameType)
+   */
+  @Override
+  public Name getName(final NameType nameType) {
+    Name returnValue = super.getName(nameType);
+    if (returnValue == null && nameType != null) {
+      final HierarchicalNamed parent = this.parent;
+      if (parent != null) {
+        ConcurrentMap<NameType, Object> inherited = this.inherited;
+        if (inherited == null) {
+          inherited = new ConcurrentHashMap<NameType, Object>();
+          this.inherited = inherited;
+        }
+        final Object cached = inherited.get(nameType);
+        if (cached == null) {
+          returnValue = parent.getName(nameType);
+          inherited.putIfAbsent(nameType, returnValue == null ? ABSENT : returnValue);
+        } else if (cached != ABSENT) {
+          returnValue = (Name)cached;
+        }
+      }
+    }
+    return returnValue;
+  }
+
+  /**
+   * Indexes the supplied {@link Name} under the supplied {@link
+   * NameType} in this {@link HierarchicalNamed} itself, overriding
+   * any {@link Name} it inherits under that {@link NameType}.
+   *
+   * <p>This method may return {@code null}.</p>
+   *
+   * <p>A {@link Name} has only one owner, so an inherited {@link
+   * Name} cannot also be this {@link HierarchicalNamed}'s own.  To
+   * override an inherited {@link Name}, put a new one, perhaps
+   * sharing its {@link NameValue}.</p>
+   *
+   * @param nameType the {@link NameType}; must not be {@code null}
+   *
+   * @param name the {@link Name}; must not be {@code null} and must
+   * not be owned by an ancestor of this {@link HierarchicalNamed}
+   *
+   * @return the {@link Name} this {@link HierarchicalNamed} itself
+   * previously indexed under {@code nameType}, or {@code null}; never
+   * an inherited {@link Name}
+   *
+   * @exception IllegalArgumentException if either parameter is {@code
+   * null} or {@code name} is owned by an ancestor of this {@link
+   * HierarchicalNamed}
+   *
+   * @see #getLocalName(NameType)
+   */
+  @Override
+  public Name putName(final NameType nameType, final Name name) {
+    if (name != null) {
+      final Named owner = name.getNamed();
+      for (HierarchicalNamed ancestor = this.parent; ancestor != null; ancestor = ancestor.parent) {
+        if (ancestor == owner) {
+          throw new IllegalArgumentException("name", new IllegalStateException("owned by an ancestor: " + name));
+        }
+      }
+    }
+    return super.putName(nameType, name);
+  }
+
+  /**
+   * Discards the cached resolutions of all descendants of this {@link
+   * HierarchicalNamed}, along with its own cache of fallback chain
+   * walks.
+   */
+  @Override
+  final void namesChanged(final Collection<? extends NameType> nameTypes) {
+    super.namesChanged(nameTypes);
+    this.invalidateDescendants();
+  }
+
+  /**
+   * Adds to the supplied {@link Set} the templated {@link Name}s
+   * whose values may change when a {@link Name} is put or removed
+   * under the supplied {@link NameType} in this {@link
+   * HierarchicalNamed}, including those registered with descendants
+   * that inherit it.
+   *
+   * <p>This method may return {@code null}.</p>
+   *
+   * @param nameType the {@link NameType}; must not be {@code null}
+   *
+   * @param dependents the {@link Set} to add to, compared by
+   * identity; may be {@code null}
+   *
+   * @return {@code dependents}, or a new {@link Set} if it was {@code
+   * null} and there was something to add, or {@code null}
+   */
+  @Override
+  final Set<Name> addDependents(final NameType nameType, final Set<Name> dependents) {
+    Set<Name> returnValue = super.addDependents(nameType, dependents);
+    for (final ChildReference reference : this.children) {
+      final HierarchicalNamed child = reference.get();
+      if (child != null && child.getLocalName(nameType) == null) {
+        returnValue = child.addDependents(nameType, returnValue);
+      }
+    }
+    return returnValue;
+  }
+
+  /**
+   * Discards the cached resolutions of this {@link HierarchicalNamed}
+   * and of all its descendants.
+   */
+  private final void invalidate() {
+    this.inherited = null;
+    this.clearFallbackPaths();
+    this.invalidateDescendants();
+  }
+
+  /**
+   * Discards the cached resolutions of all descendants of this {@link
+   * HierarchicalNamed}.
+   */
+  private final void invalidateDescendants() {
+    for (final ChildReference reference : this.children) {
+      final HierarchicalNamed child = reference.get();
+      if (child != null) {
+        child.invalidate();
+      }
+    }
+  }
+
+  /**
+   * Adds the supplied {@link HierarchicalNamed} to this one's
+   * children.
+   *
+   * @param child the child to add; must not be {@code null}
+   */
+  private final synchronized void addChild(final HierarchicalNamed child) {
+    assert child != null;
+    final ChildReference[] children = this.children;
+    final ChildReference[] newChildren = new ChildReference[children.length + 1];
+    int size = 0;
+    for (final ChildReference reference : children) {
+      if (reference.get() != null) {
+        newChildren[size++] = reference;
+      }
+    }
+    newChildren[size++] = new ChildReference(child);
+    if (size == newChildren.length) {
+      this.children = newChildren;
+    } else {
+      final ChildReference[] trimmed = new ChildReference[size];
+      System.arraycopy(newChildren, 0, trimmed, 0, size);
+      this.children = trimmed;
+    }
+  }
+
+  /**
+   * Removes the supplied {@link HierarchicalNamed} from this one's
+   * children.
+   *
+   * @param child the child to remove; may be {@code null}
+   */
+  private final synchronized void removeChild(final HierarchicalNamed child) {
+    final ChildReference[] children = this.children;
+    final ChildReference[] newChildren = new ChildReference[children.length];
+    int size = 0;
+    for (final ChildReference reference : children) {
+      final HierarchicalNamed referent = reference.get();
+      if (referent != null && referent != child) {
+        newChildren[size++] = reference;
+      }
+    }
+    if (size != children.length) {
+      if (size == 0) {
+        this.children = EMPTY_CHILD_REFERENCE_ARRAY;
+      } else {
+        final ChildReference[] trimmed = new ChildReference[size];
+        System.arraycopy(newChildren, 0, trimmed, 0, size);
+        this.children = trimmed;
+      }
+    }
+  }
+
+  /**
+   * Returns the number of children of this {@link HierarchicalNamed}
+   * that have not been garbage collected.
+   *
+   * @return the number of live children
+   */
+  final int getChildCount() {
+    int returnValue = 0;
+    for (final ChildReference reference : this.children) {
+      if (reference.get() != null) {
+        returnValue++;
+      }
+    }
+    return returnValue;
+  }
+
+  private void readObject(final ObjectInputStream stream) throws ClassNotFoundException, IOException {
+    if (stream != null) {
+      stream.defaultReadObject();
+    }
+    // Children are restored as each one's parent link is.
+    if (this.children == null) {
+      this.children = EMPTY_CHILD_REFERENCE_ARRAY;
+    }
+    final HierarchicalNamed parent = this.parent;
+    if (parent != null) {
+      parent.addChild(this);
+    }
+  }
+
+
+
+  /*
+   * Inner and nested classes.
+   */
+
+
+  /**
+   * A {@link WeakReference} to a child {@link HierarchicalNamed}.
+   *
+   * <p>This class exists only so that arrays of such references can
+   * be created without unchecked conversions.</p>
+   */
+  private static final class ChildReference extends WeakReference<HierarchicalNamed> {
+
+    /**
+     * Creates a new {@link ChildReference}.
+     *
+     * @param child the child; must not be {@code null}
+     */
+    private ChildReference(final HierarchicalNamed child) {
+      super(child);
+      assert child != null;
+    }
+
+  }
+
+}
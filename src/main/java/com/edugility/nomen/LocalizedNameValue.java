@@ -0,0 +1,350 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen;
+
+import java.io.Serializable;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A {@link NameValue} that has, in addition to its {@linkplain
+ * #getValue() default value}, a variant of that value for each of
+ * several {@link Locale}s, so that a single {@link Name} can render
+ * as, for example, "Given Family" in some {@link Locale}s and
+ * "FAMILY Given" in others.
+ *
+ * <p>The variant used for a given {@link Locale} is {@linkplain
+ * #getTemplate(Locale) found} by trying that {@link Locale}, then
+ * its language and country, then its language alone, and finally
+ * falling back to the {@linkplain #getValue() default value}.  The
+ * outcome of that search is cached per {@link Locale}.</p>
+ *
+ * <p>Variants share the {@linkplain #isAtomic() atomicity} and
+ * {@linkplain #getWhitespaceReplacement() whitespace replacement} of
+ * the {@link LocalizedNameValue} that holds them.  Like a {@link
+ * NameValue}, a {@link LocalizedNameValue} can be treated as though
+ * it is immutable once initialized.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see Name#getValue(Locale)
+ *
+ * @see #getTemplate(Locale)
+ */
+public class LocalizedNameValue extends NameValue {
+
+
+  /*
+   * Static fields.
+   */
+
+
+  /**
+   * The version of this class for {@linkplain Serializable
+   * serialization purposes}.
+   *
+   * @see Serializable
+   */
+  private static final long serialVersionUID = 1L;
+
+
+  /*
+   * Instance fields.
+   */
+
+
+  /**
+   * The variants of this {@link LocalizedNameValue}'s {@linkplain
+   * #getValue() value}, indexed by {@link Locale}.
+   *
+   * <p>This field may be {@code null}.</p>
+   *
+   * @see #getTemplates()
+   *
+   * @see #setTemplates(Map)
+   */
+  private Map<Locale, String> templates;
+
+  /**
+   * A cache of the results of the {@link #getTemplate(Locale)}
+   * method.
+   *
+   * <p>This field may be {@code null}.</p>
+   */
+  private transient volatile ConcurrentMap<Locale, String> resolvedTemplates;
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new {@link LocalizedNameValue} <b>in an {@linkplain
+   * #isInitialized() incomplete state}</b>.
+   *
+   * <h3>Design Notes</h3>
+   *
+   * <p>This constructor exists primarily for JavaBeans, serialization
+   * and JPA compatibility.</p>
+   *
+   * @see NameValue#NameValue()
+   */
+  protected LocalizedNameValue() {
+    super();
+  }
+
+  /**
+   * Creates a new {@link LocalizedNameValue} that is not {@linkplain
+   * #isAtomic() atomic}.
+   *
+   * @param value the default {@linkplain #setValue(String) value} for
+   * this {@link LocalizedNameValue}; must not be {@code null}
+   *
+   * @param templates the variants of {@code value}, indexed by {@link
+   * Locale}; may be {@code null}
+   *
+   * @exception IllegalArgumentException if {@code value} is {@code
+   * null} or if {@code templates} contains a {@code null} key or
+   * value
+   *
+   * @see #LocalizedNameValue(String, boolean, String, Map)
+   */
+  public LocalizedNameValue(final String value, final Map<? extends Locale, ? extends String> templates) {
+    this(value, false /* not atomic */, " ", templates);
+  }
+
+  /**
+   * Creates a new {@link LocalizedNameValue}.
+   *
+   * @param value the default {@linkplain #setValue(String) value} for
+   * this {@link LocalizedNameValue}; must not be {@code null}
+   *
+   * @param atomic the {@linkplain #setAtomic(boolean) atomicity} for
+   * this {@link LocalizedNameValue} and its variants
+   *
+   * @param whitespaceReplacement the {@link String} to be used for
+   * whitespace replacement; may be {@code null}; must be {@code null}
+   * if {@code atomic} is {@code true}
+   *
+   * @param templates the variants of {@code value}, indexed by {@link
+   * Locale}; may be {@code null}
+   *
+   * @exception IllegalArgumentException if {@code value} is {@code
+   * null}, if {@code atomic} is {@code true} and {@code
+   * whitespaceReplacement} is not {@code null}, or if {@code
+   * templates} contains a {@code null} key or value
+   *
+   * @see NameValue#NameValue(String, boolean, String)
+   */
+  public LocalizedNameValue(final String value, final boolean atomic, final String whitespaceReplacement, final Map<? extends Locale, ? extends String> templates) {
+    super(value, atomic, whitespaceReplacement);
+    if (templates != null) {
+      this.setTemplates(templates);
+    }
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Returns an unmodifiable view of the variants of this {@link
+   * LocalizedNameValue}'s {@linkplain #getValue() value}, indexed by
+   * {@link Locale}.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return a non-{@code null}, unmodifiable {@link Map}
+   */
+  public Map<Locale, String> getTemplates() {
+    final Map<Locale, String> templates = this.templates;
+    if (templates == null) {
+      return Collections.emptyMap();
+    }
+    return Collections.unmodifiableMap(templates);
+  }
+
+  /**
+   * Sets the variants of this {@link LocalizedNameValue}'s
+   * {@linkplain #getValue() value}, indexed by {@link Locale}.
+   *
+   * <p>This method may only be called once to set the initial value
+   * for this property.  If it is called again with different
+   * variants, an {@link IllegalStateException} will be thrown.</p>
+   *
+   * @param templates the variants; must not be {@code null} and must
+   * not contain {@code null} keys or values
+   *
+   * @exception IllegalArgumentException if {@code templates} is
+   * {@code null} or contains a {@code null} key or value
+   *
+   * @exception IllegalStateException if this method is called more
+   * than once with different variants
+   */
+  public void setTemplates(final Map<? extends Locale, ? extends String> templates) {
+    if (templates == null) {
+      throw new IllegalArgumentException("templates", new NullPointerException("templates"));
+    }
+    final Map<Locale, String> newTemplates = new LinkedHashMap<Locale, String>();
+    for (final Entry<? extends Locale, ? extends String> entry : templates.entrySet()) {
+      final Locale locale = entry.getKey();
+      if (locale == null) {
+        throw new IllegalArgumentException("templates", new NullPointerException("locale"));
+      }
+      final String template = entry.getValue();
+      if (template == null) {
+        throw new IllegalArgumentException("templates", new NullPointerException(locale.toString()));
+      }
+      newTemplates.put(locale, template);
+    }
+    if (this.templates == null) {
+      this.templates = newTemplates;
+      this.resolvedTemplates = null;
+    } else if (!this.templates.equals(newTemplates)) {
+      throw new IllegalStateException("setTemplates() cannot be called more than once with different parameter values");
+    }
+  }
+
+  /**
+   * Returns the variant of this {@link LocalizedNameValue}'s
+   * {@linkplain #getValue() value} that is appropriate for the
+   * supplied {@link Locale}.
+   *
+   * <p>This method may return {@code null} if this {@link
+   * LocalizedNameValue} is not yet {@linkplain #isInitialized()
+   * initialized}.</p>
+   *
+   * <p>The variant registered for the supplied {@link Locale} is
+   * returned if there is one; otherwise the one registered for the
+   * {@link Locale} with the same language and country; otherwise the
+   * one registered for the {@link Locale} with the same language;
+   * otherwise the {@linkplain #getValue() default value}.  Results
+   * are cached.</p>
+   *
+   * @param locale the {@link Locale} in question; may be {@code null}
+   * in which case the {@linkplain #getValue() default value} is
+   * returned
+   *
+   * @return the appropriate variant, or {@code null}
+   */
+  public String getTemplate(final Locale locale) {
+    final Map<Locale, String> templates = this.templates;
+    if (locale == null || templates == null || templates.isEmpty()) {
+      return this.getValue();
+    }
+    ConcurrentMap<Locale, String> resolvedTemplates = this.resolvedTemplates;
+    if (resolvedTemplates == null) {
+      resolvedTemplates = new ConcurrentHashMap<Locale, String>();
+      this.resolvedTemplates = resolvedTemplates;
+    }
+    String returnValue = resolvedTemplates.get(locale);
+    if (returnValue == null) {
+      returnValue = templates.get(locale);
+      if (returnValue == null && locale.getVariant().length() > 0) {
+        returnValue = templates.get(new Locale(locale.getLanguage(), locale.getCountry()));
+      }
+      if (returnValue == null && locale.getCountry().length() > 0) {
+        returnValue = templates.get(new Locale(locale.getLanguage()));
+      }
+      if (returnValue == null) {
+        returnValue = this.getValue();
+      }
+      if (returnValue != null) {
+        resolvedTemplates.putIfAbsent(locale, returnValue);
+      }
+    }
+    return returnValue;
+  }
+
+  /**
+   * Returns a hashcode for this {@link LocalizedNameValue} based off
+   * its {@linkplain NameValue#hashCode() superclass' hashcode} and
+   * its {@linkplain #getTemplates() variants}.
+   *
+   * @return a hashcode for this {@link LocalizedNameValue}
+   *
+   * @see #equals(Object)
+   */
+  @Override
+  public int hashCode() {
+    return super.hashCode() * 37 + this.getTemplates().hashCode();
+  }
+
+  /**
+   * Returns {@code true} if the supplied {@link Object} is a {@link
+   * LocalizedNameValue} that is {@linkplain NameValue#equals(Object)
+   * equal to this one as a <code>NameValue</code>} and has equal
+   * {@linkplain #getTemplates() variants}.
+   *
+   * @param other the {@link Object} to compare this {@link
+   * LocalizedNameValue} against for equality; may be {@code null}
+   *
+   * @return {@code true} if the supplied {@link Object} is equal to
+   * this {@link LocalizedNameValue}; {@code false} otherwise
+   *
+   * @see #hashCode()
+   */
+  @Override
+  public boolean equals(final Object other) {
+    if (other == this) {
+      return true;
+    } else if (other instanceof LocalizedNameValue) {
+      return super.equals(other) && this.getTemplates().equals(((LocalizedNameValue)other).getTemplates());
+    } else {
+      return false;
+    }
+  }
+
+  /**
+   * Returns {@code true} if the supplied {@link Object} is a {@link
+   * LocalizedNameValue}.
+   *
+   * @param other the {@link Object} in question; may be {@code null}
+   *
+   * @return {@code true} if {@code other} is a {@link
+   * LocalizedNameValue}
+   *
+   * @see NameValue#canEqual(Object)
+   */
+  @Override
+  protected boolean canEqual(final Object other) {
+    return other instanceof LocalizedNameValue;
+  }
+
+}
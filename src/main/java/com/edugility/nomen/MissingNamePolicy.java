@@ -0,0 +1,140 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen;
+
+/**
+ * What a template renders in place of a reference to a {@link Name}
+ * that its {@link Named} does not have.
+ *
+ * <p>The {@linkplain #setInstance(MissingNamePolicy) installed}
+ * {@link MissingNamePolicy} applies to every rendering.  Under the
+ * default policy, {@link #FAIL}, such a reference fails the rendering
+ * as it always has.  The other policies substitute a value without
+ * creating or throwing any exception, which matters when sparsely
+ * populated {@link Named}s are the norm.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see #getValue(String)
+ */
+public enum MissingNamePolicy {
+
+  /**
+   * A {@link MissingNamePolicy} that renders a missing {@link Name}
+   * as the empty {@link String}.
+   */
+  EMPTY {
+    @Override
+    public final String getValue(final String name) {
+      return "";
+    }
+  },
+
+  /**
+   * A {@link MissingNamePolicy} that renders a missing {@link Name}
+   * as a placeholder of the form <code>${<i>name</i>}</code>.
+   */
+  PLACEHOLDER {
+    @Override
+    public final String getValue(final String name) {
+      return "${" + name + "}";
+    }
+  },
+
+  /**
+   * A {@link MissingNamePolicy} that fails the rendering of a
+   * template that references a missing {@link Name}.
+   */
+  FAIL {
+    @Override
+    public final String getValue(final String name) {
+      return null;
+    }
+  };
+
+
+  /*
+   * Static fields.
+   */
+
+
+  /**
+   * The installed {@link MissingNamePolicy}.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  private static volatile MissingNamePolicy instance = FAIL;
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Returns the value to render in place of the missing {@link Name}
+   * referred to by the supplied name, or {@code null} if the
+   * rendering should fail instead.
+   *
+   * @param name the name by which a template referred to the missing
+   * {@link Name}; may be {@code null}
+   *
+   * @return the value to render, or {@code null}
+   */
+  public abstract String getValue(final String name);
+
+
+  /*
+   * Static methods.
+   */
+
+
+  /**
+   * Returns the installed {@link MissingNamePolicy}.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return the non-{@code null} installed {@link MissingNamePolicy}
+   */
+  public static final MissingNamePolicy getInstance() {
+    return instance;
+  }
+
+  /**
+   * Installs the supplied {@link MissingNamePolicy}, replacing any
+   * that is already installed.
+   *
+   * @param policy the {@link MissingNamePolicy} to install; may be
+   * {@code null} to install {@link #FAIL}
+   */
+  public static final void setInstance(final MissingNamePolicy policy) {
+    instance = policy == null ? FAIL : policy;
+  }
+
+}
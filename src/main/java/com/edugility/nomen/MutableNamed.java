@@ -29,6 +29,9 @@ package com.edugility.nomen;
 
 import java.io.Serializable;
 
+import java.util.Collection;
+import java.util.Map;
+
 /**
  * A {@link Named} that permits additions and removals.
  *
@@ -45,4 +48,8 @@ public interface MutableNamed extends Named {
 
   public Name removeName(final NameType nameType);
 
+  public void putNames(final Map<? extends NameType, ? extends Name> names);
+
+  public void removeNames(final Collection<? extends NameType> nameTypes);
+
 }
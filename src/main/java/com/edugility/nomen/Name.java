@@ -27,26 +27,26 @@
  */
 package com.edugility.nomen;
 
-import java.beans.PropertyChangeEvent; // for javadoc only
-import java.beans.PropertyChangeListener;
-import java.beans.PropertyChangeSupport;
-
 import java.io.Serializable;
 
-import java.util.Map; // for javadoc only
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import com.edugility.nomen.mvel.NameResolverFactory;
-
-import org.mvel2.CompileException;
-
-import org.mvel2.integration.VariableResolverFactory; // for javadoc only
-
-import org.mvel2.templates.CompiledTemplate;
-import org.mvel2.templates.TemplateCompiler;
-import org.mvel2.templates.TemplateRuntime;
 
 /**
  * A {@link Serializable} {@link AbstractValued} implementation that
@@ -63,8 +63,12 @@ import org.mvel2.templates.TemplateRuntime;
  * altered.  However, it can be {@linkplain #setNamed(Named)
  * reassigned} and have its {@linkplain #setNameValue(NameValue) value
  * changed}.  Both its {@code named} and {@code nameValue} properties
- * are bound and thus fire {@link PropertyChangeEvent}s when
- * altered.</p>
+ * are bound and thus notify {@link PropertyListener}s and {@link
+ * java.beans.PropertyChangeListener}s when altered.  A templated
+ * {@link Name}'s {@code value} property is bound too, in the sense
+ * that its listeners are notified when a {@link Name} its template
+ * resolved the last time it was {@linkplain #getValue() rendered}
+ * changes.</p>
  *
  * <p>Two {@link Name}s are considered {@linkplain #equals(Object)
  * equal} if their {@linkplain #getValue() values} are equal.  Note in
@@ -106,12 +110,6 @@ public class Name extends AbstractValued {
    */
   private static final long serialVersionUID = 1L;
 
-  /**
-   * An empty array of {@link PropertyChangeListener}s, for use by the
-   * {@link #getPropertyChangeListeners()} method.
-   */
-  private static final PropertyChangeListener[] EMPTY_PROPERTY_CHANGE_LISTENER_ARRAY = new PropertyChangeListener[0];
-
   /**
    * A {@link Pattern} {@linkplain Pattern#compile(String) compiled}
    * from the following regular expression {@link String}: {@code
@@ -123,6 +121,13 @@ public class Name extends AbstractValued {
    */
   private static final Pattern whitespacePattern = Pattern.compile("\\s+");
 
+  /**
+   * A marker standing in for the new value of the {@code value}
+   * property in a deferred change, indicating that it is to be
+   * computed when the change is {@linkplain #commit() committed}.
+   */
+  private static final Object DEFERRED_VALUE = new Object();
+
 
   /*
    * Instance fields.
@@ -150,16 +155,21 @@ public class Name extends AbstractValued {
   private NameValue nameValue;
 
   /**
-   * The {@link NameResolverFactory} used to refer to other {@link
+   * The {@link TemplateContext} used to refer to other {@link
    * NameValue}s in the {@linkplain #getNamed() associated
    * <code>Named</code>} during the interpolation of a template.  This
    * field may be {@code null}.
    *
+   * <p>This field is set lazily by the {@link #execute(Object)}
+   * method, so {@linkplain NameValue#isAtomic() atomic}
+   * <code>Name</code>s, which never execute a template, never pay for
+   * it.</p>
+   *
    * @see #getValue()
    *
    * @see #getNamed()
    */
-  private transient NameResolverFactory nameResolverFactory;
+  private transient TemplateContext templateContext;
 
   /**
    * The {@link Object} representing a compiled template that will be
@@ -171,15 +181,108 @@ public class Name extends AbstractValued {
    *
    * @see #getValue()
    *
-   * @see CompiledTemplate
+   * @see TemplateEngine#compile(String)
    */
   private transient Object compiledTemplate;
 
   /**
-   * A {@link PropertyChangeSupport} that assists with firing Java
-   * Beans-compatible {@link PropertyChangeEvent}s.
+   * The {@link PropertyListeners} notified when a bound property of
+   * this {@link Name} changes.
+   *
+   * <p>This field may be {@code null} until a listener is first
+   * {@linkplain #addPropertyListener(String, PropertyListener)
+   * added}.</p>
    */
-  private transient PropertyChangeSupport propertyChangeSupport;
+  private transient volatile PropertyListeners<Name> listeners;
+
+  /**
+   * The number of {@linkplain #beginUpdate() updates} in progress.
+   *
+   * @see #beginUpdate()
+   *
+   * @see #commit()
+   */
+  private transient int updateDepth;
+
+  /**
+   * The property changes deferred by the updates in progress, indexed
+   * by property name, each represented as a two-element array holding
+   * the earliest old value and the latest new value.
+   *
+   * <p>This field is {@code null} unless a change has been deferred
+   * while an update is in progress.</p>
+   *
+   * @see #commit()
+   */
+  private transient Map<String, Object[]> deferredChanges;
+
+  /**
+   * The compiled variants of this {@link Name}'s template, and the
+   * {@link TemplateContext}s used to render them, indexed by the
+   * {@link Locale} they were {@linkplain #getValue(Locale) rendered}
+   * for.
+   *
+   * <p>This field may be {@code null}.</p>
+   *
+   * @see #getValue(Locale)
+   */
+  private transient volatile ConcurrentMap<Locale, LocalizedTemplate> localizedTemplates;
+
+  /**
+   * The templated {@link Name}s whose most recent rendering resolved
+   * this {@link Name}, and which are therefore notified when this
+   * {@link Name} changes.
+   *
+   * <p>This field is replaced, never modified, and may be {@code
+   * null}.</p>
+   *
+   * @see #getDependents()
+   */
+  private transient volatile Name[] dependents;
+
+  /**
+   * The {@link Name}s this {@link Name} has registered itself with as
+   * a {@linkplain #dependents dependent}.
+   *
+   * <p>This field may be {@code null}.</p>
+   */
+  private transient Name[] dependencies;
+
+  /**
+   * The number of variables this {@link Name}'s template had resolved
+   * when its {@linkplain #dependencies dependencies} were last
+   * registered.
+   */
+  private transient int dependencyCount;
+
+  /**
+   * The {@link AbstractNamed} this {@link Name} has registered itself
+   * with as a {@linkplain AbstractNamed#addDependent(NameType, Name)
+   * dependent} of the {@linkplain #lookups <code>NameType</code>s its
+   * template looked up}.
+   *
+   * <p>This field may be {@code null}.</p>
+   */
+  private transient AbstractNamed lookupNamed;
+
+  /**
+   * The {@link NameType}s this {@link Name}'s template looked up in
+   * the {@link #lookupNamed}, whether or not a {@link Name} was
+   * indexed under them, together with their {@linkplain
+   * NameTypeFallbacks#getFallbacks(NameType) fallbacks}.
+   *
+   * <p>This field may be {@code null}.</p>
+   */
+  private transient NameType[] lookups;
+
+  /**
+   * Whether this {@link Name} was {@linkplain #Name(Named, Name)
+   * derived} from a prototype for momentary use, in which case it
+   * does not register itself as anyone's {@linkplain #dependents
+   * dependent} until a listener is {@linkplain
+   * #addPropertyListener(String, PropertyListener) added} to it.
+   */
+  private transient volatile boolean derived;
 
 
   /*
@@ -227,6 +330,36 @@ public class Name extends AbstractValued {
     this.setNameValue(nameValue);
   }
 
+  /**
+   * Creates a new {@link Name} owned by the supplied {@link Named}
+   * that shares the supplied prototype's {@link NameValue} and
+   * compiled template, for momentary use by a {@link Named} that
+   * derives its {@link Name}s from a {@link NameSchema}.
+   *
+   * <p>No template is compiled, no listener is notified, and the new
+   * {@link Name} does not register itself as a dependent of the {@link
+   * Name}s its template resolves until a listener is {@linkplain
+   * #addPropertyListener(String, PropertyListener) added} to it.</p>
+   *
+   * @param named the {@link Named} named by this {@link Name}; may be
+   * {@code null}
+   *
+   * @param prototype the {@link Name} whose {@link NameValue} and
+   * compiled template are to be shared; must not be {@code null}
+   *
+   * @see NameSchema#createName(Named, NameType)
+   *
+   * @see SchemaNamed#getName(NameType)
+   */
+  Name(final Named named, final Name prototype) {
+    super();
+    assert prototype != null;
+    this.named = named;
+    this.nameValue = prototype.nameValue;
+    this.compiledTemplate = prototype.compiledTemplate;
+    this.derived = true;
+  }
+
   /**
    * Creates a new {@link Name} with the supplied {@link NameValue}
    * that is initially {@linkplain #getNamed() unowned}.  The caller
@@ -299,11 +432,10 @@ public class Name extends AbstractValued {
     final Named old = this.getNamed();
     if ((named == null && old != null) || (named != null && !named.equals(old))) {
       this.named = named;
-      if (named != null) {
-        this.nameResolverFactory = new NameResolverFactory(named);
-      } else {
-        this.nameResolverFactory = null;
-      }
+      this.templateContext = null;
+      this.localizedTemplates = null;
+      this.clearDependencies();
+      this.invalidateDependents();
       this.firePropertyChange("named", old, this.getNamed());
     }
   }
@@ -336,6 +468,12 @@ public class Name extends AbstractValued {
    * @exception IllegalArgumentException if {@code nameValue} is
    * {@code null}
    *
+   * <p>Templated {@link Name}s whose {@linkplain #getValue() values}
+   * depend on this one, directly or indirectly, and that have
+   * listeners for their {@code value} property are notified of the
+   * resulting change to their values; {@link Name}s without such
+   * listeners are not rendered.</p>
+   *
    * @exception IllegalStateException if the supplied {@link
    * NameValue} is {@linkplain NameValue#isAtomic() not atomic} and
    * there was a problem interpolating the template it logically
@@ -354,10 +492,31 @@ public class Name extends AbstractValued {
     }
     final NameValue old = this.getNameValue();
     if (!nameValue.equals(old)) {
+      final Name[] affected = this.getAffectedDependents();
+      final String[] oldValues;
+      if (affected == null) {
+        oldValues = null;
+      } else {
+        oldValues = new String[affected.length];
+        for (int i = 0; i < affected.length; i++) {
+          oldValues[i] = affected[i].getValue();
+        }
+      }
       this.nameValue = nameValue;
       this.compiledTemplate = null;
+      this.localizedTemplates = null;
+      if (this.dependencies != null) {
+        // The old template's variables may not be the new one's.
+        this.templateContext = null;
+        this.clearDependencies();
+      }
       this.installTemplate();
       this.firePropertyChange("nameValue", old, this.getNameValue());
+      if (affected != null) {
+        for (int i = 0; i < affected.length; i++) {
+          affected[i].firePropertyChange("value", oldValues[i], affected[i].getValue());
+        }
+      }
     }
   }
 
@@ -410,6 +569,14 @@ public class Name extends AbstractValued {
    *
    * <p>This method may return {@code null}.</p>
    *
+   * <p>This implementation first consults the {@linkplain
+   * TemplateCatalog#getInstance() shared <code>TemplateCatalog</code>}
+   * so that a given template source is compiled only once and its
+   * compiled representation shared by all {@link Name}s that use
+   * it.  If the template was {@linkplain PrecompiledTemplate
+   * precompiled} at build time, the catalog already holds its {@link
+   * PrecompiledTemplate} and no compilation takes place.</p>
+   *
    * @param template the source code of the template to be compiled;
    * may be {@code null} in which case {@code null} will be returned
    *
@@ -418,19 +585,33 @@ public class Name extends AbstractValued {
    *
    * @exception IllegalStateException if there was a problem compiling
    * the template
+   *
+   * @see TemplateCatalog
+   *
+   * @see NameStatistics#getCompilations()
+   *
+   * @see NameProbe#compileStarted(String)
    */
   protected Object compileTemplate(final String template) {
-    final Object returnValue;
-    if (template == null) {
-      returnValue = null;
-    } else {
-      Object temp = null;
-      try {
-        temp = TemplateCompiler.compileTemplate(template);
-      } catch (final CompileException wrapMe) {
-        throw new IllegalStateException(wrapMe);
-      } finally {
-        returnValue = temp;
+    Object returnValue = null;
+    if (template != null) {
+      final TemplateCatalog catalog = TemplateCatalog.getInstance();
+      assert catalog != null;
+      returnValue = catalog.getCompiledTemplate(template);
+      if (returnValue == null) {
+        final NameProbe probe = NameProbe.getInstance();
+        final Object probeContext = probe == null ? null : probe.compileStarted(template);
+        boolean succeeded = false;
+        try {
+          returnValue = TemplateEngine.getInstance().compile(template);
+          succeeded = true;
+        } finally {
+          NameStatistics.getInstance().recordCompilation(succeeded);
+          if (probeContext != null) {
+            probe.compileFinished(probeContext, template, succeeded);
+          }
+        }
+        catalog.putCompiledTemplate(template, returnValue);
       }
     }
     return returnValue;
@@ -510,7 +691,7 @@ public class Name extends AbstractValued {
    * @see #computeValue()
    */
   protected boolean canExecute(final Object compiledTemplate) {
-    return compiledTemplate instanceof CompiledTemplate;
+    return compiledTemplate instanceof PrecompiledTemplate || (compiledTemplate != null && TemplateEngine.getInstance().canExecute(compiledTemplate));
   }
 
   /**
@@ -543,14 +724,67 @@ public class Name extends AbstractValued {
    */
   protected Object execute(final Object compiledTemplate) {
     Object returnValue = null;
-    if (compiledTemplate instanceof CompiledTemplate) {
-      try {
-        returnValue = TemplateRuntime.execute((CompiledTemplate)compiledTemplate, this.getNamed(), this.nameResolverFactory);
-      } catch (final IllegalStateException throwMe) {
-        throw throwMe;
-      } catch (final RuntimeException wrapMe) {          
-        throw new IllegalStateException(wrapMe);
+    if (this.canExecute(compiledTemplate)) {
+      final Named named = this.getNamed();
+      TemplateContext templateContext = this.templateContext;
+      if (templateContext == null && named != null) {
+        templateContext = new TemplateContext(named);
+        this.templateContext = templateContext;
+      }
+      returnValue = this.execute(compiledTemplate, named, templateContext, !this.derived);
+    }
+    return returnValue;
+  }
+
+  /**
+   * Executes the supplied compiled template against the supplied
+   * {@link Named} using the supplied {@link TemplateContext} and
+   * returns the result.
+   *
+   * <p>{@link PrecompiledTemplate}s are executed directly; any other
+   * compiled template is executed by the {@linkplain
+   * TemplateEngine#getInstance() <code>TemplateEngine</code> in
+   * use}.</p>
+   *
+   * <p>This method may return {@code null}.</p>
+   *
+   * @param compiledTemplate the compiled template to execute; must
+   * not be {@code null}
+   *
+   * @param named the {@link Named} to execute it against; may be
+   * {@code null}
+   *
+   * @param templateContext the {@link TemplateContext} to resolve
+   * variables with; may be {@code null}
+   *
+   * @param registerDependencies whether this {@link Name} should
+   * {@linkplain #registerDependencies(Named, Collection) register itself} as
+   * a dependent of the {@link Name}s the execution resolved
+   *
+   * @return the result of the execution, or {@code null}
+   *
+   * @exception IllegalStateException if there was a problem with
+   * execution
+   */
+  private final Object execute(final Object compiledTemplate, final Named named, final TemplateContext templateContext, final boolean registerDependencies) {
+    assert compiledTemplate != null;
+    final Object returnValue;
+    try {
+      if (compiledTemplate instanceof PrecompiledTemplate) {
+        returnValue = ((PrecompiledTemplate)compiledTemplate).execute(templateContext);
+      } else {
+        returnValue = TemplateEngine.getInstance().execute(compiledTemplate, templateContext);
       }
+      if (registerDependencies && templateContext != null) {
+        final Set<String> variables = templateContext.getVariables();
+        if (variables.size() != this.dependencyCount) {
+          this.registerDependencies(named, variables);
+        }
+      }
+    } catch (final IllegalStateException throwMe) {
+      throw throwMe;
+    } catch (final RuntimeException wrapMe) {
+      throw new IllegalStateException(wrapMe);
     }
     return returnValue;
   }
@@ -573,6 +807,10 @@ public class Name extends AbstractValued {
    * @see #canExecute(Object)
    *
    * @see #execute(Object)
+   *
+   * @see NameProbe#renderStarted(String, NameType, int)
+   *
+   * @see NameStatistics#getRenders()
    */
   protected String computeValue() {
     String returnValue = "";
@@ -585,29 +823,257 @@ public class Name extends AbstractValued {
         }
       } else {
         this.installTemplate();
-        if (this.canExecute(this.compiledTemplate)) {
-          final String rawStringValue = this.toString(this.execute(this.compiledTemplate));
-          if (rawStringValue != null && !rawStringValue.isEmpty()) {
-            final String whitespaceReplacement = nv.getWhitespaceReplacement();
-            if (whitespaceReplacement == null) {
-              returnValue = rawStringValue;
-            } else {
-              returnValue = whitespacePattern.matcher(rawStringValue).replaceAll(whitespaceReplacement);
+        returnValue = this.render(nv, nv.getValue(), this.compiledTemplate, null);
+      }
+    }
+    assert returnValue != null;
+    return returnValue;
+  }
+
+  /**
+   * Renders the supplied compiled template and applies the supplied
+   * {@link NameValue}'s {@linkplain
+   * NameValue#getWhitespaceReplacement() whitespace replacement} to
+   * the result.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @param nv the {@link NameValue} being rendered; must not be
+   * {@code null}
+   *
+   * @param template the source of the template being rendered; may
+   * be {@code null}
+   *
+   * @param compiledTemplate the compiled form of {@code template};
+   * may be {@code null}
+   *
+   * @param localizedContext a {@link TemplateContext} resolving
+   * variables in a particular {@link Locale}, or {@code null} if the
+   * template is to be {@linkplain #execute(Object) executed} as
+   * usual
+   *
+   * @return the rendered value; never {@code null}
+   *
+   * @exception RenderLimitExceededException if the rendering exceeded
+   * one of the {@linkplain RenderLimits#getInstance() installed
+   * <code>RenderLimits</code>}
+   */
+  private final String render(final NameValue nv, final String template, final Object compiledTemplate, final TemplateContext localizedContext) {
+    assert nv != null;
+    String returnValue = "";
+    if (this.canExecute(compiledTemplate)) {
+      final RenderLimits limits = RenderLimits.getInstance();
+      final boolean limited = !limits.isUnlimited();
+      final boolean timeLimited = limits.getMaxRenderTimeNanos() > 0L;
+      final NameStatistics statistics = NameStatistics.getInstance();
+      final boolean recording = statistics.isEnabled();
+      // Read the clock at most twice, and not at all unless someone
+      // wants the result; the same readings serve the time limit and
+      // the statistics.
+      final long start = recording || timeLimited ? System.nanoTime() : 0L;
+      long end = 0L;
+      boolean ended = false;
+      boolean rendered = false;
+      boolean limitExceeded = false;
+      if (limited) {
+        limits.enterRender(start);
+      }
+      try {
+        final NameProbe probe = NameProbe.getInstance();
+        final String rawStringValue;
+        if (probe == null) {
+          rawStringValue = this.toString(this.execute(compiledTemplate, localizedContext));
+        } else {
+          final int depth = NameStatistics.getInstance().getResolutionDepth();
+          final NameType nameType = this.getRenderedNameType(depth);
+          final Object probeContext = probe.renderStarted(template, nameType, depth);
+          boolean succeeded = false;
+          try {
+            rawStringValue = this.toString(this.execute(compiledTemplate, localizedContext));
+            succeeded = true;
+          } finally {
+            if (probeContext != null) {
+              probe.renderFinished(probeContext, template, nameType, depth, succeeded);
             }
           }
         }
+        if (rawStringValue != null && !rawStringValue.isEmpty()) {
+          final String whitespaceReplacement = nv.getWhitespaceReplacement();
+          if (whitespaceReplacement == null) {
+            returnValue = rawStringValue;
+          } else {
+            returnValue = whitespacePattern.matcher(rawStringValue).replaceAll(whitespaceReplacement);
+          }
+        }
+        if (limited) {
+          limits.checkOutput(returnValue);
+          if (timeLimited) {
+            end = System.nanoTime();
+            ended = true;
+            limits.checkTime(end);
+          }
+        }
+        rendered = true;
+      } catch (final RenderLimitExceededException e) {
+        if (e.getTemplate() != null) {
+          throw e;
+        }
+        // The limit was exceeded while rendering this template rather
+        // than a template it resolved; attribute it here.
+        limitExceeded = true;
+        throw new RenderLimitExceededException(e.getLimit(), template, e.getMessage(), e);
+      } finally {
+        if (limited) {
+          RenderLimits.exitRender();
+        }
+        if (recording) {
+          final long nanos = (ended ? end : System.nanoTime()) - start;
+          statistics.recordRender(nanos, rendered);
+          if (template != null) {
+            TemplateCatalog.getInstance().recordRender(template, nanos, limitExceeded);
+          }
+        }
+      }
+    }
+    return returnValue;
+  }
+
+  /**
+   * Returns the {@link NameType} under which this {@link Name} is
+   * being rendered, for the benefit of a {@link NameProbe}: the one
+   * being {@linkplain TemplateContext#getValue(Named, NameType,
+   * Locale) resolved}, if this {@link Name} is being rendered from
+   * within another template, and otherwise the first one under which
+   * its {@linkplain #getNamed() owner} indexes it, if its owner is an
+   * {@link AbstractNamed}.
+   *
+   * <p>This method may return {@code null}.</p>
+   *
+   * @param depth the number of {@linkplain
+   * NameStatistics#getResolutionDepth() resolutions in progress} on
+   * the current thread
+   *
+   * @return a {@link NameType}, or {@code null}
+   *
+   * @see NameProbe#renderStarted(String, NameType, int)
+   */
+  private final NameType getRenderedNameType(final int depth) {
+    NameType returnValue = depth > 0 ? TemplateContext.getResolvingNameType() : null;
+    if (returnValue == null) {
+      final Named named = this.getNamed();
+      if (named instanceof AbstractNamed) {
+        for (final Entry<? extends NameType, ? extends Name> entry : ((AbstractNamed)named).getNames()) {
+          if (entry.getValue() == this) {
+            returnValue = entry.getKey();
+            break;
+          }
+        }
       }
     }
-    assert returnValue != null;
     return returnValue;
   }
 
+  /**
+   * Executes the supplied compiled template, using the supplied
+   * {@link TemplateContext} if it is non-{@code null} and
+   * otherwise {@linkplain #execute(Object) as usual}.
+   *
+   * <p>This method may return {@code null}.</p>
+   *
+   * @param compiledTemplate the compiled template; may be {@code
+   * null}
+   *
+   * @param localizedContext a {@link TemplateContext} resolving
+   * variables in a particular {@link Locale}; may be {@code null}
+   *
+   * @return the result of execution, or {@code null}
+   */
+  private final Object execute(final Object compiledTemplate, final TemplateContext localizedContext) {
+    if (localizedContext != null && this.canExecute(compiledTemplate)) {
+      return this.execute(compiledTemplate, this.getNamed(), localizedContext, false);
+    }
+    return this.execute(compiledTemplate);
+  }
+
+  /**
+   * Returns the value of this {@link Name} as appropriate for the
+   * supplied {@link Locale}.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * <p>If this {@link Name}'s {@linkplain #getNameValue()
+   * <code>NameValue</code>} is a {@link LocalizedNameValue}, its
+   * {@linkplain LocalizedNameValue#getTemplate(Locale) variant for the
+   * supplied <code>Locale</code>} is rendered instead of its default
+   * value.  In either case, variables in the template resolve to the
+   * values of other {@link Name}s in the same {@link Locale}.  The
+   * compiled variant and its variable resolution machinery are cached
+   * per {@link Locale}.</p>
+   *
+   * @param locale the {@link Locale} in question; may be {@code null}
+   * in which case the return value of {@link #getValue()} is returned
+   *
+   * @return a non-{@code null} {@link String} with the
+   * just-in-time-computed value of this {@link Name} in the supplied
+   * {@link Locale}
+   *
+   * @exception IllegalStateException if there was a problem compiling
+   * or rendering a template
+   *
+   * @see LocalizedNameValue
+   *
+   * @see #getValue()
+   */
+  public String getValue(final Locale locale) {
+    final NameValue nv = this.getNameValue();
+    if (locale == null || nv == null) {
+      return this.getValue();
+    }
+    if (nv.isAtomic()) {
+      if (nv instanceof LocalizedNameValue) {
+        final String value = ((LocalizedNameValue)nv).getTemplate(locale);
+        return value == null ? "" : this.toString(value);
+      }
+      return this.getValue();
+    }
+    ConcurrentMap<Locale, LocalizedTemplate> localizedTemplates = this.localizedTemplates;
+    if (localizedTemplates == null) {
+      localizedTemplates = new ConcurrentHashMap<Locale, LocalizedTemplate>();
+      this.localizedTemplates = localizedTemplates;
+    }
+    LocalizedTemplate localizedTemplate = localizedTemplates.get(locale);
+    if (localizedTemplate == null) {
+      final String template;
+      if (nv instanceof LocalizedNameValue) {
+        template = ((LocalizedNameValue)nv).getTemplate(locale);
+      } else {
+        template = nv.getValue();
+      }
+      final Object compiledTemplate;
+      if (template != null && template.equals(nv.getValue())) {
+        this.installTemplate();
+        compiledTemplate = this.compiledTemplate;
+      } else {
+        compiledTemplate = this.compileTemplate(template);
+      }
+      final Named named = this.getNamed();
+      localizedTemplate = new LocalizedTemplate(template, compiledTemplate, named == null ? null : new TemplateContext(named, locale));
+      localizedTemplates.put(locale, localizedTemplate);
+    }
+    return this.render(nv, localizedTemplate.template, localizedTemplate.compiledTemplate, localizedTemplate.templateContext);
+  }
+
   /**
    * Overrides the {@link AbstractValued#setValue(String)} method to
    * call <code>{@linkplain #setNameValue(NameValue)
    * setNameValue}({@link NameValue#NameValue(String) new
    * NameValue(value)})</code>.
    *
+   * <p>The old and new {@linkplain #getValue() values} of this {@link
+   * Name} are rendered in order to notify listeners of the change to
+   * its {@code value} property only if there are such {@linkplain
+   * #hasPropertyListeners(String) listeners}.</p>
+   *
    * @param value the value to set; must not be {@code null}
    *
    * @exception IllegalArgumentException if {@code value} is {@code
@@ -642,9 +1108,23 @@ public class Name extends AbstractValued {
       if (nv == null) {
         throw new IllegalStateException("createNameValue(\"" + value + "\") == null");
       }
-      final String old = this.getValue();
-      this.setNameValue(nv);
-      this.firePropertyChange("value", old, this.getValue());
+      // Rendering is only worth doing if someone will see the
+      // result.
+      if (!this.hasPropertyListeners("value")) {
+        this.setNameValue(nv);
+      } else if (this.updateDepth > 0) {
+        // Render the old value at most once per update, and the new
+        // one only when the update is committed.
+        final Map<String, Object[]> deferredChanges = this.deferredChanges;
+        if (deferredChanges == null || !deferredChanges.containsKey("value")) {
+          this.deferPropertyChange("value", this.getValue(), DEFERRED_VALUE);
+        }
+        this.setNameValue(nv);
+      } else {
+        final String old = this.getValue();
+        this.setNameValue(nv);
+        this.firePropertyChange("value", old, this.getValue());
+      }
     }
   }
 
@@ -696,190 +1176,663 @@ public class Name extends AbstractValued {
 
 
   /*
-   * PropertyChangeListener support.
+   * Dependencies.
    */
 
 
   /**
-   * Adds the supplied {@link PropertyChangeListener} to this {@link
-   * Name}, listening for changes to the JavaBeans property identified
-   * by the value of the {@code name} parameter.
+   * Registers this {@link Name} as a {@linkplain #dependents
+   * dependent} of each {@link Name} that the supplied {@link Named}
+   * indexes under a variable its template has resolved, so that it
+   * is notified when any of them changes.
+   *
+   * <p>If the supplied {@link Named} is an {@link AbstractNamed}, this
+   * {@link Name} also registers itself with it as a {@linkplain
+   * AbstractNamed#addDependent(NameType, Name) dependent} of every
+   * variable its template looked up, and of their fallbacks, whether
+   * or not a {@link Name} was found, so that it is notified when a
+   * {@link Name} is put or removed under any of them.</p>
+   *
+   * @param named the {@link Named} against which this {@link Name}'s
+   * template was rendered; must not be {@code null}
+   *
+   * @param variables the names of the variables the rendering
+   * resolved; must not be {@code null}
+   */
+  private final void registerDependencies(final Named named, final Collection<? extends String> variables) {
+    assert named != null;
+    assert variables != null;
+    synchronized (this) {
+      if (named == this.getNamed()) {
+        final List<String> variableNames = new ArrayList<String>(variables);
+        final List<Name> dependencies = new ArrayList<Name>(variableNames.size());
+        final AbstractNamed lookupNamed = named instanceof AbstractNamed ? (AbstractNamed)named : null;
+        final Set<NameType> lookups = lookupNamed == null ? null : new LinkedHashSet<NameType>();
+        for (final String variableName : variableNames) {
+          final NameType nameType = new NameType(variableName);
+          final Name dependency = NameTypeFallbacks.resolveName(named, nameType);
+          if (dependency != null && dependency != this && !containsIdentical(dependencies, dependency)) {
+            dependencies.add(dependency);
+          }
+          if (lookups != null) {
+            lookups.add(nameType);
+            lookups.addAll(lookupNamed.getNameTypeFallbacks().getFallbacks(nameType));
+          }
+        }
+        this.clearDependencies();
+        for (final Name dependency : dependencies) {
+          dependency.addDependent(this);
+        }
+        this.dependencies = dependencies.toArray(new Name[dependencies.size()]);
+        if (lookups != null) {
+          for (final NameType lookup : lookups) {
+            lookupNamed.addDependent(lookup, this);
+          }
+          this.lookupNamed = lookupNamed;
+          this.lookups = lookups.toArray(new NameType[lookups.size()]);
+        }
+        this.dependencyCount = variableNames.size();
+      }
+    }
+  }
+
+  /**
+   * Unregisters this {@link Name} as a {@linkplain #dependents
+   * dependent} of every {@link Name} it is registered with, so that
+   * its dependencies are registered again the next time it is
+   * rendered.
+   */
+  final void clearDependencies() {
+    synchronized (this) {
+      final Name[] dependencies = this.dependencies;
+      if (dependencies != null) {
+        for (final Name dependency : dependencies) {
+          dependency.removeDependent(this);
+        }
+        this.dependencies = null;
+      }
+      final AbstractNamed lookupNamed = this.lookupNamed;
+      if (lookupNamed != null) {
+        for (final NameType lookup : this.lookups) {
+          lookupNamed.removeDependent(lookup, this);
+        }
+        this.lookupNamed = null;
+        this.lookups = null;
+      }
+      this.dependencyCount = 0;
+    }
+  }
+
+  /**
+   * Adds the supplied {@link Name} to this {@link Name}'s {@linkplain
+   * #dependents dependents}.
    *
-   * <p>If the supplied {@link PropertyChangeListener} has already
-   * been added, it <strong>will</strong> be added again.</p>
+   * @param dependent the {@link Name} to add; must not be {@code
+   * null}
+   */
+  private final synchronized void addDependent(final Name dependent) {
+    assert dependent != null;
+    final Name[] dependents = this.dependents;
+    if (dependents == null) {
+      this.dependents = new Name[] { dependent };
+    } else if (!containsIdentical(Arrays.asList(dependents), dependent)) {
+      final Name[] newDependents = new Name[dependents.length + 1];
+      System.arraycopy(dependents, 0, newDependents, 0, dependents.length);
+      newDependents[dependents.length] = dependent;
+      this.dependents = newDependents;
+    }
+  }
+
+  /**
+   * Removes the supplied {@link Name} from this {@link Name}'s
+   * {@linkplain #dependents dependents}.
    *
-   * <p>This method delegates to {@link
-   * PropertyChangeSupport#addPropertyChangeListener(String,
-   * PropertyChangeListener)}.</p>
+   * @param dependent the {@link Name} to remove; may be {@code null}
+   */
+  private final synchronized void removeDependent(final Name dependent) {
+    final Name[] dependents = this.dependents;
+    if (dependents != null) {
+      for (int i = 0; i < dependents.length; i++) {
+        if (dependents[i] == dependent) {
+          if (dependents.length == 1) {
+            this.dependents = null;
+          } else {
+            final Name[] newDependents = new Name[dependents.length - 1];
+            System.arraycopy(dependents, 0, newDependents, 0, i);
+            System.arraycopy(dependents, i + 1, newDependents, i, dependents.length - i - 1);
+            this.dependents = newDependents;
+          }
+          break;
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the templated {@link Name}s whose most recent rendering
+   * resolved this {@link Name}.
    *
-   * @param name the name of the property to be listened to; if {@code
-   * null} then no action will be taken
+   * <p>A templated {@link Name} discovers the {@link Name}s it
+   * depends on when it is rendered, so a {@link Name} that has never
+   * been {@linkplain #getValue() rendered} is not yet anyone's
+   * dependent.</p>
    *
-   * @param listener the {@link PropertyChangeListener} to add; if
-   * {@code null}, then no action will be taken
+   * <p>This method never returns {@code null}.</p>
    *
-   * @see #getPropertyChangeListeners(String)
+   * @return a non-{@code null}, possibly empty, array of {@link
+   * Name}s
+   */
+  Name[] getDependents() {
+    final Name[] dependents = this.dependents;
+    if (dependents == null) {
+      return new Name[0];
+    }
+    return dependents.clone();
+  }
+
+  /**
+   * Returns the {@link Name}s that depend, directly or indirectly, on
+   * this {@link Name} and that have listeners for their {@code value}
+   * property, in breadth-first order with each appearing once.
    *
-   * @see
-   * PropertyChangeSupport#addPropertyChangeListener(String, PropertyChangeListener)
+   * <p>This method may return {@code null}.</p>
+   *
+   * @return the affected {@link Name}s, or {@code null} if there are
+   * none
    */
-  public void addPropertyChangeListener(final String name, final PropertyChangeListener listener) {
-    if (listener != null) {
-      if (this.propertyChangeSupport == null) {
-        this.propertyChangeSupport = new PropertyChangeSupport(this);
+  private final Name[] getAffectedDependents() {
+    final Name[] dependents = this.dependents;
+    if (dependents == null) {
+      return null;
+    }
+    return getAffected(this, dependents);
+  }
+
+  /**
+   * Returns those of the supplied {@link Name}s, and of the {@link
+   * Name}s that depend on them directly or indirectly, that have
+   * listeners for their {@code value} property, in breadth-first
+   * order with each appearing once.
+   *
+   * <p>This method may return {@code null}.</p>
+   *
+   * @param origin a {@link Name} to exclude, typically the one whose
+   * change is being propagated; may be {@code null}
+   *
+   * @param names the {@link Name}s to start from; must not be {@code
+   * null}
+   *
+   * @return the affected {@link Name}s, or {@code null} if there are
+   * none
+   */
+  private static final Name[] getAffected(final Name origin, final Name[] names) {
+    assert names != null;
+    final Map<Name, Boolean> visited = new IdentityHashMap<Name, Boolean>();
+    if (origin != null) {
+      visited.put(origin, Boolean.TRUE);
+    }
+    final List<Name> queue = new ArrayList<Name>();
+    for (final Name name : names) {
+      if (visited.put(name, Boolean.TRUE) == null) {
+        queue.add(name);
       }
-      this.propertyChangeSupport.addPropertyChangeListener(name, listener);
     }
+    List<Name> affected = null;
+    for (int i = 0; i < queue.size(); i++) {
+      final Name name = queue.get(i);
+      if (name.hasPropertyListeners("value")) {
+        if (affected == null) {
+          affected = new ArrayList<Name>();
+        }
+        affected.add(name);
+      }
+      final Name[] dependents = name.dependents;
+      if (dependents != null) {
+        for (final Name dependent : dependents) {
+          if (visited.put(dependent, Boolean.TRUE) == null) {
+            queue.add(dependent);
+          }
+        }
+      }
+    }
+    return affected == null ? null : affected.toArray(new Name[affected.size()]);
   }
 
   /**
-   * Adds the supplied {@link PropertyChangeListener} to this {@link
-   * Name}.  The supplied {@link PropertyChangeListener} will be
-   * notified of all property changes fired by this {@link Name}.
+   * Called when this {@link Name} changes {@linkplain #getNamed()
+   * ownership}; detaches its direct {@linkplain #dependents
+   * dependents}, which will resolve something else the next time
+   * they are rendered, and notifies those of its dependents that have
+   * listeners for their {@code value} property that their values have
+   * changed.
+   *
+   * <p>Because the templated {@link Name}s in question may no longer
+   * be renderable, the notification carries {@code null} old and new
+   * values.</p>
+   */
+  private final void invalidateDependents() {
+    final Name[] affected = this.getAffectedDependents();
+    final Name[] dependents = this.dependents;
+    if (dependents != null) {
+      for (final Name dependent : dependents) {
+        dependent.clearDependencies();
+      }
+    }
+    if (affected != null) {
+      for (final Name dependent : affected) {
+        dependent.firePropertyChange("value", null, null);
+      }
+    }
+  }
+
+  /**
+   * Returns {@code true} if the supplied {@link List} contains the
+   * very same {@link Object} as the supplied {@code object}.
    *
-   * <p>If the supplied {@link PropertyChangeListener} has already
-   * been added, it <strong>will</strong> be added again.</p>
+   * @param list the {@link List} to search; must not be {@code null}
    *
-   * <p>This method delegates to {@link
-   * PropertyChangeSupport#addPropertyChangeListener(PropertyChangeListener)}.</p>
+   * @param object the {@link Object} to look for; may be {@code null}
+   *
+   * @return {@code true} if {@code list} contains {@code object}
+   */
+  private static final boolean containsIdentical(final List<?> list, final Object object) {
+    assert list != null;
+    for (final Object element : list) {
+      if (element == object) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+
+  /*
+   * Updates.
+   */
+
+
+  /**
+   * Begins an update of this {@link Name}.  Until the matching call
+   * to {@link #commit()}, property changes are not delivered to
+   * listeners; instead they are coalesced so that {@link #commit()}
+   * delivers at most one change per property, from the property's
+   * value before the update to its value after.
+   *
+   * <p>Updates may be nested; changes are delivered when the
+   * outermost update is committed.  While an update is in progress,
+   * {@link #setValue(String)} renders this {@link Name}'s old value
+   * at most once, and only if a listener is listening to the {@code
+   * value} property, and its new value only on commit.</p>
+   *
+   * <p>Updates are not a concurrency control mechanism: like the rest
+   * of this class, they assume that a {@link Name} is modified by
+   * one thread at a time.  Ownership changes are likewise not seen by
+   * {@link NameOwnershipMonitor}s until commit.</p>
+   *
+   * @see #commit()
+   */
+  public void beginUpdate() {
+    this.updateDepth++;
+  }
+
+  /**
+   * Ends an update {@linkplain #beginUpdate() begun} earlier and, if
+   * it is the outermost one, delivers the property changes it
+   * coalesced.  Changes whose coalesced old and new values are equal
+   * are not delivered.
    *
-   * @param listener the {@link PropertyChangeListener} to add; if
-   * {@code null}, then no action will be taken
+   * @exception IllegalStateException if no update is in progress
    *
-   * @see #getPropertyChangeListeners()
+   * @see #beginUpdate()
+   */
+  public void commit() {
+    if (this.updateDepth <= 0) {
+      throw new IllegalStateException("no update in progress");
+    }
+    this.updateDepth--;
+    if (this.updateDepth == 0) {
+      final Map<String, Object[]> deferredChanges = this.deferredChanges;
+      if (deferredChanges != null) {
+        this.deferredChanges = null;
+        final PropertyListeners<Name> listeners = this.listeners;
+        if (listeners != null) {
+          for (final Entry<String, Object[]> entry : deferredChanges.entrySet()) {
+            final Object[] change = entry.getValue();
+            final Object old = change[0];
+            Object newValue = change[1];
+            if (newValue == DEFERRED_VALUE) {
+              newValue = this.getValue();
+            }
+            if (old != newValue) {
+              listeners.fire(this, entry.getKey(), old, newValue);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Records a property change to be delivered when the outermost
+   * update is {@linkplain #commit() committed}, merging it with any
+   * change to the same property already recorded.
+   *
+   * @param propertyName the name of the property that has changed;
+   * may be {@code null}
+   *
+   * @param old the old value for the property; may be {@code null}
    *
-   * @see
-   * PropertyChangeSupport#addPropertyChangeListener(PropertyChangeListener)
+   * @param newValue the newValue for the property; may be {@code
+   * null}
    */
-  public void addPropertyChangeListener(final PropertyChangeListener listener) {
+  private final void deferPropertyChange(final String propertyName, final Object old, final Object newValue) {
+    Map<String, Object[]> deferredChanges = this.deferredChanges;
+    if (deferredChanges == null) {
+      deferredChanges = new LinkedHashMap<String, Object[]>();
+      this.deferredChanges = deferredChanges;
+    }
+    final Object[] change = deferredChanges.get(propertyName);
+    if (change == null) {
+      deferredChanges.put(propertyName, new Object[] { old, newValue });
+    } else if (change[1] != DEFERRED_VALUE) {
+      change[1] = newValue;
+    }
+  }
+
+
+  /*
+   * PropertyListener support.
+   */
+
+
+  /**
+   * Adds the supplied {@link PropertyListener} to this {@link Name},
+   * listening for changes to the property identified by the value of
+   * the {@code name} parameter.
+   *
+   * <p>If the supplied {@link PropertyListener} has already been
+   * added, it <strong>will</strong> be added again.</p>
+   *
+   * @param name the name of the property to be listened to; if {@code
+   * null} then the listener will be notified of changes to all
+   * properties
+   *
+   * @param listener the {@link PropertyListener} to add; if {@code
+   * null}, then no action will be taken
+   *
+   * @see #removePropertyListener(String, PropertyListener)
+   *
+   * @see #hasPropertyListeners(String)
+   */
+  public void addPropertyListener(final String name, final PropertyListener<? super Name> listener) {
     if (listener != null) {
-      if (this.propertyChangeSupport == null) {
-        this.propertyChangeSupport = new PropertyChangeSupport(this);
+      boolean retain = false;
+      PropertyListeners<Name> listeners = this.listeners;
+      if (listeners == null) {
+        synchronized (this) {
+          listeners = this.listeners;
+          if (listeners == null) {
+            listeners = new PropertyListeners<Name>();
+            this.listeners = listeners;
+            retain = this.derived;
+            this.derived = false;
+          }
+        }
+      }
+      listeners.add(name, listener);
+      if (retain) {
+        // A momentary Name someone listens to must hear about changes
+        // to the Names it depends on from now on.
+        final Named named = this.getNamed();
+        if (named instanceof SchemaNamed) {
+          ((SchemaNamed)named).retainDerivedName(this);
+        }
+        final TemplateContext templateContext = this.templateContext;
+        if (templateContext != null) {
+          this.registerDependencies(named, templateContext.getVariables());
+        }
       }
-      this.propertyChangeSupport.addPropertyChangeListener(listener);
     }
   }
 
   /**
-   * Removes the supplied {@link PropertyChangeListener} from this
-   * {@link Name}, so that it will no longer be listening for changes
-   * to the JavaBeans property identified by the value of the {@code
-   * name} parameter.
+   * Removes one occurrence of the supplied {@link PropertyListener}
+   * as it was {@linkplain #addPropertyListener(String,
+   * PropertyListener) added} for the property identified by the value
+   * of the {@code name} parameter.
+   *
+   * @param name the name of the property the listener was added for,
+   * or {@code null} if it was added for all properties
+   *
+   * @param listener the {@link PropertyListener} to remove; if {@code
+   * null}, then no action will be taken
+   *
+   * @see #addPropertyListener(String, PropertyListener)
+   */
+  public void removePropertyListener(final String name, final PropertyListener<? super Name> listener) {
+    final PropertyListeners<Name> listeners = this.listeners;
+    if (listener != null && listeners != null) {
+      listeners.remove(name, listener);
+    }
+  }
+
+  /**
+   * Returns {@code true} if a change to the property identified by
+   * the supplied {@code name} would be delivered to at least one
+   * listener, whether a {@link PropertyListener} or a {@link
+   * java.beans.PropertyChangeListener}.
+   *
+   * <p>Callers may use this method to avoid computing old and new
+   * values that no one will see.</p>
+   *
+   * @param name the name of a property; may be {@code null} in which
+   * case only listeners to all properties are considered
+   *
+   * @return {@code true} if a change to the property would be
+   * delivered to at least one listener
+   */
+  public boolean hasPropertyListeners(final String name) {
+    final PropertyListeners<Name> listeners = this.listeners;
+    return listeners != null && listeners.hasListeners(name);
+  }
+
+  /**
+   * Returns {@code true} if a listener that is an instance of the
+   * supplied {@link Class} has been {@linkplain
+   * #addPropertyListener(String, PropertyListener) added} for exactly
+   * the property identified by the supplied {@code name}.
+   *
+   * @param name the name of the property, or {@code null} for
+   * listeners to all properties
    *
-   * <p>If the supplied {@link PropertyChangeListener} has been
-   * {@linkplain #addPropertyChangeListener(String,
-   * PropertyChangeListener) added} more than once, only one instance
-   * will be removed, and it is undefined which instance will be
-   * removed.</p>
+   * @param listenerClass the {@link Class} to test against; must not
+   * be {@code null}
+   *
+   * @return {@code true} if such a listener has been added
+   */
+  final boolean hasPropertyListener(final String name, final Class<?> listenerClass) {
+    final PropertyListeners<Name> listeners = this.listeners;
+    return listeners != null && listeners.containsInstanceOf(name, listenerClass);
+  }
+
+  /**
+   * Adds the supplied {@link java.beans.PropertyChangeListener} to
+   * this {@link Name}, listening for changes to the JavaBeans property
+   * identified by the value of the {@code name} parameter.
    *
-   * <p>This method delegates to {@link
-   * PropertyChangeSupport#removePropertyChangeListener(String,
-   * PropertyChangeListener)}.</p>
+   * <p>If the supplied {@link java.beans.PropertyChangeListener} has
+   * already been added, it <strong>will</strong> be added again.</p>
+   *
+   * <p>This method adapts the supplied {@link
+   * java.beans.PropertyChangeListener} to a {@link PropertyListener}
+   * and {@linkplain #addPropertyListener(String, PropertyListener)
+   * adds} that.  A {@link java.beans.PropertyChangeEvent} is
+   * allocated only when a change is delivered to it.  The {@code
+   * java.beans} package is loaded only when this method or one of its
+   * siblings is called.</p>
    *
    * @param name the name of the property to be listened to; if {@code
    * null} then no action will be taken
    *
-   * @param listener the {@link PropertyChangeListener} to add; if
-   * {@code null}, then no action will be taken
-   *
-   * @see #addPropertyChangeListener(String, PropertyChangeListener)
+   * @param listener the {@link java.beans.PropertyChangeListener} to
+   * add; if {@code null}, then no action will be taken
    *
    * @see #getPropertyChangeListeners(String)
    *
-   * @see
-   * PropertyChangeSupport#removePropertyChangeListener(String, PropertyChangeListener)
+   * @see #addPropertyListener(String, PropertyListener)
    */
-  public void removePropertyChangeListener(final String name, final PropertyChangeListener listener) {
-    if (listener != null && this.propertyChangeSupport != null) {
-      this.propertyChangeSupport.removePropertyChangeListener(name, listener);
+  public void addPropertyChangeListener(final String name, final java.beans.PropertyChangeListener listener) {
+    if (name != null && listener != null) {
+      PropertyChangeAdapters.addPropertyChangeListener(this, name, listener);
     }
   }
 
   /**
-   * Removes the supplied {@link PropertyChangeListener} from this
-   * {@link Name}, so that it will no longer be listening for changes
-   * to JavaBeans properties exposed by the {@link Name} class.
-   *
-   * <p>If the supplied {@link PropertyChangeListener} has been
-   * {@linkplain #addPropertyChangeListener(PropertyChangeListener)
-   * added} more than once, only one instance will be removed, and it
-   * is undefined which instance will be removed.</p>
+   * Adds the supplied {@link java.beans.PropertyChangeListener} to
+   * this {@link Name}.  The supplied {@link
+   * java.beans.PropertyChangeListener} will be notified of all
+   * property changes fired by this {@link Name}.
    *
-   * <p>This method delegates to {@link
-   * PropertyChangeSupport#removePropertyChangeListener(PropertyChangeListener)}.</p>
+   * <p>If the supplied {@link java.beans.PropertyChangeListener} has
+   * already been added, it <strong>will</strong> be added again.  As
+   * with {@link java.beans.PropertyChangeSupport}, a {@link
+   * java.beans.PropertyChangeListenerProxy} is added for the property
+   * it names.</p>
    *
-   * @param listener the {@link PropertyChangeListener} to add; if
-   * {@code null}, then no action will be taken
+   * <p>This method adapts the supplied {@link
+   * java.beans.PropertyChangeListener} to a {@link PropertyListener}
+   * and {@linkplain #addPropertyListener(String, PropertyListener)
+   * adds} that.</p>
    *
-   * @see #addPropertyChangeListener(PropertyChangeListener)
+   * @param listener the {@link java.beans.PropertyChangeListener} to
+   * add; if {@code null}, then no action will be taken
    *
    * @see #getPropertyChangeListeners()
    *
-   * @see
-   * PropertyChangeSupport#removePropertyChangeListener(PropertyChangeListener)
+   * @see #addPropertyListener(String, PropertyListener)
    */
-  public void removePropertyChangeListener(final PropertyChangeListener listener) {
-    if (listener != null && this.propertyChangeSupport != null) {
-      this.propertyChangeSupport.removePropertyChangeListener(listener);
+  public void addPropertyChangeListener(final java.beans.PropertyChangeListener listener) {
+    if (listener != null) {
+      PropertyChangeAdapters.addPropertyChangeListener(this, null, listener);
     }
   }
 
   /**
-   * Returns a non-{@code null} array of the {@link
-   * PropertyChangeListener}s that have been {@linkplain
-   * #addPropertyChangeListener(String, PropertyChangeListener) added}
-   * to this {@link Name} and that are listening for changes in the
-   * property identified by the supplied {@code name}.
+   * Removes the supplied {@link java.beans.PropertyChangeListener}
+   * from this {@link Name}, so that it will no longer be listening
+   * for changes to the JavaBeans property identified by the value of
+   * the {@code name} parameter.
    *
-   * <p>This method delegates to {@link
-   * PropertyChangeSupport#getPropertyChangeListeners(String)}.</p>
+   * <p>If the supplied {@link java.beans.PropertyChangeListener} has
+   * been {@linkplain #addPropertyChangeListener(String,
+   * java.beans.PropertyChangeListener) added} more than once, only one
+   * instance will be removed, and it is undefined which instance will
+   * be removed.</p>
    *
-   * @param name the name of the property in question; may be {@code
-   * null} in which case a non-{@code null} empty {@link
-   * PropertyChangeListener} array will be returned
+   * @param name the name of the property to be listened to; if {@code
+   * null} then no action will be taken
    *
-   * @return a non-{@code null}, possibly empty, array of {@link
-   * PropertyChangeListener}s
+   * @param listener the {@link java.beans.PropertyChangeListener} to
+   * add; if {@code null}, then no action will be taken
+   *
+   * @see #addPropertyChangeListener(String,
+   * java.beans.PropertyChangeListener)
+   *
+   * @see #getPropertyChangeListeners(String)
+   */
+  public void removePropertyChangeListener(final String name, final java.beans.PropertyChangeListener listener) {
+    if (name != null && listener != null && this.listeners != null) {
+      PropertyChangeAdapters.removePropertyChangeListener(this, name, listener);
+    }
+  }
+
+  /**
+   * Removes the supplied {@link java.beans.PropertyChangeListener}
+   * from this {@link Name}, so that it will no longer be listening
+   * for changes to JavaBeans properties exposed by the {@link Name}
+   * class.
+   *
+   * <p>If the supplied {@link java.beans.PropertyChangeListener} has
+   * been {@linkplain
+   * #addPropertyChangeListener(java.beans.PropertyChangeListener)
+   * added} more than once, only one instance will be removed, and it
+   * is undefined which instance will be removed.  As with {@link
+   * java.beans.PropertyChangeSupport}, a {@link
+   * java.beans.PropertyChangeListenerProxy} is removed from the
+   * property it names.</p>
+   *
+   * @param listener the {@link java.beans.PropertyChangeListener} to
+   * add; if {@code null}, then no action will be taken
    *
-   * @see PropertyChangeSupport#getPropertyChangeListeners(String)
+   * @see #addPropertyChangeListener(java.beans.PropertyChangeListener)
+   *
+   * @see #getPropertyChangeListeners()
    */
-  public PropertyChangeListener[] getPropertyChangeListeners(final String name) {
-    if (this.propertyChangeSupport != null) {
-      return this.propertyChangeSupport.getPropertyChangeListeners(name);
+  public void removePropertyChangeListener(final java.beans.PropertyChangeListener listener) {
+    if (listener != null && this.listeners != null) {
+      PropertyChangeAdapters.removePropertyChangeListener(this, null, listener);
     }
-    return EMPTY_PROPERTY_CHANGE_LISTENER_ARRAY;
   }
 
   /**
    * Returns a non-{@code null} array of the {@link
-   * PropertyChangeListener}s that have been {@linkplain
-   * #addPropertyChangeListener(PropertyChangeListener) added} to this
-   * {@link Name} and that are listening for changes in all properties
-   * exposed by the {@link Name} class.
+   * java.beans.PropertyChangeListener}s that have been {@linkplain
+   * #addPropertyChangeListener(String,
+   * java.beans.PropertyChangeListener) added} to this {@link Name} and
+   * that are listening for changes in the property identified by the
+   * supplied {@code name}.
    *
-   * <p>This method delegates to {@link
-   * PropertyChangeSupport#getPropertyChangeListeners()}.</p>
+   * <p>{@link PropertyListener}s {@linkplain
+   * #addPropertyListener(String, PropertyListener) added} for the
+   * property are included, each viewed as a {@link
+   * java.beans.PropertyChangeListener}.</p>
+   *
+   * @param name the name of the property in question; may be {@code
+   * null} in which case a non-{@code null} empty {@link
+   * java.beans.PropertyChangeListener} array will be returned
    *
    * @return a non-{@code null}, possibly empty, array of {@link
-   * PropertyChangeListener}s
+   * java.beans.PropertyChangeListener}s
+   */
+  public java.beans.PropertyChangeListener[] getPropertyChangeListeners(final String name) {
+    return PropertyChangeAdapters.getPropertyChangeListeners(name == null ? null : this.listeners, name);
+  }
+
+  /**
+   * Returns a non-{@code null} array of all the {@link
+   * java.beans.PropertyChangeListener}s that have been {@linkplain
+   * #addPropertyChangeListener(java.beans.PropertyChangeListener)
+   * added} to this {@link Name}.
+   *
+   * <p>As with {@link
+   * java.beans.PropertyChangeSupport#getPropertyChangeListeners()},
+   * listeners that have been {@linkplain
+   * #addPropertyChangeListener(String,
+   * java.beans.PropertyChangeListener) added for a particular
+   * property} are included too, each wrapped in a {@link
+   * java.beans.PropertyChangeListenerProxy} naming that property.
+   * {@link PropertyListener}s {@linkplain
+   * #addPropertyListener(String, PropertyListener) added} to this
+   * {@link Name} are included as well, each viewed as a {@link
+   * java.beans.PropertyChangeListener}.</p>
    *
-   * @see PropertyChangeSupport#getPropertyChangeListeners()
+   * @return a non-{@code null}, possibly empty, array of {@link
+   * java.beans.PropertyChangeListener}s
    */
-  public PropertyChangeListener[] getPropertyChangeListeners() {
-    if (this.propertyChangeSupport != null) {
-      return this.propertyChangeSupport.getPropertyChangeListeners();
-    }
-    return EMPTY_PROPERTY_CHANGE_LISTENER_ARRAY;
+  public java.beans.PropertyChangeListener[] getPropertyChangeListeners() {
+    return PropertyChangeAdapters.getAllPropertyChangeListeners(this.listeners);
   }
 
   /**
-   * If appropriate, notifies registered {@link
-   * PropertyChangeListener}s of a possible change in the property
-   * named by the supplied {@code propertyName} parameter.
+   * If appropriate, notifies registered {@link PropertyListener}s
+   * and {@link java.beans.PropertyChangeListener}s of a possible change in the
+   * property named by the supplied {@code propertyName} parameter.
    *
-   * <p>This method delegates to {@link
-   * PropertyChangeSupport#firePropertyChange(String, Object,
-   * Object)}.</p>
+   * <p>As with {@link java.beans.PropertyChangeSupport}, no
+   * notification occurs if the old and new values are both non-{@code
+   * null} and equal.  While an {@linkplain #beginUpdate() update} is
+   * in progress, the notification is deferred until it is {@linkplain
+   * #commit() committed}.</p>
    *
    * <p>This method is not declared {@code final} only so that this
    * class may be used as a JPA entity.</p>
@@ -892,13 +1845,155 @@ public class Name extends AbstractValued {
    * @param newValue the newValue for the property; may be {@code
    * null}
    *
-   * @see PropertyChangeSupport#firePropertyChange(String, Object,
-   * Object)
+   * @see #hasPropertyListeners(String)
    */
   protected void firePropertyChange(final String propertyName, final Object old, final Object newValue) {
-    if (this.propertyChangeSupport != null) {
-      this.propertyChangeSupport.firePropertyChange(propertyName, old, newValue);
+    final PropertyListeners<Name> listeners = this.listeners;
+    if (listeners != null) {
+      if (this.updateDepth > 0) {
+        if (listeners.hasListeners(propertyName)) {
+          this.deferPropertyChange(propertyName, old, newValue);
+        }
+      } else {
+        listeners.fire(this, propertyName, old, newValue);
+      }
+    }
+  }
+
+
+  /*
+   * Inner and nested classes.
+   */
+
+
+  /**
+   * A pending change to the values of the templated {@link Name}s
+   * that looked up {@link NameType}s whose {@link Name}s an {@link
+   * AbstractNamed} is about to change.
+   *
+   * <p>A {@link ValueChange} is created before the change, which
+   * records the current values of the affected {@link Name}s, and
+   * {@linkplain #fire() fired} after it, which notifies their
+   * listeners of their new values.</p>
+   *
+   * @see AbstractNamed#putName(NameType, Name)
+   */
+  static final class ValueChange {
+
+    /**
+     * The {@link Name}s with listeners for their {@code value}
+     * property whose values may change; never {@code null}.
+     */
+    private final Name[] affected;
+
+    /**
+     * The values of the {@link #affected} {@link Name}s before the
+     * change; never {@code null}.
+     */
+    private final String[] oldValues;
+
+    /**
+     * Creates a new {@link ValueChange}, recording the current values
+     * of the supplied dependents, and of the {@link Name}s that
+     * depend on them, that have listeners for their {@code value}
+     * property.
+     *
+     * <p>The supplied dependents are detached from everything they
+     * currently depend on, so they will resolve, and depend on, the
+     * changed {@link Name}s the next time they are rendered, and so
+     * that no {@link Name} the change disowns notifies them a second
+     * time.</p>
+     *
+     * @param dependents the {@link Name}s that looked up the {@link
+     * NameType}s about to change; must not be {@code null}
+     */
+    ValueChange(final Collection<? extends Name> dependents) {
+      super();
+      assert dependents != null;
+      final Name[] names = dependents.toArray(new Name[dependents.size()]);
+      final Name[] affected = getAffected(null, names);
+      this.affected = affected == null ? new Name[0] : affected;
+      this.oldValues = new String[this.affected.length];
+      for (int i = 0; i < this.affected.length; i++) {
+        this.oldValues[i] = getValueOrNull(this.affected[i]);
+      }
+      for (final Name name : names) {
+        name.clearDependencies();
+      }
+    }
+
+    /**
+     * Notifies the listeners of the affected {@link Name}s of their
+     * new values.
+     */
+    final void fire() {
+      for (int i = 0; i < this.affected.length; i++) {
+        this.affected[i].firePropertyChange("value", this.oldValues[i], getValueOrNull(this.affected[i]));
+      }
+    }
+
+    /**
+     * Returns the {@linkplain Name#getValue() value} of the supplied
+     * {@link Name}, or {@code null} if it cannot be rendered.
+     *
+     * @param name the {@link Name}; must not be {@code null}
+     *
+     * @return the value of the {@link Name}, or {@code null}
+     */
+    private static final String getValueOrNull(final Name name) {
+      assert name != null;
+      try {
+        return name.getValue();
+      } catch (final IllegalStateException unrenderable) {
+        return null;
+      }
     }
+
+  }
+
+  /**
+   * A variant of a {@link Name}'s template compiled for a particular
+   * {@link Locale}, along with the {@link TemplateContext} that
+   * resolves its variables in that {@link Locale}.
+   *
+   * @see Name#getValue(Locale)
+   */
+  private static final class LocalizedTemplate {
+
+    /**
+     * The source of the variant; may be {@code null}.
+     */
+    private final String template;
+
+    /**
+     * The compiled variant; may be {@code null}.
+     */
+    private final Object compiledTemplate;
+
+    /**
+     * The {@link TemplateContext} resolving variables in the relevant
+     * {@link Locale}; may be {@code null}.
+     */
+    private final TemplateContext templateContext;
+
+    /**
+     * Creates a new {@link LocalizedTemplate}.
+     *
+     * @param template the source of the variant; may be {@code null}
+     *
+     * @param compiledTemplate the compiled variant; may be {@code
+     * null}
+     *
+     * @param templateContext the {@link TemplateContext} resolving
+     * variables in the relevant {@link Locale}; may be {@code null}
+     */
+    private LocalizedTemplate(final String template, final Object compiledTemplate, final TemplateContext templateContext) {
+      super();
+      this.template = template;
+      this.compiledTemplate = compiledTemplate;
+      this.templateContext = templateContext;
+    }
+
   }
 
 }
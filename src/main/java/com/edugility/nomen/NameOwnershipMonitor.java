@@ -30,12 +30,15 @@ package com.edugility.nomen;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
 /**
- * A special-purpose {@link PropertyChangeListener} that ensures that
+ * A special-purpose {@link PropertyListener} that ensures that
  * if a {@link Name}'s ownership changes, then all entries within a
  * {@link Map} that reference it are removed.
  *
@@ -51,20 +54,31 @@ import java.util.Map.Entry;
  * <p>The {@link NameSupport} class uses this class.  When any {@link
  * Name} is added via the {@link NameSupport#putName(Map, NameType,
  * Name)} method, a single instance of this class is {@linkplain
- * Name#addPropertyChangeListener(String, PropertyChangeListener)
- * added} as a {@link PropertyChangeListener} to the {@code named}
- * property of that {@link Name}.</p>
+ * Name#addPropertyListener(String, PropertyListener) added} as a
+ * {@link PropertyListener} to the {@code named} property of that
+ * {@link Name}.</p>
+ *
+ * <p>A {@link NameOwnershipMonitor} {@linkplain
+ * #NameOwnershipMonitor(Named, Map) created for a <code>Map</code>}
+ * keeps a reverse index from each {@link Name} to the keys it is
+ * indexed under, so reacting to an ownership change costs time
+ * proportional to the number of those keys rather than to the size
+ * of the {@link Map}.  One {@linkplain #NameOwnershipMonitor(Named,
+ * Iterable) created for an <code>Iterable</code>} scans it
+ * instead.</p>
  *
  * @author <a href="http://about.me/lairdnelson"
  * target="_parent">Laird Nelson</a>
  *
+ * @see PropertyListener
+ *
  * @see PropertyChangeListener
  *
  * @see Name
  *
  * @see NameSupport
  */
-public final class NameOwnershipMonitor implements PropertyChangeListener {
+public final class NameOwnershipMonitor implements PropertyListener<Name>, PropertyChangeListener {
 
 
   /*
@@ -88,6 +102,25 @@ public final class NameOwnershipMonitor implements PropertyChangeListener {
    */
   private final Iterable<? extends Entry<?, ? extends Name>> nameEntries;
 
+  /**
+   * The {@link Map} whose {@linkplain Map#entrySet() entries} are
+   * the {@link #nameEntries}, if this {@link NameOwnershipMonitor}
+   * was {@linkplain #NameOwnershipMonitor(Named, Map) created for a
+   * <code>Map</code>}.
+   *
+   * <p>This field may be {@code null}.</p>
+   */
+  private final Map<?, ? extends Name> map;
+
+  /**
+   * An index from each {@link Name} in the {@link #map} to the keys
+   * under which it is indexed there, compared by identity.
+   *
+   * <p>This field is {@code null} if and only if the {@link #map}
+   * field is {@code null}.</p>
+   */
+  private final Map<Name, List<Object>> keysByName;
+
 
   /*
    * Constructors.
@@ -110,7 +143,7 @@ public final class NameOwnershipMonitor implements PropertyChangeListener {
    * @exception IllegalArgumentException if either parameter is {@code
    * null}
    *
-   * @see #propertyChange(PropertyChangeEvent)
+   * @see #propertyChanged(Name, String, Object, Object)
    */
   public NameOwnershipMonitor(final Named owner, final Iterable<? extends Entry<?, ? extends Name>> nameEntries) {
     super();
@@ -122,6 +155,51 @@ public final class NameOwnershipMonitor implements PropertyChangeListener {
     }
     this.owner = owner;
     this.nameEntries = nameEntries;
+    this.map = null;
+    this.keysByName = null;
+  }
+
+  /**
+   * Creates a new {@link NameOwnershipMonitor} that monitors {@link
+   * Name}s indexed in the supplied {@link Map} and keeps a reverse
+   * index of them.
+   *
+   * <p>The reverse index is built from the supplied {@link Map}'s
+   * current contents.  Afterwards, whoever modifies the {@link Map}
+   * must keep it up to date by calling the {@link #index(Object,
+   * Name)} and {@link #unindex(Object, Name)} methods, as {@link
+   * NameSupport} does.</p>
+   *
+   * @param owner the {@link Named} whose ownership of {@link Name}s
+   * will be monitored; must not be {@code null}
+   *
+   * @param map a {@link Map} whose keys are usually {@link
+   * NameType}s and whose values are {@link Name}s; when a {@link
+   * Name} changes its "{@code named}" property then all entries that
+   * reference it will be removed; must not be {@code null}
+   *
+   * @exception IllegalArgumentException if either parameter is {@code
+   * null}
+   *
+   * @see #propertyChanged(Name, String, Object, Object)
+   */
+  public NameOwnershipMonitor(final Named owner, final Map<?, ? extends Name> map) {
+    super();
+    if (owner == null) {
+      throw new IllegalArgumentException("owner", new NullPointerException("owner"));
+    }
+    if (map == null) {
+      throw new IllegalArgumentException("map", new NullPointerException("map"));
+    }
+    this.owner = owner;
+    this.nameEntries = map.entrySet();
+    this.map = map;
+    this.keysByName = new IdentityHashMap<Name, List<Object>>();
+    for (final Entry<?, ? extends Name> entry : map.entrySet()) {
+      if (entry != null && entry.getValue() != null) {
+        this.index(entry.getKey(), entry.getValue());
+      }
+    }
   }
 
   
@@ -145,14 +223,37 @@ public final class NameOwnershipMonitor implements PropertyChangeListener {
    * method monitors a {@link Name} for that kind of ownership change,
    * and performs the {@link Map} eviction appropriately.</p>
    *
-   * @param event a {@link PropertyChangeEvent} describing a property
-   * change; must not be {@code null}
+   * <p>If the {@link Named} is a {@link MutableNamed}, the eviction
+   * goes through its {@link
+   * MutableNamed#removeNames(java.util.Collection)} method, so it is
+   * indistinguishable from an explicit removal: an {@link
+   * AbstractNamed}, for example, discards its cached fallback and
+   * inherited resolutions and notifies its {@code names}
+   * listeners.</p>
+   *
+   * @param source the {@link Name} whose property has changed; must
+   * not be {@code null}
+   *
+   * @param propertyName the name of the property that has changed;
+   * must not be {@code null}
+   *
+   * @param oldValue the old value of the property; may be {@code
+   * null}
+   *
+   * @param newValue the new value of the property; may be {@code
+   * null}
    */
   @Override
-  public final void propertyChange(final PropertyChangeEvent event) {
-    if (event != null && "named".equals(event.getPropertyName()) && this.owner == event.getOldValue()) {
-      final Object source = event.getSource();
-      if (source instanceof Name && this.owner != event.getNewValue() && this.nameEntries != null) {
+  public final void propertyChanged(final Name source, final String propertyName, final Object oldValue, final Object newValue) {
+    if (source != null && "named".equals(propertyName) && this.owner == oldValue) {
+      if (this.owner != newValue && this.keysByName != null) {
+        final List<Object> keys = this.keysByName.get(source);
+        if (keys != null) {
+          this.evict(source, new ArrayList<Object>(keys));
+        }
+        this.keysByName.remove(source);
+        source.removePropertyListener("named", this);
+      } else if (this.owner != newValue && this.nameEntries != null) {
         final Iterator<? extends Entry<?, ? extends Name>> nameEntryIterator = this.nameEntries.iterator();
         if (nameEntryIterator != null) {
           while (nameEntryIterator.hasNext()) {
@@ -169,7 +270,7 @@ public final class NameOwnershipMonitor implements PropertyChangeListener {
 
                 // We remove ourselves from the name in question to
                 // avoid memory leaks.
-                n.removePropertyChangeListener("named", this);
+                n.removePropertyListener("named", this);
               }
             }
           }
@@ -178,6 +279,155 @@ public final class NameOwnershipMonitor implements PropertyChangeListener {
     }
   }
 
-  
+  /**
+   * Reacts to a change in the "{@code named}" property of a {@link
+   * Name} described by the supplied {@link PropertyChangeEvent} by
+   * {@linkplain #propertyChanged(Name, String, Object, Object)
+   * reacting} to it as a {@link PropertyListener} would.
+   *
+   * <p>This method exists so that a {@link NameOwnershipMonitor} can
+   * still be registered as a {@link PropertyChangeListener}.</p>
+   *
+   * @param event a {@link PropertyChangeEvent} describing a property
+   * change; may be {@code null} in which case no action is taken
+   *
+   * @see #propertyChanged(Name, String, Object, Object)
+   */
+  @Override
+  public final void propertyChange(final PropertyChangeEvent event) {
+    if (event != null) {
+      final Object source = event.getSource();
+      if (source instanceof Name) {
+        this.propertyChanged((Name)source, event.getPropertyName(), event.getOldValue(), event.getNewValue());
+      }
+    }
+  }
+
+  /**
+   * Removes the entries of the {@link Map} supplied at {@linkplain
+   * #NameOwnershipMonitor(Named, Map) construction time} that index
+   * the supplied {@link Name} under the supplied keys.
+   *
+   * <p>If the owner is a {@link MutableNamed} and all the keys are
+   * {@link NameType}s, the entries are removed through its {@link
+   * MutableNamed#removeNames(java.util.Collection)} method, so that it
+   * discards whatever it has cached about them and notifies its
+   * listeners exactly as if they had been removed directly.
+   * Otherwise they are removed from the {@link Map} itself.</p>
+   *
+   * @param name the {@link Name} being evicted; must not be {@code
+   * null}
+   *
+   * @param keys the keys under which the {@link Name} is indexed;
+   * must not be {@code null}
+   */
+  private final void evict(final Name name, final List<Object> keys) {
+    assert name != null;
+    assert keys != null;
+    assert this.map != null;
+    final List<NameType> nameTypes = new ArrayList<NameType>(keys.size());
+    boolean allNameTypes = true;
+    for (final Object key : keys) {
+      if (this.map.get(key) == name) {
+        if (key instanceof NameType) {
+          nameTypes.add((NameType)key);
+        } else {
+          allNameTypes = false;
+        }
+      }
+    }
+    if (allNameTypes && this.owner instanceof MutableNamed) {
+      if (!nameTypes.isEmpty()) {
+        ((MutableNamed)this.owner).removeNames(nameTypes);
+      }
+    } else {
+      for (final Object key : keys) {
+        if (this.map.get(key) == name) {
+          this.map.remove(key);
+        }
+      }
+    }
+  }
+
+  /**
+   * Records that the supplied {@link Name} is now indexed under the
+   * supplied key in the {@link Map} supplied at {@linkplain
+   * #NameOwnershipMonitor(Named, Map) construction time}.
+   *
+   * @param key the key; may be {@code null}
+   *
+   * @param name the {@link Name}; must not be {@code null}
+   *
+   * @return {@code true} if the supplied {@link Name} was not
+   * previously indexed under any key
+   *
+   * @exception IllegalStateException if this {@link
+   * NameOwnershipMonitor} was not created for a {@link Map}
+   */
+  final boolean index(final Object key, final Name name) {
+    if (this.keysByName == null) {
+      throw new IllegalStateException();
+    }
+    List<Object> keys = this.keysByName.get(name);
+    final boolean returnValue = keys == null;
+    if (returnValue) {
+      keys = new ArrayList<Object>(2);
+      this.keysByName.put(name, keys);
+    }
+    if (!keys.contains(key)) {
+      keys.add(key);
+    }
+    return returnValue;
+  }
+
+  /**
+   * Records that the supplied {@link Name} is no longer indexed
+   * under the supplied key in the {@link Map} supplied at {@linkplain
+   * #NameOwnershipMonitor(Named, Map) construction time}.
+   *
+   * @param key the key; may be {@code null}
+   *
+   * @param name the {@link Name}; must not be {@code null}
+   *
+   * @return {@code true} if the supplied {@link Name} is now not
+   * indexed under any key
+   *
+   * @exception IllegalStateException if this {@link
+   * NameOwnershipMonitor} was not created for a {@link Map}
+   */
+  final boolean unindex(final Object key, final Name name) {
+    if (this.keysByName == null) {
+      throw new IllegalStateException();
+    }
+    final List<Object> keys = this.keysByName.get(name);
+    if (keys == null) {
+      return true;
+    }
+    keys.remove(key);
+    if (keys.isEmpty()) {
+      this.keysByName.remove(name);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Returns {@code true} if the supplied {@link Name} is indexed
+   * under at least one key in the {@link Map} supplied at {@linkplain
+   * #NameOwnershipMonitor(Named, Map) construction time}.
+   *
+   * @param name the {@link Name}; may be {@code null}
+   *
+   * @return {@code true} if the supplied {@link Name} is indexed
+   *
+   * @exception IllegalStateException if this {@link
+   * NameOwnershipMonitor} was not created for a {@link Map}
+   */
+  final boolean isIndexed(final Name name) {
+    if (this.keysByName == null) {
+      throw new IllegalStateException();
+    }
+    return this.keysByName.containsKey(name);
+  }
 
 }
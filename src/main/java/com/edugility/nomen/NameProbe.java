@@ -0,0 +1,244 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen;
+
+/**
+ * A hook, such as an adapter to an event recorder or tracer, that is
+ * notified as templates are compiled, {@link Name}s are rendered and
+ * {@link Name}s are resolved from within templates.
+ *
+ * <p>At most one {@link NameProbe} is {@linkplain
+ * #setInstance(NameProbe) installed} at a time.  When none is, each
+ * instrumented operation pays for a single volatile read.</p>
+ *
+ * <p>Each kind of operation is reported with a pair of methods.  The
+ * {@code ...Started} method is called before the operation and may
+ * return {@code null} to indicate that it is not interested, in
+ * which case the corresponding {@code ...Finished} method is not
+ * called.  Otherwise, whatever it returns is passed to the {@code
+ * ...Finished} method once the operation completes, whether
+ * successfully or not.  Both methods are called on the thread
+ * performing the operation and must be thread-safe and must not
+ * throw.</p>
+ *
+ * <p>The default implementations of the {@code ...Started} methods
+ * return {@code null}.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see #setInstance(NameProbe)
+ *
+ * @see NameStatistics
+ */
+public abstract class NameProbe {
+
+
+  /*
+   * Static fields.
+   */
+
+
+  /**
+   * The installed {@link NameProbe}.
+   *
+   * <p>This field may be {@code null}.</p>
+   */
+  private static volatile NameProbe instance;
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new {@link NameProbe}.
+   */
+  protected NameProbe() {
+    super();
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Called before a template is compiled by {@link
+   * Name#compileTemplate(String)}.  Templates satisfied by the
+   * {@link TemplateCatalog} are not reported.
+   *
+   * <p>This implementation returns {@code null}.</p>
+   *
+   * @param template the template source; never {@code null}
+   *
+   * @return an {@link Object} to pass to {@link
+   * #compileFinished(Object, String, boolean)}, or {@code null}
+   */
+  public Object compileStarted(final String template) {
+    return null;
+  }
+
+  /**
+   * Called after a template compilation reported by {@link
+   * #compileStarted(String)} completes.
+   *
+   * <p>This implementation does nothing.</p>
+   *
+   * @param context the non-{@code null} return value of {@link
+   * #compileStarted(String)}
+   *
+   * @param template the template source; never {@code null}
+   *
+   * @param succeeded whether compilation succeeded
+   */
+  public void compileFinished(final Object context, final String template, final boolean succeeded) {
+
+  }
+
+  /**
+   * Called by {@link Name#computeValue()} before a templated {@link
+   * Name} is rendered.
+   *
+   * <p>This implementation returns {@code null}.</p>
+   *
+   * @param template the template source; never {@code null}
+   *
+   * @param nameType the {@link NameType} under which the {@link Name}
+   * is being rendered: the one being resolved, if the {@link Name}
+   * is being rendered from within another template, and otherwise
+   * one under which its {@linkplain Name#getNamed() owner} indexes
+   * it; may be {@code null} if there is none
+   *
+   * @param depth the number of {@linkplain
+   * NameStatistics#getResolutionDepth() resolutions in progress} on
+   * the current thread; {@code 0} when the {@link Name} is being
+   * rendered directly rather than from within another template
+   *
+   * @return an {@link Object} to pass to {@link
+   * #renderFinished(Object, String, NameType, int, boolean)}, or
+   * {@code null}
+   */
+  public Object renderStarted(final String template, final NameType nameType, final int depth) {
+    return null;
+  }
+
+  /**
+   * Called after a rendering reported by {@link
+   * #renderStarted(String, NameType, int)} completes.
+   *
+   * <p>This implementation does nothing.</p>
+   *
+   * @param context the non-{@code null} return value of {@link
+   * #renderStarted(String, NameType, int)}
+   *
+   * @param template the template source; never {@code null}
+   *
+   * @param nameType the {@link NameType} supplied to {@link
+   * #renderStarted(String, NameType, int)}; may be {@code null}
+   *
+   * @param depth the depth supplied to {@link #renderStarted(String,
+   * NameType, int)}
+   *
+   * @param succeeded whether rendering succeeded
+   */
+  public void renderFinished(final Object context, final String template, final NameType nameType, final int depth, final boolean succeeded) {
+
+  }
+
+  /**
+   * Called by {@link
+   * com.edugility.nomen.mvel.NameResolver#getValue()} before a {@link
+   * Name} is resolved from within a template.
+   *
+   * <p>This implementation returns {@code null}.</p>
+   *
+   * @param nameType the {@link NameType} being resolved; never
+   * {@code null}
+   *
+   * @param depth the number of resolutions in progress on the
+   * current thread, including this one; always {@code 1} or greater
+   *
+   * @return an {@link Object} to pass to {@link
+   * #resolveFinished(Object, NameType, int, boolean)}, or {@code null}
+   */
+  public Object resolveStarted(final NameType nameType, final int depth) {
+    return null;
+  }
+
+  /**
+   * Called after a resolution reported by {@link
+   * #resolveStarted(NameType, int)} completes.
+   *
+   * <p>This implementation does nothing.</p>
+   *
+   * @param context the non-{@code null} return value of {@link
+   * #resolveStarted(NameType, int)}
+   *
+   * @param nameType the {@link NameType} that was resolved; never
+   * {@code null}
+   *
+   * @param depth the depth supplied to {@link
+   * #resolveStarted(NameType, int)}
+   *
+   * @param succeeded whether resolution succeeded
+   */
+  public void resolveFinished(final Object context, final NameType nameType, final int depth, final boolean succeeded) {
+
+  }
+
+
+  /*
+   * Static methods.
+   */
+
+
+  /**
+   * Returns the installed {@link NameProbe}, or {@code null} if there
+   * is none.
+   *
+   * @return the installed {@link NameProbe}, or {@code null}
+   */
+  public static final NameProbe getInstance() {
+    return instance;
+  }
+
+  /**
+   * Installs the supplied {@link NameProbe}, replacing any that is
+   * already installed.
+   *
+   * @param probe the {@link NameProbe} to install; may be {@code
+   * null} to uninstall the current one
+   */
+  public static final void setInstance(final NameProbe probe) {
+    instance = probe;
+  }
+
+}
@@ -0,0 +1,258 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen;
+
+import java.util.Collections;
+import java.util.Set;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A thread-safe declaration of {@link NameType}s and the {@link
+ * NameValue}s&mdash;typically templates&mdash;that {@link Named}s of a
+ * given kind share for them, so that each {@link Named} need store
+ * only its own atomic {@link Name}s.
+ *
+ * <p>Each {@linkplain #declare(NameType, NameValue) declared} {@link
+ * NameValue} is compiled once, when it is declared, and the compiled
+ * form is shared by every {@link Name} the schema {@linkplain
+ * #createName(Named, NameType) derives} from it.  A {@link
+ * SchemaNamed} uses a {@link NameSchema} for any {@link NameType} it
+ * has no {@link Name} of its own for, which is how per-party
+ * overrides work.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see SchemaNamed
+ */
+public class NameSchema {
+
+
+  /*
+   * Instance fields.
+   */
+
+
+  /**
+   * Unowned {@link Name}s whose {@link NameValue}s and compiled
+   * templates are shared by the {@link Name}s this {@link NameSchema}
+   * derives, indexed by {@link NameType}.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  private final ConcurrentMap<NameType, Name> prototypes;
+
+  /**
+   * A number incremented whenever a declaration is added, replaced
+   * or removed.
+   *
+   * @see #getVersion()
+   */
+  private volatile int version;
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new, empty {@link NameSchema}.
+   */
+  public NameSchema() {
+    super();
+    this.prototypes = new ConcurrentHashMap<NameType, Name>();
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Declares that {@link Named}s using this {@link NameSchema} have,
+   * for the supplied {@link NameType}, a non-{@linkplain
+   * NameValue#isAtomic() atomic} {@link NameValue} with the supplied
+   * template as its value.
+   *
+   * @param nameType the {@link NameType} being declared; must not be
+   * {@code null}
+   *
+   * @param template the template; must not be {@code null}
+   *
+   * @exception IllegalArgumentException if either parameter is {@code
+   * null}
+   *
+   * @exception IllegalStateException if the template could not be
+   * compiled
+   *
+   * @see #declare(NameType, NameValue)
+   */
+  public void declare(final NameType nameType, final String template) {
+    if (template == null) {
+      throw new IllegalArgumentException("template", new NullPointerException("template"));
+    }
+    this.declare(nameType, new NameValue(template));
+  }
+
+  /**
+   * Declares that {@link Named}s using this {@link NameSchema} have
+   * the supplied {@link NameValue} for the supplied {@link NameType},
+   * replacing any earlier declaration, and compiles it if it is a
+   * template.
+   *
+   * @param nameType the {@link NameType} being declared; must not be
+   * {@code null}
+   *
+   * @param nameValue the {@link NameValue}; must not be {@code null}
+   *
+   * @exception IllegalArgumentException if either parameter is {@code
+   * null}
+   *
+   * @exception IllegalStateException if {@code nameValue} is a
+   * template that could not be compiled
+   */
+  public void declare(final NameType nameType, final NameValue nameValue) {
+    if (nameType == null) {
+      throw new IllegalArgumentException("nameType", new NullPointerException("nameType"));
+    }
+    if (nameValue == null) {
+      throw new IllegalArgumentException("nameValue", new NullPointerException("nameValue"));
+    }
+    this.prototypes.put(nameType, new Name(nameValue));
+    synchronized (this) {
+      this.version++;
+    }
+  }
+
+  /**
+   * Removes the declaration for the supplied {@link NameType}, if
+   * there is one.
+   *
+   * @param nameType the {@link NameType} whose declaration should be
+   * removed; may be {@code null}
+   */
+  public void undeclare(final NameType nameType) {
+    if (nameType != null && this.prototypes.remove(nameType) != null) {
+      synchronized (this) {
+        this.version++;
+      }
+    }
+  }
+
+  /**
+   * Returns a number that changes whenever a declaration is added,
+   * replaced or removed.
+   *
+   * @return the version of this {@link NameSchema}
+   */
+  public int getVersion() {
+    return this.version;
+  }
+
+  /**
+   * Returns an unmodifiable view of the {@link NameType}s declared by
+   * this {@link NameSchema}.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return a non-{@code null}, unmodifiable {@link Set} of {@link
+   * NameType}s
+   */
+  public Set<NameType> getNameTypes() {
+    return Collections.unmodifiableSet(this.prototypes.keySet());
+  }
+
+  /**
+   * Returns the {@link NameValue} declared for the supplied {@link
+   * NameType}.
+   *
+   * <p>This method may return {@code null}.</p>
+   *
+   * @param nameType the {@link NameType} in question; may be {@code
+   * null}
+   *
+   * @return the declared {@link NameValue}, or {@code null}
+   */
+  public NameValue getNameValue(final NameType nameType) {
+    if (nameType == null) {
+      return null;
+    }
+    final Name prototype = this.prototypes.get(nameType);
+    return prototype == null ? null : prototype.getNameValue();
+  }
+
+  /**
+   * Returns a new {@link Name}, owned by the supplied {@link Named},
+   * whose {@link NameValue} is the one declared for the supplied
+   * {@link NameType}, or {@code null} if there is no such
+   * declaration.
+   *
+   * <p>The returned {@link Name} shares its {@link NameValue} and
+   * compiled template with all others derived from the same
+   * declaration; creating it compiles nothing and notifies no
+   * listeners.  It is meant to be used momentarily, for example to
+   * {@linkplain Name#getValue() render} it, and not retained: it is
+   * not registered with the supplied {@link Named}.</p>
+   *
+   * @param named the {@link Named} that will own the new {@link
+   * Name}; may be {@code null}
+   *
+   * @param nameType the {@link NameType} in question; may be {@code
+   * null} in which case {@code null} will be returned
+   *
+   * @return a new {@link Name}, or {@code null}
+   */
+  public Name createName(final Named named, final NameType nameType) {
+    final Name prototype = this.getPrototype(nameType);
+    return prototype == null ? null : new Name(named, prototype);
+  }
+
+  /**
+   * Returns the unowned {@link Name} whose {@link NameValue} and
+   * compiled template are shared by the {@link Name}s derived from
+   * the declaration for the supplied {@link NameType}, or {@code
+   * null} if there is no such declaration.
+   *
+   * <p>The returned {@link Name} must not be modified.</p>
+   *
+   * @param nameType the {@link NameType} in question; may be {@code
+   * null} in which case {@code null} will be returned
+   *
+   * @return the prototype {@link Name}, or {@code null}
+   *
+   * @see SchemaNamed#getName(NameType)
+   */
+  final Name getPrototype(final NameType nameType) {
+    return nameType == null ? null : this.prototypes.get(nameType);
+  }
+
+}
@@ -0,0 +1,470 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen;
+
+import java.lang.management.ManagementFactory;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MalformedObjectNameException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Process-wide statistics about template compilation, rendering and
+ * {@link Name} resolution.
+ *
+ * <p>The {@linkplain #getInstance() sole instance} of this class is
+ * updated by {@link Name#compileTemplate(String)}, {@link
+ * Name#computeValue()} and {@link
+ * com.edugility.nomen.mvel.NameResolver#getValue()}.  Its
+ * statistics may be read directly, or through JMX once it has been
+ * {@linkplain #registerMBean() registered} under the {@link
+ * #OBJECT_NAME} {@link ObjectName}.</p>
+ *
+ * <p>Counters are striped across threads so that updating them from
+ * many threads at once remains cheap; gathering may also be
+ * {@linkplain #setEnabled(boolean) disabled} altogether.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see #getInstance()
+ *
+ * @see NameStatisticsMBean
+ */
+public final class NameStatistics implements NameStatisticsMBean {
+
+
+  /*
+   * Static fields.
+   */
+
+
+  /**
+   * The {@link String} representation of the {@link ObjectName}
+   * under which the {@linkplain #getInstance() sole
+   * <code>NameStatistics</code>} is {@linkplain #registerMBean()
+   * registered}.
+   */
+  public static final String OBJECT_NAME = "com.edugility.nomen:type=NameStatistics";
+
+  /**
+   * The sole instance of this class.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  private static final NameStatistics instance = new NameStatistics();
+
+
+  /*
+   * Instance fields.
+   */
+
+
+  /**
+   * Whether statistics are being gathered.
+   */
+  private volatile boolean enabled;
+
+  /**
+   * The number of successful compilations.
+   */
+  private final StripedCounter compilations;
+
+  /**
+   * The number of failed compilations.
+   */
+  private final StripedCounter compileFailures;
+
+  /**
+   * The number of successful renders.
+   */
+  private final StripedCounter renders;
+
+  /**
+   * The number of failed renders.
+   */
+  private final StripedCounter renderFailures;
+
+  /**
+   * The cumulative render time in nanoseconds.
+   */
+  private final StripedCounter totalRenderTimeNanos;
+
+  /**
+   * The maximum render time in nanoseconds.
+   */
+  private final AtomicLong maxRenderTimeNanos;
+
+  /**
+   * The number of resolutions.
+   */
+  private final StripedCounter resolutions;
+
+  /**
+   * The maximum resolution depth.
+   */
+  private final AtomicLong maxResolutionDepth;
+
+  /**
+   * The current resolution depth of each thread, held in a
+   * one-element {@code int} array so it can be updated in place.
+   *
+   * <p>This field is never {@code null}.  It is a plain {@link
+   * ThreadLocal} rather than a subclass, and its values are {@code
+   * int} arrays, so the entries it leaves in long-lived threads refer
+   * to no class loaded by this class's {@link ClassLoader} and cannot
+   * keep it from being garbage collected.</p>
+   *
+   * @see #getResolutionDepthHolder()
+   */
+  private final ThreadLocal<int[]> resolutionDepth;
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new {@link NameStatistics}.
+   */
+  private NameStatistics() {
+    super();
+    this.enabled = true;
+    this.compilations = new StripedCounter();
+    this.compileFailures = new StripedCounter();
+    this.renders = new StripedCounter();
+    this.renderFailures = new StripedCounter();
+    this.totalRenderTimeNanos = new StripedCounter();
+    this.maxRenderTimeNanos = new AtomicLong();
+    this.resolutions = new StripedCounter();
+    this.maxResolutionDepth = new AtomicLong();
+    this.resolutionDepth = new ThreadLocal<int[]>();
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Returns {@code true} if statistics are being gathered.  They are
+   * by default.
+   *
+   * @return {@code true} if statistics are being gathered
+   */
+  @Override
+  public final boolean isEnabled() {
+    return this.enabled;
+  }
+
+  /**
+   * Sets whether statistics are gathered.
+   *
+   * @param enabled whether statistics are gathered
+   */
+  @Override
+  public final void setEnabled(final boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public final long getCompilations() {
+    return this.compilations.sum();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public final long getCompileFailures() {
+    return this.compileFailures.sum();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public final long getRenders() {
+    return this.renders.sum();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public final long getRenderFailures() {
+    return this.renderFailures.sum();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public final long getTotalRenderTimeNanos() {
+    return this.totalRenderTimeNanos.sum();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public final long getMaxRenderTimeNanos() {
+    return this.maxRenderTimeNanos.get();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public final long getResolutions() {
+    return this.resolutions.sum();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public final int getMaxResolutionDepth() {
+    return (int)this.maxResolutionDepth.get();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public final void reset() {
+    this.compilations.reset();
+    this.compileFailures.reset();
+    this.renders.reset();
+    this.renderFailures.reset();
+    this.totalRenderTimeNanos.reset();
+    this.maxRenderTimeNanos.set(0L);
+    this.resolutions.reset();
+    this.maxResolutionDepth.set(0L);
+  }
+
+  /**
+   * Records a template compilation.
+   *
+   * @param succeeded whether the compilation succeeded
+   */
+  final void recordCompilation(final boolean succeeded) {
+    if (this.enabled) {
+      if (succeeded) {
+        this.compilations.increment();
+      } else {
+        this.compileFailures.increment();
+      }
+    }
+  }
+
+  /**
+   * Records a template rendering.
+   *
+   * @param nanos how long the rendering took in nanoseconds
+   *
+   * @param succeeded whether the rendering succeeded
+   */
+  final void recordRender(final long nanos, final boolean succeeded) {
+    if (this.enabled) {
+      if (succeeded) {
+        this.renders.increment();
+      } else {
+        this.renderFailures.increment();
+      }
+      this.totalRenderTimeNanos.add(nanos);
+      updateMax(this.maxRenderTimeNanos, nanos);
+    }
+  }
+
+  /**
+   * Records the start of the resolution of a {@link Name} by name
+   * from within a template on the current thread.
+   *
+   * <p>Every invocation of this method must be followed, typically
+   * in a {@code finally} block, by an invocation of the {@link
+   * #exitResolution()} method on the same thread.  This method is
+   * called by {@link
+   * com.edugility.nomen.mvel.NameResolver#getValue()}; application
+   * code should not normally call it.</p>
+   *
+   * @return the current resolution depth, counting the resolution
+   * that is starting; always {@code 1} or greater
+   *
+   * @see #exitResolution()
+   */
+  public final int enterResolution() {
+    final int[] depth = this.getResolutionDepthHolder();
+    final int returnValue = ++depth[0];
+    if (this.enabled) {
+      this.resolutions.increment();
+      updateMax(this.maxResolutionDepth, returnValue);
+    }
+    return returnValue;
+  }
+
+  /**
+   * Returns the number of resolutions in progress on the current
+   * thread.
+   *
+   * @return the current resolution depth; {@code 0} if no {@link
+   * Name} is being resolved from within a template on the current
+   * thread
+   *
+   * @see #enterResolution()
+   */
+  public final int getResolutionDepth() {
+    return this.getResolutionDepthHolder()[0];
+  }
+
+  /**
+   * Records the end of a resolution started by the {@link
+   * #enterResolution()} method on the current thread.
+   *
+   * @see #enterResolution()
+   */
+  public final void exitResolution() {
+    final int[] depth = this.getResolutionDepthHolder();
+    if (depth[0] > 0) {
+      depth[0]--;
+    }
+  }
+
+  /**
+   * Returns the one-element {@code int} array holding the current
+   * thread's resolution depth, creating it if necessary.
+   *
+   * @return a non-{@code null} one-element {@code int} array
+   */
+  private final int[] getResolutionDepthHolder() {
+    int[] returnValue = this.resolutionDepth.get();
+    if (returnValue == null) {
+      returnValue = new int[1];
+      this.resolutionDepth.set(returnValue);
+    }
+    return returnValue;
+  }
+
+  /**
+   * Registers this {@link NameStatistics} with the {@linkplain
+   * ManagementFactory#getPlatformMBeanServer() platform
+   * <code>MBeanServer</code>} under the {@link #OBJECT_NAME} {@link
+   * ObjectName}, if it is not already registered.
+   *
+   * @exception IllegalStateException if registration fails
+   *
+   * @see #unregisterMBean()
+   */
+  public final void registerMBean() {
+    final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    try {
+      server.registerMBean(this, getObjectName());
+    } catch (final InstanceAlreadyExistsException ignore) {
+
+    } catch (final JMException wrapMe) {
+      throw new IllegalStateException(wrapMe);
+    }
+  }
+
+  /**
+   * Unregisters this {@link NameStatistics} from the {@linkplain
+   * ManagementFactory#getPlatformMBeanServer() platform
+   * <code>MBeanServer</code>}, if it is registered.
+   *
+   * @exception IllegalStateException if unregistration fails
+   *
+   * @see #registerMBean()
+   */
+  public final void unregisterMBean() {
+    final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    try {
+      server.unregisterMBean(getObjectName());
+    } catch (final InstanceNotFoundException ignore) {
+
+    } catch (final JMException wrapMe) {
+      throw new IllegalStateException(wrapMe);
+    }
+  }
+
+
+  /*
+   * Static methods.
+   */
+
+
+  /**
+   * Returns the sole {@link NameStatistics} instance.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return the sole {@link NameStatistics}; never {@code null}
+   */
+  public static final NameStatistics getInstance() {
+    return instance;
+  }
+
+  /**
+   * Returns the {@link ObjectName} corresponding to {@link
+   * #OBJECT_NAME}.
+   *
+   * @return a non-{@code null} {@link ObjectName}
+   *
+   * @exception MalformedObjectNameException if {@link #OBJECT_NAME}
+   * is malformed
+   */
+  private static final ObjectName getObjectName() throws MalformedObjectNameException {
+    return new ObjectName(OBJECT_NAME);
+  }
+
+  /**
+   * Atomically raises the value of the supplied {@link AtomicLong} to
+   * the supplied value if it is currently lower.
+   *
+   * @param max the {@link AtomicLong} to update; must not be {@code
+   * null}
+   *
+   * @param value the candidate maximum
+   */
+  private static final void updateMax(final AtomicLong max, final long value) {
+    long current = max.get();
+    while (value > current && !max.compareAndSet(current, value)) {
+      current = max.get();
+    }
+  }
+
+}
@@ -0,0 +1,120 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen;
+
+/**
+ * The JMX management interface of {@link NameStatistics}.
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see NameStatistics
+ */
+public interface NameStatisticsMBean {
+
+  /**
+   * Returns the number of templates successfully compiled.
+   *
+   * @return the number of templates successfully compiled
+   */
+  public long getCompilations();
+
+  /**
+   * Returns the number of templates that failed to compile.
+   *
+   * @return the number of templates that failed to compile
+   */
+  public long getCompileFailures();
+
+  /**
+   * Returns the number of templates successfully rendered.
+   *
+   * @return the number of templates successfully rendered
+   */
+  public long getRenders();
+
+  /**
+   * Returns the number of template renderings that failed.
+   *
+   * @return the number of template renderings that failed
+   */
+  public long getRenderFailures();
+
+  /**
+   * Returns the cumulative time, in nanoseconds, spent rendering
+   * templates, whether successfully or not.
+   *
+   * @return the cumulative render time in nanoseconds
+   */
+  public long getTotalRenderTimeNanos();
+
+  /**
+   * Returns the longest time, in nanoseconds, spent rendering a
+   * single template.
+   *
+   * @return the maximum render time in nanoseconds
+   */
+  public long getMaxRenderTimeNanos();
+
+  /**
+   * Returns the number of {@link Name}s resolved by name from within
+   * templates.
+   *
+   * @return the number of resolutions
+   */
+  public long getResolutions();
+
+  /**
+   * Returns the deepest nesting of resolutions observed, where a
+   * template that refers to a templated {@link Name} that refers to
+   * an atomic {@link Name} has a depth of {@code 2}.
+   *
+   * @return the maximum resolution depth
+   */
+  public int getMaxResolutionDepth();
+
+  /**
+   * Returns {@code true} if statistics are being gathered.
+   *
+   * @return {@code true} if statistics are being gathered
+   */
+  public boolean isEnabled();
+
+  /**
+   * Sets whether statistics are gathered.
+   *
+   * @param enabled whether statistics are gathered
+   */
+  public void setEnabled(final boolean enabled);
+
+  /**
+   * Resets all statistics to {@code 0}.
+   */
+  public void reset();
+
+}
@@ -27,15 +27,16 @@
  */
 package com.edugility.nomen;
 
-import java.beans.PropertyChangeListener;
-
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.Serializable;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -64,6 +65,25 @@ public class NameSupport {
    */
   private final Named delegate;
 
+  /**
+   * The {@link NameOwnershipMonitor} most recently created by the
+   * {@link #addNameOwnershipMonitor(Name, Map)} method, shared by all
+   * {@link Name}s put into the {@link Map} it monitors.
+   *
+   * <p>This field may be {@code null}.</p>
+   *
+   * @see #addNameOwnershipMonitor(Name, Map)
+   */
+  private NameOwnershipMonitor nameOwnershipMonitor;
+
+  /**
+   * The {@link Map} whose {@linkplain Map#entrySet() entries} the
+   * {@link #nameOwnershipMonitor} monitors.
+   *
+   * <p>This field may be {@code null}.</p>
+   */
+  private Map<?, ? extends Name> nameOwnershipMonitorMap;
+
   /**
    * Creates a new {@link NameSupport} that will manage {@link Name}s
    * for the supplied {@link Named}.
@@ -159,7 +179,7 @@ public class NameSupport {
    * Map}; must not be {@code null}
    *
    * @return the {@link Name} previously indexed under the supplied
-   * {@link NameType}, or {@code null}
+   * {@link NameType} in the supplied {@link Map}, or {@code null}
    */
   public Name putName(final Map<NameType, Name> map, final NameType nameType, final Name name) {
     if (map == null) {
@@ -173,17 +193,21 @@ public class NameSupport {
     final Named delegate = this.delegate;
     assert delegate != null;
 
-    final Name old = delegate.getName(nameType);
+    // Consult the Map rather than the delegate, whose getName()
+    // method may return Names it does not itself index, such as
+    // inherited or derived ones.
+    final Name old = map.get(nameType);
     if (old != name) {
       
       name.setNamed(delegate);
-      this.addNameOwnershipMonitor(name, map);
+      final NameOwnershipMonitor monitor = this.getNameOwnershipMonitor(map);
       
-      final Name priorMapValue = map.put(nameType, name);
-      final Collection<? extends Name> names = map.values();
-      this.disown(old, names);
-      if (priorMapValue != old) {
-        this.disown(priorMapValue, names);
+      map.put(nameType, name);
+      if (monitor.index(nameType, name)) {
+        name.addPropertyListener("named", monitor);
+      }
+      if (old != null) {
+        this.disown(old, nameType, monitor);
       }
     }
 
@@ -191,35 +215,116 @@ public class NameSupport {
   }
 
   /**
-   * Adds a new {@link NameOwnershipMonitor} to the supplied {@link
-   * Name} as a {@link PropertyChangeListener} that listens for
-   * changes in its {@code named} property.  The {@link
-   * NameOwnershipMonitor} is responsible for ensuring that ownership
-   * of the {@link Name} is properly maintained.
+   * {@linkplain Map#put(Object, Object) Puts} all the supplied {@link
+   * Name}s into the supplied {@link Map} indexed under their
+   * corresponding {@link NameType}s, while ensuring that {@link Name}
+   * ownership is sanely managed.
    *
-   * @param name the {@link Name} to monitor; may be {@code null} in
-   * which case no action will be taken
+   * <p>This is equivalent to calling {@link #putName(Map, NameType,
+   * Name)} for each entry, but each distinct {@link Name} is
+   * monitored once, and {@link Name}s displaced by the batch are
+   * disowned in a single pass at the end, so a {@link Name} that is
+   * moved from one {@link NameType} to another within the batch is
+   * never disowned.</p>
    *
-   * @param map a {@link Map} whose {@linkplain Map#values() values}
-   * are {@link Name}s; may be {@code null} in which case no action
-   * will be taken
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @param map a mutable {@link Map} containing {@link Name}s indexed
+   * by {@link NameType}s; must not be {@code null}; this {@link Map}
+   * will be modified as a result of invoking this method
+   *
+   * @param names the {@link Name}s to put, indexed by {@link
+   * NameType}; must not be {@code null} and must not contain {@code
+   * null} keys or values
+   *
+   * @return a non-{@code null}, possibly empty, {@link Set} of the
+   * {@link NameType}s whose {@link Name}s changed
+   *
+   * @exception IllegalArgumentException if any parameter is {@code
+   * null} or {@code names} contains a {@code null} key or value, in
+   * which case the supplied {@link Map} is not modified
    */
-  private final void addNameOwnershipMonitor(final Name name, final Map<?, ? extends Name> map) {
-    if (name != null && map != null) {
-      boolean add = true;
-      final PropertyChangeListener[] pcls = name.getPropertyChangeListeners("named");
-      if (pcls != null && pcls.length > 0) {
-        for (final PropertyChangeListener pcl : pcls) {
-          if (pcl instanceof NameOwnershipMonitor) {
-            add = false;
-            break;
+  public Set<NameType> putNames(final Map<NameType, Name> map, final Map<? extends NameType, ? extends Name> names) {
+    if (map == null) {
+      throw new IllegalArgumentException("map", new NullPointerException("map"));
+    } else if (names == null) {
+      throw new IllegalArgumentException("names", new NullPointerException("names"));
+    }
+    for (final Entry<? extends NameType, ? extends Name> entry : names.entrySet()) {
+      if (entry.getKey() == null) {
+        throw new IllegalArgumentException("names", new NullPointerException("nameType"));
+      } else if (entry.getValue() == null) {
+        throw new IllegalArgumentException("names", new NullPointerException("name"));
+      }
+    }
+    if (names.isEmpty()) {
+      return Collections.emptySet();
+    }
+
+    final Named delegate = this.delegate;
+    assert delegate != null;
+    final NameOwnershipMonitor monitor = this.getNameOwnershipMonitor(map);
+    final Set<NameType> returnValue = new LinkedHashSet<NameType>();
+    List<Name> displaced = null;
+    for (final Entry<? extends NameType, ? extends Name> entry : names.entrySet()) {
+      final NameType nameType = entry.getKey();
+      final Name name = entry.getValue();
+      final Name prior = map.get(nameType);
+      if (prior != name) {
+        name.setNamed(delegate);
+        map.put(nameType, name);
+        if (monitor.index(nameType, name)) {
+          name.addPropertyListener("named", monitor);
+        }
+        if (prior != null && monitor.unindex(nameType, prior)) {
+          if (displaced == null) {
+            displaced = new ArrayList<Name>();
           }
+          displaced.add(prior);
         }
+        returnValue.add(nameType);
       }
-      if (add) {
-        name.addPropertyChangeListener("named", new NameOwnershipMonitor(this.delegate, map.entrySet()));
+    }
+    if (displaced != null) {
+      for (final Name name : displaced) {
+        this.disown(name, null, monitor);
+      }
+    }
+    return returnValue;
+  }
+
+  /**
+   * Returns the {@link NameOwnershipMonitor} responsible for
+   * ensuring that ownership of {@link Name}s indexed in the supplied
+   * {@link Map} is properly maintained, creating it if necessary.
+   *
+   * <p>A single {@link NameOwnershipMonitor} is shared by all {@link
+   * Name}s put into a given {@link Map}, so monitoring a {@link Name}
+   * does not allocate a new listener for each one.  It also keeps a
+   * reverse index from each {@link Name} to the {@link NameType}s it
+   * is indexed under, so that ownership maintenance never scans the
+   * {@link Map}.</p>
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @param map a {@link Map} whose {@linkplain Map#values() values}
+   * are {@link Name}s; must not be {@code null}
+   *
+   * @return a non-{@code null} {@link NameOwnershipMonitor}
+   */
+  private final NameOwnershipMonitor getNameOwnershipMonitor(final Map<?, ? extends Name> map) {
+    assert map != null;
+    if (this.nameOwnershipMonitor == null || this.nameOwnershipMonitorMap != map) {
+      final NameOwnershipMonitor monitor = new NameOwnershipMonitor(this.delegate, map);
+      for (final Name name : map.values()) {
+        if (name != null && !name.hasPropertyListener("named", NameOwnershipMonitor.class)) {
+          name.addPropertyListener("named", monitor);
+        }
       }
+      this.nameOwnershipMonitor = monitor;
+      this.nameOwnershipMonitorMap = map;
     }
+    return this.nameOwnershipMonitor;
   }
 
   /**
@@ -249,7 +354,7 @@ public class NameSupport {
     if (map != null && !map.isEmpty()) {
       returnValue = map.remove(nameType);
       if (returnValue != null) {
-        this.disown(returnValue, map.values());
+        this.disown(returnValue, nameType, this.getNameOwnershipMonitor(map));
       }
     } else {
       returnValue = null;
@@ -258,31 +363,93 @@ public class NameSupport {
   }
 
   /**
-   * Sets the ownership of the supplied {@link Name} to {@code null}
-   * if and only if it can be proved that no {@link NameType} indexes
-   * it.
+   * Removes any {@link Name}s present in the supplied {@link Map} that
+   * are indexed under the supplied {@link NameType}s, disowning those
+   * that are no longer indexed at all in a single pass at the end.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @param map the {@link Map} from which {@link Name}s should be
+   * removed; may be {@code null} in which case no action will be
+   * taken
+   *
+   * @param nameTypes the {@link NameType}s identifying the {@link
+   * Name}s to be removed; must not be {@code null}; {@code null}
+   * elements are ignored
+   *
+   * @return a non-{@code null}, possibly empty, {@link Set} of the
+   * {@link NameType}s whose {@link Name}s were removed
+   *
+   * @exception IllegalArgumentException if {@code nameTypes} is
+   * {@code null}
+   */
+  public Set<NameType> removeNames(final Map<?, ? extends Name> map, final Collection<? extends NameType> nameTypes) {
+    if (nameTypes == null) {
+      throw new IllegalArgumentException("nameTypes", new NullPointerException("nameTypes"));
+    }
+    if (map == null || map.isEmpty() || nameTypes.isEmpty()) {
+      return Collections.emptySet();
+    }
+    final NameOwnershipMonitor monitor = this.getNameOwnershipMonitor(map);
+    final Set<NameType> returnValue = new LinkedHashSet<NameType>();
+    List<Name> removed = null;
+    for (final NameType nameType : nameTypes) {
+      if (nameType != null) {
+        final Name name = map.remove(nameType);
+        if (name != null) {
+          if (monitor.unindex(nameType, name)) {
+            if (removed == null) {
+              removed = new ArrayList<Name>();
+            }
+            removed.add(name);
+          }
+          returnValue.add(nameType);
+        }
+      }
+    }
+    if (removed != null) {
+      for (final Name name : removed) {
+        this.disown(name, null, monitor);
+      }
+    }
+    return returnValue;
+  }
+
+  /**
+   * Records that the supplied {@link Name} is no longer indexed under
+   * the supplied {@link NameType} and, if it is now not indexed under
+   * any, stops monitoring it and sets its ownership to {@code null}.
+   *
+   * <p>This costs time proportional to the number of {@link
+   * NameType}s the {@link Name} is indexed under, not to the number
+   * of {@link Name}s.</p>
    *
    * @param name the {@link Name} to disown; may be {@code null} in
    * which case no action will be taken
    *
-   * @param names a {@link Collection} of {@link Name}s that will be
-   * consulted for ownership maintenance purposes; may be {@code null}
-   * in which case no action will be taken
+   * @param nameType the {@link NameType} under which the {@link Name}
+   * is no longer indexed, or {@code null} if it is merely to be
+   * disowned if it is not indexed at all
+   *
+   * @param monitor the {@link NameOwnershipMonitor} for the {@link
+   * Map} in question; must not be {@code null}
    */
-  private final void disown(final Name name, final Collection<? extends Name> names) {
-    if (name != null && name.getNamed() != null && names != null && !names.isEmpty()) {
-      boolean found = false;
-      for (final Object value : names) {
-        if (value == name) {
-          found = true;
-          break;
-        }
+  private final void disown(final Name name, final NameType nameType, final NameOwnershipMonitor monitor) {
+    assert monitor != null;
+    if (name != null) {
+      final boolean unindexed;
+      if (nameType == null) {
+        unindexed = !monitor.isIndexed(name);
+      } else {
+        unindexed = monitor.unindex(nameType, name);
       }
-      if (!found) {
-        name.setNamed(null);
+      if (unindexed) {
+        name.removePropertyListener("named", monitor);
+        if (name.getNamed() == this.delegate) {
+          name.setNamed(null);
+        }
       }
     }
   }
 
 }
-
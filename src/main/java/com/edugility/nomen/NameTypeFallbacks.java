@@ -0,0 +1,288 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A thread-safe registry of <em>fallback chains</em> between {@link
+ * NameType}s, such as "{@code preferredName} &rarr; {@code firstName}
+ * &rarr; {@code legalName}", that lets a template variable resolve to
+ * the first {@link Name} present in a chain instead of expressing
+ * that choice as conditional logic inside the template.
+ *
+ * <p>A chain is {@linkplain #setFallbacks(NameType, NameType...)
+ * registered} under its first {@link NameType}; the {@link
+ * NameType}s that follow it are tried in order when a {@link Named}
+ * has no {@link Name} indexed under the first.  Chains are not
+ * followed transitively.</p>
+ *
+ * <p>{@link AbstractNamed#resolveName(NameType)} caches the outcome of
+ * walking a chain until the {@link AbstractNamed}'s {@link Name}s
+ * change; {@link com.edugility.nomen.mvel.NameResolverFactory} and
+ * {@link com.edugility.nomen.mvel.NameResolver} resolve template
+ * variables with the {@link #resolveName(Named, NameType)} method,
+ * and hence through chains.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see #getInstance()
+ *
+ * @see AbstractNamed#resolveName(NameType)
+ */
+public class NameTypeFallbacks {
+
+
+  /*
+   * Static fields.
+   */
+
+
+  /**
+   * The {@link NameTypeFallbacks} returned by the {@link
+   * #getInstance()} method.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  private static final NameTypeFallbacks instance = new NameTypeFallbacks();
+
+
+  /*
+   * Instance fields.
+   */
+
+
+  /**
+   * The fallbacks registered for each {@link NameType}.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  private final ConcurrentMap<NameType, NameType[]> fallbacks;
+
+  /**
+   * A number that changes whenever a chain is registered or
+   * unregistered, so that caches of chain walks can tell when they
+   * are stale.
+   *
+   * @see #getVersion()
+   */
+  private volatile int version;
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new, empty {@link NameTypeFallbacks}.
+   *
+   * @see #getInstance()
+   */
+  public NameTypeFallbacks() {
+    super();
+    this.fallbacks = new ConcurrentHashMap<NameType, NameType[]>();
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Registers the supplied {@link NameType}s as the fallbacks, in
+   * order, for the supplied {@link NameType}, replacing any
+   * registered earlier.  Supplying no fallbacks unregisters the
+   * chain.
+   *
+   * @param nameType the {@link NameType} heading the chain; must not
+   * be {@code null}
+   *
+   * @param fallbacks the {@link NameType}s to try, in order, when
+   * there is no {@link Name} indexed under {@code nameType}; may be
+   * {@code null}; must not contain {@code null} elements
+   *
+   * @exception IllegalArgumentException if {@code nameType} is {@code
+   * null} or {@code fallbacks} contains a {@code null} element
+   */
+  public void setFallbacks(final NameType nameType, final NameType... fallbacks) {
+    if (nameType == null) {
+      throw new IllegalArgumentException("nameType", new NullPointerException("nameType"));
+    }
+    if (fallbacks == null || fallbacks.length == 0) {
+      this.fallbacks.remove(nameType);
+    } else {
+      final NameType[] copy = fallbacks.clone();
+      for (final NameType fallback : copy) {
+        if (fallback == null) {
+          throw new IllegalArgumentException("fallbacks", new NullPointerException("fallback"));
+        }
+      }
+      this.fallbacks.put(nameType, copy);
+    }
+    synchronized (this) {
+      this.version++;
+    }
+  }
+
+  /**
+   * Returns the fallbacks registered for the supplied {@link
+   * NameType}.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @param nameType the {@link NameType} heading a chain; may be
+   * {@code null}
+   *
+   * @return a non-{@code null}, possibly empty, unmodifiable {@link
+   * List} of {@link NameType}s
+   */
+  public List<NameType> getFallbacks(final NameType nameType) {
+    if (nameType != null) {
+      final NameType[] fallbacks = this.fallbacks.get(nameType);
+      if (fallbacks != null) {
+        return Collections.unmodifiableList(Arrays.asList(fallbacks));
+      }
+    }
+    return Collections.emptyList();
+  }
+
+  /**
+   * Returns the first of the supplied {@link NameType}'s {@linkplain
+   * #getFallbacks(NameType) fallbacks} under which the supplied
+   * {@link Named} has a {@link Name}.  The supplied {@link NameType}
+   * itself is not consulted.
+   *
+   * <p>This method may return {@code null}.</p>
+   *
+   * @param named the {@link Named} in question; may be {@code null}
+   * in which case {@code null} will be returned
+   *
+   * @param nameType the {@link NameType} heading a chain; may be
+   * {@code null} in which case {@code null} will be returned
+   *
+   * @return the first fallback under which {@code named} has a {@link
+   * Name}, or {@code null}
+   */
+  public NameType getFallback(final Named named, final NameType nameType) {
+    if (named != null && nameType != null) {
+      final NameType[] fallbacks = this.fallbacks.get(nameType);
+      if (fallbacks != null) {
+        for (final NameType fallback : fallbacks) {
+          if (named.getName(fallback) != null) {
+            return fallback;
+          }
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns {@code true} if no chains are registered.
+   *
+   * @return {@code true} if no chains are registered
+   */
+  public boolean isEmpty() {
+    return this.fallbacks.isEmpty();
+  }
+
+  /**
+   * Returns a number that changes whenever a chain is registered or
+   * unregistered.
+   *
+   * @return the version of this {@link NameTypeFallbacks}
+   */
+  public int getVersion() {
+    return this.version;
+  }
+
+
+  /*
+   * Static methods.
+   */
+
+
+  /**
+   * Returns the shared {@link NameTypeFallbacks} that {@link
+   * AbstractNamed}s consult unless {@linkplain
+   * AbstractNamed#setNameTypeFallbacks(NameTypeFallbacks) told
+   * otherwise}.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return the shared {@link NameTypeFallbacks}; never {@code null}
+   */
+  public static final NameTypeFallbacks getInstance() {
+    return instance;
+  }
+
+  /**
+   * Returns the {@link Name} that the supplied {@link Named} has
+   * indexed under the supplied {@link NameType} or, failing that,
+   * under the first of its fallbacks for which it has one.
+   *
+   * <p>This method may return {@code null}.</p>
+   *
+   * <p>If {@code named} is an {@link AbstractNamed}, its {@link
+   * AbstractNamed#resolveName(NameType)} method, which caches chain
+   * walks, is used; otherwise the {@linkplain #getInstance() shared
+   * <code>NameTypeFallbacks</code>} is walked.</p>
+   *
+   * @param named the {@link Named} in question; may be {@code null}
+   * in which case {@code null} will be returned
+   *
+   * @param nameType the {@link NameType} in question; may be {@code
+   * null} in which case {@code null} will be returned
+   *
+   * @return the resolved {@link Name}, or {@code null}
+   */
+  public static final Name resolveName(final Named named, final NameType nameType) {
+    if (named == null || nameType == null) {
+      return null;
+    } else if (named instanceof AbstractNamed) {
+      return ((AbstractNamed)named).resolveName(nameType);
+    }
+    Name returnValue = named.getName(nameType);
+    if (returnValue == null) {
+      final NameType fallback = instance.getFallback(named, nameType);
+      if (fallback != null) {
+        returnValue = named.getName(fallback);
+      }
+    }
+    return returnValue;
+  }
+
+}
@@ -97,6 +97,8 @@ import java.io.Serializable;
  * @see #setAtomic(boolean)
  *
  * @see #setWhitespaceReplacement(String)
+ *
+ * @see NameValuePool
  */
 public class NameValue extends AbstractValued {
 
@@ -492,6 +494,8 @@ public class NameValue extends AbstractValued {
    *
    * @see #hashCode()
    *
+   * @see #canEqual(Object)
+   *
    * @see AbstractValued#equals(Object)
    */
   @Override
@@ -501,6 +505,10 @@ public class NameValue extends AbstractValued {
     } else if (other instanceof NameValue) {
       final NameValue him = (NameValue)other;
 
+      if (!him.canEqual(this)) {
+        return false;
+      }
+
       if (this.isAtomic()) {
         if (!him.isAtomic()) {
           return false;
@@ -522,4 +530,24 @@ public class NameValue extends AbstractValued {
     }
   }
 
+  /**
+   * Returns {@code true} if the supplied {@link Object} is of a kind
+   * that may be {@linkplain #equals(Object) equal} to this {@link
+   * NameValue}.
+   *
+   * <p>Subclasses that add state to equality comparisons override
+   * this method so that a {@link NameValue} and an instance of such a
+   * subclass are never equal, which keeps {@link #equals(Object)}
+   * symmetric.</p>
+   *
+   * @param other the {@link Object} in question; may be {@code null}
+   *
+   * @return {@code true} if {@code other} is a {@link NameValue}
+   *
+   * @see #equals(Object)
+   */
+  protected boolean canEqual(final Object other) {
+    return other instanceof NameValue;
+  }
+
 }
@@ -0,0 +1,339 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A thread-safe dictionary of canonical, fully {@linkplain
+ * NameValue#isInitialized() initialized}, {@linkplain
+ * NameValue#isAtomic() atomic} {@link NameValue}s.
+ *
+ * <p>Atomic {@link NameValue}s such as first names, common surnames
+ * and suffixes like "Jr." repeat heavily across a population of
+ * {@link Named}s.  A {@link NameValuePool} ensures that {@linkplain
+ * NameValue#equals(Object) equal} atomic {@link NameValue}s share a
+ * single canonical instance, and assigns each such instance a small
+ * integer {@linkplain #getCode(NameValue) code} by which it may be
+ * stored and later {@linkplain #getNameValue(int) retrieved}.</p>
+ *
+ * <p>Sharing {@link NameValue}s in this way is safe because a fully
+ * initialized {@link NameValue} is effectively immutable.  When a
+ * given party's {@link Name} changes (Smith becomes Smyth), the
+ * {@link Name} is {@linkplain Name#setNameValue(NameValue) assigned a
+ * different <code>NameValue</code>}; the shared {@link NameValue} is
+ * never altered, so no other party is affected.</p>
+ *
+ * <p>Codes are assigned in interning order starting at {@code 0} and
+ * are stable for the lifetime of a given {@link NameValuePool}.  They
+ * are not meaningful across {@link NameValuePool} instances.  A
+ * {@link NameValuePool} never evicts an entry.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see NameValue
+ *
+ * @see #intern(String)
+ *
+ * @see #getCode(NameValue)
+ */
+public class NameValuePool {
+
+
+  /*
+   * Instance fields.
+   */
+
+
+  /**
+   * A {@link ConcurrentMap} of {@link Entry} instances, each of which
+   * houses a canonical {@link NameValue} and its code, indexed by the
+   * {@linkplain NameValue#getValue() values} of those {@link
+   * NameValue}s.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  private final ConcurrentMap<String, Entry> entries;
+
+  /**
+   * A {@link List} of canonical {@link NameValue}s indexed by their
+   * codes.
+   *
+   * <p>This field is never {@code null}.  Access to it must be
+   * synchronized on this {@link NameValuePool}.</p>
+   */
+  private final List<NameValue> codes;
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new, empty {@link NameValuePool}.
+   */
+  public NameValuePool() {
+    super();
+    this.entries = new ConcurrentHashMap<String, Entry>();
+    this.codes = new ArrayList<NameValue>();
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Returns the canonical {@linkplain NameValue#isAtomic() atomic}
+   * {@link NameValue} whose {@linkplain NameValue#getValue() value}
+   * is equal to the supplied {@code value}, creating and registering
+   * it if necessary.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @param value the value of the atomic {@link NameValue} to return;
+   * must not be {@code null}
+   *
+   * @return a non-{@code null}, fully initialized, atomic {@link
+   * NameValue}
+   *
+   * @exception IllegalArgumentException if {@code value} is {@code
+   * null}
+   */
+  public NameValue intern(final String value) {
+    if (value == null) {
+      throw new IllegalArgumentException("value", new NullPointerException("value"));
+    }
+    Entry entry = this.entries.get(value);
+    if (entry == null) {
+      entry = this.register(new NameValue(value, true));
+    }
+    assert entry != null;
+    return entry.nameValue;
+  }
+
+  /**
+   * Returns the canonical {@link NameValue} that is {@linkplain
+   * NameValue#equals(Object) equal} to the supplied {@link
+   * NameValue}, registering the supplied {@link NameValue} as the
+   * canonical instance if necessary.
+   *
+   * <p>If the supplied {@link NameValue} is not {@linkplain
+   * NameValue#isAtomic() atomic}, or is not yet {@linkplain
+   * NameValue#isInitialized() fully initialized}, it is returned
+   * unchanged and is not registered.  Only an instance of exactly
+   * {@link NameValue} is ever registered; an instance of a subclass,
+   * such as a {@link LocalizedNameValue}, is returned unchanged
+   * unless it is {@linkplain NameValue#equals(Object) equal} to the
+   * canonical {@link NameValue}.</p>
+   *
+   * <p>This method returns {@code null} only if the supplied {@link
+   * NameValue} is {@code null}.</p>
+   *
+   * @param nameValue the {@link NameValue} to intern; may be {@code
+   * null}
+   *
+   * @return the canonical {@link NameValue} equal to the supplied
+   * {@link NameValue}, or the supplied {@link NameValue} itself, or
+   * {@code null}
+   */
+  public NameValue intern(final NameValue nameValue) {
+    NameValue returnValue = nameValue;
+    if (nameValue != null && nameValue.isAtomic() && nameValue.isInitialized()) {
+      Entry entry = this.entries.get(nameValue.getValue());
+      if (entry == null && nameValue.getClass() == NameValue.class) {
+        entry = this.register(nameValue);
+      }
+      if (entry != null && entry.nameValue.equals(nameValue)) {
+        returnValue = entry.nameValue;
+      }
+    }
+    return returnValue;
+  }
+
+  /**
+   * Registers the supplied, fully initialized, atomic {@link
+   * NameValue} as the canonical instance for its {@linkplain
+   * NameValue#getValue() value} unless another thread has already
+   * done so, and returns the {@link Entry} housing whichever {@link
+   * NameValue} ends up canonical.
+   *
+   * @param nameValue the {@link NameValue} to register; must not be
+   * {@code null}
+   *
+   * @return the {@link Entry} for the canonical {@link NameValue};
+   * never {@code null}
+   */
+  private final Entry register(final NameValue nameValue) {
+    assert nameValue != null;
+    assert nameValue.isAtomic();
+    final String value = nameValue.getValue();
+    assert value != null;
+    synchronized (this) {
+      Entry returnValue = this.entries.get(value);
+      if (returnValue == null) {
+        returnValue = new Entry(nameValue, this.codes.size());
+        this.codes.add(nameValue);
+        this.entries.put(value, returnValue);
+      }
+      return returnValue;
+    }
+  }
+
+  /**
+   * Returns the code assigned to the canonical {@link NameValue}
+   * whose {@linkplain NameValue#getValue() value} is equal to the
+   * supplied {@code value}, or {@code -1} if no such {@link
+   * NameValue} has been {@linkplain #intern(String) interned}.
+   *
+   * @param value the value in question; may be {@code null} in which
+   * case {@code -1} will be returned
+   *
+   * @return a non-negative code, or {@code -1}
+   *
+   * @see #getNameValue(int)
+   */
+  public int getCode(final String value) {
+    if (value == null) {
+      return -1;
+    }
+    final Entry entry = this.entries.get(value);
+    if (entry == null) {
+      return -1;
+    }
+    return entry.code;
+  }
+
+  /**
+   * Returns the code assigned to the supplied {@link NameValue} if it
+   * is {@linkplain NameValue#equals(Object) equal} to a canonical
+   * {@link NameValue} in this {@link NameValuePool}, or {@code -1}
+   * otherwise.
+   *
+   * @param nameValue the {@link NameValue} in question; may be {@code
+   * null} in which case {@code -1} will be returned
+   *
+   * @return a non-negative code, or {@code -1}
+   *
+   * @see #getNameValue(int)
+   */
+  public int getCode(final NameValue nameValue) {
+    if (nameValue == null || !nameValue.isAtomic()) {
+      return -1;
+    }
+    final Entry entry = this.entries.get(nameValue.getValue());
+    if (entry == null || !entry.nameValue.equals(nameValue)) {
+      return -1;
+    }
+    return entry.code;
+  }
+
+  /**
+   * Returns the canonical {@link NameValue} identified by the
+   * supplied {@code code}, or {@code null} if there is no such {@link
+   * NameValue}.
+   *
+   * @param code the code in question
+   *
+   * @return the canonical {@link NameValue} identified by the
+   * supplied {@code code}, or {@code null}
+   *
+   * @see #getCode(NameValue)
+   */
+  public NameValue getNameValue(final int code) {
+    synchronized (this) {
+      if (code < 0 || code >= this.codes.size()) {
+        return null;
+      }
+      return this.codes.get(code);
+    }
+  }
+
+  /**
+   * Returns the number of canonical {@link NameValue}s held by this
+   * {@link NameValuePool}.
+   *
+   * @return the number of canonical {@link NameValue}s held by this
+   * {@link NameValuePool}; never negative
+   */
+  public int size() {
+    return this.entries.size();
+  }
+
+
+  /*
+   * Inner and nested classes.
+   */
+
+
+  /**
+   * An immutable pairing of a canonical {@link NameValue} and its
+   * code.
+   *
+   * @author <a href="http://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   */
+  private static final class Entry {
+
+    /**
+     * The canonical {@link NameValue}.
+     *
+     * <p>This field is never {@code null}.</p>
+     */
+    private final NameValue nameValue;
+
+    /**
+     * The code assigned to the {@link #nameValue} field's value.
+     */
+    private final int code;
+
+    /**
+     * Creates a new {@link Entry}.
+     *
+     * @param nameValue the canonical {@link NameValue}; must not be
+     * {@code null}
+     *
+     * @param code the code for the supplied {@link NameValue}
+     */
+    private Entry(final NameValue nameValue, final int code) {
+      super();
+      assert nameValue != null;
+      this.nameValue = nameValue;
+      this.code = code;
+    }
+
+  }
+
+}
@@ -0,0 +1,174 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen;
+
+import java.util.ServiceLoader; // for javadoc only
+
+/**
+ * A template that was compiled into Java code ahead of time, usually
+ * by the {@code nomen-maven-plugin}'s {@code precompile} goal.
+ *
+ * <p>{@link PrecompiledTemplate} implementations are discovered as
+ * services by the {@link
+ * TemplateCatalog#loadPrecompiledTemplates(ClassLoader)} method, and
+ * are then returned by the {@link Name#compileTemplate(String)}
+ * method in place of templates compiled at runtime.  Implementations
+ * must therefore have a {@code public}, zero-argument constructor,
+ * must be listed in a {@code
+ * META-INF/services/com.edugility.nomen.PrecompiledTemplate} file as
+ * described by the {@link ServiceLoader} documentation, and must be
+ * safe for concurrent execution.</p>
+ *
+ * <p>A {@link Name} executes a {@link PrecompiledTemplate} itself,
+ * whatever the {@linkplain TemplateEngine#getInstance()
+ * <code>TemplateEngine</code> in use}.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see TemplateCatalog#loadPrecompiledTemplates(ClassLoader)
+ *
+ * @see Name#compileTemplate(String)
+ */
+public abstract class PrecompiledTemplate {
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new {@link PrecompiledTemplate}.
+   */
+  protected PrecompiledTemplate() {
+    super();
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Returns the source code of the template this {@link
+   * PrecompiledTemplate} was compiled from.
+   *
+   * <p>Implementations of this method must not return {@code
+   * null}.</p>
+   *
+   * @return the non-{@code null} source code of the template
+   */
+  public abstract String getTemplate();
+
+  /**
+   * Executes this {@link PrecompiledTemplate}, resolving variables
+   * through the supplied {@link TemplateContext}, and returns the
+   * result.
+   *
+   * <p>This method may return {@code null}.</p>
+   *
+   * @param context the {@link TemplateContext} to resolve variables
+   * with; may be {@code null}
+   *
+   * @return the result of execution, or {@code null}
+   *
+   * @exception IllegalStateException if a variable could not be
+   * resolved
+   *
+   * @see #resolve(TemplateContext, String)
+   */
+  public abstract Object execute(final TemplateContext context);
+
+  /**
+   * Returns the value of the variable with the supplied name as
+   * resolved by the supplied {@link TemplateContext}.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @param context the {@link TemplateContext} to resolve the
+   * variable with; may be {@code null} in which case the variable
+   * is treated as missing
+   *
+   * @param name the name of the variable; must not be {@code null}
+   *
+   * @return the non-{@code null} value of the variable
+   *
+   * @exception IllegalStateException if the variable could not be
+   * resolved and the {@linkplain MissingNamePolicy#getInstance()
+   * installed <code>MissingNamePolicy</code>} is {@link
+   * MissingNamePolicy#FAIL}
+   *
+   * @see TemplateContext#getValue(String)
+   */
+  protected static final String resolve(final TemplateContext context, final String name) {
+    String returnValue = context == null ? null : context.getValue(name);
+    if (returnValue == null) {
+      returnValue = MissingNamePolicy.getInstance().getValue(name);
+      if (returnValue == null) {
+        throw new IllegalStateException("unable to resolve variable '" + name + "'");
+      }
+    }
+    return returnValue;
+  }
+
+  /**
+   * Returns the value of the variable named by the supplied {@link
+   * NameType} as resolved by the supplied {@link TemplateContext}.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @param context the {@link TemplateContext} to resolve the
+   * variable with; may be {@code null} in which case the variable
+   * is treated as missing
+   *
+   * @param nameType the {@link NameType} naming the variable; must
+   * not be {@code null}
+   *
+   * @return the non-{@code null} value of the variable
+   *
+   * @exception IllegalStateException if the variable could not be
+   * resolved and the {@linkplain MissingNamePolicy#getInstance()
+   * installed <code>MissingNamePolicy</code>} is {@link
+   * MissingNamePolicy#FAIL}
+   *
+   * @see TemplateContext#getValue(NameType)
+   */
+  protected static final String resolve(final TemplateContext context, final NameType nameType) {
+    String returnValue = context == null ? null : context.getValue(nameType);
+    if (returnValue == null) {
+      returnValue = MissingNamePolicy.getInstance().getValue(nameType.getValue());
+      if (returnValue == null) {
+        throw new IllegalStateException("unable to resolve variable '" + nameType.getValue() + "'");
+      }
+    }
+    return returnValue;
+  }
+
+}
@@ -0,0 +1,331 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeListenerProxy;
+
+import java.util.List;
+import java.util.Map.Entry;
+
+/**
+ * Adapts {@link PropertyChangeListener}s to and from the {@link
+ * PropertyListener}s that {@link Name} notifies.
+ *
+ * <p>This class holds all of this package's uses of the {@code
+ * java.beans} package, which lives in the {@code java.desktop}
+ * module.  {@link Name}'s JavaBeans listener methods delegate to it,
+ * so it, and with it the {@code java.beans} package, is loaded only
+ * if one of those methods is called.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see Name#addPropertyChangeListener(String, PropertyChangeListener)
+ */
+final class PropertyChangeAdapters {
+
+
+  /*
+   * Static fields.
+   */
+
+
+  /**
+   * An empty array of {@link PropertyChangeListener}s.
+   */
+  private static final PropertyChangeListener[] EMPTY_PROPERTY_CHANGE_LISTENER_ARRAY = new PropertyChangeListener[0];
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new {@link PropertyChangeAdapters}.
+   */
+  private PropertyChangeAdapters() {
+    super();
+  }
+
+
+  /*
+   * Static methods.
+   */
+
+
+  /**
+   * Adds the supplied {@link PropertyChangeListener} to the supplied
+   * {@link Name}.
+   *
+   * <p>As with {@link java.beans.PropertyChangeSupport}, a {@link
+   * PropertyChangeListenerProxy} added for all properties is added
+   * for its {@linkplain PropertyChangeListenerProxy#getPropertyName()
+   * named property} instead.</p>
+   *
+   * @param name the {@link Name}; must not be {@code null}
+   *
+   * @param propertyName the name of the property to listen to, or
+   * {@code null} for all properties
+   *
+   * @param listener the {@link PropertyChangeListener}; must not be
+   * {@code null}
+   */
+  static final void addPropertyChangeListener(final Name name, final String propertyName, final PropertyChangeListener listener) {
+    assert name != null;
+    assert listener != null;
+    if (propertyName == null && listener instanceof PropertyChangeListenerProxy) {
+      final PropertyChangeListenerProxy proxy = (PropertyChangeListenerProxy)listener;
+      final PropertyChangeListener delegate = proxy.getListener();
+      if (proxy.getPropertyName() != null && delegate != null) {
+        name.addPropertyListener(proxy.getPropertyName(), new PropertyChangeListenerAdapter(delegate));
+      }
+    } else {
+      name.addPropertyListener(propertyName, new PropertyChangeListenerAdapter(listener));
+    }
+  }
+
+  /**
+   * Removes one occurrence of the supplied {@link
+   * PropertyChangeListener} from the supplied {@link Name}.
+   *
+   * <p>As with {@link java.beans.PropertyChangeSupport}, a {@link
+   * PropertyChangeListenerProxy} removed for all properties is
+   * removed for its {@linkplain
+   * PropertyChangeListenerProxy#getPropertyName() named property}
+   * instead.</p>
+   *
+   * @param name the {@link Name}; must not be {@code null}
+   *
+   * @param propertyName the name of the property the listener was
+   * added for, or {@code null} for all properties
+   *
+   * @param listener the {@link PropertyChangeListener}; must not be
+   * {@code null}
+   */
+  static final void removePropertyChangeListener(final Name name, final String propertyName, final PropertyChangeListener listener) {
+    assert name != null;
+    assert listener != null;
+    if (propertyName == null && listener instanceof PropertyChangeListenerProxy) {
+      final PropertyChangeListenerProxy proxy = (PropertyChangeListenerProxy)listener;
+      final PropertyChangeListener delegate = proxy.getListener();
+      if (proxy.getPropertyName() != null && delegate != null) {
+        name.removePropertyListener(proxy.getPropertyName(), new PropertyChangeListenerAdapter(delegate));
+      }
+    } else {
+      name.removePropertyListener(propertyName, new PropertyChangeListenerAdapter(listener));
+    }
+  }
+
+  /**
+   * Returns the listeners in the supplied {@link PropertyListeners}
+   * that were added for exactly the supplied property, as {@link
+   * PropertyChangeListener}s.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @param listeners the {@link PropertyListeners}; may be {@code
+   * null}
+   *
+   * @param propertyName the name of the property, or {@code null} for
+   * listeners to all properties
+   *
+   * @return a non-{@code null}, possibly empty, array of {@link
+   * PropertyChangeListener}s
+   */
+  static final PropertyChangeListener[] getPropertyChangeListeners(final PropertyListeners<Name> listeners, final String propertyName) {
+    if (listeners == null) {
+      return EMPTY_PROPERTY_CHANGE_LISTENER_ARRAY;
+    }
+    final List<PropertyListener<? super Name>> list = listeners.getListeners(propertyName);
+    if (list.isEmpty()) {
+      return EMPTY_PROPERTY_CHANGE_LISTENER_ARRAY;
+    }
+    final PropertyChangeListener[] returnValue = new PropertyChangeListener[list.size()];
+    for (int i = 0; i < returnValue.length; i++) {
+      returnValue[i] = toPropertyChangeListener(list.get(i));
+    }
+    return returnValue;
+  }
+
+  /**
+   * Returns all the listeners in the supplied {@link
+   * PropertyListeners} as {@link PropertyChangeListener}s, in the
+   * order in which they were added.
+   *
+   * <p>As with {@link
+   * java.beans.PropertyChangeSupport#getPropertyChangeListeners()},
+   * listeners added for a particular property are returned wrapped in
+   * {@link PropertyChangeListenerProxy} instances naming that
+   * property.</p>
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @param listeners the {@link PropertyListeners}; may be {@code
+   * null}
+   *
+   * @return a non-{@code null}, possibly empty, array of {@link
+   * PropertyChangeListener}s
+   */
+  static final PropertyChangeListener[] getAllPropertyChangeListeners(final PropertyListeners<Name> listeners) {
+    if (listeners == null) {
+      return EMPTY_PROPERTY_CHANGE_LISTENER_ARRAY;
+    }
+    final List<Entry<String, PropertyListener<? super Name>>> list = listeners.getAllListeners();
+    if (list.isEmpty()) {
+      return EMPTY_PROPERTY_CHANGE_LISTENER_ARRAY;
+    }
+    final PropertyChangeListener[] returnValue = new PropertyChangeListener[list.size()];
+    for (int i = 0; i < returnValue.length; i++) {
+      final Entry<String, PropertyListener<? super Name>> entry = list.get(i);
+      final PropertyChangeListener listener = toPropertyChangeListener(entry.getValue());
+      final String propertyName = entry.getKey();
+      if (propertyName == null) {
+        returnValue[i] = listener;
+      } else {
+        returnValue[i] = new PropertyChangeListenerProxy(propertyName, listener);
+      }
+    }
+    return returnValue;
+  }
+
+  /**
+   * Returns the supplied {@link PropertyListener} as a {@link
+   * PropertyChangeListener}: the adapted {@link
+   * PropertyChangeListener} if it is an adapter, and a view of it
+   * otherwise.
+   *
+   * @param listener the {@link PropertyListener}; must not be {@code
+   * null}
+   *
+   * @return a non-{@code null} {@link PropertyChangeListener}
+   */
+  private static final PropertyChangeListener toPropertyChangeListener(final PropertyListener<? super Name> listener) {
+    assert listener != null;
+    if (listener instanceof PropertyChangeListenerAdapter) {
+      return ((PropertyChangeListenerAdapter)listener).delegate;
+    }
+    return new PropertyListenerView(listener);
+  }
+
+
+  /*
+   * Inner and nested classes.
+   */
+
+
+  /**
+   * A {@link PropertyListener} that delivers changes to a {@link
+   * PropertyChangeListener} as {@link PropertyChangeEvent}s.
+   *
+   * <p>Two {@link PropertyChangeListenerAdapter}s are equal if they
+   * adapt the same {@link PropertyChangeListener}.</p>
+   *
+   * @author <a href="http://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   */
+  private static final class PropertyChangeListenerAdapter implements PropertyListener<Object> {
+
+    /**
+     * The adapted {@link PropertyChangeListener}.
+     *
+     * <p>This field is never {@code null}.</p>
+     */
+    private final PropertyChangeListener delegate;
+
+    /**
+     * Creates a new {@link PropertyChangeListenerAdapter}.
+     *
+     * @param delegate the {@link PropertyChangeListener} to adapt;
+     * must not be {@code null}
+     */
+    private PropertyChangeListenerAdapter(final PropertyChangeListener delegate) {
+      super();
+      assert delegate != null;
+      this.delegate = delegate;
+    }
+
+    @Override
+    public final void propertyChanged(final Object source, final String propertyName, final Object oldValue, final Object newValue) {
+      this.delegate.propertyChange(new PropertyChangeEvent(source, propertyName, oldValue, newValue));
+    }
+
+    @Override
+    public final int hashCode() {
+      return this.delegate.hashCode();
+    }
+
+    @Override
+    public final boolean equals(final Object other) {
+      return other instanceof PropertyChangeListenerAdapter && this.delegate.equals(((PropertyChangeListenerAdapter)other).delegate);
+    }
+
+  }
+
+  /**
+   * A {@link PropertyChangeListener} view of a {@link
+   * PropertyListener} that was {@linkplain
+   * Name#addPropertyListener(String, PropertyListener) added} to a
+   * {@link Name}.
+   *
+   * @author <a href="http://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   */
+  private static final class PropertyListenerView implements PropertyChangeListener {
+
+    /**
+     * The viewed {@link PropertyListener}.
+     *
+     * <p>This field is never {@code null}.</p>
+     */
+    private final PropertyListener<? super Name> delegate;
+
+    /**
+     * Creates a new {@link PropertyListenerView}.
+     *
+     * @param delegate the {@link PropertyListener} to view; must not
+     * be {@code null}
+     */
+    private PropertyListenerView(final PropertyListener<? super Name> delegate) {
+      super();
+      assert delegate != null;
+      this.delegate = delegate;
+    }
+
+    @Override
+    public final void propertyChange(final PropertyChangeEvent event) {
+      if (event != null && event.getSource() instanceof Name) {
+        this.delegate.propertyChanged((Name)event.getSource(), event.getPropertyName(), event.getOldValue(), event.getNewValue());
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,65 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen;
+
+/**
+ * A listener notified when a bound property of some source object,
+ * such as a {@link Name}, changes.
+ *
+ * <p>Unlike a {@link java.beans.PropertyChangeListener}, a {@link
+ * PropertyListener} receives the details of a change directly, so no
+ * event object is allocated to notify it.</p>
+ *
+ * @param <S> the type of the source object
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see Name#addPropertyListener(String, PropertyListener)
+ */
+public interface PropertyListener<S> {
+
+  /**
+   * Called when the property named by the supplied {@code
+   * propertyName} of the supplied {@code source} has changed.
+   *
+   * @param source the object whose property has changed; never
+   * {@code null}
+   *
+   * @param propertyName the name of the property that has changed;
+   * never {@code null}
+   *
+   * @param oldValue the old value of the property; may be {@code
+   * null}
+   *
+   * @param newValue the new value of the property; may be {@code
+   * null}
+   */
+  public void propertyChanged(final S source, final String propertyName, final Object oldValue, final Object newValue);
+
+}
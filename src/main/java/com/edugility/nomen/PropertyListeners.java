@@ -0,0 +1,364 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map.Entry;
+
+/**
+ * A thread-safe, copy-on-write list of {@link PropertyListener}s,
+ * each listening either to one named property or to all properties
+ * of a source object.
+ *
+ * <p>Reading and {@linkplain #fire(Object, String, Object, Object)
+ * firing} never lock; adding and removing copy the underlying
+ * array.  Listeners are expected to change far less often than they
+ * are notified.</p>
+ *
+ * @param <S> the type of the source object
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see PropertyListener
+ */
+final class PropertyListeners<S> {
+
+
+  /*
+   * Static fields.
+   */
+
+
+  /**
+   * An empty array of {@link Registration}s.
+   */
+  private static final Registration<?>[] EMPTY_REGISTRATION_ARRAY = new Registration<?>[0];
+
+
+  /*
+   * Instance fields.
+   */
+
+
+  /**
+   * The current {@link Registration}s, in the order in which they
+   * were added.
+   *
+   * <p>This field is never {@code null}.  The array it refers to is
+   * never modified.</p>
+   */
+  private volatile Registration<?>[] registrations;
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new, empty {@link PropertyListeners}.
+   */
+  PropertyListeners() {
+    super();
+    this.registrations = EMPTY_REGISTRATION_ARRAY;
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Adds the supplied {@link PropertyListener}, even if it has
+   * already been added.
+   *
+   * @param propertyName the name of the property to listen to, or
+   * {@code null} to listen to all properties
+   *
+   * @param listener the {@link PropertyListener} to add; if {@code
+   * null} then no action will be taken
+   */
+  final void add(final String propertyName, final PropertyListener<? super S> listener) {
+    if (listener != null) {
+      synchronized (this) {
+        final Registration<?>[] old = this.registrations;
+        final Registration<?>[] registrations = new Registration<?>[old.length + 1];
+        System.arraycopy(old, 0, registrations, 0, old.length);
+        registrations[old.length] = new Registration<S>(propertyName, listener);
+        this.registrations = registrations;
+      }
+    }
+  }
+
+  /**
+   * Removes one occurrence of the supplied {@link PropertyListener}
+   * as it was {@linkplain #add(String, PropertyListener) added} for
+   * the supplied {@code propertyName}.
+   *
+   * @param propertyName the name of the property the listener was
+   * added for, or {@code null} if it was added for all properties
+   *
+   * @param listener the {@link PropertyListener} to remove, compared
+   * using its {@link Object#equals(Object)} method; may be {@code
+   * null} in which case no action will be taken
+   *
+   * @return {@code true} if a listener was removed
+   */
+  final boolean remove(final String propertyName, final Object listener) {
+    if (listener != null) {
+      synchronized (this) {
+        final Registration<?>[] old = this.registrations;
+        for (int i = 0; i < old.length; i++) {
+          if (old[i].matchesExactly(propertyName) && listener.equals(old[i].listener)) {
+            final Registration<?>[] registrations;
+            if (old.length == 1) {
+              registrations = EMPTY_REGISTRATION_ARRAY;
+            } else {
+              registrations = new Registration<?>[old.length - 1];
+              System.arraycopy(old, 0, registrations, 0, i);
+              System.arraycopy(old, i + 1, registrations, i, old.length - i - 1);
+            }
+            this.registrations = registrations;
+            return true;
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns {@code true} if any {@link PropertyListener} would be
+   * notified of a change in the property named by the supplied
+   * {@code propertyName}.
+   *
+   * @param propertyName the name of a property; may be {@code null}
+   * in which case only listeners to all properties are considered
+   *
+   * @return {@code true} if a listener would be notified
+   */
+  final boolean hasListeners(final String propertyName) {
+    for (final Registration<?> registration : this.registrations) {
+      if (registration.matches(propertyName)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns {@code true} if a {@link PropertyListener} that is an
+   * instance of the supplied {@link Class} was {@linkplain
+   * #add(String, PropertyListener) added} for the supplied {@code
+   * propertyName}.
+   *
+   * @param propertyName the name of the property the listener was
+   * added for, or {@code null} for listeners to all properties
+   *
+   * @param listenerClass the {@link Class} to test against; must not
+   * be {@code null}
+   *
+   * @return {@code true} if such a listener was added
+   */
+  final boolean containsInstanceOf(final String propertyName, final Class<?> listenerClass) {
+    for (final Registration<?> registration : this.registrations) {
+      if (registration.matchesExactly(propertyName) && listenerClass.isInstance(registration.listener)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns a snapshot of the {@link PropertyListener}s {@linkplain
+   * #add(String, PropertyListener) added} for exactly the supplied
+   * {@code propertyName}.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @param propertyName the name of the property the listeners were
+   * added for, or {@code null} for listeners to all properties
+   *
+   * @return a non-{@code null}, possibly empty, unmodifiable {@link
+   * List} of {@link PropertyListener}s
+   */
+  @SuppressWarnings("unchecked")
+  final List<PropertyListener<? super S>> getListeners(final String propertyName) {
+    final Registration<?>[] registrations = this.registrations;
+    if (registrations.length == 0) {
+      return Collections.emptyList();
+    }
+    final List<PropertyListener<? super S>> returnValue = new ArrayList<PropertyListener<? super S>>(registrations.length);
+    for (final Registration<?> registration : registrations) {
+      if (registration.matchesExactly(propertyName)) {
+        returnValue.add(((Registration<S>)registration).listener);
+      }
+    }
+    return Collections.unmodifiableList(returnValue);
+  }
+
+  /**
+   * Returns a snapshot of every {@link PropertyListener} {@linkplain
+   * #add(String, PropertyListener) added}, paired with the name of
+   * the property it was added for, in the order in which they were
+   * added.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return a non-{@code null}, possibly empty, unmodifiable {@link
+   * List} of {@link Entry} instances whose keys are property names
+   * ({@code null} for listeners to all properties) and whose values
+   * are {@link PropertyListener}s
+   */
+  @SuppressWarnings("unchecked")
+  final List<Entry<String, PropertyListener<? super S>>> getAllListeners() {
+    final Registration<?>[] registrations = this.registrations;
+    if (registrations.length == 0) {
+      return Collections.emptyList();
+    }
+    final List<Entry<String, PropertyListener<? super S>>> returnValue = new ArrayList<Entry<String, PropertyListener<? super S>>>(registrations.length);
+    for (final Registration<?> registration : registrations) {
+      returnValue.add(new SimpleImmutableEntry<String, PropertyListener<? super S>>(registration.propertyName, ((Registration<S>)registration).listener));
+    }
+    return Collections.unmodifiableList(returnValue);
+  }
+
+  /**
+   * Notifies every {@link PropertyListener} listening to the property
+   * named by the supplied {@code propertyName}, unless the supplied
+   * old and new values are both non-{@code null} and {@linkplain
+   * Object#equals(Object) equal}.
+   *
+   * <p>Listeners added or removed while this method is running are
+   * not affected by, and do not affect, the notification in
+   * progress.</p>
+   *
+   * @param source the source object; must not be {@code null}
+   *
+   * @param propertyName the name of the property that has changed;
+   * must not be {@code null}
+   *
+   * @param oldValue the old value of the property; may be {@code
+   * null}
+   *
+   * @param newValue the new value of the property; may be {@code
+   * null}
+   */
+  @SuppressWarnings("unchecked")
+  final void fire(final S source, final String propertyName, final Object oldValue, final Object newValue) {
+    if (oldValue != null && newValue != null && oldValue.equals(newValue)) {
+      return;
+    }
+    for (final Registration<?> registration : this.registrations) {
+      if (registration.matches(propertyName)) {
+        ((Registration<S>)registration).listener.propertyChanged(source, propertyName, oldValue, newValue);
+      }
+    }
+  }
+
+
+  /*
+   * Inner and nested classes.
+   */
+
+
+  /**
+   * An immutable pairing of a {@link PropertyListener} with the name
+   * of the property it listens to.
+   *
+   * @param <S> the type of the source object
+   *
+   * @author <a href="http://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   */
+  private static final class Registration<S> {
+
+    /**
+     * The name of the property listened to, or {@code null} for all
+     * properties.
+     */
+    private final String propertyName;
+
+    /**
+     * The {@link PropertyListener}.
+     *
+     * <p>This field is never {@code null}.</p>
+     */
+    private final PropertyListener<? super S> listener;
+
+    /**
+     * Creates a new {@link Registration}.
+     *
+     * @param propertyName the name of the property listened to, or
+     * {@code null} for all properties
+     *
+     * @param listener the {@link PropertyListener}; must not be
+     * {@code null}
+     */
+    private Registration(final String propertyName, final PropertyListener<? super S> listener) {
+      super();
+      assert listener != null;
+      this.propertyName = propertyName;
+      this.listener = listener;
+    }
+
+    /**
+     * Returns {@code true} if this {@link Registration}'s listener
+     * should be notified of a change to the supplied property.
+     *
+     * @param propertyName the name of a property; may be {@code null}
+     *
+     * @return {@code true} if this {@link Registration}'s listener
+     * listens to all properties or to the supplied one
+     */
+    private final boolean matches(final String propertyName) {
+      return this.propertyName == null || this.propertyName.equals(propertyName);
+    }
+
+    /**
+     * Returns {@code true} if this {@link Registration} was made for
+     * exactly the supplied property.
+     *
+     * @param propertyName the name of a property, or {@code null} for
+     * all properties
+     *
+     * @return {@code true} if this {@link Registration} was made for
+     * exactly the supplied property
+     */
+    private final boolean matchesExactly(final String propertyName) {
+      return this.propertyName == null ? propertyName == null : this.propertyName.equals(propertyName);
+    }
+
+  }
+
+}
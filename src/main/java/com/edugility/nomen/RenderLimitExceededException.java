@@ -0,0 +1,212 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen;
+
+/**
+ * An {@link IllegalStateException} indicating that a rendering of a
+ * {@link Name} exceeded one of the {@linkplain
+ * RenderLimits#getInstance() installed <code>RenderLimits</code>} and
+ * was stopped.
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see RenderLimits
+ */
+public class RenderLimitExceededException extends IllegalStateException {
+
+
+  /*
+   * Static fields.
+   */
+
+
+  /**
+   * The version of this class for {@linkplain java.io.Serializable
+   * serialization purposes}.
+   */
+  private static final long serialVersionUID = 1L;
+
+
+  /*
+   * Instance fields.
+   */
+
+
+  /**
+   * The {@link Limit} that was exceeded.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  private final Limit limit;
+
+  /**
+   * The template whose rendering exceeded the {@link #limit}.
+   *
+   * <p>This field may be {@code null}.</p>
+   */
+  private final String template;
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new {@link RenderLimitExceededException}.
+   *
+   * @param limit the {@link Limit} that was exceeded; must not be
+   * {@code null}
+   *
+   * @param template the template whose rendering exceeded the limit,
+   * if known; may be {@code null}
+   *
+   * @param message a detail message; may be {@code null}
+   *
+   * @exception IllegalArgumentException if {@code limit} is {@code
+   * null}
+   */
+  public RenderLimitExceededException(final Limit limit, final String template, final String message) {
+    this(limit, template, message, null);
+  }
+
+  /**
+   * Creates a new {@link RenderLimitExceededException}.
+   *
+   * @param limit the {@link Limit} that was exceeded; must not be
+   * {@code null}
+   *
+   * @param template the template whose rendering exceeded the limit,
+   * if known; may be {@code null}
+   *
+   * @param message a detail message; may be {@code null}
+   *
+   * @param cause the cause of this {@link
+   * RenderLimitExceededException}; may be {@code null}
+   *
+   * @exception IllegalArgumentException if {@code limit} is {@code
+   * null}
+   */
+  public RenderLimitExceededException(final Limit limit, final String template, final String message, final Throwable cause) {
+    super(message, cause);
+    if (limit == null) {
+      throw new IllegalArgumentException("limit", new NullPointerException("limit"));
+    }
+    this.limit = limit;
+    this.template = template;
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Returns the {@link Limit} that was exceeded.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return the non-{@code null} {@link Limit} that was exceeded
+   */
+  public Limit getLimit() {
+    return this.limit;
+  }
+
+  /**
+   * Returns the template whose rendering exceeded the {@linkplain
+   * #getLimit() limit}, or {@code null} if it is not known.
+   *
+   * @return the template, or {@code null}
+   */
+  public String getTemplate() {
+    return this.template;
+  }
+
+
+  /*
+   * Static methods.
+   */
+
+
+  /**
+   * Returns the first {@link RenderLimitExceededException} in the
+   * causal chain of the supplied {@link Throwable}, including the
+   * {@link Throwable} itself, or {@code null} if there is none.
+   *
+   * @param throwable the {@link Throwable} to inspect; may be {@code
+   * null}
+   *
+   * @return a {@link RenderLimitExceededException}, or {@code null}
+   */
+  public static final RenderLimitExceededException find(Throwable throwable) {
+    while (throwable != null) {
+      if (throwable instanceof RenderLimitExceededException) {
+        return (RenderLimitExceededException)throwable;
+      }
+      final Throwable cause = throwable.getCause();
+      throwable = cause == throwable ? null : cause;
+    }
+    return null;
+  }
+
+
+  /*
+   * Inner and nested classes.
+   */
+
+
+  /**
+   * The kinds of limit a {@link RenderLimits} imposes.
+   *
+   * @see RenderLimits
+   */
+  public static enum Limit {
+
+    /**
+     * The {@linkplain RenderLimits#getMaxRenderTimeNanos() render
+     * time} limit.
+     */
+    TIME,
+
+    /**
+     * The {@linkplain RenderLimits#getMaxOutputLength() output
+     * length} limit.
+     */
+    OUTPUT_LENGTH,
+
+    /**
+     * The {@linkplain RenderLimits#getMaxResolutionDepth() resolution
+     * depth} limit.
+     */
+    RESOLUTION_DEPTH
+
+  }
+
+}
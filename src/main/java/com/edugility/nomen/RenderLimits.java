@@ -0,0 +1,390 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen;
+
+/**
+ * Limits on the time a rendering of a {@link Name} may take, the
+ * length of the value it may produce and the depth to which it may
+ * resolve other {@link Name}s.
+ *
+ * <p>The {@linkplain #setInstance(RenderLimits) installed} {@link
+ * RenderLimits} apply to every rendering.  By default there are
+ * {@linkplain #NONE no limits}, in which case each rendering pays for
+ * a single volatile read.</p>
+ *
+ * <p>Limits are enforced cooperatively: the time and resolution depth
+ * limits are checked each time a template resolves another {@link
+ * Name}; the time and output length limits are {@linkplain
+ * #checkProgress(int) checked} each time a {@link TemplateEngine}
+ * that supports it, such as the <a
+ * href="http://mvel.codehaus.org/">MVEL</a>-based one, appends to the
+ * output of a rendering; and both are checked again when each
+ * rendering finishes.  A rendering that does none of these things,
+ * such as one stuck in a loop that produces no output, cannot be
+ * stopped.  The time limit applies to the outermost rendering on a
+ * thread, including every {@link Name} it renders in turn.  When a
+ * limit is exceeded, the rendering stops with a {@link
+ * RenderLimitExceededException}.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see RenderLimitExceededException
+ *
+ * @see TemplateCatalog#getLimitsExceeded(String)
+ */
+public final class RenderLimits {
+
+
+  /*
+   * Static fields.
+   */
+
+
+  /**
+   * A {@link RenderLimits} that imposes no limits.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  public static final RenderLimits NONE = new RenderLimits(0L, 0, 0);
+
+  /**
+   * The installed {@link RenderLimits}.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  private static volatile RenderLimits instance = NONE;
+
+  /**
+   * The state of each thread's renderings: element {@code 0} holds
+   * the {@link System#nanoTime()} deadline of the outermost
+   * rendering, and element {@code 1} the number of renderings in
+   * progress.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  private static final ThreadLocal<long[]> renderState = new ThreadLocal<long[]>() {
+      @Override
+      protected final long[] initialValue() {
+        return new long[2];
+      }
+    };
+
+
+  /*
+   * Instance fields.
+   */
+
+
+  /**
+   * The maximum time, in nanoseconds, an outermost rendering may
+   * take, or {@code 0} if there is no limit.
+   */
+  private final long maxRenderTimeNanos;
+
+  /**
+   * The maximum length of a rendered value, or {@code 0} if there is
+   * no limit.
+   */
+  private final int maxOutputLength;
+
+  /**
+   * The maximum resolution depth, or {@code 0} if there is no limit.
+   */
+  private final int maxResolutionDepth;
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new {@link RenderLimits}.
+   *
+   * @param maxRenderTimeNanos the maximum time, in nanoseconds, an
+   * outermost rendering may take, or {@code 0} for no limit; must not
+   * be negative
+   *
+   * @param maxOutputLength the maximum length of a rendered value, or
+   * {@code 0} for no limit; must not be negative
+   *
+   * @param maxResolutionDepth the maximum {@linkplain
+   * NameStatistics#getResolutionDepth() resolution depth}, or {@code
+   * 0} for no limit; must not be negative
+   *
+   * @exception IllegalArgumentException if any parameter is negative
+   */
+  public RenderLimits(final long maxRenderTimeNanos, final int maxOutputLength, final int maxResolutionDepth) {
+    super();
+    if (maxRenderTimeNanos < 0L) {
+      throw new IllegalArgumentException("maxRenderTimeNanos < 0: " + maxRenderTimeNanos);
+    }
+    if (maxOutputLength < 0) {
+      throw new IllegalArgumentException("maxOutputLength < 0: " + maxOutputLength);
+    }
+    if (maxResolutionDepth < 0) {
+      throw new IllegalArgumentException("maxResolutionDepth < 0: " + maxResolutionDepth);
+    }
+    this.maxRenderTimeNanos = maxRenderTimeNanos;
+    this.maxOutputLength = maxOutputLength;
+    this.maxResolutionDepth = maxResolutionDepth;
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Returns the maximum time, in nanoseconds, an outermost rendering
+   * may take, or {@code 0} if there is no limit.
+   *
+   * @return the maximum render time in nanoseconds, or {@code 0}
+   */
+  public final long getMaxRenderTimeNanos() {
+    return this.maxRenderTimeNanos;
+  }
+
+  /**
+   * Returns the maximum length of a rendered value, or {@code 0} if
+   * there is no limit.
+   *
+   * @return the maximum output length, or {@code 0}
+   */
+  public final int getMaxOutputLength() {
+    return this.maxOutputLength;
+  }
+
+  /**
+   * Returns the maximum resolution depth, or {@code 0} if there is no
+   * limit.
+   *
+   * @return the maximum resolution depth, or {@code 0}
+   */
+  public final int getMaxResolutionDepth() {
+    return this.maxResolutionDepth;
+  }
+
+  /**
+   * Returns {@code true} if this {@link RenderLimits} imposes no
+   * limits.
+   *
+   * @return {@code true} if this {@link RenderLimits} imposes no
+   * limits
+   */
+  public final boolean isUnlimited() {
+    return this.maxRenderTimeNanos == 0L && this.maxOutputLength == 0 && this.maxResolutionDepth == 0;
+  }
+
+  /**
+   * Records the start of a rendering on the current thread, starting
+   * the clock if it is the outermost one.
+   *
+   * <p>Every invocation of this method must be followed, typically in
+   * a {@code finally} block, by an invocation of the {@link
+   * #exitRender()} method on the same thread.</p>
+   *
+   * @param now the current {@link System#nanoTime()}, which the
+   * caller has read anyway; ignored unless there is a {@linkplain
+   * #getMaxRenderTimeNanos() time limit}
+   *
+   * @see #exitRender()
+   */
+  final void enterRender(final long now) {
+    final long[] state = renderState.get();
+    if (state[1]++ == 0L && this.maxRenderTimeNanos > 0L) {
+      state[0] = now + this.maxRenderTimeNanos;
+    }
+  }
+
+  /**
+   * Records the end of a rendering started by the {@link
+   * #enterRender()} method on the current thread.
+   *
+   * @see #enterRender()
+   */
+  static final void exitRender() {
+    final long[] state = renderState.get();
+    if (state[1] > 0L) {
+      state[1]--;
+    }
+  }
+
+  /**
+   * Throws a {@link RenderLimitExceededException} if the outermost
+   * rendering on the current thread has run out of time.
+   *
+   * @exception RenderLimitExceededException if the outermost rendering
+   * on the current thread has run out of time
+   */
+  final void checkTime() {
+    if (this.maxRenderTimeNanos > 0L) {
+      this.checkTime(System.nanoTime());
+    }
+  }
+
+  /**
+   * Throws a {@link RenderLimitExceededException} if, as of the
+   * supplied {@link System#nanoTime()}, the outermost rendering on
+   * the current thread has run out of time.
+   *
+   * @param now the current {@link System#nanoTime()}
+   *
+   * @exception RenderLimitExceededException if the outermost rendering
+   * on the current thread has run out of time
+   */
+  final void checkTime(final long now) {
+    if (this.maxRenderTimeNanos > 0L) {
+      final long[] state = renderState.get();
+      if (state[1] > 0L && now - state[0] > 0L) {
+        throw new RenderLimitExceededException(RenderLimitExceededException.Limit.TIME, null, "render time limit of " + this.maxRenderTimeNanos + " ns exceeded");
+      }
+    }
+  }
+
+  /**
+   * Throws a {@link RenderLimitExceededException} if the supplied
+   * resolution depth exceeds this {@link RenderLimits}' {@linkplain
+   * #getMaxResolutionDepth() maximum}, or if the outermost rendering
+   * on the current thread has {@linkplain #checkTime() run out
+   * of time}.
+   *
+   * @param depth the current resolution depth
+   *
+   * @exception RenderLimitExceededException if a limit has been
+   * exceeded
+   */
+  final void checkResolution(final int depth) {
+    if (this.maxResolutionDepth > 0 && depth > this.maxResolutionDepth) {
+      throw new RenderLimitExceededException(RenderLimitExceededException.Limit.RESOLUTION_DEPTH, null, "resolution depth " + depth + " exceeds limit of " + this.maxResolutionDepth);
+    }
+    this.checkTime();
+  }
+
+  /**
+   * Throws a {@link RenderLimitExceededException} if the supplied
+   * rendered value is longer than this {@link RenderLimits}'
+   * {@linkplain #getMaxOutputLength() maximum}.
+   *
+   * @param value the rendered value; may be {@code null}
+   *
+   * @exception RenderLimitExceededException if {@code value} is too
+   * long
+   */
+  final void checkOutput(final CharSequence value) {
+    if (value != null) {
+      this.checkLength(value.length());
+    }
+  }
+
+  /**
+   * Throws a {@link RenderLimitExceededException} if the supplied
+   * output length exceeds this {@link RenderLimits}' {@linkplain
+   * #getMaxOutputLength() maximum}.
+   *
+   * @param length the output length
+   *
+   * @exception RenderLimitExceededException if {@code length} is too
+   * great
+   */
+  private final void checkLength(final int length) {
+    if (this.maxOutputLength > 0 && length > this.maxOutputLength) {
+      throw new RenderLimitExceededException(RenderLimitExceededException.Limit.OUTPUT_LENGTH, null, "output length " + length + " exceeds limit of " + this.maxOutputLength);
+    }
+  }
+
+  /**
+   * Throws a {@link RenderLimitExceededException} if the output
+   * produced so far by a rendering in progress on the current thread
+   * is too long, or if the outermost rendering on the current thread
+   * has {@linkplain #checkTime() run out of time}.
+   *
+   * <p>{@link TemplateEngine} implementations that can observe a
+   * rendering's output as it is produced should call this method,
+   * typically on the {@linkplain #getInstance() installed}
+   * <code>RenderLimits</code>, each time they append to it, so that a
+   * runaway template is stopped while it runs rather than when it
+   * finishes.  There is no need to call it when this {@link
+   * RenderLimits} {@linkplain #isUnlimited() imposes no
+   * limits}.</p>
+   *
+   * @param length the length of the output produced so far; must not
+   * be negative
+   *
+   * @exception RenderLimitExceededException if a limit has been
+   * exceeded
+   */
+  public final void checkProgress(final int length) {
+    this.checkLength(length);
+    this.checkTime();
+  }
+
+  /**
+   * Returns a {@link String} representation of this {@link
+   * RenderLimits}.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return a non-{@code null} {@link String}
+   */
+  @Override
+  public final String toString() {
+    return "RenderLimits[maxRenderTimeNanos=" + this.maxRenderTimeNanos + ", maxOutputLength=" + this.maxOutputLength + ", maxResolutionDepth=" + this.maxResolutionDepth + "]";
+  }
+
+
+  /*
+   * Static methods.
+   */
+
+
+  /**
+   * Returns the installed {@link RenderLimits}.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return the non-{@code null} installed {@link RenderLimits}
+   */
+  public static final RenderLimits getInstance() {
+    return instance;
+  }
+
+  /**
+   * Installs the supplied {@link RenderLimits}, replacing any that
+   * are already installed.
+   *
+   * @param limits the {@link RenderLimits} to install; may be {@code
+   * null} to install {@link #NONE}
+   */
+  public static final void setInstance(final RenderLimits limits) {
+    instance = limits == null ? NONE : limits;
+  }
+
+}
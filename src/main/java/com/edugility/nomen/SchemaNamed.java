@@ -0,0 +1,400 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen;
+
+import java.io.Serializable;
+
+import java.util.Collection;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An {@link AbstractNamed} that stores only the {@link Name}s that
+ * are particular to it, typically atomic ones, and derives any other
+ * {@link Name} from a {@link NameSchema} shared with others of its
+ * kind.
+ *
+ * <p>The {@link #getName(NameType)} method returns this {@link
+ * SchemaNamed}'s own {@link Name} if there is one, which lets a
+ * {@link SchemaNamed} override any declaration of its schema, and
+ * otherwise a {@link Name} {@linkplain NameSchema#createName(Named,
+ * NameType) derived} from the schema.  Derived {@link Name}s share
+ * their schema declaration's {@link NameValue} and compiled template
+ * and are not reported by the {@link #getNameTypes()} and {@link
+ * #getNames()} methods.</p>
+ *
+ * <p>A derived {@link Name} is ordinarily for momentary use: a new
+ * one is returned each time one is asked for, and none is retained,
+ * so a {@link SchemaNamed} costs no more memory than its own {@link
+ * Name}s.  Once a listener is {@linkplain
+ * Name#addPropertyListener(String, PropertyListener) added} to a
+ * derived {@link Name}, however, it is retained, returned from then
+ * on, and notifies its listeners when the {@link Name}s it depends
+ * on change.  A retained {@link Name} is discarded when the {@link
+ * NameSchema} is replaced or {@linkplain NameSchema#getVersion()
+ * changed}, or when this {@link SchemaNamed} is given a {@link Name}
+ * of its own under the same {@link NameType}.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see NameSchema
+ */
+public class SchemaNamed extends AbstractNamed {
+
+
+  /*
+   * Static fields.
+   */
+
+
+  /**
+   * The version of this class for {@linkplain Serializable
+   * serialization purposes}.
+   *
+   * @see Serializable
+   */
+  private static final long serialVersionUID = 1L;
+
+
+  /*
+   * Instance fields.
+   */
+
+
+  /**
+   * The {@link NameSchema} from which this {@link SchemaNamed}
+   * derives {@link Name}s it does not have itself.
+   *
+   * <p>This field may be {@code null}.</p>
+   *
+   * @see #getNameSchema()
+   */
+  private transient volatile NameSchema nameSchema;
+
+  /**
+   * The derived {@link Name}s that have been retained because a
+   * listener was added to them.
+   *
+   * <p>This field may be {@code null}, and is until a listener is
+   * first added to a derived {@link Name}.</p>
+   *
+   * @see #getName(NameType)
+   */
+  private transient volatile DerivedNames derivedNames;
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new {@link SchemaNamed} with no {@link NameSchema}.
+   *
+   * @see #setNameSchema(NameSchema)
+   */
+  public SchemaNamed() {
+    super();
+  }
+
+  /**
+   * Creates a new {@link SchemaNamed}.
+   *
+   * @param nameSchema the {@link NameSchema} from which the new
+   * {@link SchemaNamed} will derive {@link Name}s it does not have
+   * itself; may be {@code null}
+   */
+  public SchemaNamed(final NameSchema nameSchema) {
+    super();
+    this.setNameSchema(nameSchema);
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Returns the {@link NameSchema} from which this {@link SchemaNamed}
+   * derives {@link Name}s it does not have itself.
+   *
+   * <p>This method may return {@code null}.</p>
+   *
+   * @return a {@link NameSchema}, or {@code null}
+   */
+  public NameSchema getNameSchema() {
+    return this.nameSchema;
+  }
+
+  /**
+   * Sets the {@link NameSchema} from which this {@link SchemaNamed}
+   * derives {@link Name}s it does not have itself.
+   *
+   * <p>The {@link NameSchema} is not serialized with this {@link
+   * SchemaNamed}; it must be set again after deserialization.</p>
+   *
+   * @param nameSchema the new {@link NameSchema}; may be {@code null}
+   */
+  public void setNameSchema(final NameSchema nameSchema) {
+    this.nameSchema = nameSchema;
+    this.clearDerivedNames();
+    this.clearFallbackPaths();
+  }
+
+  /**
+   * Returns the {@link Name} this {@link SchemaNamed} has indexed
+   * under the supplied {@link NameType} or, failing that, the {@link
+   * Name} derived from its {@linkplain #getNameSchema()
+   * <code>NameSchema</code>}.
+   *
+   * <p>A derived {@link Name} is created each time it is asked for
+   * unless it has been retained; see the class documentation.</p>
+   *
+   * <p>This method may return {@code null}.</p>
+   *
+   * @param nameType the {@link NameType} in question; may be {@code
+   * null}
+   *
+   * @return a {@link Name}, or {@code null}
+   */
+  @Override
+  public Name getName(final NameType nameType) {
+    Name returnValue = super.getName(nameType);
+    if (returnValue == null && nameType != null) {
+      final NameSchema nameSchema = this.nameSchema;
+      if (nameSchema != null) {
+        returnValue = this.getDerivedName(nameSchema, nameType);
+      }
+    }
+    return returnValue;
+  }
+
+  /**
+   * Returns the {@link Name} derived from the supplied {@link
+   * NameSchema}'s declaration for the supplied {@link NameType},
+   * creating it if it has not been retained.
+   *
+   * <p>This method may return {@code null}.</p>
+   *
+   * @param nameSchema the {@link NameSchema} to derive from; must not
+   * be {@code null}
+   *
+   * @param nameType the {@link NameType} in question; must not be
+   * {@code null}
+   *
+   * @return a {@link Name}, or {@code null} if the {@link NameSchema}
+   * declares no {@link Name} for the supplied {@link NameType}
+   */
+  private final Name getDerivedName(final NameSchema nameSchema, final NameType nameType) {
+    assert nameSchema != null;
+    assert nameType != null;
+    Name returnValue = null;
+    final DerivedNames derivedNames = this.getDerivedNames(nameSchema, false);
+    if (derivedNames != null) {
+      returnValue = derivedNames.names.get(nameType);
+    }
+    if (returnValue == null) {
+      final Name prototype = nameSchema.getPrototype(nameType);
+      if (prototype != null) {
+        returnValue = new Name(this, prototype);
+      }
+    }
+    return returnValue;
+  }
+
+  /**
+   * Returns the {@link DerivedNames} retained for the current
+   * {@linkplain NameSchema#getVersion() version} of the supplied
+   * {@link NameSchema}, discarding any retained for another.
+   *
+   * <p>This method may return {@code null}.</p>
+   *
+   * @param nameSchema the {@link NameSchema}; must not be {@code
+   * null}
+   *
+   * @param create whether to create the {@link DerivedNames} if there
+   * are none
+   *
+   * @return a {@link DerivedNames}, or {@code null} if {@code create}
+   * is {@code false} and there are none
+   */
+  private final DerivedNames getDerivedNames(final NameSchema nameSchema, final boolean create) {
+    assert nameSchema != null;
+    final int version = nameSchema.getVersion();
+    DerivedNames derivedNames = this.derivedNames;
+    final boolean stale = derivedNames != null && (derivedNames.nameSchema != nameSchema || derivedNames.version != version);
+    if (stale || (create && derivedNames == null)) {
+      synchronized (this) {
+        derivedNames = this.derivedNames;
+        if (derivedNames == null || derivedNames.nameSchema != nameSchema || derivedNames.version != version) {
+          if (derivedNames != null) {
+            derivedNames.clear();
+          }
+          derivedNames = create ? new DerivedNames(nameSchema, version) : null;
+          this.derivedNames = derivedNames;
+        }
+      }
+    }
+    return derivedNames;
+  }
+
+  /**
+   * Retains the supplied derived {@link Name}, to which a listener
+   * has just been added, so that it is returned by the {@link
+   * #getName(NameType)} method from now on.
+   *
+   * <p>Nothing is retained if the supplied {@link Name} was not
+   * derived from this {@link SchemaNamed}'s current {@link
+   * NameSchema}, or if another {@link Name} has been retained for the
+   * same {@link NameType} in the meantime.</p>
+   *
+   * @param name the {@link Name}; must not be {@code null}
+   *
+   * @see Name#addPropertyListener(String, PropertyListener)
+   */
+  final void retainDerivedName(final Name name) {
+    assert name != null;
+    final NameSchema nameSchema = this.nameSchema;
+    if (nameSchema != null) {
+      final NameValue nameValue = name.getNameValue();
+      for (final NameType nameType : nameSchema.getNameTypes()) {
+        final Name prototype = nameSchema.getPrototype(nameType);
+        if (prototype != null && prototype.getNameValue() == nameValue) {
+          if (super.getName(nameType) == null) {
+            this.getDerivedNames(nameSchema, true).names.putIfAbsent(nameType, name);
+          }
+          break;
+        }
+      }
+    }
+  }
+
+  /**
+   * Discards all retained derived {@link Name}s.
+   */
+  private final synchronized void clearDerivedNames() {
+    final DerivedNames derivedNames = this.derivedNames;
+    if (derivedNames != null) {
+      derivedNames.clear();
+      this.derivedNames = null;
+    }
+  }
+
+  /**
+   * Discards the retained derived {@link Name}s indexed under the
+   * supplied {@link NameType}s, which this {@link SchemaNamed} may now
+   * have {@link Name}s of its own for, along with its cache of
+   * fallback chain walks.
+   *
+   * @param nameTypes the {@link NameType}s whose {@link Name}s
+   * changed; must not be {@code null}
+   */
+  @Override
+  final void namesChanged(final Collection<? extends NameType> nameTypes) {
+    super.namesChanged(nameTypes);
+    final DerivedNames derivedNames = this.derivedNames;
+    if (derivedNames != null && nameTypes != null) {
+      for (final NameType nameType : nameTypes) {
+        if (nameType != null) {
+          final Name name = derivedNames.names.remove(nameType);
+          if (name != null) {
+            name.clearDependencies();
+          }
+        }
+      }
+    }
+  }
+
+
+  /*
+   * Inner and nested classes.
+   */
+
+
+  /**
+   * The {@link Name}s a {@link SchemaNamed} has derived from a
+   * particular {@linkplain NameSchema#getVersion() version} of a
+   * {@link NameSchema} and retained.
+   *
+   * @author <a href="http://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   */
+  private static final class DerivedNames {
+
+    /**
+     * The {@link NameSchema} the {@link Name}s were derived from;
+     * never {@code null}.
+     */
+    private final NameSchema nameSchema;
+
+    /**
+     * The {@linkplain NameSchema#getVersion() version} of {@link
+     * #nameSchema} the {@link Name}s were derived from.
+     */
+    private final int version;
+
+    /**
+     * The retained {@link Name}s indexed by {@link NameType}; never
+     * {@code null}.
+     */
+    private final ConcurrentMap<NameType, Name> names;
+
+    /**
+     * Creates a new, empty {@link DerivedNames}.
+     *
+     * @param nameSchema the {@link NameSchema} the {@link Name}s will
+     * be derived from; must not be {@code null}
+     *
+     * @param version the {@linkplain NameSchema#getVersion() version}
+     * of {@code nameSchema} the {@link Name}s will be derived from
+     */
+    private DerivedNames(final NameSchema nameSchema, final int version) {
+      super();
+      assert nameSchema != null;
+      this.nameSchema = nameSchema;
+      this.version = version;
+      this.names = new ConcurrentHashMap<NameType, Name>();
+    }
+
+    /**
+     * Unregisters every derived {@link Name} as a dependent of the
+     * {@link Name}s it resolved and forgets it.
+     */
+    private final void clear() {
+      for (final Name name : this.names.values()) {
+        name.clearDependencies();
+      }
+      this.names.clear();
+    }
+
+  }
+
+}
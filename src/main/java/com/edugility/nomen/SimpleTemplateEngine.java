@@ -0,0 +1,297 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link TemplateEngine} that supports only literal text and
+ * {@code ${name}} or {@code @{name}} variable references, and that
+ * therefore needs no expression language at all.
+ *
+ * <p>Within that subset, templates render exactly as they would with
+ * <a href="http://mvel.codehaus.org/">MVEL</a>: <code>$${</code> and
+ * <code>@@{</code> render as <code>${</code> and <code>@{</code>
+ * respectively, and any other {@code $} or {@code @} renders as
+ * itself.  Any other
+ * expression, and any orb tag such as {@code @if{...}}, is a
+ * compilation error.</p>
+ *
+ * <p>This {@link TemplateEngine} is used when MVEL is not available;
+ * see the {@linkplain TemplateEngine#getInstance() discovery rules}
+ * for details.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see TemplateEngine
+ */
+public class SimpleTemplateEngine extends TemplateEngine {
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new {@link SimpleTemplateEngine}.
+   */
+  public SimpleTemplateEngine() {
+    super();
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Compiles the supplied template source.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @param template the template source; must not be {@code null}
+   *
+   * @return a non-{@code null} compiled template
+   *
+   * @exception IllegalArgumentException if {@code template} is {@code
+   * null}
+   *
+   * @exception IllegalStateException if {@code template} contains
+   * anything besides literal text and variable references
+   */
+  @Override
+  public Object compile(final String template) {
+    if (template == null) {
+      throw new IllegalArgumentException("template", new NullPointerException("template"));
+    }
+    final List<Object> segments = new ArrayList<Object>();
+    final StringBuilder literal = new StringBuilder();
+    final int length = template.length();
+    int i = 0;
+    while (i < length) {
+      final char c = template.charAt(i);
+      if ((c == '$' || c == '@') && i + 1 < length) {
+        final char next = template.charAt(i + 1);
+        if (next == '{') {
+          final int end = template.indexOf('}', i + 2);
+          if (end < 0) {
+            throw new IllegalStateException("unterminated expression at index " + i + " in template \"" + template + "\"");
+          }
+          final String name = template.substring(i + 2, end).trim();
+          if (!isIdentifier(name)) {
+            throw new IllegalStateException("unsupported expression \"" + name + "\" in template \"" + template + "\"");
+          }
+          if (literal.length() > 0) {
+            segments.add(literal.toString());
+            literal.setLength(0);
+          }
+          segments.add(new NameType(name));
+          i = end + 1;
+          continue;
+        } else if (next == c && i + 2 < length && template.charAt(i + 2) == '{') {
+          // Escaped sigil.
+          literal.append(c);
+          i += 2;
+          continue;
+        } else if (c == '@' && Character.isJavaIdentifierStart(next)) {
+          int j = i + 2;
+          while (j < length && Character.isJavaIdentifierPart(template.charAt(j))) {
+            j++;
+          }
+          if (j < length && template.charAt(j) == '{') {
+            throw new IllegalStateException("unsupported orb tag \"" + template.substring(i, j + 1) + "\" in template \"" + template + "\"");
+          }
+        }
+      }
+      literal.append(c);
+      i++;
+    }
+    if (literal.length() > 0) {
+      segments.add(literal.toString());
+    }
+    return new SimpleTemplate(template, segments.toArray());
+  }
+
+  /**
+   * Returns {@code true} if the supplied {@link Object} was returned
+   * by the {@link #compile(String)} method of a {@link
+   * SimpleTemplateEngine}.
+   *
+   * @param compiledTemplate the {@link Object} in question; may be
+   * {@code null}
+   *
+   * @return {@code true} if {@code compiledTemplate} can be executed
+   * by this {@link SimpleTemplateEngine}; {@code false} otherwise
+   */
+  @Override
+  public boolean canExecute(final Object compiledTemplate) {
+    return compiledTemplate instanceof SimpleTemplate;
+  }
+
+  /**
+   * Executes the supplied compiled template.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @param compiledTemplate a template returned by the {@link
+   * #compile(String)} method; must not be {@code null}
+   *
+   * @param context the {@link TemplateContext} to resolve variables
+   * with; may be {@code null}
+   *
+   * @return the non-{@code null} result of execution
+   *
+   * @exception IllegalArgumentException if {@code compiledTemplate}
+   * cannot be {@linkplain #canExecute(Object) executed}
+   *
+   * @exception IllegalStateException if a variable could not be
+   * resolved
+   */
+  @Override
+  public Object execute(final Object compiledTemplate, final TemplateContext context) {
+    if (!this.canExecute(compiledTemplate)) {
+      throw new IllegalArgumentException("compiledTemplate: " + compiledTemplate);
+    }
+    return ((SimpleTemplate)compiledTemplate).execute(context);
+  }
+
+
+  /*
+   * Static methods.
+   */
+
+
+  /**
+   * Returns {@code true} if the supplied {@link String} is a Java
+   * identifier.
+   *
+   * @param s the {@link String} in question; must not be {@code null}
+   *
+   * @return {@code true} if {@code s} is a Java identifier
+   */
+  private static final boolean isIdentifier(final String s) {
+    if (s.isEmpty() || !Character.isJavaIdentifierStart(s.charAt(0))) {
+      return false;
+    }
+    for (int i = 1; i < s.length(); i++) {
+      if (!Character.isJavaIdentifierPart(s.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+
+  /*
+   * Inner and nested classes.
+   */
+
+
+  /**
+   * A template compiled by a {@link SimpleTemplateEngine}: a sequence
+   * of literal {@link String}s and {@link NameType}s whose {@link
+   * Name}s' values are substituted.
+   */
+  private static final class SimpleTemplate extends PrecompiledTemplate {
+
+    /**
+     * The template source.
+     *
+     * <p>This field is never {@code null}.</p>
+     */
+    private final String template;
+
+    /**
+     * The literal {@link String}s and {@link NameType}s the template
+     * consists of.
+     *
+     * <p>This field is never {@code null}.</p>
+     */
+    private final Object[] segments;
+
+    /**
+     * Creates a new {@link SimpleTemplate}.
+     *
+     * @param template the template source; must not be {@code null}
+     *
+     * @param segments the literal {@link String}s and {@link
+     * NameType}s the template consists of; must not be {@code null}
+     */
+    private SimpleTemplate(final String template, final Object[] segments) {
+      super();
+      assert template != null;
+      assert segments != null;
+      this.template = template;
+      this.segments = segments;
+    }
+
+    /**
+     * Returns the template source.
+     *
+     * @return the non-{@code null} template source
+     */
+    @Override
+    public final String getTemplate() {
+      return this.template;
+    }
+
+    /**
+     * Concatenates the literal {@link String}s and the values of the
+     * referenced {@link Name}s.
+     *
+     * @param context the {@link TemplateContext} to resolve variables
+     * with; may be {@code null}
+     *
+     * @return the non-{@code null} result
+     *
+     * @exception IllegalStateException if a variable could not be
+     * resolved
+     */
+    @Override
+    public final Object execute(final TemplateContext context) {
+      if (this.segments.length == 1 && this.segments[0] instanceof String) {
+        return this.segments[0];
+      }
+      final StringBuilder sb = new StringBuilder();
+      for (final Object segment : this.segments) {
+        if (segment instanceof NameType) {
+          sb.append(resolve(context, (NameType)segment));
+        } else {
+          sb.append(segment);
+        }
+      }
+      return sb.toString();
+    }
+
+  }
+
+}
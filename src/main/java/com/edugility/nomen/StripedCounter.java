@@ -0,0 +1,154 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A cheap, thread-safe counter that spreads concurrent updates over
+ * several cache-line-padded cells and sums them only when read.
+ *
+ * <p>A thread's cell is chosen by hashing its {@linkplain
+ * Thread#getId() id}, so no per-thread state such as a {@link
+ * ThreadLocal} is kept that could outlive this class's {@link
+ * ClassLoader}.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see NameStatistics
+ */
+final class StripedCounter {
+
+
+  /*
+   * Static fields.
+   */
+
+
+  /**
+   * The number of cells; always a power of two.
+   */
+  private static final int STRIPES;
+
+  static {
+    final int processors = Runtime.getRuntime().availableProcessors();
+    int stripes = 1;
+    while (stripes < processors * 2 && stripes < 64) {
+      stripes <<= 1;
+    }
+    STRIPES = stripes;
+  }
+
+  /**
+   * The number of {@code long}s in a cache line; each cell occupies
+   * the first {@code long} of its own line.
+   */
+  private static final int PADDING = 8;
+
+
+  /*
+   * Instance fields.
+   */
+
+
+  /**
+   * The padded cells.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  private final AtomicLongArray cells;
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new {@link StripedCounter} whose {@linkplain #sum()
+   * sum} is {@code 0}.
+   */
+  StripedCounter() {
+    super();
+    this.cells = new AtomicLongArray(STRIPES * PADDING);
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Adds the supplied amount to this {@link StripedCounter}.
+   *
+   * @param amount the amount to add
+   */
+  final void add(final long amount) {
+    long id = Thread.currentThread().getId();
+    id ^= id >>> 16;
+    this.cells.getAndAdd(((int)id & (STRIPES - 1)) * PADDING, amount);
+  }
+
+  /**
+   * Adds {@code 1} to this {@link StripedCounter}.
+   */
+  final void increment() {
+    this.add(1L);
+  }
+
+  /**
+   * Returns the sum of all amounts {@linkplain #add(long) added} to
+   * this {@link StripedCounter} since it was created or last
+   * {@linkplain #reset() reset}.
+   *
+   * <p>The sum is not an atomic snapshot if updates are in
+   * progress.</p>
+   *
+   * @return the sum
+   */
+  final long sum() {
+    long sum = 0L;
+    for (int i = 0; i < STRIPES; i++) {
+      sum += this.cells.get(i * PADDING);
+    }
+    return sum;
+  }
+
+  /**
+   * Resets this {@link StripedCounter}'s {@linkplain #sum() sum} to
+   * {@code 0}.
+   */
+  final void reset() {
+    for (int i = 0; i < STRIPES; i++) {
+      this.cells.set(i * PADDING, 0L);
+    }
+  }
+
+}
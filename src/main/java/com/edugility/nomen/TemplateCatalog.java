@@ -0,0 +1,769 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceLoader;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * A thread-safe cache of the implementation-specific representations
+ * that template source {@link String}s compile to, combined with a
+ * registry that assigns explicitly {@linkplain #register(String)
+ * registered} template sources an integer <em>id</em>.
+ *
+ * <h3>Ids</h3>
+ *
+ * <p>Ids are assigned only by the {@link #register(String)} method,
+ * in registration order starting at {@code 0}; compiling or caching
+ * a template never assigns one.  Two {@link TemplateCatalog}s into
+ * which the same templates were registered in the same order will
+ * therefore agree on their ids, which allows a template to be
+ * referred to by id alone in serialized forms exchanged between
+ * them.  The {@linkplain #getFingerprint(int) fingerprint} of a
+ * catalog's registrations lets the reader of such a form verify that
+ * it was written against the same registrations.</p>
+ *
+ * <h3>Compiled templates</h3>
+ *
+ * <p>The {@link Name#compileTemplate(String)} method consults the
+ * {@linkplain #getInstance() shared <code>TemplateCatalog</code>}
+ * before compiling a template, so any given template source is
+ * normally compiled only once per Java virtual machine no matter how
+ * many {@link Name}s use it.  Compiled templates {@linkplain
+ * #putCompiledTemplate(String, Object) stored} this way are held
+ * weakly: once no {@link Name} refers to one it may be discarded,
+ * along with its {@linkplain #getRenders(String) statistics}, so the
+ * cache does not grow without bound when templates are
+ * user-defined.</p>
+ *
+ * <p>The shared {@link TemplateCatalog} is initially populated with
+ * the {@link PrecompiledTemplate}s {@linkplain
+ * #loadPrecompiledTemplates(ClassLoader) available} to the {@link
+ * ClassLoader} that loaded this class and to the {@linkplain
+ * Thread#getContextClassLoader() context <code>ClassLoader</code>}
+ * of the thread that first uses it, so templates precompiled at build
+ * time are never compiled at runtime.  In containers where an
+ * application's classes are visible to neither, the application
+ * should {@linkplain #loadPrecompiledTemplates(ClassLoader) load}
+ * them itself with its own {@link ClassLoader}.  {@link
+ * PrecompiledTemplate}s are held strongly.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see Name#compileTemplate(String)
+ *
+ * @see #getInstance()
+ */
+public class TemplateCatalog {
+
+
+  /*
+   * Static fields.
+   */
+
+
+  /**
+   * The {@link TemplateCatalog} returned by the {@link
+   * #getInstance()} method.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  private static final TemplateCatalog instance = new TemplateCatalog();
+
+  static {
+    final ClassLoader classLoader = TemplateCatalog.class.getClassLoader();
+    final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+    if (contextClassLoader != null && contextClassLoader != classLoader) {
+      instance.loadPrecompiledTemplates(contextClassLoader);
+    }
+    instance.loadPrecompiledTemplates(classLoader);
+  }
+
+  /**
+   * The 64-bit FNV-1a offset basis, which is the {@linkplain
+   * #getFingerprint(int) fingerprint} of no registrations.
+   */
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+  /**
+   * The 64-bit FNV-1a prime.
+   */
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+
+  /*
+   * Instance fields.
+   */
+
+
+  /**
+   * A {@link ConcurrentMap} of {@link Entry} instances indexed by
+   * template source.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  private final ConcurrentMap<String, Entry> entries;
+
+  /**
+   * The {@link ReferenceQueue} on which weakly held compiled
+   * templates are enqueued once they have been discarded.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  private final ReferenceQueue<Object> discarded;
+
+  /**
+   * A {@link ConcurrentMap} of ids indexed by registered template
+   * source.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  private final ConcurrentMap<String, Integer> ids;
+
+  /**
+   * A {@link List} of registered template sources indexed by id.
+   *
+   * <p>This field is never {@code null}.  Access to it must be
+   * synchronized on this {@link TemplateCatalog}.</p>
+   */
+  private final List<String> templates;
+
+  /**
+   * The {@linkplain #getFingerprint(int) fingerprints} of the
+   * registrations, indexed by the number of registrations they
+   * cover.
+   *
+   * <p>This field is never {@code null}.  Access to it must be
+   * synchronized on this {@link TemplateCatalog}.</p>
+   */
+  private long[] fingerprints;
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new, empty {@link TemplateCatalog}.
+   *
+   * @see #getInstance()
+   */
+  public TemplateCatalog() {
+    super();
+    this.entries = new ConcurrentHashMap<String, Entry>();
+    this.discarded = new ReferenceQueue<Object>();
+    this.ids = new ConcurrentHashMap<String, Integer>();
+    this.templates = new ArrayList<String>();
+    this.fingerprints = new long[8];
+    this.fingerprints[0] = FNV_OFFSET_BASIS;
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Registers the supplied template source with this {@link
+   * TemplateCatalog} if it is not already registered, and returns
+   * its id.
+   *
+   * @param template the template source to register; must not be
+   * {@code null}
+   *
+   * @return the non-negative id of the supplied template
+   *
+   * @exception IllegalArgumentException if {@code template} is {@code
+   * null}
+   *
+   * @see #getId(String)
+   */
+  public int register(final String template) {
+    if (template == null) {
+      throw new IllegalArgumentException("template", new NullPointerException("template"));
+    }
+    Integer returnValue = this.ids.get(template);
+    if (returnValue == null) {
+      synchronized (this) {
+        returnValue = this.ids.get(template);
+        if (returnValue == null) {
+          final int id = this.templates.size();
+          if (id + 1 >= this.fingerprints.length) {
+            final long[] fingerprints = new long[this.fingerprints.length * 2];
+            System.arraycopy(this.fingerprints, 0, fingerprints, 0, this.fingerprints.length);
+            this.fingerprints = fingerprints;
+          }
+          this.fingerprints[id + 1] = fingerprint(this.fingerprints[id], template);
+          this.templates.add(template);
+          returnValue = Integer.valueOf(id);
+          this.ids.put(template, returnValue);
+        }
+      }
+    }
+    return returnValue.intValue();
+  }
+
+  /**
+   * Returns the id of the supplied template source, or {@code -1} if
+   * it has not been {@linkplain #register(String) registered}.
+   *
+   * @param template the template source in question; may be {@code
+   * null} in which case {@code -1} will be returned
+   *
+   * @return a non-negative id, or {@code -1}
+   *
+   * @see #register(String)
+   */
+  public int getId(final String template) {
+    if (template == null) {
+      return -1;
+    }
+    final Integer id = this.ids.get(template);
+    if (id == null) {
+      return -1;
+    }
+    return id.intValue();
+  }
+
+  /**
+   * Returns the template source identified by the supplied {@code
+   * id}, or {@code null} if there is no such template.
+   *
+   * @param id the id in question
+   *
+   * @return the template source identified by the supplied {@code
+   * id}, or {@code null}
+   *
+   * @see #getId(String)
+   */
+  public String getTemplate(final int id) {
+    synchronized (this) {
+      if (id < 0 || id >= this.templates.size()) {
+        return null;
+      }
+      return this.templates.get(id);
+    }
+  }
+
+  /**
+   * Returns a fingerprint of the first {@code count} template sources
+   * {@linkplain #register(String) registered} with this {@link
+   * TemplateCatalog}.
+   *
+   * <p>Two {@link TemplateCatalog}s whose first {@code count}
+   * registrations were the same template sources in the same order
+   * return the same fingerprint for {@code count}, in any Java
+   * virtual machine.  Different registrations return different
+   * fingerprints with overwhelming probability.</p>
+   *
+   * @param count the number of registrations to fingerprint; must be
+   * between {@code 0} and {@link #size()}, inclusive
+   *
+   * @return the fingerprint
+   *
+   * @exception IllegalArgumentException if {@code count} is negative
+   * or greater than {@link #size()}
+   */
+  public long getFingerprint(final int count) {
+    synchronized (this) {
+      if (count < 0 || count > this.templates.size()) {
+        throw new IllegalArgumentException("count: " + count);
+      }
+      return this.fingerprints[count];
+    }
+  }
+
+  /**
+   * Returns the compiled representation of the supplied template
+   * source previously {@linkplain #putCompiledTemplate(String,
+   * Object) stored} in this {@link TemplateCatalog}, or {@code null}
+   * if there is no such representation.
+   *
+   * @param template the template source in question; may be {@code
+   * null} in which case {@code null} will be returned
+   *
+   * @return a compiled template, or {@code null}
+   *
+   * @see #putCompiledTemplate(String, Object)
+   */
+  public Object getCompiledTemplate(final String template) {
+    if (template == null) {
+      return null;
+    }
+    final Entry entry = this.entries.get(template);
+    if (entry == null) {
+      return null;
+    }
+    return entry.getCompiledTemplate();
+  }
+
+  /**
+   * Stores the supplied compiled representation of the supplied
+   * template source.  The compiled representation is held weakly and
+   * is discarded once nothing else refers to it.
+   *
+   * <p>Storing a compiled template does not {@linkplain
+   * #register(String) register} its source.</p>
+   *
+   * <p>Compiled templates stored in a {@link TemplateCatalog} are
+   * shared, so they must be safe for concurrent execution.</p>
+   *
+   * @param template the template source; must not be {@code null}
+   *
+   * @param compiledTemplate the compiled representation of {@code
+   * template}; may be {@code null} in which case any existing
+   * compiled representation will be discarded
+   *
+   * @exception IllegalArgumentException if {@code template} is {@code
+   * null}
+   *
+   * @see #getCompiledTemplate(String)
+   */
+  public void putCompiledTemplate(final String template, final Object compiledTemplate) {
+    if (template == null) {
+      throw new IllegalArgumentException("template", new NullPointerException("template"));
+    }
+    this.putCompiledTemplate(template, compiledTemplate, false);
+  }
+
+  /**
+   * Stores the supplied compiled representation of the supplied
+   * template source, strongly or weakly.
+   *
+   * @param template the template source; must not be {@code null}
+   *
+   * @param compiledTemplate the compiled representation of {@code
+   * template}; may be {@code null}
+   *
+   * @param strong whether {@code compiledTemplate} is to be held
+   * strongly
+   */
+  private final void putCompiledTemplate(final String template, final Object compiledTemplate, final boolean strong) {
+    assert template != null;
+    this.expungeDiscardedEntries();
+    Entry entry = this.entries.get(template);
+    if (entry == null) {
+      final Entry newEntry = new Entry();
+      entry = this.entries.putIfAbsent(template, newEntry);
+      if (entry == null) {
+        entry = newEntry;
+      }
+    }
+    if (compiledTemplate == null) {
+      entry.strongCompiledTemplate = null;
+      entry.compiledTemplateReference = null;
+    } else if (strong) {
+      entry.strongCompiledTemplate = compiledTemplate;
+      entry.compiledTemplateReference = null;
+    } else {
+      entry.compiledTemplateReference = new CompiledTemplateReference(compiledTemplate, template, entry, this.discarded);
+      entry.strongCompiledTemplate = null;
+    }
+  }
+
+  /**
+   * Removes the {@link Entry} instances whose weakly held compiled
+   * templates have been discarded.
+   */
+  private final void expungeDiscardedEntries() {
+    Object reference;
+    while ((reference = this.discarded.poll()) != null) {
+      final CompiledTemplateReference discarded = (CompiledTemplateReference)reference;
+      final Entry entry = discarded.entry;
+      if (entry.compiledTemplateReference == discarded) {
+        this.entries.remove(discarded.template, entry);
+      }
+    }
+  }
+
+  /**
+   * {@linkplain #putCompiledTemplate(String, Object) Stores} every
+   * {@link PrecompiledTemplate} that the supplied {@link ClassLoader}
+   * can {@linkplain ServiceLoader#load(Class, ClassLoader) load as a
+   * service} under its {@linkplain PrecompiledTemplate#getTemplate()
+   * template source}, and returns the number stored.
+   *
+   * <p>{@link PrecompiledTemplate}s are held strongly.  They are not
+   * {@linkplain #register(String) registered}.</p>
+   *
+   * @param classLoader the {@link ClassLoader} to load {@link
+   * PrecompiledTemplate}s with; may be {@code null} in which case the
+   * system {@link ClassLoader} will be used
+   *
+   * @return the number of {@link PrecompiledTemplate}s stored; never
+   * negative
+   *
+   * @exception java.util.ServiceConfigurationError if a {@link
+   * PrecompiledTemplate} could not be loaded
+   *
+   * @see PrecompiledTemplate
+   */
+  public int loadPrecompiledTemplates(final ClassLoader classLoader) {
+    int returnValue = 0;
+    for (final PrecompiledTemplate precompiledTemplate : ServiceLoader.load(PrecompiledTemplate.class, classLoader)) {
+      final String template = precompiledTemplate.getTemplate();
+      if (template != null) {
+        this.putCompiledTemplate(template, precompiledTemplate, true);
+        returnValue++;
+      }
+    }
+    return returnValue;
+  }
+
+  /**
+   * Returns the number of times the supplied template source has been
+   * rendered while {@linkplain NameStatistics#isEnabled() statistics
+   * were enabled}, including renderings that failed.
+   *
+   * @param template the template source in question; may be {@code
+   * null} in which case {@code 0} will be returned
+   *
+   * @return the number of renderings; never negative
+   *
+   * @see #getTotalRenderTimeNanos(String)
+   */
+  public long getRenders(final String template) {
+    final Entry entry = template == null ? null : this.entries.get(template);
+    final RenderCounters counters = entry == null ? null : entry.counters;
+    return counters == null ? 0L : counters.renders.get();
+  }
+
+  /**
+   * Returns the total time, in nanoseconds, spent {@linkplain
+   * #getRenders(String) rendering} the supplied template source.
+   *
+   * @param template the template source in question; may be {@code
+   * null} in which case {@code 0} will be returned
+   *
+   * @return the total render time in nanoseconds; never negative
+   *
+   * @see #getRenders(String)
+   */
+  public long getTotalRenderTimeNanos(final String template) {
+    final Entry entry = template == null ? null : this.entries.get(template);
+    final RenderCounters counters = entry == null ? null : entry.counters;
+    return counters == null ? 0L : counters.renderTimeNanos.get();
+  }
+
+  /**
+   * Returns the number of {@linkplain #getRenders(String) renderings}
+   * of the supplied template source that were stopped because they
+   * exceeded one of the {@linkplain RenderLimits#getInstance()
+   * installed <code>RenderLimits</code>}.
+   *
+   * @param template the template source in question; may be {@code
+   * null} in which case {@code 0} will be returned
+   *
+   * @return the number of renderings that exceeded a limit; never
+   * negative
+   *
+   * @see RenderLimitExceededException#getTemplate()
+   */
+  public long getLimitsExceeded(final String template) {
+    final Entry entry = template == null ? null : this.entries.get(template);
+    final RenderCounters counters = entry == null ? null : entry.counters;
+    return counters == null ? 0L : counters.limitsExceeded.get();
+  }
+
+  /**
+   * Records a rendering of the supplied template source, if its
+   * compiled representation is {@linkplain
+   * #putCompiledTemplate(String, Object) stored} in this {@link
+   * TemplateCatalog}.
+   *
+   * @param template the template source; must not be {@code null}
+   *
+   * @param nanos how long the rendering took in nanoseconds
+   *
+   * @param limitExceeded whether the rendering was stopped because it
+   * exceeded a {@link RenderLimits} limit
+   */
+  final void recordRender(final String template, final long nanos, final boolean limitExceeded) {
+    assert template != null;
+    final Entry entry = this.entries.get(template);
+    if (entry != null) {
+      final RenderCounters counters = entry.getCounters();
+      counters.renders.incrementAndGet();
+      counters.renderTimeNanos.addAndGet(nanos);
+      if (limitExceeded) {
+        counters.limitsExceeded.incrementAndGet();
+      }
+    }
+  }
+
+  /**
+   * Returns the number of template sources {@linkplain
+   * #register(String) registered} with this {@link TemplateCatalog}.
+   *
+   * @return the number of template sources registered with this
+   * {@link TemplateCatalog}; never negative
+   */
+  public int size() {
+    synchronized (this) {
+      return this.templates.size();
+    }
+  }
+
+
+  /*
+   * Static methods.
+   */
+
+
+  /**
+   * Returns the {@link TemplateCatalog} shared by all {@link Name}s.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return the shared {@link TemplateCatalog}; never {@code null}
+   */
+  public static final TemplateCatalog getInstance() {
+    return instance;
+  }
+
+  /**
+   * Folds the supplied template source into the supplied 64-bit
+   * FNV-1a hash, followed by its length so that concatenations of
+   * different sources hash differently.
+   *
+   * @param hash the hash so far
+   *
+   * @param template the template source; must not be {@code null}
+   *
+   * @return the new hash
+   */
+  private static final long fingerprint(long hash, final String template) {
+    assert template != null;
+    final int length = template.length();
+    for (int i = 0; i < length; i++) {
+      final char c = template.charAt(i);
+      hash = (hash ^ (c & 0xFF)) * FNV_PRIME;
+      hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+    }
+    for (int i = 0; i < 4; i++) {
+      hash = (hash ^ ((length >>> (i * 8)) & 0xFF)) * FNV_PRIME;
+    }
+    return hash;
+  }
+
+
+  /*
+   * Inner and nested classes.
+   */
+
+
+  /**
+   * A template's compiled representation, if any, and its rendering
+   * statistics.
+   *
+   * @author <a href="http://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   */
+  private static final class Entry {
+
+    /**
+     * The strongly held compiled representation of the template.
+     *
+     * <p>This field may be {@code null}.</p>
+     */
+    private volatile Object strongCompiledTemplate;
+
+    /**
+     * The weakly held compiled representation of the template.
+     *
+     * <p>This field may be {@code null}.</p>
+     */
+    private volatile CompiledTemplateReference compiledTemplateReference;
+
+    /**
+     * The template's rendering statistics, created the first time a
+     * rendering is {@linkplain TemplateCatalog#recordRender(String,
+     * long, boolean) recorded}.
+     *
+     * <p>This field may be {@code null}.</p>
+     *
+     * @see #getCounters()
+     */
+    private volatile RenderCounters counters;
+
+    /**
+     * Creates a new {@link Entry}.
+     */
+    private Entry() {
+      super();
+    }
+
+    /**
+     * Returns the template's rendering statistics, creating them if
+     * necessary.
+     *
+     * <p>This method never returns {@code null}.</p>
+     *
+     * @return a non-{@code null} {@link RenderCounters}
+     */
+    private final RenderCounters getCounters() {
+      RenderCounters counters = this.counters;
+      if (counters == null) {
+        synchronized (this) {
+          counters = this.counters;
+          if (counters == null) {
+            counters = new RenderCounters();
+            this.counters = counters;
+          }
+        }
+      }
+      return counters;
+    }
+
+    /**
+     * Returns the compiled representation of the template, or {@code
+     * null} if there is none or it has been discarded.
+     *
+     * @return the compiled representation of the template, or {@code
+     * null}
+     */
+    private final Object getCompiledTemplate() {
+      final Object returnValue = this.strongCompiledTemplate;
+      if (returnValue != null) {
+        return returnValue;
+      }
+      final CompiledTemplateReference reference = this.compiledTemplateReference;
+      return reference == null ? null : reference.get();
+    }
+
+  }
+
+  /**
+   * The rendering statistics of a template.
+   *
+   * <p>Each counter is a plain {@link AtomicLong}, rather than a
+   * {@link StripedCounter}, since there is one set of them for every
+   * template rendered while {@linkplain NameStatistics#isEnabled()
+   * statistics are enabled}, which they are by default.  Aggregate
+   * counts that see heavy contention are kept by {@link
+   * NameStatistics} instead.</p>
+   *
+   * @author <a href="http://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   */
+  private static final class RenderCounters {
+
+    /**
+     * The number of times the template has been rendered; never
+     * {@code null}.
+     */
+    private final AtomicLong renders;
+
+    /**
+     * The total time, in nanoseconds, spent rendering the template;
+     * never {@code null}.
+     */
+    private final AtomicLong renderTimeNanos;
+
+    /**
+     * The number of renderings of the template that exceeded a
+     * {@link RenderLimits} limit; never {@code null}.
+     */
+    private final AtomicLong limitsExceeded;
+
+    /**
+     * Creates a new {@link RenderCounters} whose counters are all
+     * {@code 0}.
+     */
+    private RenderCounters() {
+      super();
+      this.renders = new AtomicLong();
+      this.renderTimeNanos = new AtomicLong();
+      this.limitsExceeded = new AtomicLong();
+    }
+
+  }
+
+  /**
+   * A {@link WeakReference} to a compiled template that remembers the
+   * {@link Entry} holding it, so that the {@link Entry} can be removed
+   * once the compiled template has been discarded.
+   *
+   * @author <a href="http://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   */
+  private static final class CompiledTemplateReference extends WeakReference<Object> {
+
+    /**
+     * The template source.
+     *
+     * <p>This field is never {@code null}.</p>
+     */
+    private final String template;
+
+    /**
+     * The {@link Entry} holding this {@link
+     * CompiledTemplateReference}.
+     *
+     * <p>This field is never {@code null}.</p>
+     */
+    private final Entry entry;
+
+    /**
+     * Creates a new {@link CompiledTemplateReference}.
+     *
+     * @param compiledTemplate the compiled template; must not be
+     * {@code null}
+     *
+     * @param template the template source; must not be {@code null}
+     *
+     * @param entry the {@link Entry} that will hold this {@link
+     * CompiledTemplateReference}; must not be {@code null}
+     *
+     * @param queue the {@link ReferenceQueue} to register with; must
+     * not be {@code null}
+     */
+    private CompiledTemplateReference(final Object compiledTemplate, final String template, final Entry entry, final ReferenceQueue<Object> queue) {
+      super(compiledTemplate, queue);
+      assert template != null;
+      assert entry != null;
+      this.template = template;
+      this.entry = entry;
+    }
+
+  }
+
+}
@@ -0,0 +1,370 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Set;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The state a {@link TemplateEngine} uses to render a {@link Name}'s
+ * template: the {@link Named} whose other {@link Name}s the
+ * template's variables refer to, the {@link Locale} those {@link
+ * Name}s are rendered in, and the names of the variables resolved so
+ * far.
+ *
+ * <p>A {@link Name} keeps its {@link TemplateContext} from one
+ * rendering to the next, so a {@link TemplateEngine} may store its
+ * own per-{@link Name} state in it as an {@linkplain
+ * #setAttachment(Object) attachment}.  The {@link Name} uses the
+ * {@linkplain #getVariables() resolved variables} to discover the
+ * other {@link Name}s its value depends on.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see TemplateEngine#execute(Object, TemplateContext)
+ */
+public class TemplateContext {
+
+
+  /*
+   * Static fields.
+   */
+
+
+  /**
+   * The {@link NameType} being {@linkplain #getValue(Named, NameType,
+   * Locale) resolved} on the current {@link Thread}, tracked only
+   * while a {@link NameProbe} is installed.
+   *
+   * <p>This field is never {@code null}.</p>
+   *
+   * @see #getResolvingNameType()
+   */
+  private static final ThreadLocal<NameType> resolvingNameType = new ThreadLocal<NameType>();
+
+
+  /*
+   * Instance fields.
+   */
+
+
+  /**
+   * The {@link Named} against which variables are resolved.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  private final Named named;
+
+  /**
+   * The {@link Locale} in which variables are resolved.
+   *
+   * <p>This field may be {@code null}.</p>
+   */
+  private final Locale locale;
+
+  /**
+   * The names of the variables resolved so far.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  private final Set<String> variables;
+
+  /**
+   * An unmodifiable view of {@link #variables}.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  private final Set<String> unmodifiableVariables;
+
+  /**
+   * {@link TemplateEngine}-specific state.
+   *
+   * <p>This field may be {@code null}.</p>
+   */
+  private volatile Object attachment;
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new {@link TemplateContext} that resolves variables
+   * against the supplied {@link Named} in no particular {@link
+   * Locale}.
+   *
+   * @param named the {@link Named} against which variables will be
+   * resolved; must not be {@code null}
+   *
+   * @exception IllegalArgumentException if {@code named} is {@code
+   * null}
+   */
+  public TemplateContext(final Named named) {
+    this(named, null);
+  }
+
+  /**
+   * Creates a new {@link TemplateContext}.
+   *
+   * @param named the {@link Named} against which variables will be
+   * resolved; must not be {@code null}
+   *
+   * @param locale the {@link Locale} in which variables will be
+   * resolved; may be {@code null}
+   *
+   * @exception IllegalArgumentException if {@code named} is {@code
+   * null}
+   */
+  public TemplateContext(final Named named, final Locale locale) {
+    super();
+    if (named == null) {
+      throw new IllegalArgumentException("named", new NullPointerException("named"));
+    }
+    this.named = named;
+    this.locale = locale;
+    this.variables = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    this.unmodifiableVariables = Collections.unmodifiableSet(this.variables);
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Returns the {@link Named} against which variables are resolved.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return the non-{@code null} {@link Named} against which
+   * variables are resolved
+   */
+  public Named getNamed() {
+    return this.named;
+  }
+
+  /**
+   * Returns the {@link Locale} in which variables are resolved.
+   *
+   * <p>This method may return {@code null}.</p>
+   *
+   * @return the {@link Locale} in which variables are resolved, or
+   * {@code null}
+   */
+  public Locale getLocale() {
+    return this.locale;
+  }
+
+  /**
+   * Returns the value of the {@link Name} that the variable with the
+   * supplied name refers to, or {@code null} if there is no such
+   * {@link Name}, {@linkplain #addVariable(String) recording} the
+   * variable as resolved either way.
+   *
+   * @param name the name of the variable; may be {@code null} in
+   * which case {@code null} will be returned
+   *
+   * @return the variable's value, or {@code null}
+   *
+   * @see #getValue(NameType)
+   */
+  public String getValue(final String name) {
+    if (name == null) {
+      return null;
+    }
+    return this.getValue(new NameType(name));
+  }
+
+  /**
+   * Returns the value of the {@link Name} that the variable named by
+   * the supplied {@link NameType} refers to, or {@code null} if there
+   * is no such {@link Name}, {@linkplain #addVariable(String)
+   * recording} the variable as resolved either way.
+   *
+   * <p>A missing variable is recorded too, so that the {@link Name}
+   * being rendered is notified when a {@link Name} is later put under
+   * it.</p>
+   *
+   * @param nameType the {@link NameType} naming the variable; may be
+   * {@code null} in which case {@code null} will be returned
+   *
+   * @return the variable's value, or {@code null}
+   *
+   * @see #getValue(Named, NameType, Locale)
+   */
+  public String getValue(final NameType nameType) {
+    if (nameType == null) {
+      return null;
+    }
+    final String returnValue = getValue(this.named, nameType, this.locale);
+    this.variables.add(nameType.getValue());
+    return returnValue;
+  }
+
+  /**
+   * Records that the variable with the supplied name has been
+   * resolved.
+   *
+   * <p>{@link TemplateEngine}s that resolve variables without calling
+   * the {@link #getValue(String)} method must call this method for
+   * each variable they resolve, including those for which no {@link
+   * Name} was found.</p>
+   *
+   * @param name the name of the variable; may be {@code null} in
+   * which case no action will be taken
+   */
+  public void addVariable(final String name) {
+    if (name != null) {
+      this.variables.add(name);
+    }
+  }
+
+  /**
+   * Returns an unmodifiable, live view of the names of the variables
+   * resolved so far.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return a non-{@code null}, unmodifiable {@link Set} of variable
+   * names
+   */
+  public Set<String> getVariables() {
+    return this.unmodifiableVariables;
+  }
+
+  /**
+   * Returns the {@link TemplateEngine}-specific state {@linkplain
+   * #setAttachment(Object) attached} to this {@link TemplateContext}.
+   *
+   * <p>This method may return {@code null}.</p>
+   *
+   * @return the attached state, or {@code null}
+   */
+  public Object getAttachment() {
+    return this.attachment;
+  }
+
+  /**
+   * Attaches {@link TemplateEngine}-specific state to this {@link
+   * TemplateContext}.
+   *
+   * @param attachment the state to attach; may be {@code null}
+   */
+  public void setAttachment(final Object attachment) {
+    this.attachment = attachment;
+  }
+
+
+  /*
+   * Static methods.
+   */
+
+
+  /**
+   * Returns the value, in the supplied {@link Locale}, of the {@link
+   * Name} that the supplied {@link Named} {@linkplain
+   * NameTypeFallbacks#resolveName(Named, NameType) resolves} for the
+   * supplied {@link NameType}, or {@code null} if there is no such
+   * {@link Name}.
+   *
+   * <p>The resolution is {@linkplain NameStatistics#enterResolution()
+   * counted} and reported to the {@linkplain NameProbe#getInstance()
+   * installed <code>NameProbe</code>}, if any.</p>
+   *
+   * @param named the {@link Named}; must not be {@code null}
+   *
+   * @param nameType the {@link NameType}; must not be {@code null}
+   *
+   * @param locale the {@link Locale}; may be {@code null}
+   *
+   * @return the value of the resolved {@link Name}, or {@code null}
+   */
+  public static final String getValue(final Named named, final NameType nameType, final Locale locale) {
+    String returnValue = null;
+    final NameStatistics statistics = NameStatistics.getInstance();
+    final int depth = statistics.enterResolution();
+    final NameProbe probe = NameProbe.getInstance();
+    final Object probeContext;
+    final NameType outerNameType;
+    if (probe == null) {
+      probeContext = null;
+      outerNameType = null;
+    } else {
+      probeContext = probe.resolveStarted(nameType, depth);
+      outerNameType = resolvingNameType.get();
+      resolvingNameType.set(nameType);
+    }
+    boolean succeeded = false;
+    try {
+      final RenderLimits limits = RenderLimits.getInstance();
+      if (!limits.isUnlimited()) {
+        limits.checkResolution(depth);
+      }
+      final Name n = NameTypeFallbacks.resolveName(named, nameType);
+      if (n != null) {
+        returnValue = locale == null ? n.getValue() : n.getValue(locale);
+      }
+      succeeded = true;
+    } finally {
+      statistics.exitResolution();
+      if (probe != null) {
+        if (outerNameType == null) {
+          resolvingNameType.remove();
+        } else {
+          resolvingNameType.set(outerNameType);
+        }
+        if (probeContext != null) {
+          probe.resolveFinished(probeContext, nameType, depth, succeeded);
+        }
+      }
+    }
+    return returnValue;
+  }
+
+  /**
+   * Returns the {@link NameType} being {@linkplain #getValue(Named,
+   * NameType, Locale) resolved} on the current {@link Thread}, if a
+   * {@link NameProbe} was installed when its resolution began.
+   *
+   * <p>This method may return {@code null}.</p>
+   *
+   * @return the {@link NameType} being resolved, or {@code null}
+   *
+   * @see NameProbe#renderStarted(String, NameType, int)
+   */
+  static final NameType getResolvingNameType() {
+    return resolvingNameType.get();
+  }
+
+}
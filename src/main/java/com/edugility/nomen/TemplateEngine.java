@@ -0,0 +1,291 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen;
+
+import java.lang.reflect.InvocationTargetException;
+
+import java.util.Iterator;
+import java.util.ServiceLoader;
+
+/**
+ * A service provider interface for compiling and executing the
+ * templates that {@linkplain NameValue#isAtomic() non-atomic} {@link
+ * NameValue}s hold.
+ *
+ * <p>The {@linkplain #getInstance() <code>TemplateEngine</code> in
+ * use} is an instance of the class named by the {@code
+ * com.edugility.nomen.TemplateEngine} system property, if it is set,
+ * and otherwise the first one {@linkplain ServiceLoader#load(Class,
+ * ClassLoader) discovered as a service} by the {@link ClassLoader}
+ * that loaded this class.  If there is none, the <a
+ * href="http://mvel.codehaus.org/">MVEL</a>-based {@link
+ * com.edugility.nomen.mvel.MvelTemplateEngine} is used if MVEL is
+ * available, and the {@link SimpleTemplateEngine} is used if it is
+ * not.  No class in this package refers to MVEL directly, so MVEL is
+ * loaded only if that is the {@link TemplateEngine} in use.</p>
+ *
+ * <p>In a GraalVM native image, where MVEL's runtime bytecode
+ * generation is unavailable, the {@link SimpleTemplateEngine} is the
+ * default instead of MVEL.</p>
+ *
+ * <p>Compiled templates are {@linkplain TemplateCatalog shared}
+ * between {@link Name}s and threads, so {@link TemplateEngine}
+ * implementations must be safe for concurrent use.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see #getInstance()
+ *
+ * @see Name#compileTemplate(String)
+ */
+public abstract class TemplateEngine {
+
+
+  /*
+   * Static fields.
+   */
+
+
+  /**
+   * The name of the class of the default {@link TemplateEngine},
+   * which is loaded reflectively so that this class does not depend
+   * on MVEL.
+   */
+  private static final String MVEL_TEMPLATE_ENGINE_CLASS_NAME = "com.edugility.nomen.mvel.MvelTemplateEngine";
+
+  /**
+   * The name of a class whose presence indicates that MVEL is
+   * available.
+   */
+  private static final String MVEL_CLASS_NAME = "org.mvel2.templates.TemplateCompiler";
+
+  /**
+   * The name of the system property that GraalVM sets when code is
+   * running in, or being compiled into, a native image.
+   */
+  private static final String NATIVE_IMAGE_PROPERTY_NAME = "org.graalvm.nativeimage.imagecode";
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new {@link TemplateEngine}.
+   */
+  protected TemplateEngine() {
+    super();
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Compiles the supplied template source into a representation that
+   * this {@link TemplateEngine} can {@linkplain #execute(Object,
+   * TemplateContext) execute} efficiently.
+   *
+   * <p>Implementations of this method must not return {@code
+   * null}.</p>
+   *
+   * @param template the template source; must not be {@code null}
+   *
+   * @return a non-{@code null} compiled template
+   *
+   * @exception IllegalStateException if the template could not be
+   * compiled
+   */
+  public abstract Object compile(final String template);
+
+  /**
+   * Returns {@code true} if the supplied {@link Object} is a compiled
+   * template that this {@link TemplateEngine} can {@linkplain
+   * #execute(Object, TemplateContext) execute}.
+   *
+   * @param compiledTemplate the {@link Object} in question; may be
+   * {@code null}
+   *
+   * @return {@code true} if this {@link TemplateEngine} can execute
+   * {@code compiledTemplate}; {@code false} otherwise
+   */
+  public abstract boolean canExecute(final Object compiledTemplate);
+
+  /**
+   * Executes the supplied compiled template, resolving its variables
+   * through the supplied {@link TemplateContext}, and returns the
+   * result.
+   *
+   * <p>This method may return {@code null}.</p>
+   *
+   * <p>Implementations must record every variable they resolve in
+   * the supplied {@link TemplateContext}, either by resolving it with
+   * the {@link TemplateContext#getValue(String)} method or by calling
+   * the {@link TemplateContext#addVariable(String)} method.</p>
+   *
+   * @param compiledTemplate a compiled template for which the {@link
+   * #canExecute(Object)} method returns {@code true}; must not be
+   * {@code null}
+   *
+   * @param context the {@link TemplateContext} to resolve variables
+   * with; may be {@code null} if the compiled template is not being
+   * executed on behalf of a {@link Named}
+   *
+   * @return the result of execution, or {@code null}
+   *
+   * @exception IllegalStateException if there was a problem with
+   * execution
+   */
+  public abstract Object execute(final Object compiledTemplate, final TemplateContext context);
+
+
+  /*
+   * Static methods.
+   */
+
+
+  /**
+   * Returns the {@link TemplateEngine} in use.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return the non-{@code null} {@link TemplateEngine} in use
+   */
+  public static final TemplateEngine getInstance() {
+    return Holder.instance;
+  }
+
+  /**
+   * Discovers the {@link TemplateEngine} to use as described in the
+   * {@linkplain TemplateEngine class documentation}.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return a non-{@code null} {@link TemplateEngine}
+   */
+  private static final TemplateEngine discover() {
+    final ClassLoader classLoader = TemplateEngine.class.getClassLoader();
+    final String className = System.getProperty(TemplateEngine.class.getName());
+    if (className != null) {
+      try {
+        return newInstance(className, classLoader);
+      } catch (final ClassNotFoundException wrapMe) {
+        throw new IllegalStateException(wrapMe);
+      }
+    }
+    final Iterator<TemplateEngine> services = ServiceLoader.load(TemplateEngine.class, classLoader).iterator();
+    if (services.hasNext()) {
+      return services.next();
+    }
+    if (isNativeImage()) {
+      return new SimpleTemplateEngine();
+    }
+    try {
+      Class.forName(MVEL_CLASS_NAME, false, classLoader);
+      return newInstance(MVEL_TEMPLATE_ENGINE_CLASS_NAME, classLoader);
+    } catch (final ClassNotFoundException mvelUnavailable) {
+      return new SimpleTemplateEngine();
+    } catch (final LinkageError mvelUnavailable) {
+      return new SimpleTemplateEngine();
+    }
+  }
+
+  /**
+   * Returns {@code true} if the caller is running in a GraalVM native
+   * image.
+   *
+   * @return {@code true} if the caller is running in a GraalVM native
+   * image; {@code false} otherwise
+   */
+  static final boolean isNativeImage() {
+    return "runtime".equals(System.getProperty(NATIVE_IMAGE_PROPERTY_NAME));
+  }
+
+  /**
+   * Creates a new instance of the named {@link TemplateEngine}
+   * subclass using its zero-argument constructor.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @param className the name of the {@link TemplateEngine}
+   * subclass; must not be {@code null}
+   *
+   * @param classLoader the {@link ClassLoader} to load it with; may
+   * be {@code null}
+   *
+   * @return a new {@link TemplateEngine}; never {@code null}
+   *
+   * @exception ClassNotFoundException if the named class could not be
+   * found
+   *
+   * @exception IllegalStateException if the named class is not a
+   * {@link TemplateEngine} or could not be instantiated
+   */
+  private static final TemplateEngine newInstance(final String className, final ClassLoader classLoader) throws ClassNotFoundException {
+    assert className != null;
+    try {
+      return Class.forName(className, true, classLoader).asSubclass(TemplateEngine.class).getDeclaredConstructor().newInstance();
+    } catch (final ClassCastException wrapMe) {
+      throw new IllegalStateException(wrapMe);
+    } catch (final NoSuchMethodException wrapMe) {
+      throw new IllegalStateException(wrapMe);
+    } catch (final InvocationTargetException wrapMe) {
+      throw new IllegalStateException(wrapMe);
+    } catch (final InstantiationException wrapMe) {
+      throw new IllegalStateException(wrapMe);
+    } catch (final IllegalAccessException wrapMe) {
+      throw new IllegalStateException(wrapMe);
+    }
+  }
+
+
+  /*
+   * Inner and nested classes.
+   */
+
+
+  /**
+   * Holds the {@link TemplateEngine} in use, which is therefore
+   * discovered only when it is first needed.
+   */
+  private static final class Holder {
+
+    /**
+     * The {@link TemplateEngine} in use.
+     *
+     * <p>This field is never {@code null}.</p>
+     */
+    private static final TemplateEngine instance = discover();
+
+  }
+
+}
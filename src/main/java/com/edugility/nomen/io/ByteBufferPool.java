@@ -0,0 +1,188 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen.io;
+
+import java.nio.ByteBuffer;
+
+import java.util.Queue;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A thread-safe pool of equally sized {@linkplain
+ * ByteBuffer#allocateDirect(int) direct} {@link ByteBuffer}s.
+ *
+ * <p>Direct {@link ByteBuffer}s are expensive to allocate and are
+ * reclaimed only lazily, so code that repeatedly needs one for a
+ * short time, such as a {@link NameExporter}, should {@linkplain
+ * #acquire() acquire} one from a {@link ByteBufferPool} and
+ * {@linkplain #release(ByteBuffer) release} it afterwards.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see NameExporter
+ */
+public class ByteBufferPool {
+
+
+  /*
+   * Static fields.
+   */
+
+
+  /**
+   * The {@link ByteBufferPool} returned by the {@link #getInstance()}
+   * method.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  private static final ByteBufferPool instance = new ByteBufferPool(64 * 1024, 16);
+
+
+  /*
+   * Instance fields.
+   */
+
+
+  /**
+   * The capacity of each {@link ByteBuffer} in this pool.
+   */
+  private final int capacity;
+
+  /**
+   * The maximum number of idle {@link ByteBuffer}s retained.
+   */
+  private final int maxIdle;
+
+  /**
+   * Idle {@link ByteBuffer}s.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  private final Queue<ByteBuffer> idle;
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new {@link ByteBufferPool}.
+   *
+   * @param capacity the capacity of each {@link ByteBuffer}; must be
+   * positive
+   *
+   * @param maxIdle the maximum number of idle {@link ByteBuffer}s
+   * retained; must not be negative
+   *
+   * @exception IllegalArgumentException if {@code capacity} is not
+   * positive or {@code maxIdle} is negative
+   */
+  public ByteBufferPool(final int capacity, final int maxIdle) {
+    super();
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity < 1: " + capacity);
+    }
+    if (maxIdle < 0) {
+      throw new IllegalArgumentException("maxIdle < 0: " + maxIdle);
+    }
+    this.capacity = capacity;
+    this.maxIdle = maxIdle;
+    this.idle = new ConcurrentLinkedQueue<ByteBuffer>();
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Returns the capacity of each {@link ByteBuffer} in this pool.
+   *
+   * @return the capacity of each {@link ByteBuffer} in this pool;
+   * always positive
+   */
+  public int getCapacity() {
+    return this.capacity;
+  }
+
+  /**
+   * Returns a {@linkplain ByteBuffer#clear() cleared}, direct {@link
+   * ByteBuffer} for the caller's exclusive use until it is
+   * {@linkplain #release(ByteBuffer) released}.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return a cleared, direct {@link ByteBuffer}; never {@code null}
+   *
+   * @see #release(ByteBuffer)
+   */
+  public ByteBuffer acquire() {
+    final ByteBuffer returnValue = this.idle.poll();
+    if (returnValue == null) {
+      return ByteBuffer.allocateDirect(this.capacity);
+    }
+    returnValue.clear();
+    return returnValue;
+  }
+
+  /**
+   * Returns the supplied {@link ByteBuffer}, which must have been
+   * {@linkplain #acquire() acquired} from this pool, to this pool.
+   * The caller must not use it afterwards.
+   *
+   * @param buffer the {@link ByteBuffer} to release; may be {@code
+   * null} in which case no action will be taken
+   */
+  public void release(final ByteBuffer buffer) {
+    if (buffer != null && buffer.capacity() == this.capacity && this.idle.size() < this.maxIdle) {
+      this.idle.offer(buffer);
+    }
+  }
+
+
+  /*
+   * Static methods.
+   */
+
+
+  /**
+   * Returns a shared {@link ByteBufferPool} of 64 KiB buffers.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return a shared {@link ByteBufferPool}; never {@code null}
+   */
+  public static final ByteBufferPool getInstance() {
+    return instance;
+  }
+
+}
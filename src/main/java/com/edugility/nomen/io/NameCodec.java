@@ -0,0 +1,317 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen.io;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+
+import java.nio.charset.Charset;
+
+import java.util.Arrays;
+
+/**
+ * Constants and primitive routines shared by the {@link NameEncoder}
+ * and {@link NameDecoder} classes, which together implement a
+ * compact, versioned binary format for {@linkplain
+ * com.edugility.nomen.Name names}.
+ *
+ * <h3>Format</h3>
+ *
+ * <p>A stream begins with the {@linkplain #MAGIC magic number}
+ * followed by a single byte holding the {@linkplain #VERSION format
+ * version}.  Integers are thereafter written as unsigned variable
+ * length quantities, seven bits at a time, least significant group
+ * first.</p>
+ *
+ * <p>The header continues with the number of {@linkplain
+ * com.edugility.nomen.TemplateCatalog#register(String) registered}
+ * templates whose ids the stream may use, and, if that number is not
+ * {@code 0}, the eight-byte {@linkplain
+ * com.edugility.nomen.TemplateCatalog#getFingerprint(int)
+ * fingerprint} of those registrations.  A {@link NameDecoder} whose
+ * {@link com.edugility.nomen.TemplateCatalog} does not have the same
+ * fingerprint for that number of registrations rejects the stream,
+ * rather than resolving ids to the wrong templates.</p>
+ *
+ * <p>A string's contents are written as the length of its UTF-8
+ * encoding followed by that encoding, so strings of any length may
+ * be written.</p>
+ *
+ * <p>Strings, {@link com.edugility.nomen.NameValue}s and {@link
+ * com.edugility.nomen.Name}s are each written as a <em>reference</em>:
+ * {@code 0} denotes {@code null}, {@code 1} denotes a new item whose
+ * contents follow immediately, and any other value {@code n} denotes
+ * the item of the same kind that was the {@code (n - 2)}th new item
+ * written to the stream.  Repeated strings are thus written once per
+ * stream, and repeated {@link com.edugility.nomen.NameValue}s and
+ * {@link com.edugility.nomen.Name}s retain their identity.  Because a
+ * {@link com.edugility.nomen.Name} has only one owner, {@link
+ * com.edugility.nomen.Name} references are numbered afresh for each
+ * set of names written by {@link NameEncoder#writeNames(Iterable)}.</p>
+ *
+ * <p>A {@link com.edugility.nomen.LocalizedNameValue} is written as
+ * a {@link com.edugility.nomen.NameValue} followed by the number of
+ * its {@linkplain
+ * com.edugility.nomen.LocalizedNameValue#getTemplates() templates}
+ * and, for each, the {@linkplain java.util.Locale#getLanguage()
+ * language}, {@linkplain java.util.Locale#getCountry() country} and
+ * {@linkplain java.util.Locale#getVariant() variant} of its {@link
+ * java.util.Locale} and the template itself, all as strings.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see NameEncoder
+ *
+ * @see NameDecoder
+ */
+public final class NameCodec {
+
+
+  /*
+   * Static fields.
+   */
+
+
+  /**
+   * The magic number that begins every stream ({@code NOMN} in
+   * ASCII).
+   */
+  public static final int MAGIC = 0x4E4F4D4E;
+
+  /**
+   * The version of the format written by the {@link NameEncoder}
+   * class.
+   */
+  public static final int VERSION = 3;
+
+  /**
+   * The oldest version of the format that the {@link NameDecoder}
+   * class can read.  Version 2 streams differ from version 3 streams
+   * only in never carrying {@linkplain #LOCALIZED localized
+   * templates}.
+   */
+  static final int MINIMUM_VERSION = 2;
+
+  /**
+   * The reference denoting {@code null}.
+   */
+  static final int NULL_REFERENCE = 0;
+
+  /**
+   * The reference denoting a new item whose contents follow.
+   */
+  static final int NEW_REFERENCE = 1;
+
+  /**
+   * The amount by which the index of a previously written item is
+   * offset to form a back-reference to it.
+   */
+  static final int BACK_REFERENCE_OFFSET = 2;
+
+  /**
+   * The flag indicating that a {@link
+   * com.edugility.nomen.NameValue} is {@linkplain
+   * com.edugility.nomen.NameValue#isAtomic() atomic}.
+   */
+  static final int ATOMIC = 0x01;
+
+  /**
+   * The flag indicating that a {@link
+   * com.edugility.nomen.NameValue}'s {@linkplain
+   * com.edugility.nomen.NameValue#getWhitespaceReplacement()
+   * whitespace replacement} follows its value.
+   */
+  static final int WHITESPACE_REPLACEMENT = 0x02;
+
+  /**
+   * The flag indicating that a {@link
+   * com.edugility.nomen.NameValue}'s value is written as a {@linkplain
+   * com.edugility.nomen.TemplateCatalog#getId(String) template catalog
+   * id}.
+   */
+  static final int CATALOGUED = 0x04;
+
+  /**
+   * The flag indicating that a {@link
+   * com.edugility.nomen.LocalizedNameValue}'s {@linkplain
+   * com.edugility.nomen.LocalizedNameValue#getTemplates() templates}
+   * follow its value and any whitespace replacement.
+   */
+  static final int LOCALIZED = 0x08;
+
+  /**
+   * The {@link Charset} in which strings are encoded.
+   */
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  /**
+   * The largest number of bytes of a string's encoding that the
+   * {@link #readString(DataInput)} method will allocate before any of
+   * them have been read.
+   *
+   * <p>Longer strings are read into a buffer that grows as their
+   * bytes arrive, so that a corrupt length cannot by itself exhaust
+   * the heap.</p>
+   */
+  private static final int STRING_CHUNK_SIZE = 8192;
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new {@link NameCodec}.
+   */
+  private NameCodec() {
+    super();
+  }
+
+
+  /*
+   * Static methods.
+   */
+
+
+  /**
+   * Writes the supplied non-negative {@code int} to the supplied
+   * {@link DataOutput} as an unsigned variable length quantity.
+   *
+   * @param out the {@link DataOutput} to write to; must not be {@code
+   * null}
+   *
+   * @param value the value to write; must not be negative
+   *
+   * @exception IOException if an input/output error occurs
+   */
+  static final void writeVarInt(final DataOutput out, int value) throws IOException {
+    assert out != null;
+    assert value >= 0;
+    while ((value & ~0x7F) != 0) {
+      out.writeByte((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.writeByte(value);
+  }
+
+  /**
+   * Reads an unsigned variable length quantity from the supplied
+   * {@link DataInput}.
+   *
+   * @param in the {@link DataInput} to read from; must not be {@code
+   * null}
+   *
+   * @return a non-negative {@code int}
+   *
+   * @exception IOException if an input/output error occurs
+   *
+   * @exception StreamCorruptedException if the quantity read does not
+   * fit in a non-negative {@code int}
+   */
+  static final int readVarInt(final DataInput in) throws IOException {
+    assert in != null;
+    int returnValue = 0;
+    for (int shift = 0; shift < 28; shift += 7) {
+      final int b = in.readUnsignedByte();
+      returnValue |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return returnValue;
+      }
+    }
+    // The fifth group may only carry the top three bits of a
+    // non-negative int; anything else would be silently dropped.
+    final int b = in.readUnsignedByte();
+    if ((b & ~0x07) != 0) {
+      throw new StreamCorruptedException("malformed variable length quantity");
+    }
+    return returnValue | (b << 28);
+  }
+
+  /**
+   * Writes the supplied {@link String} to the supplied {@link
+   * DataOutput} as the length of its UTF-8 encoding followed by that
+   * encoding.
+   *
+   * @param out the {@link DataOutput} to write to; must not be {@code
+   * null}
+   *
+   * @param s the {@link String} to write; must not be {@code null}
+   *
+   * @exception IOException if an input/output error occurs
+   */
+  static final void writeString(final DataOutput out, final String s) throws IOException {
+    assert out != null;
+    assert s != null;
+    final byte[] bytes = s.getBytes(UTF_8);
+    writeVarInt(out, bytes.length);
+    out.write(bytes);
+  }
+
+  /**
+   * Reads a {@link String} written by the {@link
+   * #writeString(DataOutput, String)} method from the supplied {@link
+   * DataInput}.
+   *
+   * @param in the {@link DataInput} to read from; must not be {@code
+   * null}
+   *
+   * @return a non-{@code null} {@link String}
+   *
+   * @exception IOException if an input/output error occurs
+   *
+   * @exception StreamCorruptedException if the length read is
+   * malformed or exceeds the number of bytes remaining in the stream
+   */
+  static final String readString(final DataInput in) throws IOException {
+    assert in != null;
+    final int length = readVarInt(in);
+    byte[] bytes = new byte[Math.min(length, STRING_CHUNK_SIZE)];
+    int offset = 0;
+    try {
+      while (offset < length) {
+        if (offset == bytes.length) {
+          bytes = Arrays.copyOf(bytes, (int)Math.min((long)length, bytes.length * 2L));
+        }
+        final int count = bytes.length - offset;
+        in.readFully(bytes, offset, count);
+        offset += count;
+      }
+    } catch (final EOFException eof) {
+      final StreamCorruptedException corrupt = new StreamCorruptedException("string length " + length + " exceeds the remaining stream");
+      corrupt.initCause(eof);
+      throw corrupt;
+    }
+    return new String(bytes, UTF_8);
+  }
+
+}
@@ -0,0 +1,484 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen.io;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.edugility.nomen.LocalizedNameValue;
+import com.edugility.nomen.MutableNamed;
+import com.edugility.nomen.Name;
+import com.edugility.nomen.NameType;
+import com.edugility.nomen.NameValue;
+import com.edugility.nomen.TemplateCatalog;
+
+/**
+ * Reads {@link Name}s, {@link NameValue}s and sets of {@link Name}s
+ * indexed by {@link NameType}s from a {@link DataInput} in the
+ * compact binary format written by a {@link NameEncoder}.
+ *
+ * <p>Templates are compiled by way of {@link
+ * Name#compileTemplate(String)}, which consults the {@linkplain
+ * TemplateCatalog#getInstance() shared
+ * <code>TemplateCatalog</code>}, so reading a template that has
+ * already been compiled in this Java virtual machine does not
+ * compile it again.</p>
+ *
+ * <p>A {@link NameDecoder} corresponds to a single stream and is not
+ * safe for concurrent use by multiple threads.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see NameEncoder
+ *
+ * @see NameCodec
+ */
+public class NameDecoder {
+
+
+  /*
+   * Instance fields.
+   */
+
+
+  /**
+   * The {@link DataInput} from which data is read.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  private final DataInput in;
+
+  /**
+   * The {@link TemplateCatalog} used to resolve template ids.
+   *
+   * <p>This field may be {@code null}.</p>
+   */
+  private final TemplateCatalog catalog;
+
+  /**
+   * {@link String}s already read from the stream, in order.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  private final List<String> strings;
+
+  /**
+   * {@link NameValue}s already read from the stream, in order.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  private final List<NameValue> nameValues;
+
+  /**
+   * {@link Name}s already read from the stream, in order.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  private final List<Name> names;
+
+  /**
+   * Whether the stream header has been read.
+   */
+  private boolean headerRead;
+
+  /**
+   * The number of {@linkplain TemplateCatalog#register(String)
+   * registered} templates whose ids the stream may use, as recorded
+   * in the stream header.
+   */
+  private int catalogSize;
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new {@link NameDecoder} that cannot resolve template
+   * catalog ids.
+   *
+   * @param in the {@link DataInput} to read from; must not be {@code
+   * null}
+   *
+   * @exception IllegalArgumentException if {@code in} is {@code
+   * null}
+   *
+   * @see #NameDecoder(DataInput, TemplateCatalog)
+   */
+  public NameDecoder(final DataInput in) {
+    this(in, null);
+  }
+
+  /**
+   * Creates a new {@link NameDecoder}.
+   *
+   * @param in the {@link DataInput} to read from; must not be {@code
+   * null}
+   *
+   * @param catalog the {@link TemplateCatalog} used to resolve
+   * template ids; may be {@code null} in which case encountering a
+   * template id will result in a {@link StreamCorruptedException}.
+   * If the stream was written against a catalog whose {@linkplain
+   * TemplateCatalog#getFingerprint(int) fingerprint} differs from
+   * this one's, reading the stream header will result in a {@link
+   * StreamCorruptedException}.
+   *
+   * @exception IllegalArgumentException if {@code in} is {@code
+   * null}
+   */
+  public NameDecoder(final DataInput in, final TemplateCatalog catalog) {
+    super();
+    if (in == null) {
+      throw new IllegalArgumentException("in", new NullPointerException("in"));
+    }
+    this.in = in;
+    this.catalog = catalog;
+    this.strings = new ArrayList<String>();
+    this.nameValues = new ArrayList<NameValue>();
+    this.names = new ArrayList<Name>();
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Reads a set of {@link Name}s written by the {@link
+   * NameEncoder#writeNames(Iterable)} method and {@linkplain
+   * MutableNamed#putName(NameType, Name) puts} each of them into the
+   * supplied {@link MutableNamed}.
+   *
+   * @param target the {@link MutableNamed} to populate; must not be
+   * {@code null}
+   *
+   * @return the number of entries read
+   *
+   * @exception IllegalArgumentException if {@code target} is {@code
+   * null}
+   *
+   * @exception IOException if an input/output error occurs
+   */
+  public int readNames(final MutableNamed target) throws IOException {
+    if (target == null) {
+      throw new IllegalArgumentException("target", new NullPointerException("target"));
+    }
+    this.readHeader();
+    this.names.clear();
+    final int size = NameCodec.readVarInt(this.in);
+    for (int i = 0; i < size; i++) {
+      final String nameTypeValue = this.readString();
+      if (nameTypeValue == null) {
+        throw new StreamCorruptedException("null name type");
+      }
+      final Name name = this.readName();
+      if (name == null) {
+        throw new StreamCorruptedException("null name");
+      }
+      target.putName(this.createNameType(nameTypeValue), name);
+    }
+    return size;
+  }
+
+  /**
+   * Reads a {@link Name} written by the {@link
+   * NameEncoder#writeName(Name)} method.
+   *
+   * <p>This method may return {@code null}.</p>
+   *
+   * @return a {@link Name}, or {@code null}
+   *
+   * @exception IOException if an input/output error occurs
+   */
+  public Name readName() throws IOException {
+    this.readHeader();
+    final int reference = NameCodec.readVarInt(this.in);
+    final Name returnValue;
+    if (reference == NameCodec.NULL_REFERENCE) {
+      returnValue = null;
+    } else if (reference == NameCodec.NEW_REFERENCE) {
+      final NameValue nameValue = this.readNameValue();
+      if (nameValue == null) {
+        throw new StreamCorruptedException("null name value");
+      }
+      returnValue = this.createName(nameValue);
+      this.names.add(returnValue);
+    } else {
+      returnValue = get(this.names, reference);
+    }
+    return returnValue;
+  }
+
+  /**
+   * Reads a {@link NameValue} written by the {@link
+   * NameEncoder#writeNameValue(NameValue)} method.
+   *
+   * <p>This method may return {@code null}.</p>
+   *
+   * @return a {@link NameValue}, or {@code null}
+   *
+   * @exception IOException if an input/output error occurs
+   */
+  public NameValue readNameValue() throws IOException {
+    this.readHeader();
+    final int reference = NameCodec.readVarInt(this.in);
+    final NameValue returnValue;
+    if (reference == NameCodec.NULL_REFERENCE) {
+      returnValue = null;
+    } else if (reference == NameCodec.NEW_REFERENCE) {
+      final int flags = this.in.readUnsignedByte();
+      final String value;
+      if ((flags & NameCodec.CATALOGUED) != 0) {
+        final int id = NameCodec.readVarInt(this.in);
+        value = this.catalog == null || id >= this.catalogSize ? null : this.catalog.getTemplate(id);
+        if (value == null) {
+          throw new StreamCorruptedException("unknown template id: " + id);
+        }
+      } else {
+        value = this.readString();
+        if (value == null) {
+          throw new StreamCorruptedException("null value");
+        }
+      }
+      final String whitespaceReplacement;
+      if ((flags & NameCodec.WHITESPACE_REPLACEMENT) != 0) {
+        whitespaceReplacement = this.readString();
+      } else {
+        whitespaceReplacement = null;
+      }
+      final boolean atomic = (flags & NameCodec.ATOMIC) != 0;
+      if ((flags & NameCodec.LOCALIZED) != 0) {
+        final int size = NameCodec.readVarInt(this.in);
+        final Map<Locale, String> templates = new LinkedHashMap<Locale, String>();
+        for (int i = 0; i < size; i++) {
+          final String language = this.readString();
+          final String country = this.readString();
+          final String variant = this.readString();
+          final String template = this.readString();
+          if (language == null || country == null || variant == null || template == null) {
+            throw new StreamCorruptedException("null localized template");
+          }
+          templates.put(new Locale(language, country, variant), template);
+        }
+        returnValue = this.createLocalizedNameValue(value, atomic, whitespaceReplacement, templates);
+      } else {
+        returnValue = this.createNameValue(value, atomic, whitespaceReplacement);
+      }
+      this.nameValues.add(returnValue);
+    } else {
+      returnValue = get(this.nameValues, reference);
+    }
+    return returnValue;
+  }
+
+  /**
+   * Creates a new {@link NameType} for the supplied {@code value}.
+   *
+   * <p>This method never returns {@code null} and overrides of it
+   * must not return {@code null} either.</p>
+   *
+   * @param value the value of the new {@link NameType}; must not be
+   * {@code null}
+   *
+   * @return a new {@link NameType}; never {@code null}
+   */
+  protected NameType createNameType(final String value) {
+    return new NameType(value);
+  }
+
+  /**
+   * Creates a new {@link NameValue} from the supplied parameters.
+   *
+   * <p>This method never returns {@code null} and overrides of it
+   * must not return {@code null} either.  Overrides may, for example,
+   * return a canonical instance from a {@link
+   * com.edugility.nomen.NameValuePool}.</p>
+   *
+   * @param value the value; must not be {@code null}
+   *
+   * @param atomic whether the new {@link NameValue} is {@linkplain
+   * NameValue#isAtomic() atomic}
+   *
+   * @param whitespaceReplacement the whitespace replacement; may be
+   * {@code null}
+   *
+   * @return a new {@link NameValue}; never {@code null}
+   *
+   * @see NameValue#NameValue(String, boolean, String)
+   */
+  protected NameValue createNameValue(final String value, final boolean atomic, final String whitespaceReplacement) {
+    return new NameValue(value, atomic, whitespaceReplacement);
+  }
+
+  /**
+   * Creates a new {@link LocalizedNameValue} from the supplied
+   * parameters.
+   *
+   * <p>This method never returns {@code null} and overrides of it
+   * must not return {@code null} either.</p>
+   *
+   * @param value the value; must not be {@code null}
+   *
+   * @param atomic whether the new {@link LocalizedNameValue} is
+   * {@linkplain NameValue#isAtomic() atomic}
+   *
+   * @param whitespaceReplacement the whitespace replacement; may be
+   * {@code null}
+   *
+   * @param templates the {@linkplain
+   * LocalizedNameValue#getTemplates() templates}, indexed by {@link
+   * Locale}; must not be {@code null}
+   *
+   * @return a new {@link LocalizedNameValue}; never {@code null}
+   *
+   * @see LocalizedNameValue#LocalizedNameValue(String, boolean,
+   * String, Map)
+   */
+  protected LocalizedNameValue createLocalizedNameValue(final String value, final boolean atomic, final String whitespaceReplacement, final Map<Locale, String> templates) {
+    return new LocalizedNameValue(value, atomic, whitespaceReplacement, templates);
+  }
+
+  /**
+   * Creates a new, {@linkplain Name#getNamed() unowned} {@link Name}
+   * with the supplied {@link NameValue}.
+   *
+   * <p>This method never returns {@code null} and overrides of it
+   * must not return {@code null} either.</p>
+   *
+   * @param nameValue the {@link NameValue}; must not be {@code null}
+   *
+   * @return a new {@link Name}; never {@code null}
+   *
+   * @see Name#Name(NameValue)
+   */
+  protected Name createName(final NameValue nameValue) {
+    return new Name(nameValue);
+  }
+
+  /**
+   * Reads a {@link String} or a reference to one.
+   *
+   * @return a {@link String}, or {@code null}
+   *
+   * @exception IOException if an input/output error occurs
+   */
+  private final String readString() throws IOException {
+    final int reference = NameCodec.readVarInt(this.in);
+    final String returnValue;
+    if (reference == NameCodec.NULL_REFERENCE) {
+      returnValue = null;
+    } else if (reference == NameCodec.NEW_REFERENCE) {
+      returnValue = NameCodec.readString(this.in);
+      this.strings.add(returnValue);
+    } else {
+      returnValue = get(this.strings, reference);
+    }
+    return returnValue;
+  }
+
+  /**
+   * Reads and validates the stream header if it has not already been
+   * read.
+   *
+   * @exception IOException if an input/output error occurs
+   *
+   * @exception StreamCorruptedException if the header is invalid,
+   * the stream's version is not supported, or the stream was written
+   * against a {@link TemplateCatalog} whose registrations differ from
+   * those of this {@link NameDecoder}'s
+   */
+  private final void readHeader() throws IOException {
+    if (!this.headerRead) {
+      final int magic = this.in.readInt();
+      if (magic != NameCodec.MAGIC) {
+        throw new StreamCorruptedException("bad magic number: " + Integer.toHexString(magic));
+      }
+      final int version = this.in.readUnsignedByte();
+      if (version < NameCodec.MINIMUM_VERSION || version > NameCodec.VERSION) {
+        throw new StreamCorruptedException("unsupported version: " + version);
+      }
+      final int catalogSize = NameCodec.readVarInt(this.in);
+      if (catalogSize > 0) {
+        final long fingerprint = this.in.readLong();
+        if (this.catalog != null) {
+          final boolean matches;
+          synchronized (this.catalog) {
+            matches = catalogSize <= this.catalog.size() && fingerprint == this.catalog.getFingerprint(catalogSize);
+          }
+          if (!matches) {
+            throw new StreamCorruptedException("template catalog mismatch: the stream was written against " + catalogSize + " registered templates with fingerprint " + Long.toHexString(fingerprint));
+          }
+        }
+      }
+      this.catalogSize = catalogSize;
+      this.headerRead = true;
+    }
+  }
+
+
+  /*
+   * Static methods.
+   */
+
+
+  /**
+   * Returns the item from the supplied {@link List} identified by the
+   * supplied back-reference.
+   *
+   * @param <T> the type of item
+   *
+   * @param items the {@link List} of items read so far; must not be
+   * {@code null}
+   *
+   * @param reference the back-reference
+   *
+   * @return the referenced item; never {@code null}
+   *
+   * @exception StreamCorruptedException if the back-reference is
+   * invalid
+   */
+  private static final <T> T get(final List<T> items, final int reference) throws StreamCorruptedException {
+    assert items != null;
+    final int index = reference - NameCodec.BACK_REFERENCE_OFFSET;
+    if (index < 0 || index >= items.size()) {
+      throw new StreamCorruptedException("bad reference: " + reference);
+    }
+    return items.get(index);
+  }
+
+}
@@ -0,0 +1,427 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen.io;
+
+import java.io.DataOutput;
+import java.io.IOException;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.edugility.nomen.AbstractNamed;
+import com.edugility.nomen.LocalizedNameValue;
+import com.edugility.nomen.Name;
+import com.edugility.nomen.NameType;
+import com.edugility.nomen.NameValue;
+import com.edugility.nomen.TemplateCatalog;
+
+/**
+ * Writes {@link Name}s, {@link NameValue}s and sets of {@link Name}s
+ * indexed by {@link NameType}s to a {@link DataOutput} in the compact
+ * binary format described by the {@link NameCodec} class.
+ *
+ * <p>Unlike default Java serialization, a {@link NameEncoder} writes
+ * no class descriptors or field names, writes each distinct string at
+ * most once per stream, writes each {@link NameValue} and {@link
+ * Name} at most once per stream (preserving identity), and writes
+ * non-{@linkplain NameValue#isAtomic() atomic} values that are
+ * {@linkplain TemplateCatalog#register(String) registered} in a
+ * {@link TemplateCatalog} by id alone.  The stream header carries
+ * the catalog's {@linkplain TemplateCatalog#getFingerprint(int)
+ * fingerprint}, so a {@link NameDecoder} with a different catalog
+ * rejects the stream.  Templates registered after the header has
+ * been written are written in full.</p>
+ *
+ * <p>A {@link NameEncoder} corresponds to a single stream and is not
+ * safe for concurrent use by multiple threads.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see NameDecoder
+ *
+ * @see NameCodec
+ */
+public class NameEncoder {
+
+
+  /*
+   * Instance fields.
+   */
+
+
+  /**
+   * The {@link DataOutput} to which data is written.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  private final DataOutput out;
+
+  /**
+   * The {@link TemplateCatalog} consulted for template ids.
+   *
+   * <p>This field may be {@code null}, in which case templates are
+   * always written in full.</p>
+   */
+  private final TemplateCatalog catalog;
+
+  /**
+   * Indices of {@link String}s already written to the stream.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  private final Map<String, Integer> strings;
+
+  /**
+   * Indices of {@link NameValue}s already written to the stream,
+   * keyed by identity.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  private final Map<NameValue, Integer> nameValues;
+
+  /**
+   * Indices of {@link Name}s already written to the stream, keyed by
+   * identity.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  private final Map<Name, Integer> names;
+
+  /**
+   * Whether the stream header has been written.
+   */
+  private boolean headerWritten;
+
+  /**
+   * The number of {@linkplain TemplateCatalog#register(String)
+   * registered} templates whose ids may be written, as recorded in the
+   * stream header.
+   */
+  private int catalogSize;
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new {@link NameEncoder} that writes templates in full.
+   *
+   * @param out the {@link DataOutput} to write to; must not be {@code
+   * null}
+   *
+   * @exception IllegalArgumentException if {@code out} is {@code
+   * null}
+   *
+   * @see #NameEncoder(DataOutput, TemplateCatalog)
+   */
+  public NameEncoder(final DataOutput out) {
+    this(out, null);
+  }
+
+  /**
+   * Creates a new {@link NameEncoder}.
+   *
+   * @param out the {@link DataOutput} to write to; must not be {@code
+   * null}
+   *
+   * @param catalog a {@link TemplateCatalog} whose ids will be
+   * written in place of any registered templates; may be {@code null}
+   * in which case templates will always be written in full.  A
+   * {@link NameDecoder} reading the resulting stream must be supplied
+   * with a {@link TemplateCatalog} that agrees on these ids, which it
+   * verifies by {@linkplain TemplateCatalog#getFingerprint(int)
+   * fingerprint}.
+   *
+   * @exception IllegalArgumentException if {@code out} is {@code
+   * null}
+   */
+  public NameEncoder(final DataOutput out, final TemplateCatalog catalog) {
+    super();
+    if (out == null) {
+      throw new IllegalArgumentException("out", new NullPointerException("out"));
+    }
+    this.out = out;
+    this.catalog = catalog;
+    this.strings = new HashMap<String, Integer>();
+    this.nameValues = new IdentityHashMap<NameValue, Integer>();
+    this.names = new IdentityHashMap<Name, Integer>();
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Writes the {@linkplain AbstractNamed#getNames() names} of the
+   * supplied {@link AbstractNamed}.
+   *
+   * @param named the {@link AbstractNamed} whose names should be
+   * written; must not be {@code null}
+   *
+   * @exception IllegalArgumentException if {@code named} is {@code
+   * null}
+   *
+   * @exception IOException if an input/output error occurs
+   *
+   * @see #writeNames(Iterable)
+   *
+   * @see NameDecoder#readNames(com.edugility.nomen.MutableNamed)
+   */
+  public void writeNamed(final AbstractNamed named) throws IOException {
+    if (named == null) {
+      throw new IllegalArgumentException("named", new NullPointerException("named"));
+    }
+    this.writeNames(named.getNames());
+  }
+
+  /**
+   * Writes the supplied {@link Entry} instances, whose keys are
+   * {@link NameType}s and whose values are {@link Name}s.
+   *
+   * <p>A {@link Name} indexed under more than one {@link NameType} is
+   * written once and will be indexed under all of them when read
+   * back.  Because a {@link Name} has exactly one {@linkplain
+   * Name#getNamed() owner}, {@link Name} references do not extend
+   * beyond a single invocation of this method.</p>
+   *
+   * @param names the entries to write; may be {@code null} in which
+   * case no entries will be written
+   *
+   * @exception IOException if an input/output error occurs
+   *
+   * @see NameDecoder#readNames(com.edugility.nomen.MutableNamed)
+   */
+  public void writeNames(final Iterable<? extends Entry<? extends NameType, ? extends Name>> names) throws IOException {
+    this.writeHeader();
+    this.names.clear();
+    int size = 0;
+    if (names != null) {
+      for (final Entry<? extends NameType, ? extends Name> entry : names) {
+        if (entry != null && entry.getKey() != null && entry.getValue() != null) {
+          size++;
+        }
+      }
+    }
+    NameCodec.writeVarInt(this.out, size);
+    if (size > 0) {
+      for (final Entry<? extends NameType, ? extends Name> entry : names) {
+        if (entry != null) {
+          final NameType nameType = entry.getKey();
+          final Name name = entry.getValue();
+          if (nameType != null && name != null) {
+            this.writeString(nameType.getValue());
+            this.writeName(name);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Writes the supplied {@link Name}, or a reference to it if it has
+   * already been written to this stream.
+   *
+   * <p>Only the {@link Name}'s {@linkplain Name#getNameValue()
+   * <code>NameValue</code>} is written; its {@linkplain
+   * Name#getNamed() owner} is re-established by whatever {@link
+   * com.edugility.nomen.MutableNamed} it is read back into.</p>
+   *
+   * @param name the {@link Name} to write; may be {@code null}
+   *
+   * @exception IOException if an input/output error occurs
+   *
+   * @see NameDecoder#readName()
+   */
+  public void writeName(final Name name) throws IOException {
+    this.writeHeader();
+    if (this.writeReference(this.names, name)) {
+      this.writeNameValue(name.getNameValue());
+    }
+  }
+
+  /**
+   * Writes the supplied {@link NameValue}, or a reference to it if it
+   * has already been written to this stream.
+   *
+   * <p>The {@linkplain LocalizedNameValue#getTemplates() templates}
+   * of a {@link LocalizedNameValue} are written too.</p>
+   *
+   * @param nameValue the {@link NameValue} to write; may be {@code
+   * null}
+   *
+   * @exception IOException if an input/output error occurs
+   *
+   * @see NameDecoder#readNameValue()
+   */
+  public void writeNameValue(final NameValue nameValue) throws IOException {
+    this.writeHeader();
+    if (this.writeReference(this.nameValues, nameValue)) {
+      final boolean atomic = nameValue.isAtomic();
+      final String value = nameValue.getValue();
+      final String whitespaceReplacement = nameValue.getWhitespaceReplacement();
+      final int id;
+      if (atomic || this.catalog == null) {
+        id = -1;
+      } else {
+        final int catalogId = this.catalog.getId(value);
+        id = catalogId < this.catalogSize ? catalogId : -1;
+      }
+      int flags = 0;
+      if (atomic) {
+        flags |= NameCodec.ATOMIC;
+      }
+      if (whitespaceReplacement != null) {
+        flags |= NameCodec.WHITESPACE_REPLACEMENT;
+      }
+      if (id >= 0) {
+        flags |= NameCodec.CATALOGUED;
+      }
+      final Map<Locale, String> templates;
+      if (nameValue instanceof LocalizedNameValue) {
+        templates = ((LocalizedNameValue)nameValue).getTemplates();
+      } else {
+        templates = Collections.emptyMap();
+      }
+      if (!templates.isEmpty()) {
+        flags |= NameCodec.LOCALIZED;
+      }
+      this.out.writeByte(flags);
+      if (id >= 0) {
+        NameCodec.writeVarInt(this.out, id);
+      } else {
+        this.writeString(value);
+      }
+      if (whitespaceReplacement != null) {
+        this.writeString(whitespaceReplacement);
+      }
+      if (!templates.isEmpty()) {
+        NameCodec.writeVarInt(this.out, templates.size());
+        for (final Entry<Locale, String> entry : templates.entrySet()) {
+          final Locale locale = entry.getKey();
+          this.writeString(locale.getLanguage());
+          this.writeString(locale.getCountry());
+          this.writeString(locale.getVariant());
+          this.writeString(entry.getValue());
+        }
+      }
+    }
+  }
+
+  /**
+   * Writes the supplied {@link String}, or a reference to it if an
+   * equal {@link String} has already been written to this stream.
+   *
+   * @param s the {@link String} to write; may be {@code null}
+   *
+   * @exception IOException if an input/output error occurs
+   */
+  private final void writeString(final String s) throws IOException {
+    if (this.writeReference(this.strings, s)) {
+      NameCodec.writeString(this.out, s);
+    }
+  }
+
+  /**
+   * Writes a reference to the supplied item and returns {@code true}
+   * if the item's contents must follow.
+   *
+   * @param <T> the type of item
+   *
+   * @param indices a {@link Map} of indices of items already written;
+   * must not be {@code null}; will be updated if {@code item} has not
+   * yet been written
+   *
+   * @param item the item; may be {@code null}
+   *
+   * @return {@code true} if the caller must now write the contents of
+   * {@code item}; {@code false} otherwise
+   *
+   * @exception IOException if an input/output error occurs
+   */
+  private final <T> boolean writeReference(final Map<T, Integer> indices, final T item) throws IOException {
+    assert indices != null;
+    final boolean returnValue;
+    if (item == null) {
+      NameCodec.writeVarInt(this.out, NameCodec.NULL_REFERENCE);
+      returnValue = false;
+    } else {
+      final Integer index = indices.get(item);
+      if (index == null) {
+        indices.put(item, Integer.valueOf(indices.size()));
+        NameCodec.writeVarInt(this.out, NameCodec.NEW_REFERENCE);
+        returnValue = true;
+      } else {
+        NameCodec.writeVarInt(this.out, index.intValue() + NameCodec.BACK_REFERENCE_OFFSET);
+        returnValue = false;
+      }
+    }
+    return returnValue;
+  }
+
+  /**
+   * Writes the stream header if it has not already been written,
+   * including the {@linkplain TemplateCatalog#getFingerprint(int)
+   * fingerprint} of the templates registered in the {@link
+   * TemplateCatalog} at that time.
+   *
+   * @exception IOException if an input/output error occurs
+   */
+  private final void writeHeader() throws IOException {
+    if (!this.headerWritten) {
+      this.out.writeInt(NameCodec.MAGIC);
+      this.out.writeByte(NameCodec.VERSION);
+      final int catalogSize;
+      final long fingerprint;
+      if (this.catalog == null) {
+        catalogSize = 0;
+        fingerprint = 0L;
+      } else {
+        synchronized (this.catalog) {
+          catalogSize = this.catalog.size();
+          fingerprint = this.catalog.getFingerprint(catalogSize);
+        }
+      }
+      NameCodec.writeVarInt(this.out, catalogSize);
+      if (catalogSize > 0) {
+        this.out.writeLong(fingerprint);
+      }
+      this.catalogSize = catalogSize;
+      this.headerWritten = true;
+    }
+  }
+
+}
@@ -0,0 +1,549 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen.io;
+
+import java.io.IOException;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+import com.edugility.nomen.Name;
+import com.edugility.nomen.Named;
+import com.edugility.nomen.NameType;
+
+/**
+ * Renders chosen {@link NameType}s of a stream of {@link Named}s as
+ * records and writes them to a {@link WritableByteChannel} such as a
+ * {@link FileChannel}.
+ *
+ * <p>Each record consists of one field per {@link NameType} supplied
+ * at construction time, holding the {@linkplain Name#getValue()
+ * rendered value} of the corresponding {@link Name}, or the empty
+ * string if there is no such {@link Name}.  Records are either
+ * <em>delimited</em>, with fields separated by a {@linkplain
+ * #setDelimiter(String) delimiter}, or <em>fixed-width</em>, with
+ * each field {@linkplain #setFieldWidths(int[]) truncated or padded}
+ * with spaces to a given number of characters.  Each record is
+ * followed by a {@linkplain #setRecordSeparator(String) record
+ * separator}.</p>
+ *
+ * <p>In delimited records, a field value that contains the delimiter,
+ * a double quote, a carriage return, a line feed or the record
+ * separator is enclosed in double quotes, and each double quote
+ * within it is doubled, as described by <a
+ * href="https://tools.ietf.org/html/rfc4180">RFC 4180</a>.  {@link
+ * NameImporter} reads such fields back.</p>
+ *
+ * <p>In fixed-width records, widths are measured in Unicode code
+ * points, so a supplementary character occupies one position and a
+ * field is never truncated in the middle of one.  Consumers that
+ * measure fields in bytes should use a single-byte {@linkplain
+ * #setCharset(Charset) <code>Charset</code>}.</p>
+ *
+ * <p>Rendered values are encoded straight into a direct {@link
+ * ByteBuffer} {@linkplain ByteBufferPool#acquire() acquired} from a
+ * {@link ByteBufferPool}, which is written to the channel whenever it
+ * fills, so no intermediate {@code byte} arrays or {@link String}s
+ * are created per record.  The {@link WritableByteChannel} should be
+ * in blocking mode.</p>
+ *
+ * <p>A {@link NameExporter} may be used by multiple threads
+ * concurrently provided its configuration is not changed while an
+ * export is in progress.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see ByteBufferPool
+ */
+public class NameExporter {
+
+
+  /*
+   * Static fields.
+   */
+
+
+  /**
+   * The {@link Charset} used by default.
+   */
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+
+  /*
+   * Instance fields.
+   */
+
+
+  /**
+   * The {@link NameType}s rendered in each record, in order.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  private final NameType[] nameTypes;
+
+  /**
+   * The {@link Charset} used to encode records.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  private Charset charset;
+
+  /**
+   * The {@link ByteBufferPool} supplying direct {@link ByteBuffer}s.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  private ByteBufferPool byteBufferPool;
+
+  /**
+   * The field delimiter used in delimited records.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  private String delimiter;
+
+  /**
+   * The record separator.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  private String recordSeparator;
+
+  /**
+   * The width of each field in fixed-width records, or {@code null}
+   * if records are delimited.
+   */
+  private int[] fieldWidths;
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new {@link NameExporter} that writes tab-delimited,
+   * newline-separated, UTF-8-encoded records.
+   *
+   * @param nameTypes the {@link NameType}s whose {@link Name}s will be
+   * rendered in each record, in order; must not be {@code null} or
+   * empty or contain {@code null} elements
+   *
+   * @exception IllegalArgumentException if {@code nameTypes} is
+   * {@code null} or empty or contains {@code null} elements
+   */
+  public NameExporter(final NameType... nameTypes) {
+    super();
+    if (nameTypes == null || nameTypes.length == 0) {
+      throw new IllegalArgumentException("nameTypes");
+    }
+    for (final NameType nameType : nameTypes) {
+      if (nameType == null) {
+        throw new IllegalArgumentException("nameTypes", new NullPointerException("nameType"));
+      }
+    }
+    this.nameTypes = nameTypes.clone();
+    this.charset = UTF_8;
+    this.byteBufferPool = ByteBufferPool.getInstance();
+    this.delimiter = "\t";
+    this.recordSeparator = "\n";
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Sets the {@link Charset} used to encode records.  Characters that
+   * cannot be encoded are replaced.
+   *
+   * @param charset the {@link Charset}; must not be {@code null}
+   *
+   * @exception IllegalArgumentException if {@code charset} is {@code
+   * null}
+   */
+  public void setCharset(final Charset charset) {
+    if (charset == null) {
+      throw new IllegalArgumentException("charset", new NullPointerException("charset"));
+    }
+    this.charset = charset;
+  }
+
+  /**
+   * Sets the {@link ByteBufferPool} supplying direct {@link
+   * ByteBuffer}s.
+   *
+   * @param byteBufferPool the {@link ByteBufferPool}; must not be
+   * {@code null}
+   *
+   * @exception IllegalArgumentException if {@code byteBufferPool} is
+   * {@code null}
+   */
+  public void setByteBufferPool(final ByteBufferPool byteBufferPool) {
+    if (byteBufferPool == null) {
+      throw new IllegalArgumentException("byteBufferPool", new NullPointerException("byteBufferPool"));
+    }
+    this.byteBufferPool = byteBufferPool;
+  }
+
+  /**
+   * Sets the field delimiter used in delimited records, and causes
+   * records to be delimited rather than fixed-width.
+   *
+   * @param delimiter the delimiter; must not be {@code null}
+   *
+   * @exception IllegalArgumentException if {@code delimiter} is {@code
+   * null}
+   */
+  public void setDelimiter(final String delimiter) {
+    if (delimiter == null) {
+      throw new IllegalArgumentException("delimiter", new NullPointerException("delimiter"));
+    }
+    this.delimiter = delimiter;
+    this.fieldWidths = null;
+  }
+
+  /**
+   * Sets the record separator.
+   *
+   * @param recordSeparator the record separator; must not be {@code
+   * null}
+   *
+   * @exception IllegalArgumentException if {@code recordSeparator} is
+   * {@code null}
+   */
+  public void setRecordSeparator(final String recordSeparator) {
+    if (recordSeparator == null) {
+      throw new IllegalArgumentException("recordSeparator", new NullPointerException("recordSeparator"));
+    }
+    this.recordSeparator = recordSeparator;
+  }
+
+  /**
+   * Causes records to be fixed-width, with each field truncated or
+   * padded with spaces to the corresponding number of Unicode code
+   * points.
+   *
+   * @param fieldWidths the width of each field; must not be {@code
+   * null}, must have one element for each {@link NameType} supplied
+   * at construction time, and must not contain negative elements
+   *
+   * @exception IllegalArgumentException if {@code fieldWidths} is
+   * invalid
+   */
+  public void setFieldWidths(final int... fieldWidths) {
+    if (fieldWidths == null) {
+      throw new IllegalArgumentException("fieldWidths", new NullPointerException("fieldWidths"));
+    }
+    if (fieldWidths.length != this.nameTypes.length) {
+      throw new IllegalArgumentException("fieldWidths.length != " + this.nameTypes.length + ": " + Arrays.toString(fieldWidths));
+    }
+    for (final int width : fieldWidths) {
+      if (width < 0) {
+        throw new IllegalArgumentException("fieldWidths: " + Arrays.toString(fieldWidths));
+      }
+    }
+    this.fieldWidths = fieldWidths.clone();
+  }
+
+  /**
+   * Writes a record for each {@link Named} in the supplied {@link
+   * Iterable} to the supplied {@link WritableByteChannel}.
+   *
+   * @param nameds the {@link Named}s to export; must not be {@code
+   * null}; {@code null} elements are skipped
+   *
+   * @param channel the {@link WritableByteChannel} to write to; must
+   * not be {@code null}; is not closed
+   *
+   * @return the number of records written
+   *
+   * @exception IllegalArgumentException if either parameter is {@code
+   * null}
+   *
+   * @exception IOException if an input/output error occurs
+   *
+   * @see #export(Iterator, WritableByteChannel)
+   */
+  public long export(final Iterable<? extends Named> nameds, final WritableByteChannel channel) throws IOException {
+    if (nameds == null) {
+      throw new IllegalArgumentException("nameds", new NullPointerException("nameds"));
+    }
+    return this.export(nameds.iterator(), channel);
+  }
+
+  /**
+   * Writes a record for each {@link Named} produced by the supplied
+   * {@link Iterator} to the supplied {@link WritableByteChannel}.
+   *
+   * @param nameds an {@link Iterator} producing the {@link Named}s to
+   * export; must not be {@code null}; {@code null} elements are
+   * skipped
+   *
+   * @param channel the {@link WritableByteChannel} to write to; must
+   * not be {@code null}; is not closed
+   *
+   * @return the number of records written
+   *
+   * @exception IllegalArgumentException if either parameter is {@code
+   * null}
+   *
+   * @exception IOException if an input/output error occurs
+   */
+  public long export(final Iterator<? extends Named> nameds, final WritableByteChannel channel) throws IOException {
+    if (nameds == null) {
+      throw new IllegalArgumentException("nameds", new NullPointerException("nameds"));
+    }
+    if (channel == null) {
+      throw new IllegalArgumentException("channel", new NullPointerException("channel"));
+    }
+    final NameType[] nameTypes = this.nameTypes;
+    final int[] fieldWidths = this.fieldWidths;
+    final String delimiterString = this.delimiter;
+    final String recordSeparatorString = this.recordSeparator;
+    final CharBuffer delimiter = fieldWidths == null ? CharBuffer.wrap(delimiterString) : null;
+    final CharBuffer recordSeparator = CharBuffer.wrap(recordSeparatorString);
+    final CharBuffer space = CharBuffer.wrap(" ");
+    final CharBuffer quote = CharBuffer.wrap("\"");
+    final CharBuffer carry = CharBuffer.allocate(2);
+    final CharsetEncoder encoder = this.charset.newEncoder()
+      .onMalformedInput(CodingErrorAction.REPLACE)
+      .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    final ByteBufferPool byteBufferPool = this.byteBufferPool;
+    final ByteBuffer buffer = byteBufferPool.acquire();
+    long count = 0L;
+    try {
+      while (nameds.hasNext()) {
+        final Named named = nameds.next();
+        if (named != null) {
+          for (int i = 0; i < nameTypes.length; i++) {
+            if (i > 0 && delimiter != null) {
+              delimiter.rewind();
+              encode(encoder, delimiter, buffer, channel, carry);
+            }
+            final Name name = named.getName(nameTypes[i]);
+            final String value = name == null ? "" : name.getValue();
+            if (fieldWidths == null) {
+              if (needsQuotes(value, delimiterString, recordSeparatorString)) {
+                quote.rewind();
+                encode(encoder, quote, buffer, channel, carry);
+                int start = 0;
+                int end;
+                while ((end = value.indexOf('"', start)) >= 0) {
+                  // Write through the quote, then double it.
+                  encode(encoder, CharBuffer.wrap(value, start, end + 1), buffer, channel, carry);
+                  quote.rewind();
+                  encode(encoder, quote, buffer, channel, carry);
+                  start = end + 1;
+                }
+                encode(encoder, CharBuffer.wrap(value, start, value.length()), buffer, channel, carry);
+                quote.rewind();
+                encode(encoder, quote, buffer, channel, carry);
+              } else {
+                encode(encoder, CharBuffer.wrap(value), buffer, channel, carry);
+              }
+            } else {
+              final int width = fieldWidths[i];
+              final int length = value.length();
+              int end = 0;
+              int codePoints = 0;
+              while (end < length && codePoints < width) {
+                end += Character.charCount(value.codePointAt(end));
+                codePoints++;
+              }
+              encode(encoder, CharBuffer.wrap(value, 0, end), buffer, channel, carry);
+              for (int j = codePoints; j < width; j++) {
+                space.rewind();
+                encode(encoder, space, buffer, channel, carry);
+              }
+            }
+          }
+          recordSeparator.rewind();
+          encode(encoder, recordSeparator, buffer, channel, carry);
+          count++;
+        }
+      }
+      carry.flip();
+      while (encoder.encode(carry, buffer, true).isOverflow()) {
+        drain(buffer, channel);
+      }
+      while (encoder.flush(buffer).isOverflow()) {
+        drain(buffer, channel);
+      }
+      drain(buffer, channel);
+    } finally {
+      byteBufferPool.release(buffer);
+    }
+    return count;
+  }
+
+
+  /*
+   * Static methods.
+   */
+
+
+  /**
+   * Returns {@code true} if the supplied field value must be enclosed
+   * in double quotes in a delimited record.
+   *
+   * @param value the field value; must not be {@code null}
+   *
+   * @param delimiter the field delimiter; must not be {@code null}
+   *
+   * @param recordSeparator the record separator; must not be {@code
+   * null}
+   *
+   * @return {@code true} if {@code value} must be quoted
+   */
+  private static final boolean needsQuotes(final String value, final String delimiter, final String recordSeparator) {
+    assert value != null;
+    assert delimiter != null;
+    assert recordSeparator != null;
+    final int length = value.length();
+    for (int i = 0; i < length; i++) {
+      final char c = value.charAt(i);
+      if (c == '"' || c == '\r' || c == '\n') {
+        return true;
+      }
+    }
+    return
+      (!delimiter.isEmpty() && value.indexOf(delimiter) >= 0) ||
+      (!recordSeparator.isEmpty() && value.indexOf(recordSeparator) >= 0);
+  }
+
+  /**
+   * Encodes all remaining characters in the supplied {@link
+   * CharBuffer} into the supplied {@link ByteBuffer}, {@linkplain
+   * #drain(ByteBuffer, WritableByteChannel) draining} it to the
+   * supplied {@link WritableByteChannel} whenever it fills.
+   *
+   * <p>A high surrogate at the end of {@code chars} cannot be encoded
+   * until the character that follows it is known, so the {@link
+   * CharsetEncoder} leaves it unconsumed.  It is moved to the
+   * supplied {@code carry} buffer and encoded together with the start
+   * of the next call's characters, or at the end of the export.</p>
+   *
+   * @param encoder the {@link CharsetEncoder}; must not be {@code
+   * null}
+   *
+   * @param chars the characters to encode; must not be {@code null}
+   *
+   * @param buffer the {@link ByteBuffer}; must not be {@code null}
+   *
+   * @param channel the {@link WritableByteChannel}; must not be
+   * {@code null}
+   *
+   * @param carry a {@link CharBuffer} with room for two characters,
+   * in write mode, holding any character left over from the previous
+   * call; must not be {@code null}
+   *
+   * @exception IOException if an input/output error occurs
+   */
+  private static final void encode(final CharsetEncoder encoder, final CharBuffer chars, final ByteBuffer buffer, final WritableByteChannel channel, final CharBuffer carry) throws IOException {
+    assert carry.capacity() >= 2;
+    while (carry.position() > 0 && chars.hasRemaining()) {
+      // Complete the left-over character with the next one.
+      carry.put(chars.get());
+      carry.flip();
+      encode(encoder, carry, buffer, channel);
+      carry.compact();
+    }
+    encode(encoder, chars, buffer, channel);
+    if (chars.hasRemaining()) {
+      carry.put(chars);
+    }
+  }
+
+  /**
+   * Encodes as many characters in the supplied {@link CharBuffer} as
+   * the supplied {@link CharsetEncoder} will consume into the
+   * supplied {@link ByteBuffer}, {@linkplain #drain(ByteBuffer,
+   * WritableByteChannel) draining} it to the supplied {@link
+   * WritableByteChannel} whenever it fills.
+   *
+   * @param encoder the {@link CharsetEncoder}; must not be {@code
+   * null}
+   *
+   * @param chars the characters to encode; must not be {@code null}
+   *
+   * @param buffer the {@link ByteBuffer}; must not be {@code null}
+   *
+   * @param channel the {@link WritableByteChannel}; must not be
+   * {@code null}
+   *
+   * @exception IOException if an input/output error occurs
+   */
+  private static final void encode(final CharsetEncoder encoder, final CharBuffer chars, final ByteBuffer buffer, final WritableByteChannel channel) throws IOException {
+    while (true) {
+      final CoderResult result = encoder.encode(chars, buffer, false);
+      if (result.isOverflow()) {
+        drain(buffer, channel);
+      } else if (result.isError()) {
+        result.throwException();
+      } else {
+        break;
+      }
+    }
+  }
+
+  /**
+   * Writes the contents of the supplied {@link ByteBuffer} to the
+   * supplied {@link WritableByteChannel} and {@linkplain
+   * ByteBuffer#clear() clears} it.
+   *
+   * @param buffer the {@link ByteBuffer}; must not be {@code null}
+   *
+   * @param channel the {@link WritableByteChannel}; must not be
+   * {@code null}
+   *
+   * @exception IOException if an input/output error occurs
+   */
+  private static final void drain(final ByteBuffer buffer, final WritableByteChannel channel) throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+}
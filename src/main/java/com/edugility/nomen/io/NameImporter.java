@@ -0,0 +1,980 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen.io;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+
+import java.nio.charset.Charset;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.edugility.nomen.MutableNamed;
+import com.edugility.nomen.Name;
+import com.edugility.nomen.NameType;
+import com.edugility.nomen.NameValue;
+import com.edugility.nomen.NameValuePool;
+
+/**
+ * Builds {@link MutableNamed} instances in bulk from records read in
+ * a single pass from a {@link Reader} or {@link ReadableByteChannel}.
+ *
+ * <p>Two {@linkplain Format formats} are supported:</p>
+ *
+ * <dl>
+ *
+ * <dt>{@link Format#CSV CSV}</dt>
+ *
+ * <dd>Comma-separated values with <a
+ * href="http://tools.ietf.org/html/rfc4180">RFC 4180</a> quoting.  The
+ * first record is a header whose fields are the {@linkplain
+ * NameType#getValue() values} of the {@link NameType}s of the
+ * corresponding columns.  Each non-empty field of each subsequent
+ * record becomes a {@link Name} with an {@linkplain
+ * NameValue#isAtomic() atomic} {@link NameValue}.</dd>
+ *
+ * <dt>{@link Format#JSON_LINES JSON_LINES}</dt>
+ *
+ * <dd>One JSON object per line in the format read by a {@link
+ * NameJsonReader}.</dd>
+ *
+ * </dl>
+ *
+ * <p>{@linkplain #putTemplate(NameType, NameValue) Templates} may be
+ * supplied that are added to every imported {@link MutableNamed} that
+ * does not already have a {@link Name} of the relevant {@link
+ * NameType}.  Each template {@link NameValue} is shared by all
+ * imported {@link MutableNamed}s, and atomic {@link NameValue}s may
+ * be {@linkplain #setNameValuePool(NameValuePool) shared via a
+ * <code>NameValuePool</code>}, so heap use grows only with the number
+ * of distinct values.</p>
+ *
+ * <p>Records are grouped into {@linkplain #setBatchSize(int) batches}
+ * which are parsed by a {@linkplain #setThreads(int) configurable
+ * number of threads}.  At most twice that many batches are in flight
+ * at any one time, so memory use is bounded regardless of the size of
+ * the input.  Results are delivered to a {@link NamedSink} on the
+ * calling thread, either in input order or, if {@linkplain
+ * #setOrdered(boolean) so configured}, in whatever order batches
+ * finish.</p>
+ *
+ * <p>A {@link NameImporter}'s configuration must not be changed while
+ * an import is in progress.</p>
+ *
+ * @param <T> the type of {@link MutableNamed} produced
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see NamedFactory
+ *
+ * @see NamedSink
+ */
+public class NameImporter<T extends MutableNamed> {
+
+
+  /*
+   * Instance fields.
+   */
+
+
+  /**
+   * The {@link Format} of the records to import.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  private final Format format;
+
+  /**
+   * The {@link NamedFactory} creating a new {@link MutableNamed} for
+   * each record.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  private final NamedFactory<? extends T> factory;
+
+  /**
+   * Template {@link NameValue}s to add to every imported {@link
+   * MutableNamed}, indexed by {@link NameType}.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  private final Map<NameType, NameValue> templates;
+
+  /**
+   * The {@link NameValuePool} used to share atomic {@link
+   * NameValue}s.
+   *
+   * <p>This field may be {@code null}.</p>
+   */
+  private NameValuePool nameValuePool;
+
+  /**
+   * The number of threads used to parse records.
+   */
+  private int threads;
+
+  /**
+   * The number of records in a batch.
+   */
+  private int batchSize;
+
+  /**
+   * Whether results are delivered in input order.
+   */
+  private boolean ordered;
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new {@link NameImporter} that uses one thread, delivers
+   * results in input order and uses batches of {@code 1000} records.
+   *
+   * @param format the {@link Format} of the records to import; must
+   * not be {@code null}
+   *
+   * @param factory the {@link NamedFactory} creating a new {@link
+   * MutableNamed} for each record; must not be {@code null}
+   *
+   * @exception IllegalArgumentException if either parameter is {@code
+   * null}
+   */
+  public NameImporter(final Format format, final NamedFactory<? extends T> factory) {
+    super();
+    if (format == null) {
+      throw new IllegalArgumentException("format", new NullPointerException("format"));
+    }
+    if (factory == null) {
+      throw new IllegalArgumentException("factory", new NullPointerException("factory"));
+    }
+    this.format = format;
+    this.factory = factory;
+    this.templates = new LinkedHashMap<NameType, NameValue>();
+    this.threads = 1;
+    this.batchSize = 1000;
+    this.ordered = true;
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Returns the {@link NameValuePool} used to share atomic {@link
+   * NameValue}s.
+   *
+   * <p>This method may return {@code null}.</p>
+   *
+   * @return the {@link NameValuePool} in use, or {@code null}
+   *
+   * @see #setNameValuePool(NameValuePool)
+   */
+  public NameValuePool getNameValuePool() {
+    return this.nameValuePool;
+  }
+
+  /**
+   * Sets the {@link NameValuePool} used to share atomic {@link
+   * NameValue}s.
+   *
+   * @param nameValuePool the {@link NameValuePool} to use; may be
+   * {@code null} in which case atomic {@link NameValue}s will not be
+   * shared
+   */
+  public void setNameValuePool(final NameValuePool nameValuePool) {
+    this.nameValuePool = nameValuePool;
+  }
+
+  /**
+   * Returns the number of threads used to parse records.
+   *
+   * @return the number of threads used to parse records; always
+   * positive
+   *
+   * @see #setThreads(int)
+   */
+  public int getThreads() {
+    return this.threads;
+  }
+
+  /**
+   * Sets the number of threads used to parse records.  If {@code 1},
+   * records are parsed on the calling thread.
+   *
+   * @param threads the number of threads; must be positive
+   *
+   * @exception IllegalArgumentException if {@code threads} is less
+   * than {@code 1}
+   */
+  public void setThreads(final int threads) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("threads < 1: " + threads);
+    }
+    this.threads = threads;
+  }
+
+  /**
+   * Returns the number of records in a batch.
+   *
+   * @return the number of records in a batch; always positive
+   *
+   * @see #setBatchSize(int)
+   */
+  public int getBatchSize() {
+    return this.batchSize;
+  }
+
+  /**
+   * Sets the number of records in a batch.
+   *
+   * @param batchSize the number of records in a batch; must be
+   * positive
+   *
+   * @exception IllegalArgumentException if {@code batchSize} is less
+   * than {@code 1}
+   */
+  public void setBatchSize(final int batchSize) {
+    if (batchSize < 1) {
+      throw new IllegalArgumentException("batchSize < 1: " + batchSize);
+    }
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Returns {@code true} if results are delivered in input order.
+   *
+   * @return {@code true} if results are delivered in input order
+   *
+   * @see #setOrdered(boolean)
+   */
+  public boolean isOrdered() {
+    return this.ordered;
+  }
+
+  /**
+   * Sets whether results are delivered in input order.  Delivering
+   * results in whatever order batches finish may improve throughput
+   * when more than one {@linkplain #setThreads(int) thread} is used.
+   *
+   * @param ordered whether results are delivered in input order
+   */
+  public void setOrdered(final boolean ordered) {
+    this.ordered = ordered;
+  }
+
+  /**
+   * Arranges for every imported {@link MutableNamed} that does not
+   * otherwise have a {@link Name} indexed under the supplied {@link
+   * NameType} to receive a new {@link Name} with the supplied {@link
+   * NameValue}.
+   *
+   * @param nameType the {@link NameType}; must not be {@code null}
+   *
+   * @param template the {@link NameValue}, normally not {@linkplain
+   * NameValue#isAtomic() atomic}; may be {@code null} in which case
+   * any template previously supplied for {@code nameType} is removed
+   *
+   * @exception IllegalArgumentException if {@code nameType} is {@code
+   * null}
+   */
+  public void putTemplate(final NameType nameType, final NameValue template) {
+    if (nameType == null) {
+      throw new IllegalArgumentException("nameType", new NullPointerException("nameType"));
+    }
+    if (template == null) {
+      this.templates.remove(nameType);
+    } else {
+      this.templates.put(nameType, template);
+    }
+  }
+
+  /**
+   * Imports all records readable from the supplied {@link
+   * ReadableByteChannel}, decoding them with the supplied {@link
+   * Charset}, and delivers a {@link MutableNamed} for each to the
+   * supplied {@link NamedSink}.
+   *
+   * <p>The supplied {@link ReadableByteChannel} is not closed.</p>
+   *
+   * @param channel the {@link ReadableByteChannel} to read from; must
+   * not be {@code null}
+   *
+   * @param charset the {@link Charset} of the input; must not be
+   * {@code null}
+   *
+   * @param sink the {@link NamedSink} to deliver results to; must not
+   * be {@code null}
+   *
+   * @return the number of {@link MutableNamed} instances delivered
+   *
+   * @exception IllegalArgumentException if any parameter is {@code
+   * null}
+   *
+   * @exception IOException if an input/output error occurs, the input
+   * is malformed, or the {@link NamedSink} throws an {@link
+   * IOException}
+   *
+   * @see #importNames(Reader, NamedSink)
+   */
+  public long importNames(final ReadableByteChannel channel, final Charset charset, final NamedSink<? super T> sink) throws IOException {
+    if (channel == null) {
+      throw new IllegalArgumentException("channel", new NullPointerException("channel"));
+    }
+    if (charset == null) {
+      throw new IllegalArgumentException("charset", new NullPointerException("charset"));
+    }
+    return this.importNames(Channels.newReader(channel, charset.newDecoder(), -1), sink);
+  }
+
+  /**
+   * Imports all records readable from the supplied {@link Reader} and
+   * delivers a {@link MutableNamed} for each to the supplied {@link
+   * NamedSink}.
+   *
+   * <p>The supplied {@link Reader} is not closed.</p>
+   *
+   * @param in the {@link Reader} to read from; must not be {@code
+   * null}
+   *
+   * @param sink the {@link NamedSink} to deliver results to; must not
+   * be {@code null}
+   *
+   * @return the number of {@link MutableNamed} instances delivered
+   *
+   * @exception IllegalArgumentException if either parameter is {@code
+   * null}
+   *
+   * @exception IOException if an input/output error occurs, the input
+   * is malformed, or the {@link NamedSink} throws an {@link
+   * IOException}
+   */
+  public long importNames(final Reader in, final NamedSink<? super T> sink) throws IOException {
+    if (in == null) {
+      throw new IllegalArgumentException("in", new NullPointerException("in"));
+    }
+    if (sink == null) {
+      throw new IllegalArgumentException("sink", new NullPointerException("sink"));
+    }
+    final RecordReader records = new RecordReader(in, this.format == Format.CSV);
+    final NameType[] columns;
+    if (this.format == Format.CSV) {
+      final StringBuilder header = new StringBuilder();
+      if (!records.appendRecord(header)) {
+        return 0L;
+      }
+      final List<String> fields = new ArrayList<String>();
+      parseCsvRecord(header, 0, fields);
+      columns = new NameType[fields.size()];
+      for (int i = 0; i < columns.length; i++) {
+        final String column = fields.get(i).trim();
+        if (!column.isEmpty()) {
+          columns[i] = new NameType(column);
+        }
+      }
+    } else {
+      columns = null;
+    }
+
+    long count = 0L;
+    final int threads = this.threads;
+    if (threads <= 1) {
+      Batch batch;
+      while ((batch = records.nextBatch(this.batchSize)) != null) {
+        count += deliver(this.parse(batch, columns), sink);
+      }
+      return count;
+    }
+
+    final int maxInFlight = threads * 2;
+    final ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      Batch batch;
+      if (this.ordered) {
+        final LinkedList<Future<List<T>>> pending = new LinkedList<Future<List<T>>>();
+        while ((batch = records.nextBatch(this.batchSize)) != null) {
+          if (pending.size() >= maxInFlight) {
+            count += deliver(get(pending.removeFirst()), sink);
+          }
+          pending.add(executor.submit(new Parser(batch, columns)));
+        }
+        while (!pending.isEmpty()) {
+          count += deliver(get(pending.removeFirst()), sink);
+        }
+      } else {
+        final CompletionService<List<T>> completionService = new ExecutorCompletionService<List<T>>(executor);
+        int inFlight = 0;
+        while ((batch = records.nextBatch(this.batchSize)) != null) {
+          if (inFlight >= maxInFlight) {
+            count += deliver(get(take(completionService)), sink);
+            inFlight--;
+          }
+          completionService.submit(new Parser(batch, columns));
+          inFlight++;
+        }
+        while (inFlight > 0) {
+          count += deliver(get(take(completionService)), sink);
+          inFlight--;
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    return count;
+  }
+
+  /**
+   * Parses the records in the supplied {@link Batch} into new {@link
+   * MutableNamed} instances.
+   *
+   * @param batch the {@link Batch} to parse; must not be {@code null}
+   *
+   * @param columns the {@link NameType}s of CSV columns, or {@code
+   * null} if the input is not CSV
+   *
+   * @return a non-{@code null} {@link List} of new {@link
+   * MutableNamed} instances in input order
+   *
+   * @exception IOException if the input is malformed
+   */
+  private final List<T> parse(final Batch batch, final NameType[] columns) throws IOException {
+    assert batch != null;
+    final List<T> returnValue = new ArrayList<T>(batch.size);
+    final NameValuePool pool = this.nameValuePool;
+    if (columns != null) {
+      final CharSequence text = batch.text;
+      final List<String> fields = new ArrayList<String>(columns.length);
+      int position = 0;
+      for (int i = 0; i < batch.size; i++) {
+        position = parseCsvRecord(text, position, fields);
+        final int size = fields.size();
+        if (size > columns.length) {
+          throw new IOException("record " + (batch.firstRecord + i) + " has " + size + " fields but the header has " + columns.length);
+        }
+        final T named = this.newNamed();
+        for (int j = 0; j < size; j++) {
+          final String field = fields.get(j);
+          if (columns[j] != null && !field.isEmpty()) {
+            final NameValue nameValue = pool == null ? new NameValue(field, true) : pool.intern(field);
+            named.putName(columns[j], new Name(nameValue));
+          }
+        }
+        this.applyTemplates(named);
+        returnValue.add(named);
+      }
+    } else {
+      final NameJsonReader reader = new NameJsonReader(new StringReader(batch.text.toString())) {
+          @Override
+          protected final NameValue createNameValue(final String value, final boolean atomic, final String whitespaceReplacement) {
+            if (atomic && pool != null) {
+              return pool.intern(value);
+            }
+            return super.createNameValue(value, atomic, whitespaceReplacement);
+          }
+        };
+      for (int i = 0; i < batch.size; i++) {
+        final T named = this.newNamed();
+        try {
+          if (!reader.readNames(named)) {
+            break;
+          }
+        } catch (final IOException wrapMe) {
+          throw new IOException("record " + (batch.firstRecord + i) + ": " + wrapMe.getMessage(), wrapMe);
+        }
+        this.applyTemplates(named);
+        returnValue.add(named);
+      }
+    }
+    return returnValue;
+  }
+
+  /**
+   * Returns a new {@link MutableNamed} from the {@link NamedFactory}
+   * supplied at construction time.
+   *
+   * @return a new {@link MutableNamed}; never {@code null}
+   *
+   * @exception IllegalStateException if the {@link NamedFactory}
+   * returns {@code null}
+   */
+  private final T newNamed() {
+    final T returnValue = this.factory.newNamed();
+    if (returnValue == null) {
+      throw new IllegalStateException("factory.newNamed() == null");
+    }
+    return returnValue;
+  }
+
+  /**
+   * Adds a {@link Name} for each {@linkplain #putTemplate(NameType,
+   * NameValue) template} to the supplied {@link MutableNamed} if it
+   * does not already have one of the relevant {@link NameType}.
+   *
+   * @param named the {@link MutableNamed} to complete; must not be
+   * {@code null}
+   */
+  private final void applyTemplates(final T named) {
+    assert named != null;
+    if (!this.templates.isEmpty()) {
+      for (final Entry<NameType, NameValue> entry : this.templates.entrySet()) {
+        final NameType nameType = entry.getKey();
+        if (named.getName(nameType) == null) {
+          named.putName(nameType, new Name(entry.getValue()));
+        }
+      }
+    }
+  }
+
+
+  /*
+   * Static methods.
+   */
+
+
+  /**
+   * Parses a single CSV record starting at the supplied position in
+   * the supplied {@link CharSequence} into the supplied {@link List}.
+   *
+   * @param text the text to parse; must not be {@code null}
+   *
+   * @param position the position at which the record starts
+   *
+   * @param fields a {@link List} that will be cleared and then
+   * populated with the record's fields; must not be {@code null}
+   *
+   * @return the position at which the next record starts
+   */
+  private static final int parseCsvRecord(final CharSequence text, int position, final List<String> fields) {
+    assert text != null;
+    assert fields != null;
+    fields.clear();
+    final int length = text.length();
+    final StringBuilder field = new StringBuilder();
+    boolean quoted = false;
+    while (position < length) {
+      final char c = text.charAt(position++);
+      if (quoted) {
+        if (c == '"') {
+          if (position < length && text.charAt(position) == '"') {
+            field.append('"');
+            position++;
+          } else {
+            quoted = false;
+          }
+        } else {
+          field.append(c);
+        }
+      } else if (c == '"') {
+        quoted = true;
+      } else if (c == ',') {
+        fields.add(field.toString());
+        field.setLength(0);
+      } else if (c == '\n') {
+        break;
+      } else if (c != '\r') {
+        field.append(c);
+      }
+    }
+    fields.add(field.toString());
+    return position;
+  }
+
+  /**
+   * Delivers each element of the supplied {@link List} to the
+   * supplied {@link NamedSink}.
+   *
+   * @param <T> the type of {@link MutableNamed}
+   *
+   * @param nameds the {@link MutableNamed}s to deliver; must not be
+   * {@code null}
+   *
+   * @param sink the {@link NamedSink}; must not be {@code null}
+   *
+   * @return the number of {@link MutableNamed}s delivered
+   *
+   * @exception IOException if the {@link NamedSink} throws an {@link
+   * IOException}
+   */
+  private static final <T extends MutableNamed> int deliver(final List<T> nameds, final NamedSink<? super T> sink) throws IOException {
+    assert nameds != null;
+    assert sink != null;
+    for (final T named : nameds) {
+      sink.accept(named);
+    }
+    return nameds.size();
+  }
+
+  /**
+   * Waits for and returns the next completed {@link Future} from the
+   * supplied {@link CompletionService}.
+   *
+   * @param <V> the type of result
+   *
+   * @param completionService the {@link CompletionService}; must not
+   * be {@code null}
+   *
+   * @return a completed {@link Future}; never {@code null}
+   *
+   * @exception InterruptedIOException if the calling thread is
+   * interrupted
+   */
+  private static final <V> Future<V> take(final CompletionService<V> completionService) throws InterruptedIOException {
+    try {
+      return completionService.take();
+    } catch (final InterruptedException interruptedException) {
+      Thread.currentThread().interrupt();
+      final InterruptedIOException throwMe = new InterruptedIOException();
+      throwMe.initCause(interruptedException);
+      throw throwMe;
+    }
+  }
+
+  /**
+   * Waits for and returns the result of the supplied {@link Future},
+   * unwrapping any exception thrown in the course of computing it.
+   *
+   * @param <V> the type of result
+   *
+   * @param future the {@link Future}; must not be {@code null}
+   *
+   * @return the result
+   *
+   * @exception IOException if the computation threw an {@link
+   * IOException}
+   *
+   * @exception InterruptedIOException if the calling thread is
+   * interrupted
+   */
+  private static final <V> V get(final Future<V> future) throws IOException {
+    try {
+      return future.get();
+    } catch (final InterruptedException interruptedException) {
+      Thread.currentThread().interrupt();
+      final InterruptedIOException throwMe = new InterruptedIOException();
+      throwMe.initCause(interruptedException);
+      throw throwMe;
+    } catch (final ExecutionException executionException) {
+      final Throwable cause = executionException.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException)cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException)cause;
+      } else if (cause instanceof Error) {
+        throw (Error)cause;
+      }
+      throw new IOException(cause);
+    }
+  }
+
+
+  /*
+   * Inner and nested classes.
+   */
+
+
+  /**
+   * The record formats understood by a {@link NameImporter}.
+   *
+   * @author <a href="http://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   */
+  public static enum Format {
+
+    /**
+     * Comma-separated values with a header record.
+     */
+    CSV,
+
+    /**
+     * One JSON object per line.
+     *
+     * @see NameJsonReader
+     */
+    JSON_LINES
+
+  }
+
+  /**
+   * A {@link Callable} that {@linkplain NameImporter#parse(Batch,
+   * NameType[]) parses} a {@link Batch}.
+   *
+   * @author <a href="http://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   */
+  private final class Parser implements Callable<List<T>> {
+
+    /**
+     * The {@link Batch} to parse.
+     *
+     * <p>This field is never {@code null}.</p>
+     */
+    private final Batch batch;
+
+    /**
+     * The {@link NameType}s of CSV columns.
+     *
+     * <p>This field may be {@code null}.</p>
+     */
+    private final NameType[] columns;
+
+    /**
+     * Creates a new {@link Parser}.
+     *
+     * @param batch the {@link Batch} to parse; must not be {@code
+     * null}
+     *
+     * @param columns the {@link NameType}s of CSV columns; may be
+     * {@code null}
+     */
+    private Parser(final Batch batch, final NameType[] columns) {
+      super();
+      assert batch != null;
+      this.batch = batch;
+      this.columns = columns;
+    }
+
+    /**
+     * Parses the {@link Batch} supplied at construction time.
+     *
+     * @return a non-{@code null} {@link List} of new {@link
+     * MutableNamed} instances
+     *
+     * @exception IOException if the input is malformed
+     */
+    @Override
+    public final List<T> call() throws IOException {
+      return parse(this.batch, this.columns);
+    }
+
+  }
+
+  /**
+   * A group of complete records, each terminated by a newline.
+   *
+   * @author <a href="http://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   */
+  private static final class Batch {
+
+    /**
+     * The text of the records.
+     *
+     * <p>This field is never {@code null}.</p>
+     */
+    private final CharSequence text;
+
+    /**
+     * The number of records.
+     */
+    private final int size;
+
+    /**
+     * The one-based number of the first record within the input.
+     */
+    private final long firstRecord;
+
+    /**
+     * Creates a new {@link Batch}.
+     *
+     * @param text the text of the records; must not be {@code null}
+     *
+     * @param size the number of records
+     *
+     * @param firstRecord the one-based number of the first record
+     */
+    private Batch(final CharSequence text, final int size, final long firstRecord) {
+      super();
+      assert text != null;
+      this.text = text;
+      this.size = size;
+      this.firstRecord = firstRecord;
+    }
+
+  }
+
+  /**
+   * Splits characters read from a {@link Reader} into records.
+   *
+   * @author <a href="http://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   */
+  private static final class RecordReader {
+
+    /**
+     * The {@link Reader} to read from.
+     *
+     * <p>This field is never {@code null}.</p>
+     */
+    private final Reader in;
+
+    /**
+     * Whether double quotes delimit fields that may span lines.
+     */
+    private final boolean quoting;
+
+    /**
+     * The character buffer.
+     *
+     * <p>This field is never {@code null}.</p>
+     */
+    private final char[] buffer;
+
+    /**
+     * The index of the next character to be read from the {@link
+     * #buffer}.
+     */
+    private int position;
+
+    /**
+     * The number of valid characters in the {@link #buffer}.
+     */
+    private int limit;
+
+    /**
+     * The number of records read so far.
+     */
+    private long records;
+
+    /**
+     * Creates a new {@link RecordReader}.
+     *
+     * @param in the {@link Reader} to read from; must not be {@code
+     * null}
+     *
+     * @param quoting whether double quotes delimit fields that may
+     * span lines
+     */
+    private RecordReader(final Reader in, final boolean quoting) {
+      super();
+      assert in != null;
+      this.in = in;
+      this.quoting = quoting;
+      this.buffer = new char[8192];
+    }
+
+    /**
+     * Returns a {@link Batch} of up to {@code size} records, or
+     * {@code null} if there are no more records.
+     *
+     * @param size the maximum number of records in the {@link Batch}
+     *
+     * @return a {@link Batch}, or {@code null}
+     *
+     * @exception IOException if an input/output error occurs
+     */
+    private final Batch nextBatch(final int size) throws IOException {
+      final long firstRecord = this.records + 1L;
+      final StringBuilder sb = new StringBuilder();
+      int count = 0;
+      while (count < size && this.appendRecord(sb)) {
+        count++;
+      }
+      if (count == 0) {
+        return null;
+      }
+      return new Batch(sb, count, firstRecord);
+    }
+
+    /**
+     * Appends the next non-blank record, followed by a newline, to the
+     * supplied {@link StringBuilder}.
+     *
+     * @param sb the {@link StringBuilder} to append to; must not be
+     * {@code null}
+     *
+     * @return {@code true} if a record was appended; {@code false} if
+     * there are no more records
+     *
+     * @exception IOException if an input/output error occurs
+     */
+    private final boolean appendRecord(final StringBuilder sb) throws IOException {
+      final int start = sb.length();
+      boolean quoted = false;
+      boolean blank = true;
+      while (true) {
+        if (this.position >= this.limit) {
+          final int read = this.in.read(this.buffer, 0, this.buffer.length);
+          if (read <= 0) {
+            if (blank) {
+              sb.setLength(start);
+              return false;
+            }
+            sb.append('\n');
+            this.records++;
+            return true;
+          }
+          this.position = 0;
+          this.limit = read;
+        }
+        final char c = this.buffer[this.position++];
+        if (c == '\n' && !quoted) {
+          if (blank) {
+            sb.setLength(start);
+          } else {
+            sb.append('\n');
+            this.records++;
+            return true;
+          }
+        } else {
+          if (this.quoting && c == '"') {
+            quoted = !quoted;
+          }
+          if (blank && !Character.isWhitespace(c)) {
+            blank = false;
+          }
+          sb.append(c);
+        }
+      }
+    }
+
+  }
+
+}
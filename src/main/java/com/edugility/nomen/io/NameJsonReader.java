@@ -0,0 +1,808 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.edugility.nomen.LocalizedNameValue;
+import com.edugility.nomen.MutableNamed;
+import com.edugility.nomen.Name;
+import com.edugility.nomen.NameType;
+import com.edugility.nomen.NameValue;
+
+/**
+ * Reads sets of {@link Name}s indexed by {@link NameType}s from a
+ * {@link Reader} in the <a href="http://json.org/">JSON</a> format
+ * written by a {@link NameJsonWriter}.
+ *
+ * <p>Input may consist of any number of JSON objects separated by
+ * whitespace (for example, one per line), or of a single JSON array
+ * of such objects.  Objects are parsed one at a time directly from an
+ * internal character buffer, without reflection and without building
+ * any intermediate representation, so memory use does not grow with
+ * the size of the input.</p>
+ *
+ * <p>Within an object describing a {@link NameValue}, the {@code
+ * value} member is required.  If the {@code atomic} member is absent
+ * the {@link NameValue} is not atomic.  If the {@code
+ * whitespaceReplacement} member is absent the {@linkplain
+ * NameValue#NameValue(String, boolean) default whitespace
+ * replacement} is used.  If the {@code templates} member is present,
+ * a {@link LocalizedNameValue} is created whose {@linkplain
+ * LocalizedNameValue#getTemplates() templates} are indexed by the
+ * {@link Locale}s whose {@linkplain Locale#toString() string forms}
+ * its member names are.  Unrecognized members are ignored.</p>
+ *
+ * <p>A {@link NameJsonReader} is not safe for concurrent use by
+ * multiple threads.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see NameJsonWriter
+ */
+public class NameJsonReader implements Closeable {
+
+
+  /*
+   * Static fields.
+   */
+
+
+  /**
+   * The size of the internal character buffer.
+   */
+  private static final int BUFFER_SIZE = 8192;
+
+
+  /*
+   * Instance fields.
+   */
+
+
+  /**
+   * The {@link Reader} from which JSON is read.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  private final Reader in;
+
+  /**
+   * The internal character buffer.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  private final char[] buffer;
+
+  /**
+   * The index of the next character to be read from the {@link
+   * #buffer}.
+   */
+  private int position;
+
+  /**
+   * The number of valid characters in the {@link #buffer}.
+   */
+  private int limit;
+
+  /**
+   * The current line number, for error reporting.
+   */
+  private int line;
+
+  /**
+   * A reusable {@link StringBuilder} for decoding strings.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  private final StringBuilder sb;
+
+  /**
+   * Whether the input has been found to consist of a top-level array
+   * ({@link Boolean#TRUE}), of whitespace-separated objects ({@link
+   * Boolean#FALSE}), or has not yet been examined ({@code null}).
+   */
+  private Boolean array;
+
+  /**
+   * Whether the top-level array, if there is one, has been closed.
+   */
+  private boolean arrayClosed;
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new {@link NameJsonReader}.
+   *
+   * @param in the {@link Reader} to read from; must not be {@code
+   * null}
+   *
+   * @exception IllegalArgumentException if {@code in} is {@code
+   * null}
+   */
+  public NameJsonReader(final Reader in) {
+    super();
+    if (in == null) {
+      throw new IllegalArgumentException("in", new NullPointerException("in"));
+    }
+    this.in = in;
+    this.buffer = new char[BUFFER_SIZE];
+    this.sb = new StringBuilder();
+    this.line = 1;
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Reads the next JSON object from the input and {@linkplain
+   * MutableNamed#putName(NameType, Name) puts} the {@link Name}s it
+   * describes into the supplied {@link MutableNamed}.
+   *
+   * @param target the {@link MutableNamed} to populate; must not be
+   * {@code null}
+   *
+   * @return {@code true} if an object was read; {@code false} if the
+   * end of the input was reached instead
+   *
+   * @exception IllegalArgumentException if {@code target} is {@code
+   * null}
+   *
+   * @exception IOException if an input/output error occurs or the
+   * input is malformed
+   */
+  public boolean readNames(final MutableNamed target) throws IOException {
+    if (target == null) {
+      throw new IllegalArgumentException("target", new NullPointerException("target"));
+    }
+    int c = this.skipWhitespace();
+    if (this.array == null) {
+      if (c == '[') {
+        this.array = Boolean.TRUE;
+        this.position++;
+        c = this.skipWhitespace();
+        if (c == ']') {
+          this.position++;
+          this.arrayClosed = true;
+          c = this.skipWhitespace();
+        }
+      } else {
+        this.array = Boolean.FALSE;
+      }
+    } else if (this.array.booleanValue() && !this.arrayClosed) {
+      // Elements of the array must be separated by commas.
+      if (c == ',') {
+        this.position++;
+        c = this.skipWhitespace();
+      } else if (c == ']') {
+        this.position++;
+        this.arrayClosed = true;
+        c = this.skipWhitespace();
+      } else {
+        throw this.error("expected ',' or ']' but found " + describe(c));
+      }
+    }
+    if (c < 0) {
+      if (this.array.booleanValue() && !this.arrayClosed) {
+        throw this.error("unexpected end of input");
+      }
+      return false;
+    }
+    if (this.arrayClosed) {
+      throw this.error("unexpected " + describe(c) + " after array");
+    }
+    this.readNamesObject(target);
+    return true;
+  }
+
+  /**
+   * Reads a single JSON object describing a set of {@link Name}s and
+   * puts them into the supplied {@link MutableNamed}.
+   *
+   * @param target the {@link MutableNamed} to populate; must not be
+   * {@code null}
+   *
+   * @exception IOException if an input/output error occurs or the
+   * input is malformed
+   */
+  private final void readNamesObject(final MutableNamed target) throws IOException {
+    assert target != null;
+    this.expect('{');
+    Map<String, Name> names = null;
+    List<String> aliases = null;
+    if (this.skipWhitespace() == '}') {
+      this.position++;
+      return;
+    }
+    while (true) {
+      final String nameType = this.readString();
+      if (nameType == null) {
+        throw this.error("null name type");
+      }
+      this.expect(':');
+      String value = null;
+      boolean atomic = false;
+      boolean whitespaceReplacementSet = false;
+      String whitespaceReplacement = null;
+      String sameAs = null;
+      Map<Locale, String> templates = null;
+      this.expect('{');
+      if (this.skipWhitespace() == '}') {
+        this.position++;
+      } else {
+        while (true) {
+          final String key = this.readString();
+          this.expect(':');
+          if ("value".equals(key)) {
+            value = this.readString();
+          } else if ("atomic".equals(key)) {
+            atomic = this.readBoolean();
+          } else if ("whitespaceReplacement".equals(key)) {
+            whitespaceReplacement = this.readString();
+            whitespaceReplacementSet = true;
+          } else if ("sameAs".equals(key)) {
+            sameAs = this.readString();
+          } else if ("templates".equals(key)) {
+            templates = this.readTemplates();
+          } else {
+            this.skipValue();
+          }
+          if (this.nextSeparator('}')) {
+            break;
+          }
+        }
+      }
+      if (sameAs != null) {
+        if (aliases == null) {
+          aliases = new ArrayList<String>();
+        }
+        aliases.add(nameType);
+        aliases.add(sameAs);
+      } else if (value == null) {
+        throw this.error("missing value for " + nameType);
+      } else {
+        if (!whitespaceReplacementSet || atomic) {
+          whitespaceReplacement = atomic ? null : " ";
+        }
+        final NameValue nameValue;
+        if (templates == null) {
+          nameValue = this.createNameValue(value, atomic, whitespaceReplacement);
+        } else {
+          nameValue = this.createLocalizedNameValue(value, atomic, whitespaceReplacement, templates);
+        }
+        final Name name = this.createName(nameValue);
+        target.putName(this.createNameType(nameType), name);
+        if (names == null) {
+          names = new HashMap<String, Name>();
+        }
+        names.put(nameType, name);
+      }
+      if (this.nextSeparator('}')) {
+        break;
+      }
+    }
+    if (aliases != null) {
+      final int size = aliases.size();
+      for (int i = 0; i < size; i += 2) {
+        final String sameAs = aliases.get(i + 1);
+        final Name name = names == null ? null : names.get(sameAs);
+        if (name == null) {
+          throw this.error("unresolved sameAs reference: " + sameAs);
+        }
+        target.putName(this.createNameType(aliases.get(i)), name);
+      }
+    }
+  }
+
+  /**
+   * Reads a JSON object whose members map the {@linkplain
+   * Locale#toString() string forms} of {@link Locale}s to templates.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return a non-{@code null} {@link Map} of templates indexed by
+   * {@link Locale}
+   *
+   * @exception IOException if an input/output error occurs or the
+   * input is malformed
+   */
+  private final Map<Locale, String> readTemplates() throws IOException {
+    this.expect('{');
+    final Map<Locale, String> templates = new LinkedHashMap<Locale, String>();
+    if (this.skipWhitespace() == '}') {
+      this.position++;
+    } else {
+      do {
+        final String locale = this.readString();
+        this.expect(':');
+        final String template = this.readString();
+        if (locale == null || template == null) {
+          throw this.error("null localized template");
+        }
+        templates.put(toLocale(locale), template);
+      } while (!this.nextSeparator('}'));
+    }
+    return templates;
+  }
+
+  /**
+   * Creates a new {@link NameType} for the supplied {@code value}.
+   *
+   * <p>This method never returns {@code null} and overrides of it
+   * must not return {@code null} either.</p>
+   *
+   * @param value the value of the new {@link NameType}; must not be
+   * {@code null}
+   *
+   * @return a new {@link NameType}; never {@code null}
+   */
+  protected NameType createNameType(final String value) {
+    return new NameType(value);
+  }
+
+  /**
+   * Creates a new {@link NameValue} from the supplied parameters.
+   *
+   * <p>This method never returns {@code null} and overrides of it
+   * must not return {@code null} either.  Overrides may, for example,
+   * return a canonical instance from a {@link
+   * com.edugility.nomen.NameValuePool}.</p>
+   *
+   * @param value the value; must not be {@code null}
+   *
+   * @param atomic whether the new {@link NameValue} is {@linkplain
+   * NameValue#isAtomic() atomic}
+   *
+   * @param whitespaceReplacement the whitespace replacement; may be
+   * {@code null}
+   *
+   * @return a new {@link NameValue}; never {@code null}
+   *
+   * @see NameValue#NameValue(String, boolean, String)
+   */
+  protected NameValue createNameValue(final String value, final boolean atomic, final String whitespaceReplacement) {
+    return new NameValue(value, atomic, whitespaceReplacement);
+  }
+
+  /**
+   * Creates a new {@link LocalizedNameValue} from the supplied
+   * parameters.
+   *
+   * <p>This method never returns {@code null} and overrides of it
+   * must not return {@code null} either.</p>
+   *
+   * @param value the value; must not be {@code null}
+   *
+   * @param atomic whether the new {@link LocalizedNameValue} is
+   * {@linkplain NameValue#isAtomic() atomic}
+   *
+   * @param whitespaceReplacement the whitespace replacement; may be
+   * {@code null}
+   *
+   * @param templates the {@linkplain
+   * LocalizedNameValue#getTemplates() templates}, indexed by {@link
+   * Locale}; must not be {@code null}
+   *
+   * @return a new {@link LocalizedNameValue}; never {@code null}
+   *
+   * @see LocalizedNameValue#LocalizedNameValue(String, boolean,
+   * String, Map)
+   */
+  protected LocalizedNameValue createLocalizedNameValue(final String value, final boolean atomic, final String whitespaceReplacement, final Map<Locale, String> templates) {
+    return new LocalizedNameValue(value, atomic, whitespaceReplacement, templates);
+  }
+
+  /**
+   * Creates a new, {@linkplain Name#getNamed() unowned} {@link Name}
+   * with the supplied {@link NameValue}.
+   *
+   * <p>This method never returns {@code null} and overrides of it
+   * must not return {@code null} either.</p>
+   *
+   * @param nameValue the {@link NameValue}; must not be {@code null}
+   *
+   * @return a new {@link Name}; never {@code null}
+   *
+   * @see Name#Name(NameValue)
+   */
+  protected Name createName(final NameValue nameValue) {
+    return new Name(nameValue);
+  }
+
+  /**
+   * Closes the underlying {@link Reader}.
+   *
+   * @exception IOException if an input/output error occurs
+   */
+  @Override
+  public void close() throws IOException {
+    this.in.close();
+  }
+
+
+  /*
+   * Lexical routines.
+   */
+
+
+  /**
+   * Returns the next character without consuming it, or {@code -1}
+   * at the end of the input.
+   *
+   * @return the next character, or {@code -1}
+   *
+   * @exception IOException if an input/output error occurs
+   */
+  private final int peek() throws IOException {
+    if (this.position >= this.limit) {
+      final int read = this.in.read(this.buffer, 0, this.buffer.length);
+      if (read <= 0) {
+        this.position = 0;
+        this.limit = 0;
+        return -1;
+      }
+      this.position = 0;
+      this.limit = read;
+    }
+    return this.buffer[this.position];
+  }
+
+  /**
+   * Consumes and returns the next character.
+   *
+   * @return the next character
+   *
+   * @exception IOException if an input/output error occurs or the end
+   * of the input has been reached
+   */
+  private final char next() throws IOException {
+    final int c = this.peek();
+    if (c < 0) {
+      throw this.error("unexpected end of input");
+    }
+    this.position++;
+    return (char)c;
+  }
+
+  /**
+   * Skips whitespace and returns the next character without consuming
+   * it, or {@code -1} at the end of the input.
+   *
+   * @return the next non-whitespace character, or {@code -1}
+   *
+   * @exception IOException if an input/output error occurs
+   */
+  private final int skipWhitespace() throws IOException {
+    while (true) {
+      final int c = this.peek();
+      if (c == '\n') {
+        this.line++;
+      }
+      switch (c) {
+      case '\n':
+      case ' ':
+      case '\t':
+      case '\r':
+        this.position++;
+        break;
+      default:
+        return c;
+      }
+    }
+  }
+
+  /**
+   * Skips whitespace and consumes the supplied character, failing if
+   * some other character is found.
+   *
+   * @param expected the character expected
+   *
+   * @exception IOException if an input/output error occurs or the
+   * expected character is not found
+   */
+  private final void expect(final char expected) throws IOException {
+    final int c = this.skipWhitespace();
+    if (c != expected) {
+      throw this.error("expected '" + expected + "' but found " + describe(c));
+    }
+    this.position++;
+  }
+
+  /**
+   * Consumes either a comma, returning {@code false}, or the supplied
+   * closing character, returning {@code true}.
+   *
+   * @param close the closing character
+   *
+   * @return {@code true} if {@code close} was consumed; {@code false}
+   * if a comma was consumed
+   *
+   * @exception IOException if an input/output error occurs or neither
+   * character is found
+   */
+  private final boolean nextSeparator(final char close) throws IOException {
+    final int c = this.skipWhitespace();
+    if (c == ',') {
+      this.position++;
+      return false;
+    } else if (c == close) {
+      this.position++;
+      return true;
+    }
+    throw this.error("expected ',' or '" + close + "' but found " + describe(c));
+  }
+
+  /**
+   * Reads a JSON string or {@code null}.
+   *
+   * @return the decoded {@link String}, or {@code null}
+   *
+   * @exception IOException if an input/output error occurs or the
+   * input is malformed
+   */
+  private final String readString() throws IOException {
+    final int first = this.skipWhitespace();
+    if (first == 'n') {
+      this.readLiteral("null");
+      return null;
+    } else if (first != '"') {
+      throw this.error("expected string but found " + describe(first));
+    }
+    this.position++;
+    final StringBuilder sb = this.sb;
+    sb.setLength(0);
+    while (true) {
+      // Copy runs of unescaped characters straight out of the buffer.
+      if (this.peek() < 0) {
+        throw this.error("unterminated string");
+      }
+      final char[] buffer = this.buffer;
+      final int limit = this.limit;
+      int i = this.position;
+      while (i < limit) {
+        final char c = buffer[i];
+        if (c == '"' || c == '\\') {
+          break;
+        }
+        i++;
+      }
+      sb.append(buffer, this.position, i - this.position);
+      this.position = i;
+      if (i < limit) {
+        final char c = this.next();
+        if (c == '"') {
+          return sb.toString();
+        }
+        final char escape = this.next();
+        switch (escape) {
+        case '"':
+        case '\\':
+        case '/':
+          sb.append(escape);
+          break;
+        case 'n':
+          sb.append('\n');
+          break;
+        case 'r':
+          sb.append('\r');
+          break;
+        case 't':
+          sb.append('\t');
+          break;
+        case 'b':
+          sb.append('\b');
+          break;
+        case 'f':
+          sb.append('\f');
+          break;
+        case 'u':
+          int code = 0;
+          for (int j = 0; j < 4; j++) {
+            final int digit = Character.digit(this.next(), 16);
+            if (digit < 0) {
+              throw this.error("bad unicode escape");
+            }
+            code = (code << 4) | digit;
+          }
+          sb.append((char)code);
+          break;
+        default:
+          throw this.error("bad escape: \\" + escape);
+        }
+      }
+    }
+  }
+
+  /**
+   * Reads a JSON boolean.
+   *
+   * @return the boolean read
+   *
+   * @exception IOException if an input/output error occurs or the
+   * input is malformed
+   */
+  private final boolean readBoolean() throws IOException {
+    final int c = this.skipWhitespace();
+    if (c == 't') {
+      this.readLiteral("true");
+      return true;
+    } else if (c == 'f') {
+      this.readLiteral("false");
+      return false;
+    }
+    throw this.error("expected boolean but found " + describe(c));
+  }
+
+  /**
+   * Consumes the supplied literal.
+   *
+   * @param literal the literal; must not be {@code null}
+   *
+   * @exception IOException if an input/output error occurs or the
+   * literal is not found
+   */
+  private final void readLiteral(final String literal) throws IOException {
+    final int length = literal.length();
+    for (int i = 0; i < length; i++) {
+      if (this.next() != literal.charAt(i)) {
+        throw this.error("expected " + literal);
+      }
+    }
+  }
+
+  /**
+   * Skips over an arbitrary JSON value.
+   *
+   * @exception IOException if an input/output error occurs or the
+   * input is malformed
+   */
+  private final void skipValue() throws IOException {
+    final int c = this.skipWhitespace();
+    switch (c) {
+    case '"':
+      this.readString();
+      break;
+    case '{':
+      this.position++;
+      if (this.skipWhitespace() == '}') {
+        this.position++;
+      } else {
+        do {
+          this.readString();
+          this.expect(':');
+          this.skipValue();
+        } while (!this.nextSeparator('}'));
+      }
+      break;
+    case '[':
+      this.position++;
+      if (this.skipWhitespace() == ']') {
+        this.position++;
+      } else {
+        do {
+          this.skipValue();
+        } while (!this.nextSeparator(']'));
+      }
+      break;
+    case 't':
+      this.readLiteral("true");
+      break;
+    case 'f':
+      this.readLiteral("false");
+      break;
+    case 'n':
+      this.readLiteral("null");
+      break;
+    default:
+      if (c == '-' || (c >= '0' && c <= '9')) {
+        int n = c;
+        while (n == '-' || n == '+' || n == '.' || n == 'e' || n == 'E' || (n >= '0' && n <= '9')) {
+          this.position++;
+          n = this.peek();
+        }
+      } else {
+        throw this.error("unexpected " + describe(c));
+      }
+      break;
+    }
+  }
+
+  /**
+   * Returns a new {@link IOException} describing a syntax error at
+   * the current line.
+   *
+   * @param message a description of the error; may be {@code null}
+   *
+   * @return a new {@link IOException}; never {@code null}
+   */
+  private final IOException error(final String message) {
+    return new IOException(message + " (line " + this.line + ")");
+  }
+
+
+  /*
+   * Static methods.
+   */
+
+
+  /**
+   * Returns a human-readable description of the supplied character
+   * for use in error messages.
+   *
+   * @param c the character, or {@code -1}
+   *
+   * @return a non-{@code null} description
+   */
+  private static final String describe(final int c) {
+    if (c < 0) {
+      return "end of input";
+    }
+    return "'" + (char)c + "'";
+  }
+
+  /**
+   * Returns the {@link Locale} whose {@linkplain Locale#toString()
+   * string form} is the supplied {@link String}.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @param s the string form of a {@link Locale}; must not be {@code
+   * null}
+   *
+   * @return a non-{@code null} {@link Locale}
+   */
+  private static final Locale toLocale(final String s) {
+    assert s != null;
+    final String[] parts = s.split("_", 3);
+    switch (parts.length) {
+    case 1:
+      return new Locale(parts[0]);
+    case 2:
+      return new Locale(parts[0], parts[1]);
+    default:
+      return new Locale(parts[0], parts[1], parts[2]);
+    }
+  }
+
+}
@@ -0,0 +1,343 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen.io;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+import java.util.IdentityHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.edugility.nomen.AbstractNamed;
+import com.edugility.nomen.LocalizedNameValue;
+import com.edugility.nomen.Name;
+import com.edugility.nomen.NameType;
+import com.edugility.nomen.NameValue;
+
+/**
+ * Writes sets of {@link Name}s indexed by {@link NameType}s to a
+ * {@link Writer} as <a href="http://json.org/">JSON</a>, one object
+ * per line.
+ *
+ * <p>Each set of {@link Name}s is written as a single JSON object
+ * whose member names are {@linkplain NameType#getValue() name type
+ * values}.  Each member's value is itself an object describing the
+ * corresponding {@link Name}'s {@link NameValue}:</p>
+ *
+ * <blockquote><pre>{"firstName":{"value":"Laird","atomic":true},
+ *  "preferredName":{"sameAs":"firstName"},
+ *  "fullName":{"value":"${firstName} ${lastName}","atomic":false,"whitespaceReplacement":" ",
+ *              "templates":{"ja":"${lastName} ${firstName}"}}}</pre></blockquote>
+ *
+ * <p>The {@code templates} member is written only for a {@link
+ * LocalizedNameValue} that has {@linkplain
+ * LocalizedNameValue#getTemplates() templates}; its member names are
+ * the {@linkplain Locale#toString() string forms} of their {@link
+ * Locale}s.</p>
+ *
+ * <p>A {@link Name} indexed under more than one {@link NameType} is
+ * written in full once; subsequent occurrences are written as a
+ * {@code sameAs} reference to the first {@link NameType} under which
+ * it was written.  Output is produced incrementally, without
+ * reflection and without building any intermediate representation,
+ * so memory use does not grow with the amount of data written.</p>
+ *
+ * <p>A {@link NameJsonWriter} is not safe for concurrent use by
+ * multiple threads.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see NameJsonReader
+ */
+public class NameJsonWriter implements Closeable, Flushable {
+
+
+  /*
+   * Static fields.
+   */
+
+
+  /**
+   * Hexadecimal digits used when escaping control characters.
+   */
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+
+  /*
+   * Instance fields.
+   */
+
+
+  /**
+   * The {@link Writer} to which JSON is written.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  private final Writer out;
+
+  /**
+   * The {@link NameType} values under which each {@link Name} in the
+   * set of {@link Name}s currently being written was first written,
+   * keyed by {@link Name} identity.
+   *
+   * <p>This field is never {@code null}.</p>
+   */
+  private final Map<Name, String> written;
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new {@link NameJsonWriter}.
+   *
+   * @param out the {@link Writer} to write to; must not be {@code
+   * null}; should normally be buffered
+   *
+   * @exception IllegalArgumentException if {@code out} is {@code
+   * null}
+   */
+  public NameJsonWriter(final Writer out) {
+    super();
+    if (out == null) {
+      throw new IllegalArgumentException("out", new NullPointerException("out"));
+    }
+    this.out = out;
+    this.written = new IdentityHashMap<Name, String>();
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Writes the {@linkplain AbstractNamed#getNames() names} of the
+   * supplied {@link AbstractNamed} as a single line of JSON.
+   *
+   * @param named the {@link AbstractNamed} whose names should be
+   * written; must not be {@code null}
+   *
+   * @exception IllegalArgumentException if {@code named} is {@code
+   * null}
+   *
+   * @exception IOException if an input/output error occurs
+   *
+   * @see #writeNames(Iterable)
+   */
+  public void writeNamed(final AbstractNamed named) throws IOException {
+    if (named == null) {
+      throw new IllegalArgumentException("named", new NullPointerException("named"));
+    }
+    this.writeNames(named.getNames());
+  }
+
+  /**
+   * Writes the supplied {@link Entry} instances, whose keys are
+   * {@link NameType}s and whose values are {@link Name}s, as a single
+   * JSON object followed by a newline.
+   *
+   * <p>Entries whose {@link Name} has no {@linkplain
+   * Name#getNameValue() <code>NameValue</code>} are skipped, since
+   * they could not be read back.</p>
+   *
+   * @param names the entries to write; may be {@code null} in which
+   * case an empty object will be written
+   *
+   * @exception IOException if an input/output error occurs
+   *
+   * @see NameJsonReader#readNames(com.edugility.nomen.MutableNamed)
+   */
+  public void writeNames(final Iterable<? extends Entry<? extends NameType, ? extends Name>> names) throws IOException {
+    final Writer out = this.out;
+    out.write('{');
+    if (names != null) {
+      boolean first = true;
+      try {
+        for (final Entry<? extends NameType, ? extends Name> entry : names) {
+          if (entry != null) {
+            final NameType nameType = entry.getKey();
+            final Name name = entry.getValue();
+            // A Name without a NameValue cannot be read back, so it is
+            // skipped like a null Name.
+            if (nameType != null && name != null && nameType.getValue() != null && name.getNameValue() != null) {
+              if (first) {
+                first = false;
+              } else {
+                out.write(',');
+              }
+              this.writeString(nameType.getValue());
+              out.write(':');
+              final String sameAs = this.written.get(name);
+              if (sameAs == null) {
+                this.written.put(name, nameType.getValue());
+                this.writeNameValue(name.getNameValue());
+              } else {
+                out.write("{\"sameAs\":");
+                this.writeString(sameAs);
+                out.write('}');
+              }
+            }
+          }
+        }
+      } finally {
+        this.written.clear();
+      }
+    }
+    out.write("}\n");
+  }
+
+  /**
+   * Writes the supplied {@link NameValue} as a JSON object.
+   *
+   * @param nameValue the {@link NameValue} to write; must not be
+   * {@code null}
+   *
+   * @exception IOException if an input/output error occurs
+   */
+  private final void writeNameValue(final NameValue nameValue) throws IOException {
+    assert nameValue != null;
+    final Writer out = this.out;
+    out.write("{\"value\":");
+    this.writeString(nameValue.getValue());
+    if (nameValue.isAtomic()) {
+      out.write(",\"atomic\":true");
+    } else {
+      out.write(",\"atomic\":false,\"whitespaceReplacement\":");
+      this.writeString(nameValue.getWhitespaceReplacement());
+    }
+    if (nameValue instanceof LocalizedNameValue) {
+      final Map<Locale, String> templates = ((LocalizedNameValue)nameValue).getTemplates();
+      if (!templates.isEmpty()) {
+        out.write(",\"templates\":{");
+        boolean first = true;
+        for (final Entry<Locale, String> entry : templates.entrySet()) {
+          if (first) {
+            first = false;
+          } else {
+            out.write(',');
+          }
+          this.writeString(entry.getKey().toString());
+          out.write(':');
+          this.writeString(entry.getValue());
+        }
+        out.write('}');
+      }
+    }
+    out.write('}');
+  }
+
+  /**
+   * Writes the supplied {@link String} as a JSON string, escaping it
+   * as necessary.
+   *
+   * @param s the {@link String} to write; may be {@code null} in
+   * which case JSON {@code null} is written
+   *
+   * @exception IOException if an input/output error occurs
+   */
+  private final void writeString(final String s) throws IOException {
+    final Writer out = this.out;
+    if (s == null) {
+      out.write("null");
+      return;
+    }
+    out.write('"');
+    final int length = s.length();
+    int start = 0;
+    for (int i = 0; i < length; i++) {
+      final char c = s.charAt(i);
+      if (c == '"' || c == '\\' || c < 0x20) {
+        if (i > start) {
+          out.write(s, start, i - start);
+        }
+        start = i + 1;
+        out.write('\\');
+        switch (c) {
+        case '"':
+        case '\\':
+          out.write(c);
+          break;
+        case '\n':
+          out.write('n');
+          break;
+        case '\r':
+          out.write('r');
+          break;
+        case '\t':
+          out.write('t');
+          break;
+        case '\b':
+          out.write('b');
+          break;
+        case '\f':
+          out.write('f');
+          break;
+        default:
+          out.write("u00");
+          out.write(HEX[(c >> 4) & 0xF]);
+          out.write(HEX[c & 0xF]);
+          break;
+        }
+      }
+    }
+    if (length > start) {
+      out.write(s, start, length - start);
+    }
+    out.write('"');
+  }
+
+  /**
+   * Flushes the underlying {@link Writer}.
+   *
+   * @exception IOException if an input/output error occurs
+   */
+  @Override
+  public void flush() throws IOException {
+    this.out.flush();
+  }
+
+  /**
+   * Closes the underlying {@link Writer}.
+   *
+   * @exception IOException if an input/output error occurs
+   */
+  @Override
+  public void close() throws IOException {
+    this.out.close();
+  }
+
+}
@@ -0,0 +1,481 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen.mvel;
+
+import java.util.Map;
+import java.util.Set;
+
+import com.edugility.nomen.MissingNamePolicy;
+import com.edugility.nomen.RenderLimitExceededException;
+import com.edugility.nomen.RenderLimits;
+import com.edugility.nomen.TemplateContext;
+import com.edugility.nomen.TemplateEngine;
+
+import org.mvel2.CompileException;
+
+import org.mvel2.integration.VariableResolver;
+
+import org.mvel2.optimizers.OptimizerFactory;
+
+import org.mvel2.templates.CompiledTemplate;
+import org.mvel2.templates.TemplateCompiler;
+import org.mvel2.templates.TemplateRuntime;
+
+import org.mvel2.templates.util.TemplateOutputStream;
+
+/**
+ * A {@link TemplateEngine} backed by <a
+ * href="http://mvel.codehaus.org/">MVEL</a> templates, which is the
+ * default {@link TemplateEngine} when MVEL is available.
+ *
+ * <p>Variables resolve through a {@link NameResolverFactory} that is
+ * {@linkplain TemplateContext#setAttachment(Object) attached} to the
+ * {@link TemplateContext} on first use, so it is created once per
+ * {@link com.edugility.nomen.Name} rather than once per
+ * rendering.</p>
+ *
+ * <p>In a GraalVM native image, where classes cannot be defined at
+ * runtime, this class makes MVEL's {@linkplain
+ * OptimizerFactory#SAFE_REFLECTIVE reflective optimizer} the default
+ * in place of its bytecode-generating one.  Expressions that access
+ * properties or call methods then require the corresponding
+ * reflection configuration.</p>
+ *
+ * <p>When {@linkplain RenderLimits#getInstance() render limits} are
+ * installed, templates render into a {@link TemplateOutputStream}
+ * that {@linkplain RenderLimits#checkProgress(int) checks} them on
+ * every append, so a template that loops is stopped while it
+ * runs.</p>
+ *
+ * @author <a href="http://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see TemplateEngine#getInstance()
+ *
+ * @see NameResolverFactory
+ */
+public class MvelTemplateEngine extends TemplateEngine {
+
+
+  /*
+   * Static fields.
+   */
+
+
+  /**
+   * The name of the system property that GraalVM sets when code is
+   * running in, or being compiled into, a native image.
+   */
+  private static final String NATIVE_IMAGE_PROPERTY_NAME = "org.graalvm.nativeimage.imagecode";
+
+  /**
+   * The {@link RenderOutputStream} of the template that is executing
+   * on the current {@link Thread}, if any.
+   *
+   * <p>This field is never {@code null}.</p>
+   *
+   * @see #getMissingValue(String)
+   */
+  private static final ThreadLocal<RenderOutputStream> currentOutput = new ThreadLocal<RenderOutputStream>();
+
+  static {
+    if ("runtime".equals(System.getProperty(NATIVE_IMAGE_PROPERTY_NAME))) {
+      OptimizerFactory.setDefaultOptimizer(OptimizerFactory.SAFE_REFLECTIVE);
+    }
+  }
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new {@link MvelTemplateEngine}.
+   */
+  public MvelTemplateEngine() {
+    super();
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * {@linkplain TemplateCompiler#compileTemplate(String) Compiles}
+   * the supplied template source into a {@link CompiledTemplate}.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @param template the template source; must not be {@code null}
+   *
+   * @return a non-{@code null} {@link CompiledTemplate}
+   *
+   * @exception IllegalArgumentException if {@code template} is {@code
+   * null}
+   *
+   * @exception IllegalStateException if the template could not be
+   * compiled
+   */
+  @Override
+  public Object compile(final String template) {
+    if (template == null) {
+      throw new IllegalArgumentException("template", new NullPointerException("template"));
+    }
+    try {
+      return TemplateCompiler.compileTemplate(template);
+    } catch (final CompileException wrapMe) {
+      throw new IllegalStateException(wrapMe);
+    }
+  }
+
+  /**
+   * Returns {@code true} if the supplied {@link Object} is a {@link
+   * CompiledTemplate}.
+   *
+   * @param compiledTemplate the {@link Object} in question; may be
+   * {@code null}
+   *
+   * @return {@code true} if {@code compiledTemplate} is a {@link
+   * CompiledTemplate}; {@code false} otherwise
+   */
+  @Override
+  public boolean canExecute(final Object compiledTemplate) {
+    return compiledTemplate instanceof CompiledTemplate;
+  }
+
+  /**
+   * {@linkplain TemplateRuntime#execute(CompiledTemplate, Object,
+   * org.mvel2.integration.VariableResolverFactory) Executes} the
+   * supplied {@link CompiledTemplate} against the {@linkplain
+   * TemplateContext#getNamed() <code>Named</code>} of the supplied
+   * {@link TemplateContext}.
+   *
+   * <p>This method may return {@code null}.</p>
+   *
+   * @param compiledTemplate the {@link CompiledTemplate} to execute;
+   * must not be {@code null}
+   *
+   * @param context the {@link TemplateContext} to resolve variables
+   * with; may be {@code null}
+   *
+   * @return the result of execution, or {@code null}
+   *
+   * @exception IllegalArgumentException if {@code compiledTemplate}
+   * is not a {@link CompiledTemplate}
+   *
+   * @exception IllegalStateException if there was a problem with
+   * execution
+   */
+  @Override
+  public Object execute(final Object compiledTemplate, final TemplateContext context) {
+    if (!(compiledTemplate instanceof CompiledTemplate)) {
+      throw new IllegalArgumentException("compiledTemplate: " + compiledTemplate);
+    }
+    if (context == null) {
+      return this.execute((CompiledTemplate)compiledTemplate, null, null);
+    }
+    final Object attachment = context.getAttachment();
+    final NameResolverFactory nameResolverFactory;
+    if (attachment instanceof NameResolverFactory) {
+      nameResolverFactory = (NameResolverFactory)attachment;
+    } else {
+      nameResolverFactory = new NameResolverFactory(context.getNamed(), context.getLocale());
+      context.setAttachment(nameResolverFactory);
+    }
+    final Object returnValue = this.execute((CompiledTemplate)compiledTemplate, context.getNamed(), nameResolverFactory);
+    // Record missing variables too, so the Name being rendered hears
+    // about Names put under them later.
+    final Map<String, VariableResolver> resolvers = nameResolverFactory.getVariableResolvers();
+    final Set<String> missingNames = nameResolverFactory.getMissingNames();
+    final int resolved = (resolvers == null ? 0 : resolvers.size()) + missingNames.size();
+    if (resolved != context.getVariables().size()) {
+      if (resolvers != null) {
+        for (final String name : resolvers.keySet()) {
+          context.addVariable(name);
+        }
+      }
+      for (final String name : missingNames) {
+        context.addVariable(name);
+      }
+    }
+    return returnValue;
+  }
+
+  /**
+   * Executes the supplied {@link CompiledTemplate}, wrapping any
+   * {@link RuntimeException} other than an {@link
+   * IllegalStateException} in an {@link IllegalStateException}.
+   *
+   * <p>If {@linkplain RenderLimits#getInstance() render limits} are
+   * installed, they are checked each time the template appends to its
+   * output.  A {@link RenderLimitExceededException} that MVEL wrapped
+   * is unwrapped and rethrown so that callers can recognize it.</p>
+   *
+   * <p>If the {@linkplain MissingNamePolicy#getInstance() installed
+   * <code>MissingNamePolicy</code>} supplies a value for missing
+   * {@link com.edugility.nomen.Name}s, that value is rendered
+   * wherever the template prints a missing {@link
+   * com.edugility.nomen.Name} directly.  Expressions see the missing
+   * {@link com.edugility.nomen.Name} as {@code null}.</p>
+   *
+   * @param compiledTemplate the {@link CompiledTemplate}; must not be
+   * {@code null}
+   *
+   * @param context the context object; may be {@code null}
+   *
+   * @param nameResolverFactory the {@link NameResolverFactory}; may be
+   * {@code null}
+   *
+   * @return the result of execution, or {@code null}
+   *
+   * @exception IllegalStateException if there was a problem with
+   * execution
+   */
+  private final Object execute(final CompiledTemplate compiledTemplate, final Object context, final NameResolverFactory nameResolverFactory) {
+    assert compiledTemplate != null;
+    final RenderLimits limits = RenderLimits.getInstance();
+    final boolean unlimited = limits.isUnlimited();
+    if (unlimited && MissingNamePolicy.getInstance() == MissingNamePolicy.FAIL) {
+      try {
+        return TemplateRuntime.execute(compiledTemplate, context, nameResolverFactory);
+      } catch (final RuntimeException wrapMe) {
+        throw wrap(wrapMe);
+      }
+    }
+    final RenderOutputStream output = new RenderOutputStream(unlimited ? null : limits);
+    final RenderOutputStream old = currentOutput.get();
+    currentOutput.set(output);
+    try {
+      final Object returnValue = TemplateRuntime.execute(compiledTemplate, context, nameResolverFactory, null, output);
+      if (returnValue == null) {
+        // A template consisting of a lone expression yields its value
+        // without printing it.
+        return output.missingValue;
+      }
+      return returnValue;
+    } catch (final RuntimeException wrapMe) {
+      throw wrap(wrapMe);
+    } finally {
+      if (old == null) {
+        currentOutput.remove();
+      } else {
+        currentOutput.set(old);
+      }
+    }
+  }
+
+
+  /*
+   * Static methods.
+   */
+
+
+  /**
+   * Returns a {@link RuntimeException} suitable for rethrowing in
+   * place of the supplied one, which was thrown during template
+   * execution.
+   *
+   * <p>A {@link RenderLimitExceededException} that MVEL wrapped is
+   * unwrapped; an {@link IllegalStateException} is returned as is;
+   * anything else is wrapped in an {@link
+   * IllegalStateException}.</p>
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @param wrapMe the {@link RuntimeException} to wrap; must not be
+   * {@code null}
+   *
+   * @return a non-{@code null} {@link RuntimeException}
+   */
+  private static final RuntimeException wrap(final RuntimeException wrapMe) {
+    assert wrapMe != null;
+    final RenderLimitExceededException limitExceeded = RenderLimitExceededException.find(wrapMe);
+    if (limitExceeded != null) {
+      return limitExceeded;
+    } else if (wrapMe instanceof IllegalStateException) {
+      return wrapMe;
+    }
+    return new IllegalStateException(wrapMe);
+  }
+
+  /**
+   * Returns the value a {@link NameResolver} should yield for a
+   * variable whose {@link com.edugility.nomen.Name} could not be
+   * found, according to the {@linkplain
+   * MissingNamePolicy#getInstance() installed
+   * <code>MissingNamePolicy</code>}.
+   *
+   * <p>If a template is executing on the current {@link Thread}, then
+   * {@code null} is returned so that the template can test for the
+   * missing {@link com.edugility.nomen.Name}, and the policy's value
+   * is substituted if the template goes on to print it.  Otherwise
+   * the policy's value is returned directly.  If the policy is {@link
+   * MissingNamePolicy#FAIL}, then the {@linkplain String#isEmpty()
+   * empty string} is returned, as a {@link
+   * com.edugility.nomen.Name} that has gone missing since its
+   * variable was resolved has always rendered that way.</p>
+   *
+   * <p>This method may return {@code null}.</p>
+   *
+   * @param name the name of the variable; may be {@code null}
+   *
+   * @return the value of the variable, or {@code null}
+   */
+  static final Object getMissingValue(final String name) {
+    final String missingValue = MissingNamePolicy.getInstance().getValue(name);
+    if (missingValue == null) {
+      return "";
+    }
+    final RenderOutputStream output = currentOutput.get();
+    if (output == null) {
+      return missingValue;
+    }
+    output.missingValue = missingValue;
+    return null;
+  }
+
+
+  /*
+   * Inner and nested classes.
+   */
+
+
+  /**
+   * A {@link TemplateOutputStream} that accumulates a template's
+   * output, {@linkplain RenderLimits#checkProgress(int) checks} a
+   * {@link RenderLimits} each time it is appended to, if there is
+   * one, and prints the {@linkplain MissingNamePolicy#getInstance()
+   * installed <code>MissingNamePolicy</code>}'s value in place of a
+   * missing {@link com.edugility.nomen.Name}.
+   *
+   * @author <a href="http://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   *
+   * @see MvelTemplateEngine#getMissingValue(String)
+   */
+  private static final class RenderOutputStream implements TemplateOutputStream {
+
+    /**
+     * The output so far; never {@code null}.
+     */
+    private final StringBuilder sb;
+
+    /**
+     * The {@link RenderLimits} to check; may be {@code null}.
+     */
+    private final RenderLimits limits;
+
+    /**
+     * The value to print if the template prints the variable that was
+     * just resolved; may be {@code null}.
+     */
+    private String missingValue;
+
+    /**
+     * Creates a new {@link RenderOutputStream}.
+     *
+     * @param limits the {@link RenderLimits} to check; may be {@code
+     * null}
+     */
+    private RenderOutputStream(final RenderLimits limits) {
+      super();
+      this.sb = new StringBuilder();
+      this.limits = limits;
+    }
+
+    /**
+     * Appends the supplied {@link CharSequence} and checks the limits.
+     *
+     * <p>If a missing {@link com.edugility.nomen.Name} was just
+     * resolved, and MVEL is printing it as the {@link String} {@code
+     * "null"}, the {@linkplain MissingNamePolicy#getValue(String)
+     * policy's value} is appended instead.</p>
+     *
+     * @param c the {@link CharSequence} to append; may be {@code null}
+     *
+     * @return this {@link RenderOutputStream}
+     *
+     * @exception RenderLimitExceededException if a limit has been
+     * exceeded
+     */
+    @Override
+    public final TemplateOutputStream append(final CharSequence c) {
+      final String missingValue = this.missingValue;
+      this.missingValue = null;
+      // MVEL prints a null value as String.valueOf(Object) does,
+      // i.e. as the interned "null" literal; template text arrives as
+      // some other CharSequence.
+      if (missingValue != null && c == "null") {
+        this.sb.append(missingValue);
+      } else {
+        this.sb.append(c);
+      }
+      if (this.limits != null) {
+        this.limits.checkProgress(this.sb.length());
+      }
+      return this;
+    }
+
+    /**
+     * Appends the supplied characters and checks the limits.
+     *
+     * @param c the characters to append; must not be {@code null}
+     *
+     * @return this {@link RenderOutputStream}
+     *
+     * @exception RenderLimitExceededException if a limit has been
+     * exceeded
+     */
+    @Override
+    public final TemplateOutputStream append(final char[] c) {
+      this.missingValue = null;
+      this.sb.append(c);
+      if (this.limits != null) {
+        this.limits.checkProgress(this.sb.length());
+      }
+      return this;
+    }
+
+    /**
+     * Returns the output so far.
+     *
+     * <p>This method never returns {@code null}.</p>
+     *
+     * @return the output so far; never {@code null}
+     */
+    @Override
+    public final String toString() {
+      return this.sb.toString();
+    }
+
+  }
+
+}
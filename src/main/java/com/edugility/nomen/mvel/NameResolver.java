@@ -29,12 +29,21 @@ package com.edugility.nomen.mvel;
 
 import java.io.Serializable; // for javadoc only
 
+import java.util.Locale;
 import java.util.Set;
 
+import com.edugility.nomen.MissingNamePolicy; // for javadoc only
 import com.edugility.nomen.Name;
 import com.edugility.nomen.Named;
+import com.edugility.nomen.NameProbe;
+import com.edugility.nomen.NameStatistics;
 import com.edugility.nomen.NameType;
+import com.edugility.nomen.NameTypeFallbacks;
 import com.edugility.nomen.NameValue;
+import com.edugility.nomen.RenderLimitExceededException;
+import com.edugility.nomen.TemplateContext;
+
+import org.mvel2.CompileException;
 
 import org.mvel2.integration.VariableResolver;
 
@@ -99,6 +108,17 @@ public final class NameResolver implements VariableResolver, Named {
    */
   private final NameType nameType;
 
+  /**
+   * The {@link Locale} in which the {@linkplain #getValue() value} of
+   * the resolved {@link Name} is {@linkplain Name#getValue(Locale)
+   * rendered}.
+   *
+   * <p>This field may be {@code null}.</p>
+   *
+   * @see #getLocale()
+   */
+  private final Locale locale;
+
 
   /*
    * Constructors.
@@ -118,6 +138,27 @@ public final class NameResolver implements VariableResolver, Named {
    * {@code nameType} is {@code null}
    */
   public NameResolver(final Named named, final NameType nameType) {
+    this(named, nameType, null);
+  }
+
+  /**
+   * Creates a new {@link NameResolver} that renders the {@link Name}
+   * it resolves in the supplied {@link Locale}.
+   *
+   * @param named the {@link Named} that will be used by the {@link
+   * #getValue()} method; must not be {@code null}
+   *
+   * @param nameType the {@link NameType} with which this {@link
+   * NameResolver} will be affiliated; must not be {@code null}
+   *
+   * @param locale the {@link Locale} in which the resolved {@link
+   * Name} will be {@linkplain Name#getValue(Locale) rendered}; may be
+   * {@code null}
+   *
+   * @exception IllegalArgumentException if either {@code named} or
+   * {@code nameType} is {@code null}
+   */
+  public NameResolver(final Named named, final NameType nameType, final Locale locale) {
     super();
     if (named == null) {
       throw new IllegalArgumentException("named", new NullPointerException("named"));
@@ -127,6 +168,7 @@ public final class NameResolver implements VariableResolver, Named {
     }
     this.named = named;
     this.nameType = nameType;
+    this.locale = locale;
   }
 
 
@@ -151,6 +193,19 @@ public final class NameResolver implements VariableResolver, Named {
     return 0; // per VariableResolver "documentation"
   }
 
+  /**
+   * Returns the {@link Locale} in which the {@link Name} this {@link
+   * NameResolver} resolves is {@linkplain Name#getValue(Locale)
+   * rendered}.
+   *
+   * <p>This method may return {@code null}.</p>
+   *
+   * @return a {@link Locale}, or {@code null}
+   */
+  public final Locale getLocale() {
+    return this.locale;
+  }
+
   /**
    * Returns the {@link String} that is the {@linkplain
    * NameType#getValue() value} of the {@link NameType} supplied at
@@ -177,19 +232,20 @@ public final class NameResolver implements VariableResolver, Named {
 
   /**
    * Returns a {@link Name} for the supplied {@link NameType}, or
-   * {@code null} if no such {@link Name} could be found.
+   * {@code null} if no such {@link Name} could be found, honoring
+   * {@linkplain NameTypeFallbacks fallback chains}.
    *
    * @param nameType the {@link NameType} to use as a key; may be
    * {@code null}
    *
    * @return a {@link Name}, or {@code null}
    *
-   * @see Named#getName(NameType)
+   * @see NameTypeFallbacks#resolveName(Named, NameType)
    */
   @Override
   public final Name getName(final NameType nameType) {
     assert this.named != null;
-    return this.named.getName(nameType);
+    return NameTypeFallbacks.resolveName(this.named, nameType);
   }
 
   /**
@@ -210,28 +266,42 @@ public final class NameResolver implements VariableResolver, Named {
    * given by the return value of this {@link NameResolver}'s {@link
    * #getName()} method.
    *
-   * <p>If a suitable value cannot be determined, then the {@linkplain
-   * String#isEmpty() empty string} ("") is returned.</p>
+   * <p>If no {@link Name} can be found, then the value that the
+   * {@linkplain MissingNamePolicy#getInstance() installed
+   * <code>MissingNamePolicy</code>} supplies for it is returned, or
+   * {@code null} while a template is executing so that the template
+   * can test for it; under {@link MissingNamePolicy#FAIL} the
+   * {@linkplain String#isEmpty() empty string} ("") is returned.</p>
    *
-   * <p>This method never returns {@code null}.</p>
+   * <p>This method may return {@code null}.</p>
+   *
+   * @return the value of the resolved {@link Name}, or {@code null}
    *
-   * @return a non-{@code null} {@link String}
+   * @exception CompileException if a {@link
+   * RenderLimitExceededException} was thrown, which it wraps
    *
    * @see #getName()
    *
    * @see VariableResolver#getValue()
+   *
+   * @see NameStatistics#enterResolution()
+   *
+   * @see NameProbe#resolveStarted(NameType, int)
+   *
+   * @see TemplateContext#getValue(Named, NameType, Locale)
    */
   @Override
   public final Object getValue() {
-    Object returnValue = null;
-    final Name n = this.getName(this.nameType);
-    if (n != null) {
-      returnValue = n.getValue();
-    }
-    if (returnValue == null) {
-      returnValue = "";
+    final Object returnValue;
+    try {
+      returnValue = TemplateContext.getValue(this.named, this.nameType, this.locale);
+    } catch (final RenderLimitExceededException limitExceeded) {
+      // MVEL's reflective optimizer prints the stack trace of any
+      // exception but its own CompileException before wrapping it.
+      // MvelTemplateEngine unwraps this one.
+      throw new CompileException(limitExceeded.getMessage(), this.nameType.getValue().toCharArray(), 0, limitExceeded);
     }
-    return returnValue;
+    return returnValue == null ? MvelTemplateEngine.getMissingValue(this.nameType.getValue()) : returnValue;
   }
 
   /**
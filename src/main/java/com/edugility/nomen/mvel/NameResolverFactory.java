@@ -31,21 +31,30 @@ import java.io.Serializable; // for javadoc only
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.edugility.nomen.MissingNamePolicy;
 import com.edugility.nomen.Name;
 import com.edugility.nomen.Named;
 import com.edugility.nomen.NameType;
+import com.edugility.nomen.NameTypeFallbacks;
 import com.edugility.nomen.NameValue; // for javadoc only
 
 import org.mvel2.UnresolveablePropertyException;
 
+import org.mvel2.compiler.AbstractParser;
+
 import org.mvel2.integration.VariableResolver;
 import org.mvel2.integration.VariableResolverFactory;
 
 import org.mvel2.integration.impl.BaseVariableResolverFactory;
 
+import org.mvel2.util.PropertyTools;
+
 /**
  * A {@link BaseVariableResolverFactory} that produces {@link
  * NameResolver} instances for use by <a
@@ -105,6 +114,27 @@ public class NameResolverFactory extends BaseVariableResolverFactory implements
    */
   protected final Named named;
 
+  /**
+   * The {@link Locale} in which {@link Name}s resolved by the {@link
+   * NameResolver}s this {@link NameResolverFactory} vends are
+   * {@linkplain Name#getValue(Locale) rendered}.
+   *
+   * <p>This field may be {@code null}.</p>
+   *
+   * @see #getLocale()
+   */
+  private final Locale locale;
+
+  /**
+   * The names of the variables this {@link NameResolverFactory} was
+   * asked to resolve but for which no {@link Name} could be found.
+   *
+   * <p>This field may be {@code null}.</p>
+   *
+   * @see #getMissingNames()
+   */
+  private transient volatile Set<String> missingNames;
+
 
   /*
    * Constructors.
@@ -124,11 +154,33 @@ public class NameResolverFactory extends BaseVariableResolverFactory implements
    * null}
    */
   public NameResolverFactory(final Named named) {
+    this(named, null);
+  }
+
+  /**
+   * Creates a new {@link NameResolverFactory} given a non-{@code
+   * null} {@link Named} that serves as the universe or domain from
+   * which {@link Name}s may ultimately be resolved, and a {@link
+   * Locale} in which they are to be {@linkplain Name#getValue(Locale)
+   * rendered}.
+   *
+   * @param named the {@link Named} that serves as the universe or
+   * domain from which {@link Name}s may ultimately be resolved; must
+   * not be {@code null}
+   *
+   * @param locale the {@link Locale} in which resolved {@link Name}s
+   * are rendered; may be {@code null}
+   *
+   * @exception IllegalArgumentException if {@code named} is {@code
+   * null}
+   */
+  public NameResolverFactory(final Named named, final Locale locale) {
     super();
     if (named == null) {
       throw new IllegalStateException("named", new NullPointerException("named"));
     }
     this.named = named;
+    this.locale = locale;
   }
 
 
@@ -137,6 +189,41 @@ public class NameResolverFactory extends BaseVariableResolverFactory implements
    */
 
 
+  /**
+   * Returns the {@link Locale} in which {@link Name}s resolved by the
+   * {@link NameResolver}s this {@link NameResolverFactory} vends are
+   * {@linkplain Name#getValue(Locale) rendered}.
+   *
+   * <p>This method may return {@code null}.</p>
+   *
+   * @return a {@link Locale}, or {@code null}
+   */
+  public Locale getLocale() {
+    return this.locale;
+  }
+
+  /**
+   * Returns the names of the variables this {@link
+   * NameResolverFactory} has been asked to resolve but for which no
+   * {@link Name} could be found, whatever the {@linkplain
+   * MissingNamePolicy#getInstance() installed
+   * <code>MissingNamePolicy</code>} made of them.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return a non-{@code null}, possibly empty, unmodifiable {@link
+   * Set} of variable names
+   *
+   * @see com.edugility.nomen.TemplateContext#addVariable(String)
+   */
+  public Set<String> getMissingNames() {
+    final Set<String> missingNames = this.missingNames;
+    if (missingNames == null) {
+      return Collections.emptySet();
+    }
+    return Collections.unmodifiableSet(missingNames);
+  }
+
   /**
    * Given a {@link NameType}, returns a {@link Name} corresponding to
    * it in some fashion.
@@ -144,8 +231,9 @@ public class NameResolverFactory extends BaseVariableResolverFactory implements
    * <p>This method may return {@code null}.</p>
    *
    * <p>The default implementation of this method invokes the {@link
-   * Named#getName(NameType)} method on the value of the {@link
-   * #named} field.</p>
+   * NameTypeFallbacks#resolveName(Named, NameType)} method on the
+   * value of the {@link #named} field, so {@linkplain
+   * NameTypeFallbacks fallback chains} are honored.</p>
    *
    * @param nameType the {@link NameType} for which a corresponding
    * {@link Name} should be returned; may be {@code null}
@@ -155,13 +243,13 @@ public class NameResolverFactory extends BaseVariableResolverFactory implements
    *
    * @see #named
    *
-   * @see Named#getName(NameType)
+   * @see NameTypeFallbacks#resolveName(Named, NameType)
    */
   @Override
   public Name getName(final NameType nameType) {
     final Name returnValue;
     if (nameType != null && this.named != null) {
-      returnValue = this.named.getName(nameType);
+      returnValue = NameTypeFallbacks.resolveName(this.named, nameType);
     } else {
       returnValue = null;
     }
@@ -179,6 +267,17 @@ public class NameResolverFactory extends BaseVariableResolverFactory implements
    * @param name the {@linkplain NameType#getValue() value} of a
    * {@link NameType}; may be {@code null}
    *
+   * <p>A {@code name} that no {@link Name} answers to is also
+   * resolvable if the {@linkplain MissingNamePolicy#getInstance()
+   * installed <code>MissingNamePolicy</code>} supplies a value for
+   * missing {@link Name}s, unless <a
+   * href="http://mvel.codehaus.org/">MVEL</a> could make sense of it
+   * by itself, as it can of class literals such as {@code Math} and
+   * of properties of the {@link #named} object.  The {@link
+   * NameResolver} installed for such a {@code name} {@linkplain
+   * NameResolver#getValue() applies} the policy for as long as its
+   * lookup comes back empty.</p>
+   *
    * @return {@code true} if this {@link NameResolverFactory} or any
    * of its chained {@link VariableResolverFactory} instances can
    * resolve an MVEL variable of the given name; {@code false}
@@ -201,23 +300,69 @@ public class NameResolverFactory extends BaseVariableResolverFactory implements
       returnValue = true;
     } else {
       final Name n = this.getName(new NameType(name));
-      if (n == null) {
-        returnValue = this.isNextResolveable(name);
+      if (n != null) {
+        this.installNameResolver(name);
+        returnValue = true;
+      } else if (this.isNextResolveable(name)) {
+        returnValue = true;
+      } else if (this.isUnderstoodByMvel(name)) {
+        returnValue = false;
       } else {
-        Map<String, VariableResolver> resolvers = this.getVariableResolvers();
-        if (resolvers == null) {
-          resolvers = new HashMap<String, VariableResolver>();
+        // Record the name even if it fails the rendering, so that the
+        // Name being rendered hears about a Name put under it later.
+        Set<String> missingNames = this.missingNames;
+        if (missingNames == null) {
+          missingNames = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+          this.missingNames = missingNames;
         }
-        resolvers.put(name, this.createNameResolver(this.named, name));
-        if (resolvers != this.getVariableResolvers()) {
-          this.setVariableResolvers(resolvers);
+        missingNames.add(name);
+        if (MissingNamePolicy.getInstance() == MissingNamePolicy.FAIL) {
+          returnValue = false;
+        } else {
+          this.installNameResolver(name);
+          returnValue = true;
         }
-        returnValue = true;
       }
     }
     return returnValue;
   }
 
+  /**
+   * Installs a {@link NameResolver} {@linkplain
+   * #createNameResolver(Named, String) created} for the supplied
+   * variable name, so that this {@link NameResolverFactory}
+   * {@linkplain #isTarget(String) targets} it from now on.
+   *
+   * @param name the name of the variable; must not be {@code null}
+   */
+  private final void installNameResolver(final String name) {
+    assert name != null;
+    Map<String, VariableResolver> resolvers = this.getVariableResolvers();
+    if (resolvers == null) {
+      resolvers = new HashMap<String, VariableResolver>();
+    }
+    resolvers.put(name, this.createNameResolver(this.named, name));
+    if (resolvers != this.getVariableResolvers()) {
+      this.setVariableResolvers(resolvers);
+    }
+  }
+
+  /**
+   * Returns {@code true} if <a href="http://mvel.codehaus.org/">MVEL</a>
+   * resolves the supplied variable name by itself when no {@link
+   * VariableResolverFactory} does: if it is a class or other literal
+   * known to MVEL, such as {@code Math} or {@code null}, or a
+   * property of the {@link #named} object.
+   *
+   * @param name the name in question; must not be {@code null}
+   *
+   * @return {@code true} if MVEL resolves {@code name} by itself
+   */
+  private final boolean isUnderstoodByMvel(final String name) {
+    assert name != null;
+    return AbstractParser.LITERALS.containsKey(name) || PropertyTools.getFieldOrAccessor(this.named.getClass(), name) != null;
+  }
+
   /**
    * Overrides the {@link
    * BaseVariableResolverFactory#getVariableResolver(String)} method
@@ -278,7 +423,7 @@ public class NameResolverFactory extends BaseVariableResolverFactory implements
    * {@code name} is {@code null}
    */
   protected NameResolver createNameResolver(final Named named, final String name) {
-    return new NameResolver(named, new NameType(name));
+    return new NameResolver(named, new NameType(name), this.locale);
   }
 
   /**
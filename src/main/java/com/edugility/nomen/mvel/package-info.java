@@ -28,11 +28,14 @@
 
 /**
  * Provides classes and interfaces for integrating <a
- * href="http://mvel.codehaus.org/">MVEL</a> into the Nomen project.
+ * href="http://mvel.codehaus.org/">MVEL</a> into the Nomen project
+ * as its default {@link com.edugility.nomen.TemplateEngine}.
  *
  * @author <a href="http://about.me/lairdnelson"
  * target="_parent">Laird Nelson</a>
  *
+ * @see com.edugility.nomen.mvel.MvelTemplateEngine
+ *
  * @see com.edugility.nomen.mvel.NameResolver
  *
  * @see com.edugility.nomen.mvel.NameResolverFactory
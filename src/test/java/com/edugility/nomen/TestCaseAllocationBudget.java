@@ -0,0 +1,174 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen;
+
+import java.lang.management.ManagementFactory;
+
+import java.util.List;
+
+import com.edugility.nomen.mvel.NameResolver;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+
+/**
+ * Asserts per-operation allocation budgets, measured with the
+ * HotSpot-specific {@link com.sun.management.ThreadMXBean}, for the
+ * operations on the rendering path.  A change that pushes one of
+ * these operations over its budget fails the build; a change that
+ * brings one well under should lower its budget.
+ *
+ * <p>The zero budgets rely on the JIT compiler's escape analysis, so
+ * these tests are skipped when the JVM interprets everything or runs
+ * with an instrumenting agent, such as a coverage tool.  Each budget
+ * also allows a small per-operation tolerance for stray allocations
+ * made by the JVM itself during measurement.</p>
+ */
+public class TestCaseAllocationBudget {
+
+  private static final int WARMUP_ITERATIONS = 20000;
+
+  private static final int ITERATIONS = 10000;
+
+  // Measured at 576 bytes on a 64-bit HotSpot JVM with compressed
+  // oops; the rest is headroom for other object layouts.
+  private static final long TEMPLATED_GET_VALUE_BUDGET = 768L;
+
+  // Bytes per operation forgiven on top of every budget, so that a
+  // few stray allocations over the whole measurement do not fail it.
+  private static final long TOLERANCE = 16L;
+
+  private com.sun.management.ThreadMXBean threadMXBean;
+
+  private AbstractNamed dude;
+
+  public TestCaseAllocationBudget() {
+    super();
+  }
+
+  @Before
+  public void setUp() {
+    final java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+    this.threadMXBean = (com.sun.management.ThreadMXBean)bean;
+    assumeTrue(this.threadMXBean.isThreadAllocatedMemorySupported());
+    assumeTrue(isCompilingWithoutAgents());
+    this.threadMXBean.setThreadAllocatedMemoryEnabled(true);
+
+    this.dude = new AbstractNamed() {
+        private static final long serialVersionUID = 1L;
+      };
+    this.dude.putName(new NameType("firstName"), new Name(new NameValue("Laird", true)));
+    this.dude.putName(new NameType("lastName"), new Name(new NameValue("Nelson", true)));
+    this.dude.putName(new NameType("fullName"), new Name(new NameValue("${firstName} ${lastName}")));
+  }
+
+  private final long bytesPerOperation(final Runnable operation) {
+    for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+      operation.run();
+    }
+    final long threadId = Thread.currentThread().getId();
+    final long before = this.threadMXBean.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < ITERATIONS; i++) {
+      operation.run();
+    }
+    final long after = this.threadMXBean.getThreadAllocatedBytes(threadId);
+    // Round up so that an occasional allocation is not hidden.
+    return (after - before + ITERATIONS - 1) / ITERATIONS;
+  }
+
+  private final void assertBudget(final String operationName, final long budget, final Runnable operation) {
+    final long bytes = this.bytesPerOperation(operation);
+    assertTrue(operationName + " allocated " + bytes + " bytes per operation; budget: " + budget + " + " + TOLERANCE, bytes <= budget + TOLERANCE);
+  }
+
+  private static final boolean isCompilingWithoutAgents() {
+    if (ManagementFactory.getCompilationMXBean() == null) {
+      return false;
+    }
+    final String vmInfo = System.getProperty("java.vm.info");
+    if (vmInfo != null && vmInfo.contains("interpreted mode")) {
+      return false;
+    }
+    final List<String> arguments = ManagementFactory.getRuntimeMXBean().getInputArguments();
+    for (final String argument : arguments) {
+      if (argument.equals("-Xint") || argument.startsWith("-javaagent") || argument.startsWith("-agentlib") || argument.startsWith("-agentpath")) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Test
+  public void testAtomicGetValue() {
+    final Name firstName = this.dude.getName(new NameType("firstName"));
+    this.assertBudget("atomic Name.getValue()", 0L, new Runnable() {
+        @Override
+        public final void run() {
+          firstName.getValue();
+        }
+      });
+  }
+
+  @Test
+  public void testTemplatedGetValue() {
+    final Name fullName = this.dude.getName(new NameType("fullName"));
+    this.assertBudget("templated Name.getValue()", TEMPLATED_GET_VALUE_BUDGET, new Runnable() {
+        @Override
+        public final void run() {
+          fullName.getValue();
+        }
+      });
+  }
+
+  @Test
+  public void testNameResolverGetValue() {
+    final NameResolver resolver = new NameResolver(this.dude, new NameType("firstName"));
+    this.assertBudget("NameResolver.getValue()", 0L, new Runnable() {
+        @Override
+        public final void run() {
+          resolver.getValue();
+        }
+      });
+  }
+
+  @Test
+  public void testGetName() {
+    final NameType lastName = new NameType("lastName");
+    this.assertBudget("AbstractNamed.getName(NameType)", 0L, new Runnable() {
+        @Override
+        public final void run() {
+          dude.getName(lastName);
+        }
+      });
+  }
+
+}
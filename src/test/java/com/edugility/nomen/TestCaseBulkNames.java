@@ -0,0 +1,133 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestCaseBulkNames {
+
+  private static final NameType FIRST = new NameType("first");
+
+  private static final NameType PREFERRED = new NameType("preferred");
+
+  private static final NameType LAST = new NameType("last");
+
+  private AbstractNamed dude;
+
+  private List<Set<?>> changes;
+
+  public TestCaseBulkNames() {
+    super();
+  }
+
+  @Before
+  public void setUp() {
+    this.dude = new AbstractNamed() {
+        private static final long serialVersionUID = 1L;
+      };
+    this.changes = new ArrayList<Set<?>>();
+    this.dude.addPropertyListener("names", new PropertyListener<AbstractNamed>() {
+        @Override
+        public final void propertyChanged(final AbstractNamed source, final String propertyName, final Object oldValue, final Object newValue) {
+          changes.add((Set<?>)newValue);
+        }
+      });
+  }
+
+  @Test
+  public void testPutNames() {
+    final Name laird = new Name(new NameValue("Laird", true));
+    final Name nelson = new Name(new NameValue("Nelson", true));
+    final Map<NameType, Name> names = new LinkedHashMap<NameType, Name>();
+    names.put(FIRST, laird);
+    names.put(PREFERRED, laird);
+    names.put(LAST, nelson);
+    this.dude.putNames(names);
+
+    assertEquals(1, this.changes.size());
+    assertEquals(names.keySet(), this.changes.get(0));
+    assertSame(this.dude, laird.getNamed());
+    assertSame(this.dude, nelson.getNamed());
+    assertEquals(1, laird.getPropertyChangeListeners("named").length);
+
+    // Move laird from FIRST to LAST only: it must not be disowned
+    // midway, and nelson must be.
+    names.clear();
+    names.put(FIRST, new Name(new NameValue("Jarrett", true)));
+    names.put(LAST, laird);
+    this.dude.putNames(names);
+    assertEquals(2, this.changes.size());
+    assertSame(this.dude, laird.getNamed());
+    assertNull(nelson.getNamed());
+    assertEquals(0, nelson.getPropertyChangeListeners("named").length);
+    assertSame(laird, this.dude.getName(LAST));
+    assertSame(laird, this.dude.getName(PREFERRED));
+
+    // A batch that changes nothing notifies no one.
+    this.dude.putNames(names);
+    assertEquals(2, this.changes.size());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testPutNamesWithNullName() {
+    final Map<NameType, Name> names = new LinkedHashMap<NameType, Name>();
+    names.put(FIRST, new Name(new NameValue("Laird", true)));
+    names.put(LAST, null);
+    try {
+      this.dude.putNames(names);
+    } finally {
+      assertTrue(this.dude.getNameTypes().isEmpty());
+    }
+  }
+
+  @Test
+  public void testRemoveNames() {
+    final Name laird = new Name(new NameValue("Laird", true));
+    this.dude.putName(FIRST, laird);
+    this.dude.putName(PREFERRED, laird);
+    this.dude.putName(LAST, new Name(new NameValue("Nelson", true)));
+    this.changes.clear();
+
+    this.dude.removeNames(Arrays.asList(FIRST, PREFERRED, new NameType("middle")));
+    assertEquals(1, this.changes.size());
+    assertEquals(2, this.changes.get(0).size());
+    assertNull(laird.getNamed());
+    assertEquals(1, this.dude.getNameTypes().size());
+  }
+
+}
@@ -0,0 +1,165 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestCaseDerivedNames {
+
+  private AbstractNamed dude;
+
+  private Name lastName;
+
+  private Name fullName;
+
+  private Name salutation;
+
+  private List<Object[]> changes;
+
+  public TestCaseDerivedNames() {
+    super();
+  }
+
+  @Before
+  public void setUp() {
+    this.dude = new AbstractNamed() {
+        private static final long serialVersionUID = 1L;
+      };
+    this.dude.putName(new NameType("firstName"), new Name(new NameValue("Laird", true)));
+    this.lastName = new Name(new NameValue("Nelson", true));
+    this.dude.putName(new NameType("lastName"), this.lastName);
+    this.fullName = new Name(new NameValue("${firstName} ${lastName}"));
+    this.dude.putName(new NameType("fullName"), this.fullName);
+    this.salutation = new Name(new NameValue("Dear ${fullName}, ${firstName}"));
+    this.dude.putName(new NameType("salutation"), this.salutation);
+    this.changes = new ArrayList<Object[]>();
+    final PropertyListener<Name> listener = new PropertyListener<Name>() {
+        @Override
+        public final void propertyChanged(final Name source, final String propertyName, final Object oldValue, final Object newValue) {
+          changes.add(new Object[] { source, oldValue, newValue });
+        }
+      };
+    this.fullName.addPropertyListener("value", listener);
+    this.salutation.addPropertyListener("value", listener);
+  }
+
+  @Test
+  public void testChangePropagatesOncePerDependent() {
+    // Dependencies are discovered by rendering.
+    assertEquals("Dear Laird Nelson, Laird", this.salutation.getValue());
+    assertEquals(1, this.lastName.getDependents().length);
+    assertSame(this.fullName, this.lastName.getDependents()[0]);
+
+    this.lastName.setValue("Smith");
+    assertEquals(2, this.changes.size());
+    assertSame(this.fullName, this.changes.get(0)[0]);
+    assertEquals("Laird Nelson", this.changes.get(0)[1]);
+    assertEquals("Laird Smith", this.changes.get(0)[2]);
+    assertSame(this.salutation, this.changes.get(1)[0]);
+    assertEquals("Dear Laird Nelson, Laird", this.changes.get(1)[1]);
+    assertEquals("Dear Laird Smith, Laird", this.changes.get(1)[2]);
+  }
+
+  @Test
+  public void testUnrenderedNameIsNotADependent() {
+    this.lastName.setValue("Smith");
+    assertTrue(this.changes.isEmpty());
+    assertEquals(0, this.lastName.getDependents().length);
+  }
+
+  @Test
+  public void testReplacementPropagates() {
+    assertEquals("Dear Laird Nelson, Laird", this.salutation.getValue());
+    final Name smith = new Name(new NameValue("Smith", true));
+    this.dude.putName(new NameType("lastName"), smith);
+    assertEquals(2, this.changes.size());
+    assertEquals("Laird Nelson", this.changes.get(0)[1]);
+    assertEquals("Laird Smith", this.changes.get(0)[2]);
+    assertEquals("Dear Laird Smith, Laird", this.changes.get(1)[2]);
+    assertEquals(0, this.lastName.getDependents().length);
+
+    // Rendering again resolves, and depends on, the replacement.
+    assertEquals("Dear Laird Smith, Laird", this.salutation.getValue());
+    this.changes.clear();
+    smith.setValue("Jones");
+    assertEquals(2, this.changes.size());
+    assertEquals("Laird Jones", this.changes.get(0)[2]);
+  }
+
+  @Test
+  public void testReplacingAliasedNamePropagates() {
+    // lastName is also indexed under surname, so replacing it under
+    // lastName does not disown it.
+    this.dude.putName(new NameType("surname"), this.lastName);
+    assertEquals("Laird Nelson", this.fullName.getValue());
+    this.dude.putName(new NameType("lastName"), new Name(new NameValue("Smith", true)));
+    assertSame(this.dude, this.lastName.getNamed());
+    assertEquals(1, this.changes.size());
+    assertSame(this.fullName, this.changes.get(0)[0]);
+    assertEquals("Laird Smith", this.changes.get(0)[2]);
+
+    // fullName now depends on the replacement, not on the alias.
+    this.changes.clear();
+    this.lastName.setValue("Jones");
+    assertTrue(this.changes.isEmpty());
+  }
+
+  @Test
+  public void testPuttingMissingNamePropagates() {
+    MissingNamePolicy.setInstance(MissingNamePolicy.EMPTY);
+    try {
+      final Name nickname = new Name(new NameValue("${firstName}${nickname}"));
+      this.dude.putName(new NameType("nick"), nickname);
+      nickname.addPropertyListener("value", new PropertyListener<Name>() {
+          @Override
+          public final void propertyChanged(final Name source, final String propertyName, final Object oldValue, final Object newValue) {
+            changes.add(new Object[] { source, oldValue, newValue });
+          }
+        });
+      assertEquals("Laird", nickname.getValue());
+      this.dude.putName(new NameType("nickname"), new Name(new NameValue(" (Larry)", true)));
+      assertEquals(1, this.changes.size());
+      assertSame(nickname, this.changes.get(0)[0]);
+      assertEquals("Laird", this.changes.get(0)[1]);
+      assertEquals("Laird (Larry)", this.changes.get(0)[2]);
+
+      this.dude.removeName(new NameType("nickname"));
+      assertEquals(2, this.changes.size());
+      assertEquals("Laird", this.changes.get(1)[2]);
+    } finally {
+      MissingNamePolicy.setInstance(null);
+    }
+  }
+
+}
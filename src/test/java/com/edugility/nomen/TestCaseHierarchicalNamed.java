@@ -0,0 +1,152 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestCaseHierarchicalNamed {
+
+  private static final NameType LEGAL_NAME = new NameType("legalName");
+
+  private static final NameType DIVISION_NAME = new NameType("divisionName");
+
+  private HierarchicalNamed company;
+
+  private HierarchicalNamed division;
+
+  private HierarchicalNamed team;
+
+  private int companyLookups;
+
+  public TestCaseHierarchicalNamed() {
+    super();
+  }
+
+  @Before
+  public void setUp() {
+    this.company = new HierarchicalNamed() {
+        private static final long serialVersionUID = 1L;
+        @Override
+        public final Name getName(final NameType nameType) {
+          companyLookups++;
+          return super.getName(nameType);
+        }
+      };
+    this.company.putName(LEGAL_NAME, new Name(new NameValue("Edugility LLC", true)));
+    this.division = new HierarchicalNamed(this.company);
+    this.division.putName(DIVISION_NAME, new Name(new NameValue("Research", true)));
+    this.team = new HierarchicalNamed(this.division);
+    this.team.putName(new NameType("fullName"), new Name(new NameValue("${divisionName}, a division of ${legalName}")));
+  }
+
+  @Test
+  public void testInheritance() {
+    assertSame(this.company.getName(LEGAL_NAME), this.team.getName(LEGAL_NAME));
+    assertNull(this.team.getLocalName(LEGAL_NAME));
+    assertNull(this.team.getName(new NameType("nickname")));
+    assertEquals(1, this.team.getNameTypes().size());
+    assertEquals("Research, a division of Edugility LLC", this.team.getName(new NameType("fullName")).getValue());
+  }
+
+  @Test
+  public void testResolutionIsCached() {
+    assertNotNull(this.team.getName(LEGAL_NAME));
+    assertNull(this.team.getName(new NameType("nickname")));
+    final int lookups = this.companyLookups;
+    for (int i = 0; i < 10; i++) {
+      this.team.getName(LEGAL_NAME);
+      this.team.getName(new NameType("nickname"));
+    }
+    assertEquals(lookups, this.companyLookups);
+  }
+
+  @Test
+  public void testAncestorChangeInvalidates() {
+    final Name fullName = this.team.getName(new NameType("fullName"));
+    assertEquals("Research, a division of Edugility LLC", fullName.getValue());
+    this.company.putName(LEGAL_NAME, new Name(new NameValue("Edugility, Inc.", true)));
+    assertEquals("Research, a division of Edugility, Inc.", fullName.getValue());
+
+    // A nearer ancestor shadows a farther one.
+    this.division.putName(LEGAL_NAME, new Name(new NameValue("Edugility Research GmbH", true)));
+    assertEquals("Research, a division of Edugility Research GmbH", fullName.getValue());
+    this.division.removeName(LEGAL_NAME);
+    assertEquals("Research, a division of Edugility, Inc.", fullName.getValue());
+
+    final HierarchicalNamed other = new HierarchicalNamed();
+    other.putName(LEGAL_NAME, new Name(new NameValue("Other LLC", true)));
+    this.division.setParent(other);
+    assertEquals("Research, a division of Other LLC", fullName.getValue());
+  }
+
+  @Test
+  public void testOverride() {
+    final Name inherited = this.team.getName(LEGAL_NAME);
+    final Name own = new Name(new NameValue("Edugility Labs", true));
+    assertNull(this.team.putName(LEGAL_NAME, own));
+    assertSame(own, this.team.getName(LEGAL_NAME));
+    assertSame(this.company, inherited.getNamed());
+    assertSame(own, this.team.removeName(LEGAL_NAME));
+    assertSame(inherited, this.team.getName(LEGAL_NAME));
+
+    // An inherited Name cannot be put as the team's own.
+    try {
+      this.team.putName(LEGAL_NAME, inherited);
+      fail();
+    } catch (final IllegalArgumentException expected) {
+
+    }
+    assertSame(this.company, inherited.getNamed());
+    assertSame(inherited, this.company.getName(LEGAL_NAME));
+    assertNull(this.team.getLocalName(LEGAL_NAME));
+  }
+
+  @Test
+  public void testChildrenAreWeaklyReferenced() throws InterruptedException {
+    final HierarchicalNamed parent = new HierarchicalNamed();
+    for (int i = 0; i < 10; i++) {
+      new HierarchicalNamed(parent);
+    }
+    final HierarchicalNamed survivor = new HierarchicalNamed(parent);
+    for (int i = 0; i < 50 && parent.getChildCount() > 1; i++) {
+      System.gc();
+      Thread.sleep(10L);
+    }
+    assertEquals(1, parent.getChildCount());
+    assertSame(parent, survivor.getParent());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testCycle() {
+    this.company.setParent(this.team);
+  }
+
+}
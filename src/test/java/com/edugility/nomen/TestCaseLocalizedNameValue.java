@@ -0,0 +1,104 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestCaseLocalizedNameValue {
+
+  private AbstractNamed dude;
+
+  private Name fullName;
+
+  public TestCaseLocalizedNameValue() {
+    super();
+  }
+
+  @Before
+  public void setUp() {
+    this.dude = new AbstractNamed() {
+        private static final long serialVersionUID = 1L;
+      };
+    this.dude.putName(new NameType("firstName"), new Name(new NameValue("Laird", true)));
+    final Map<Locale, String> familyNames = new HashMap<Locale, String>();
+    familyNames.put(Locale.JAPANESE, "NELSON");
+    this.dude.putName(new NameType("lastName"), new Name(new LocalizedNameValue("Nelson", true, null, familyNames)));
+    final Map<Locale, String> templates = new HashMap<Locale, String>();
+    templates.put(Locale.JAPANESE, "${lastName} ${firstName}");
+    templates.put(Locale.CHINA, "${lastName}${firstName}");
+    this.fullName = new Name(new LocalizedNameValue("${firstName} ${lastName}", templates));
+    this.dude.putName(new NameType("fullName"), this.fullName);
+  }
+
+  @Test
+  public void testFallback() {
+    final LocalizedNameValue nv = (LocalizedNameValue)this.fullName.getNameValue();
+    assertEquals("${lastName} ${firstName}", nv.getTemplate(Locale.JAPAN));
+    assertEquals("${lastName}${firstName}", nv.getTemplate(Locale.CHINA));
+    assertEquals("${firstName} ${lastName}", nv.getTemplate(Locale.CHINESE));
+    assertEquals("${firstName} ${lastName}", nv.getTemplate(Locale.US));
+    assertEquals("${firstName} ${lastName}", nv.getTemplate(null));
+    assertSame(nv.getTemplate(Locale.JAPAN), nv.getTemplate(Locale.JAPAN));
+  }
+
+  @Test
+  public void testGetValue() {
+    assertEquals("Laird Nelson", this.fullName.getValue());
+    assertEquals("Laird Nelson", this.fullName.getValue(Locale.US));
+    assertEquals("NELSON Laird", this.fullName.getValue(Locale.JAPAN));
+    assertEquals("NelsonLaird", this.fullName.getValue(Locale.CHINA));
+    assertEquals("Laird Nelson", this.fullName.getValue(null));
+
+    // Nested templates render in the same Locale.
+    this.dude.putName(new NameType("salutation"), new Name(new NameValue("Dear ${fullName}")));
+    assertEquals("Dear NELSON Laird", this.dude.getName(new NameType("salutation")).getValue(Locale.JAPANESE));
+  }
+
+  @Test
+  public void testEquality() {
+    final Map<Locale, String> templates = new HashMap<Locale, String>();
+    templates.put(Locale.JAPANESE, "${lastName} ${firstName}");
+    final NameValue plain = new NameValue("${firstName} ${lastName}");
+    final NameValue localized = new LocalizedNameValue("${firstName} ${lastName}", templates);
+    assertFalse(plain.equals(localized));
+    assertFalse(localized.equals(plain));
+    assertEquals(localized, new LocalizedNameValue("${firstName} ${lastName}", templates));
+
+    this.fullName.setNameValue(plain);
+    assertSame(plain, this.fullName.getNameValue());
+    assertEquals("Laird NELSON", this.fullName.getValue(Locale.JAPAN));
+  }
+
+}
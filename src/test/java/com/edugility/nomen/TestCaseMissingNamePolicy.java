@@ -0,0 +1,115 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestCaseMissingNamePolicy {
+
+  private AbstractNamed dude;
+
+  public TestCaseMissingNamePolicy() {
+    super();
+  }
+
+  @Before
+  public void setUp() {
+    this.dude = new AbstractNamed() {
+        private static final long serialVersionUID = 1L;
+      };
+    this.dude.putName(new NameType("first"), new Name(new NameValue("Laird", true)));
+  }
+
+  @After
+  public void tearDown() {
+    MissingNamePolicy.setInstance(null);
+  }
+
+  @Test
+  public void testDefaultFails() {
+    assertSame(MissingNamePolicy.FAIL, MissingNamePolicy.getInstance());
+    final Name name = new Name(this.dude, new NameValue("${first} ${middle} Nelson"));
+    try {
+      name.getValue();
+      fail();
+    } catch (final IllegalStateException expected) {
+
+    }
+  }
+
+  @Test
+  public void testEmpty() {
+    MissingNamePolicy.setInstance(MissingNamePolicy.EMPTY);
+    final Name name = new Name(this.dude, new NameValue("${first} ${middle} Nelson", " "));
+    assertEquals("Laird Nelson", name.getValue());
+    this.dude.putName(new NameType("middle"), new Name(new NameValue("Jarrett", true)));
+    assertEquals("Laird Jarrett Nelson", new Name(this.dude, new NameValue("${first} ${middle} Nelson")).getValue());
+  }
+
+  @Test
+  public void testPlaceholder() {
+    MissingNamePolicy.setInstance(MissingNamePolicy.PLACEHOLDER);
+    assertEquals("Laird ${middle} Nelson", new Name(this.dude, new NameValue("${first} ${middle} Nelson")).getValue());
+  }
+
+  @Test
+  public void testStaticClassesStillResolve() {
+    MissingNamePolicy.setInstance(MissingNamePolicy.EMPTY);
+    assertEquals("4 Laird", new Name(this.dude, new NameValue("@{Math.max(3,4)} @{first}")).getValue());
+  }
+
+  @Test
+  public void testNullChecks() {
+    MissingNamePolicy.setInstance(MissingNamePolicy.EMPTY);
+    assertEquals("X", new Name(this.dude, new NameValue("@if{middle != null}M@end{}X")).getValue());
+    assertEquals("LX", new Name(this.dude, new NameValue("@if{first != null}L@end{}X")).getValue());
+    MissingNamePolicy.setInstance(MissingNamePolicy.PLACEHOLDER);
+    assertEquals("X", new Name(this.dude, new NameValue("@if{middle != null}M@end{}X")).getValue());
+    assertEquals("${middle}", new Name(this.dude, new NameValue("@{middle}")).getValue());
+  }
+
+  @Test
+  public void testSimpleTemplateEngine() {
+    final TemplateEngine simple = new SimpleTemplateEngine();
+    final Object compiledTemplate = simple.compile("${first} @{middle}!");
+    MissingNamePolicy.setInstance(MissingNamePolicy.PLACEHOLDER);
+    assertEquals("Laird ${middle}!", simple.execute(compiledTemplate, new TemplateContext(this.dude)));
+    MissingNamePolicy.setInstance(MissingNamePolicy.FAIL);
+    try {
+      simple.execute(compiledTemplate, new TemplateContext(this.dude));
+      fail();
+    } catch (final IllegalStateException expected) {
+
+    }
+  }
+
+}
@@ -99,4 +99,31 @@ public class TestCaseName {
     assertFalse(iterator.hasNext());
   }
 
+  @Test
+  public void testSetValueRendersOnlyForListeners() {
+    this.dude.putName(new NameType("firstName"), new Name(new NameValue("Laird", true)));
+    this.dude.putName(new NameType("lastName"), new Name(new NameValue("Nelson", true)));
+    final Name fullName = new Name(new NameValue("${firstName} ${lastName}"));
+    this.dude.putName(new NameType("fullName"), fullName);
+
+    final NameStatistics statistics = NameStatistics.getInstance();
+    long renders = statistics.getRenders();
+    fullName.setValue("${lastName}, ${firstName}");
+    assertEquals(renders, statistics.getRenders());
+
+    final String[] values = new String[2];
+    fullName.addPropertyListener("value", new PropertyListener<Name>() {
+        @Override
+        public final void propertyChanged(final Name source, final String propertyName, final Object oldValue, final Object newValue) {
+          values[0] = (String)oldValue;
+          values[1] = (String)newValue;
+        }
+      });
+    renders = statistics.getRenders();
+    fullName.setValue("${firstName} ${lastName}");
+    assertEquals(renders + 2, statistics.getRenders());
+    assertEquals("Nelson, Laird", values[0]);
+    assertEquals("Laird Nelson", values[1]);
+  }
+
 }
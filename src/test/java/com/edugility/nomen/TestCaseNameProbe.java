@@ -0,0 +1,106 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestCaseNameProbe {
+
+  public TestCaseNameProbe() {
+    super();
+  }
+
+  @After
+  public void tearDown() {
+    NameProbe.setInstance(null);
+  }
+
+  @Test
+  public void testProbe() {
+    final List<String> events = new ArrayList<String>();
+    NameProbe.setInstance(new NameProbe() {
+        @Override
+        public final Object compileStarted(final String template) {
+          return "compile";
+        }
+        @Override
+        public final void compileFinished(final Object context, final String template, final boolean succeeded) {
+          events.add(context + " " + template + " " + succeeded);
+        }
+        @Override
+        public final Object renderStarted(final String template, final NameType nameType, final int depth) {
+          return "render";
+        }
+        @Override
+        public final void renderFinished(final Object context, final String template, final NameType nameType, final int depth, final boolean succeeded) {
+          events.add(context + " " + nameType + " " + template + " " + depth + " " + succeeded);
+        }
+        @Override
+        public final Object resolveStarted(final NameType nameType, final int depth) {
+          // Only interested in atomic names.
+          return "firstName".equals(nameType.getValue()) ? "resolve" : null;
+        }
+        @Override
+        public final void resolveFinished(final Object context, final NameType nameType, final int depth, final boolean succeeded) {
+          events.add(context + " " + nameType + " " + depth + " " + succeeded);
+        }
+      });
+
+    final AbstractNamed dude = new AbstractNamed() {
+        private static final long serialVersionUID = 1L;
+      };
+    dude.putName(new NameType("firstName"), new Name(new NameValue("Laird", true)));
+    dude.putName(new NameType("greeting"), new Name(new NameValue("Hi, ${firstName} (probe)")));
+    final Name outer = new Name(new NameValue("${greeting}!"));
+    dude.putName(new NameType("outer"), outer);
+    events.clear();
+
+    assertEquals("Hi, Laird (probe)!", outer.getValue());
+    assertEquals(3, events.size());
+    assertEquals("resolve firstName 2 true", events.get(0));
+    assertEquals("render greeting Hi, ${firstName} (probe) 1 true", events.get(1));
+    assertEquals("render outer ${greeting}! 0 true", events.get(2));
+
+    events.clear();
+    try {
+      new Name(new NameValue("${BAD SYNTAX ON PURPOSE (probe)"));
+      fail();
+    } catch (final IllegalStateException expected) {
+
+    }
+    assertEquals(1, events.size());
+    assertEquals("compile ${BAD SYNTAX ON PURPOSE (probe) false", events.get(0));
+  }
+
+}
@@ -0,0 +1,171 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestCaseNameSchema {
+
+  private static final NameType FIRST = new NameType("firstName");
+
+  private static final NameType LAST = new NameType("lastName");
+
+  private static final NameType FULL = new NameType("fullName");
+
+  private static final NameType SORT = new NameType("sortName");
+
+  private NameSchema schema;
+
+  public TestCaseNameSchema() {
+    super();
+  }
+
+  @Before
+  public void setUp() {
+    this.schema = new NameSchema();
+    this.schema.declare(FULL, "${firstName} ${lastName}");
+    this.schema.declare(SORT, "${lastName}, ${firstName}");
+  }
+
+  private final SchemaNamed createParty(final String first, final String last) {
+    final SchemaNamed party = new SchemaNamed(this.schema);
+    party.putName(FIRST, new Name(new NameValue(first, true)));
+    party.putName(LAST, new Name(new NameValue(last, true)));
+    return party;
+  }
+
+  @Test
+  public void testDerivedNames() {
+    final SchemaNamed laird = this.createParty("Laird", "Nelson");
+    final SchemaNamed jane = this.createParty("Jane", "Doe");
+    assertEquals(2, laird.getNameTypes().size());
+    assertEquals(2, this.schema.getNameTypes().size());
+
+    final long compilations = NameStatistics.getInstance().getCompilations();
+    assertEquals("Laird Nelson", laird.getName(FULL).getValue());
+    assertEquals("Nelson, Laird", laird.getName(SORT).getValue());
+    assertEquals("Jane Doe", jane.getName(FULL).getValue());
+    assertSame(laird, laird.getName(FULL).getNamed());
+    assertSame(laird.getName(FULL).getNameValue(), jane.getName(FULL).getNameValue());
+    assertEquals(compilations, NameStatistics.getInstance().getCompilations());
+
+    // Derived Names are momentary until someone listens to them.
+    assertNotSame(laird.getName(FULL), laird.getName(FULL));
+    assertEquals(0, laird.getName(FIRST).getDependents().length);
+
+    assertNull(laird.getName(new NameType("nickname")));
+  }
+
+  @Test
+  public void testDerivedNamesNotify() {
+    final SchemaNamed laird = this.createParty("Laird", "Nelson");
+    final Name full = laird.getName(FULL);
+    assertEquals("Laird Nelson", full.getValue());
+    final List<Object> values = new ArrayList<Object>();
+    full.addPropertyListener("value", new PropertyListener<Name>() {
+        @Override
+        public final void propertyChanged(final Name source, final String name, final Object old, final Object newValue) {
+          values.add(newValue);
+        }
+      });
+    assertSame(full, laird.getName(FULL));
+    assertEquals(1, laird.getName(FIRST).getDependents().length);
+    laird.getName(FIRST).setValue("Lee");
+    assertEquals(Arrays.asList("Lee Nelson"), values);
+    assertSame(full, laird.getName(FULL));
+    assertEquals("Lee Nelson", full.getValue());
+  }
+
+  @Test
+  public void testRedeclaration() {
+    final SchemaNamed laird = this.createParty("Laird", "Nelson");
+    final Name full = laird.getName(FULL);
+    full.addPropertyListener("value", new PropertyListener<Name>() {
+        @Override
+        public final void propertyChanged(final Name source, final String name, final Object old, final Object newValue) {
+
+        }
+      });
+    assertEquals("Laird Nelson", full.getValue());
+    assertSame(full, laird.getName(FULL));
+    this.schema.declare(FULL, "${lastName} ${firstName}");
+    assertNotSame(full, laird.getName(FULL));
+    assertEquals("Nelson Laird", laird.getName(FULL).getValue());
+    assertEquals(0, laird.getName(FIRST).getDependents().length);
+  }
+
+  @Test
+  public void testRetainedHeapPerParty() {
+    final int parties = 20000;
+    final SchemaNamed[] named = new SchemaNamed[parties];
+    for (int i = 0; i < parties; i++) {
+      named[i] = this.createParty("First" + i, "Last" + i);
+    }
+    final long before = usedHeap();
+    for (final SchemaNamed party : named) {
+      assertNotNull(party.getName(FULL).getValue());
+      assertNotNull(party.getName(SORT).getValue());
+    }
+    final long after = usedHeap();
+    // Rendering derived Names must leave nothing behind per party.
+    assertTrue((after - before) / parties < 32);
+    assertEquals(parties, named.length);
+  }
+
+  private static final long usedHeap() {
+    final Runtime runtime = Runtime.getRuntime();
+    long used = Long.MAX_VALUE;
+    for (int i = 0; i < 5; i++) {
+      System.gc();
+      used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+    }
+    return used;
+  }
+
+  @Test
+  public void testOverride() {
+    final SchemaNamed laird = this.createParty("Laird", "Nelson");
+    final Name derived = laird.getName(FULL);
+    assertEquals("Laird Nelson", derived.getValue());
+    // A Name that was only derived is not a previous Name.
+    assertNull(laird.putName(FULL, new Name(new NameValue("${lastName} ${firstName}"))));
+    assertEquals(0, laird.getName(FIRST).getDependents().length);
+    assertEquals("Nelson Laird", laird.getName(FULL).getValue());
+    assertEquals("Jane Doe", this.createParty("Jane", "Doe").getName(FULL).getValue());
+    laird.removeName(FULL);
+    assertEquals("Laird Nelson", laird.getName(FULL).getValue());
+  }
+
+}
@@ -0,0 +1,121 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestCaseNameStatistics {
+
+  public TestCaseNameStatistics() {
+    super();
+  }
+
+  @Test
+  public void testStatistics() throws Exception {
+    final NameStatistics statistics = NameStatistics.getInstance();
+    assertTrue(statistics.isEnabled());
+
+    final AbstractNamed dude = new AbstractNamed() {
+        private static final long serialVersionUID = 1L;
+      };
+    dude.putName(new NameType("firstName"), new Name(new NameValue("Laird", true)));
+    dude.putName(new NameType("lastName"), new Name(new NameValue("Nelson", true)));
+
+    // Use a template no other test compiles so the shared
+    // TemplateCatalog can't satisfy it.
+    final long compilations = statistics.getCompilations();
+    final Name fullName = new Name(new NameValue("${firstName} ${lastName} (statistics)"));
+    dude.putName(new NameType("fullName"), fullName);
+    assertEquals(compilations + 1, statistics.getCompilations());
+
+    final long compileFailures = statistics.getCompileFailures();
+    try {
+      new Name(new NameValue("${BAD SYNTAX ON PURPOSE (statistics)"));
+      fail();
+    } catch (final IllegalStateException expected) {
+
+    }
+    assertEquals(compileFailures + 1, statistics.getCompileFailures());
+
+    final Name salutation = new Name(new NameValue("Dear ${fullName},"));
+    dude.putName(new NameType("salutation"), salutation);
+    final long renders = statistics.getRenders();
+    final long resolutions = statistics.getResolutions();
+    final long totalRenderTimeNanos = statistics.getTotalRenderTimeNanos();
+    assertEquals("Dear Laird Nelson (statistics),", salutation.getValue());
+    assertEquals(renders + 2, statistics.getRenders());
+    assertEquals(resolutions + 3, statistics.getResolutions());
+    assertTrue(statistics.getTotalRenderTimeNanos() > totalRenderTimeNanos);
+    assertTrue(statistics.getMaxRenderTimeNanos() > 0L);
+    assertTrue(statistics.getMaxResolutionDepth() >= 2);
+
+    final long renderFailures = statistics.getRenderFailures();
+    final Name broken = new Name(new NameValue("${firstName.noSuchMethod()}"));
+    dude.putName(new NameType("broken"), broken);
+    try {
+      broken.getValue();
+      fail();
+    } catch (final IllegalStateException expected) {
+
+    }
+    assertEquals(renderFailures + 1, statistics.getRenderFailures());
+
+    statistics.setEnabled(false);
+    try {
+      final long disabledRenders = statistics.getRenders();
+      salutation.getValue();
+      assertEquals(disabledRenders, statistics.getRenders());
+    } finally {
+      statistics.setEnabled(true);
+    }
+  }
+
+  @Test
+  public void testMBean() throws Exception {
+    final NameStatistics statistics = NameStatistics.getInstance();
+    statistics.registerMBean();
+    try {
+      statistics.registerMBean(); // idempotent
+      final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      final ObjectName objectName = new ObjectName(NameStatistics.OBJECT_NAME);
+      assertTrue(server.isRegistered(objectName));
+      assertTrue(server.getAttribute(objectName, "Renders") instanceof Long);
+    } finally {
+      statistics.unregisterMBean();
+    }
+    assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(new ObjectName(NameStatistics.OBJECT_NAME)));
+  }
+
+}
@@ -0,0 +1,137 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestCaseNameTypeFallbacks {
+
+  private static final NameType PREFERRED = new NameType("preferredName");
+
+  private static final NameType FIRST = new NameType("firstName");
+
+  private static final NameType LEGAL = new NameType("legalName");
+
+  private NameTypeFallbacks fallbacks;
+
+  private AbstractNamed dude;
+
+  private int lookups;
+
+  public TestCaseNameTypeFallbacks() {
+    super();
+  }
+
+  @Before
+  public void setUp() {
+    this.fallbacks = new NameTypeFallbacks();
+    this.fallbacks.setFallbacks(PREFERRED, FIRST, LEGAL);
+    this.dude = new AbstractNamed() {
+        private static final long serialVersionUID = 1L;
+        @Override
+        public final Name getName(final NameType nameType) {
+          if (LEGAL.equals(nameType)) {
+            lookups++;
+          }
+          return super.getName(nameType);
+        }
+      };
+    this.dude.setNameTypeFallbacks(this.fallbacks);
+    this.dude.putName(LEGAL, new Name(new NameValue("Laird", true)));
+    this.dude.putName(new NameType("lastName"), new Name(new NameValue("Nelson", true)));
+  }
+
+  @Test
+  public void testChain() {
+    assertEquals(2, this.fallbacks.getFallbacks(PREFERRED).size());
+    assertTrue(this.fallbacks.getFallbacks(FIRST).isEmpty());
+    assertEquals("Laird", this.dude.resolveName(PREFERRED).getValue());
+    assertNull(this.dude.getName(PREFERRED));
+
+    final Name first = new Name(new NameValue("Larry", true));
+    this.dude.putName(FIRST, first);
+    assertSame(first, this.dude.resolveName(PREFERRED));
+
+    final Name preferred = new Name(new NameValue("L.", true));
+    this.dude.putName(PREFERRED, preferred);
+    assertSame(preferred, this.dude.resolveName(PREFERRED));
+
+    this.dude.removeNames(Arrays.asList(PREFERRED, FIRST));
+    assertEquals("Laird", this.dude.resolveName(PREFERRED).getValue());
+
+    this.fallbacks.setFallbacks(PREFERRED);
+    assertNull(this.dude.resolveName(PREFERRED));
+  }
+
+  @Test
+  public void testResolutionIsCached() {
+    assertNotNull(this.dude.resolveName(PREFERRED));
+    final int lookups = this.lookups;
+    for (int i = 0; i < 10; i++) {
+      this.dude.resolveName(PREFERRED);
+    }
+    // One lookup per resolution to fetch the Name, none to walk the chain.
+    assertEquals(lookups + 10, this.lookups);
+    assertNull(this.dude.resolveName(new NameType("nickname")));
+  }
+
+  @Test
+  public void testTemplate() {
+    final Name fullName = new Name(new NameValue("${preferredName} ${lastName}"));
+    this.dude.putName(new NameType("fullName"), fullName);
+    final List<Object> values = new ArrayList<Object>();
+    fullName.addPropertyListener("value", new PropertyListener<Name>() {
+        @Override
+        public final void propertyChanged(final Name source, final String propertyName, final Object oldValue, final Object newValue) {
+          values.add(newValue);
+        }
+      });
+    assertEquals("Laird Nelson", fullName.getValue());
+
+    // Putting a Name under a type that was resolved through a
+    // fallback changes the value.
+    this.dude.putName(PREFERRED, new Name(new NameValue("L.", true)));
+    assertEquals("L. Nelson", fullName.getValue());
+    assertEquals(Arrays.<Object>asList("L. Nelson"), values);
+
+    // So does putting one under a fallback earlier in the chain than
+    // the one that was resolved.
+    this.dude.removeName(PREFERRED);
+    assertEquals("Laird Nelson", fullName.getValue());
+    this.dude.putName(FIRST, new Name(new NameValue("Larry", true)));
+    assertEquals(Arrays.<Object>asList("L. Nelson", "Laird Nelson", "Larry Nelson"), values);
+  }
+
+}
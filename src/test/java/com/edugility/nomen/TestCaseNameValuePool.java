@@ -0,0 +1,115 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2014 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestCaseNameValuePool {
+
+  private NameValuePool pool;
+
+  public TestCaseNameValuePool() {
+    super();
+  }
+
+  @Before
+  public void setUp() {
+    this.pool = new NameValuePool();
+  }
+
+  @Test
+  public void testInterning() {
+    final NameValue jr1 = this.pool.intern("Jr.");
+    assertNotNull(jr1);
+    assertTrue(jr1.isAtomic());
+    assertTrue(jr1.isInitialized());
+    final NameValue jr2 = this.pool.intern("Jr.");
+    assertSame(jr1, jr2);
+    assertSame(jr1, this.pool.intern(new NameValue("Jr.", true)));
+    assertEquals(1, this.pool.size());
+
+    // Templates are never interned.
+    final NameValue template = new NameValue("${firstName} ${lastName}");
+    assertSame(template, this.pool.intern(template));
+    assertEquals(-1, this.pool.getCode(template));
+    assertEquals(1, this.pool.size());
+  }
+
+  @Test
+  public void testOnlyEqualValuesAreInterned() {
+    final NameValue jr = this.pool.intern("Jr.");
+    final Map<Locale, String> templates = Collections.singletonMap(Locale.JAPANESE, "Jr.");
+    final NameValue localized = new LocalizedNameValue("Jr.", true, null, templates);
+    assertSame(localized, this.pool.intern(localized));
+    assertEquals(1, this.pool.size());
+
+    // A subclass instance is never made canonical.
+    final NameValue sr = new LocalizedNameValue("Sr.", true, null, templates);
+    assertSame(sr, this.pool.intern(sr));
+    assertEquals(1, this.pool.size());
+    final NameValue plain = this.pool.intern("Sr.");
+    assertNotSame(sr, plain);
+    assertFalse(plain instanceof LocalizedNameValue);
+    assertSame(jr, this.pool.intern("Jr."));
+  }
+
+  @Test
+  public void testCodes() {
+    final NameValue laird = this.pool.intern("Laird");
+    final NameValue nelson = this.pool.intern("Nelson");
+    assertEquals(0, this.pool.getCode(laird));
+    assertEquals(1, this.pool.getCode(nelson));
+    assertEquals(1, this.pool.getCode("Nelson"));
+    assertEquals(-1, this.pool.getCode("Smith"));
+    assertSame(laird, this.pool.getNameValue(0));
+    assertSame(nelson, this.pool.getNameValue(1));
+    assertNull(this.pool.getNameValue(2));
+    assertNull(this.pool.getNameValue(-1));
+  }
+
+  @Test
+  public void testPerPartyChangesAreIsolated() {
+    final Name smith1 = new Name(this.pool.intern("Smith"));
+    final Name smith2 = new Name(this.pool.intern("Smith"));
+    assertSame(smith1.getNameValue(), smith2.getNameValue());
+
+    // One party changes their last name; the other must be unaffected.
+    smith1.setNameValue(this.pool.intern("Smyth"));
+    assertEquals("Smyth", smith1.getValue());
+    assertEquals("Smith", smith2.getValue());
+    assertEquals("Smith", this.pool.getNameValue(0).getValue());
+  }
+
+}
@@ -27,6 +27,12 @@
  */
 package com.edugility.nomen;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import org.junit.Before;
 import org.junit.Test;
 
@@ -80,4 +86,85 @@ public class TestCaseOwnership {
 
   }
 
+  @Test
+  public void testMonitorAsPropertyChangeListener() {
+    final Name laird = new Name(this.dude1, new NameValue("Laird"));
+    final Map<NameType, Name> names = new HashMap<NameType, Name>();
+    names.put(new NameType("first"), laird);
+    final java.beans.PropertyChangeListener monitor = new NameOwnershipMonitor(this.dude1, names.entrySet());
+    laird.addPropertyChangeListener("named", monitor);
+    laird.setNamed(this.dude2);
+    assertTrue(names.isEmpty());
+  }
+
+  @Test
+  public void testAliasRemoval() {
+    final Name laird = new Name(new NameValue("Laird", true));
+    final NameType first = new NameType("first");
+    final NameType preferred = new NameType("preferred");
+    this.dude1.putName(first, laird);
+    this.dude1.putName(preferred, laird);
+    for (int i = 0; i < 100; i++) {
+      this.dude1.putName(new NameType("other" + i), new Name(new NameValue("Other" + i, true)));
+    }
+
+    // Removing one alias leaves the Name owned and monitored.
+    assertSame(laird, this.dude1.removeName(preferred));
+    assertSame(this.dude1, laird.getNamed());
+    assertEquals(1, laird.getPropertyChangeListeners("named").length);
+
+    // Replacing the last alias disowns it and stops monitoring it.
+    final Name jarrett = new Name(new NameValue("Jarrett", true));
+    assertSame(laird, this.dude1.putName(first, jarrett));
+    assertNull(laird.getNamed());
+    assertEquals(0, laird.getPropertyChangeListeners("named").length);
+    assertSame(this.dude1, jarrett.getNamed());
+
+    // Moving a Name to another owner removes it from the first.
+    this.dude2.putName(first, jarrett);
+    assertSame(this.dude2, jarrett.getNamed());
+    assertNull(this.dude1.getName(first));
+    assertSame(jarrett, this.dude2.getName(first));
+    assertEquals(1, jarrett.getPropertyChangeListeners("named").length);
+    assertEquals(100, this.dude1.getNameTypes().size());
+  }
+
+  @Test
+  public void testMoveNotifiesAndInvalidates() {
+    final NameType first = new NameType("first");
+    final NameType preferred = new NameType("preferred");
+    final NameTypeFallbacks fallbacks = new NameTypeFallbacks();
+    fallbacks.setFallbacks(preferred, first);
+    this.dude1.setNameTypeFallbacks(fallbacks);
+    final Name laird = new Name(new NameValue("Laird", true));
+    this.dude1.putName(first, laird);
+    assertSame(laird, this.dude1.resolveName(preferred));
+
+    final List<Object> changes = new ArrayList<Object>();
+    this.dude1.addPropertyListener("names", new PropertyListener<AbstractNamed>() {
+        @Override
+        public final void propertyChanged(final AbstractNamed source, final String propertyName, final Object oldValue, final Object newValue) {
+          changes.add(newValue);
+        }
+      });
+
+    // Moving the Name to another owner is a removal as far as dude1
+    // is concerned.
+    this.dude2.putName(first, laird);
+    assertNull(this.dude1.getName(first));
+    assertNull(this.dude1.resolveName(preferred));
+    assertEquals(1, changes.size());
+    assertEquals(Collections.singleton(first), changes.get(0));
+
+    // The same goes for its descendants' inherited Names.
+    final HierarchicalNamed parent = new HierarchicalNamed();
+    final HierarchicalNamed child = new HierarchicalNamed(parent);
+    final Name nelson = new Name(new NameValue("Nelson", true));
+    parent.putName(first, nelson);
+    assertSame(nelson, child.getName(first));
+    this.dude2.putName(preferred, nelson);
+    assertNull(parent.getName(first));
+    assertNull(child.getName(first));
+  }
+
 }
@@ -0,0 +1,114 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestCasePrecompiledTemplate {
+
+  private static final String GREETING = "Precompiled ${firstName}  @{lastName}!";
+
+  private AbstractNamed dude;
+
+  private Name lastName;
+
+  public TestCasePrecompiledTemplate() {
+    super();
+  }
+
+  @Before
+  public void setUp() {
+    this.dude = new AbstractNamed() {
+        private static final long serialVersionUID = 1L;
+      };
+    this.dude.putName(new NameType("firstName"), new Name(new NameValue("Laird", true)));
+    this.lastName = new Name(new NameValue("Nelson", true));
+    this.dude.putName(new NameType("lastName"), this.lastName);
+  }
+
+  @Test
+  public void testPrecompiledTemplateIsLoaded() {
+    assertTrue(TemplateCatalog.getInstance().getCompiledTemplate(GREETING) instanceof Greeting);
+    assertEquals(1, new TemplateCatalog().loadPrecompiledTemplates(this.getClass().getClassLoader()));
+  }
+
+  @Test
+  public void testPrecompiledTemplateIsExecuted() {
+    final long compilations = NameStatistics.getInstance().getCompilations();
+    final Name greeting = new Name(new NameValue(GREETING));
+    this.dude.putName(new NameType("greeting"), greeting);
+    assertEquals("Precompiled Laird Nelson!", greeting.getValue());
+    assertEquals(compilations, NameStatistics.getInstance().getCompilations());
+
+    // Dependencies are registered as they are for runtime-compiled templates.
+    final Object[] newValue = new Object[1];
+    greeting.addPropertyListener("value", new PropertyListener<Name>() {
+        @Override
+        public final void propertyChanged(final Name source, final String propertyName, final Object oldValue, final Object value) {
+          newValue[0] = value;
+        }
+      });
+    this.lastName.setValue("Smith");
+    assertEquals("Precompiled Laird Smith!", newValue[0]);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testUnresolvableVariable() {
+    this.dude.removeName(new NameType("lastName"));
+    final Name greeting = new Name(new NameValue(GREETING));
+    this.dude.putName(new NameType("greeting"), greeting);
+    greeting.getValue();
+  }
+
+  public static final class Greeting extends PrecompiledTemplate {
+
+    public Greeting() {
+      super();
+    }
+
+    @Override
+    public final String getTemplate() {
+      return GREETING;
+    }
+
+    @Override
+    public final Object execute(final TemplateContext context) {
+      final StringBuilder sb = new StringBuilder("Precompiled ");
+      sb.append(resolve(context, "firstName"));
+      sb.append("  ");
+      sb.append(resolve(context, "lastName"));
+      sb.append('!');
+      return sb.toString();
+    }
+
+  }
+
+}
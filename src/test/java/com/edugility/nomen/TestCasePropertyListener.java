@@ -0,0 +1,121 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeListenerProxy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestCasePropertyListener {
+
+  public TestCasePropertyListener() {
+    super();
+  }
+
+  @Test
+  public void testPropertyListener() {
+    final Name name = new Name(new NameValue("Laird", true));
+    assertFalse(name.hasPropertyListeners("nameValue"));
+
+    final List<String> changes = new ArrayList<String>();
+    final PropertyListener<Name> listener = new PropertyListener<Name>() {
+        @Override
+        public final void propertyChanged(final Name source, final String propertyName, final Object oldValue, final Object newValue) {
+          assertSame(name, source);
+          changes.add(propertyName + ": " + oldValue + " -> " + newValue);
+        }
+      };
+    name.addPropertyListener("nameValue", listener);
+    assertTrue(name.hasPropertyListeners("nameValue"));
+    assertFalse(name.hasPropertyListeners("named"));
+
+    name.setNameValue(new NameValue("Jarrett", true));
+    name.setNameValue(new NameValue("Jarrett", true)); // no change
+    assertEquals(1, changes.size());
+    assertEquals("nameValue: Laird -> Jarrett", changes.get(0));
+
+    // Typed listeners are visible through the JavaBeans API.
+    assertEquals(1, name.getPropertyChangeListeners("nameValue").length);
+    final PropertyChangeListener[] all = name.getPropertyChangeListeners();
+    assertEquals(1, all.length);
+    assertTrue(all[0] instanceof PropertyChangeListenerProxy);
+    assertEquals("nameValue", ((PropertyChangeListenerProxy)all[0]).getPropertyName());
+
+    name.removePropertyListener("nameValue", listener);
+    assertFalse(name.hasPropertyListeners("nameValue"));
+    name.setNameValue(new NameValue("Nelson", true));
+    assertEquals(1, changes.size());
+  }
+
+  @Test
+  public void testPropertyChangeListenerAdapter() {
+    final Name name = new Name(new NameValue("Laird", true));
+    final List<PropertyChangeEvent> events = new ArrayList<PropertyChangeEvent>();
+    final PropertyChangeListener pcl = new PropertyChangeListener() {
+        @Override
+        public final void propertyChange(final PropertyChangeEvent event) {
+          events.add(event);
+        }
+      };
+    name.addPropertyChangeListener(pcl);
+    assertTrue(name.hasPropertyListeners("nameValue"));
+    assertTrue(name.hasPropertyListeners("named"));
+    final PropertyChangeListener[] pcls = name.getPropertyChangeListeners();
+    assertEquals(1, pcls.length);
+    assertSame(pcl, pcls[0]);
+
+    name.setNameValue(new NameValue("Jarrett", true));
+    assertEquals(1, events.size());
+    final PropertyChangeEvent event = events.get(0);
+    assertSame(name, event.getSource());
+    assertEquals("nameValue", event.getPropertyName());
+
+    name.removePropertyChangeListener(pcl);
+    assertFalse(name.hasPropertyListeners("nameValue"));
+    assertEquals(0, name.getPropertyChangeListeners().length);
+
+    // As with PropertyChangeSupport, proxies returned by
+    // getPropertyChangeListeners() can be removed and re-added.
+    name.addPropertyChangeListener("named", pcl);
+    final PropertyChangeListener proxy = name.getPropertyChangeListeners()[0];
+    name.removePropertyChangeListener(proxy);
+    assertFalse(name.hasPropertyListeners("named"));
+    name.addPropertyChangeListener(proxy);
+    assertTrue(name.hasPropertyListeners("named"));
+    assertFalse(name.hasPropertyListeners("nameValue"));
+    assertSame(pcl, name.getPropertyChangeListeners("named")[0]);
+  }
+
+}
@@ -0,0 +1,147 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestCaseRenderLimits {
+
+  private AbstractNamed dude;
+
+  public TestCaseRenderLimits() {
+    super();
+  }
+
+  @Before
+  public void setUp() {
+    this.dude = new AbstractNamed() {
+        private static final long serialVersionUID = 1L;
+      };
+    this.dude.putName(new NameType("first"), new Name(new NameValue("Laird", true)));
+    this.dude.putName(new NameType("last"), new Name(new NameValue("Nelson", true)));
+  }
+
+  @After
+  public void tearDown() {
+    RenderLimits.setInstance(null);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeLimit() {
+    new RenderLimits(0L, -1, 0);
+  }
+
+  @Test
+  public void testUnlimited() {
+    assertSame(RenderLimits.NONE, RenderLimits.getInstance());
+    assertTrue(RenderLimits.NONE.isUnlimited());
+    final String template = "${first} ${last} (unlimited)";
+    final TemplateCatalog catalog = TemplateCatalog.getInstance();
+    final Name name = new Name(this.dude, new NameValue(template));
+    final long renders = catalog.getRenders(template);
+    assertEquals("Laird Nelson (unlimited)", name.getValue());
+    assertEquals(renders + 1L, catalog.getRenders(template));
+    assertEquals(0L, catalog.getLimitsExceeded(template));
+  }
+
+  @Test
+  public void testResolutionDepthLimit() {
+    final String inner = "${first} ${last} (depth)";
+    this.dude.putName(new NameType("full"), new Name(new NameValue(inner)));
+    final Name name = new Name(this.dude, new NameValue("Dear ${full}"));
+    RenderLimits.setInstance(new RenderLimits(0L, 0, 1));
+    try {
+      name.getValue();
+      fail();
+    } catch (final RenderLimitExceededException expected) {
+      assertSame(RenderLimitExceededException.Limit.RESOLUTION_DEPTH, expected.getLimit());
+      assertEquals(inner, expected.getTemplate());
+    }
+    assertEquals(1L, TemplateCatalog.getInstance().getLimitsExceeded(inner));
+    assertEquals(0, NameStatistics.getInstance().getResolutionDepth());
+    RenderLimits.setInstance(new RenderLimits(0L, 0, 2));
+    assertEquals("Dear Laird Nelson (depth)", name.getValue());
+  }
+
+  @Test
+  public void testOutputLengthLimit() {
+    final String template = "${first} ${last} (length)";
+    final Name name = new Name(this.dude, new NameValue(template));
+    RenderLimits.setInstance(new RenderLimits(0L, 10, 0));
+    try {
+      name.getValue();
+      fail();
+    } catch (final RenderLimitExceededException expected) {
+      assertSame(RenderLimitExceededException.Limit.OUTPUT_LENGTH, expected.getLimit());
+      assertEquals(template, expected.getTemplate());
+    }
+    assertEquals(1L, TemplateCatalog.getInstance().getLimitsExceeded(template));
+  }
+
+  @Test
+  public void testLimitsStopLoopingTemplates() {
+    final String template = "@foreach{i : 100000000}${first}@end{}";
+    final Name name = new Name(this.dude, new NameValue(template));
+    RenderLimits.setInstance(new RenderLimits(0L, 100, 0));
+    try {
+      name.getValue();
+      fail();
+    } catch (final RenderLimitExceededException expected) {
+      assertSame(RenderLimitExceededException.Limit.OUTPUT_LENGTH, expected.getLimit());
+      assertEquals(template, expected.getTemplate());
+    }
+    RenderLimits.setInstance(new RenderLimits(50000000L, 0, 0));
+    try {
+      name.getValue();
+      fail();
+    } catch (final RenderLimitExceededException expected) {
+      assertSame(RenderLimitExceededException.Limit.TIME, expected.getLimit());
+    }
+  }
+
+  @Test
+  public void testTimeLimit() {
+    final String template = "${first} ${last} (time)";
+    final Name name = new Name(this.dude, new NameValue(template));
+    RenderLimits.setInstance(new RenderLimits(1L, 0, 0));
+    try {
+      name.getValue();
+      fail();
+    } catch (final RenderLimitExceededException expected) {
+      assertSame(RenderLimitExceededException.Limit.TIME, expected.getLimit());
+      assertEquals(template, expected.getTemplate());
+    }
+    RenderLimits.setInstance(null);
+    assertEquals("Laird Nelson (time)", name.getValue());
+  }
+
+}
@@ -0,0 +1,96 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import com.edugility.nomen.mvel.MvelTemplateEngine;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestCaseTemplateEngine {
+
+  private static final String TEMPLATE = "Dear ${firstName} @{ lastName }, $${x} @@{y} a@b.com $5";
+
+  private AbstractNamed dude;
+
+  public TestCaseTemplateEngine() {
+    super();
+  }
+
+  @Before
+  public void setUp() {
+    this.dude = new AbstractNamed() {
+        private static final long serialVersionUID = 1L;
+      };
+    this.dude.putName(new NameType("firstName"), new Name(new NameValue("Laird", true)));
+    this.dude.putName(new NameType("lastName"), new Name(new NameValue("Nelson", true)));
+  }
+
+  @Test
+  public void testDefaultEngineIsMvel() {
+    assertTrue(TemplateEngine.getInstance() instanceof MvelTemplateEngine);
+  }
+
+  @Test
+  public void testSimpleEngineRendersLikeMvel() {
+    final TemplateEngine simple = new SimpleTemplateEngine();
+    final TemplateEngine mvel = new MvelTemplateEngine();
+    final TemplateContext simpleContext = new TemplateContext(this.dude);
+    final TemplateContext mvelContext = new TemplateContext(this.dude);
+    final Object simpleResult = simple.execute(simple.compile(TEMPLATE), simpleContext);
+    assertEquals("Dear Laird Nelson, ${x} @{y} a@b.com $5", simpleResult);
+    assertEquals(mvel.execute(mvel.compile(TEMPLATE), mvelContext), simpleResult);
+    assertEquals(new HashSet<String>(Arrays.asList("firstName", "lastName")), simpleContext.getVariables());
+    assertEquals(simpleContext.getVariables(), mvelContext.getVariables());
+  }
+
+  @Test
+  public void testSimpleEngineRejectsExpressions() {
+    final TemplateEngine simple = new SimpleTemplateEngine();
+    for (final String template : new String[] { "${firstName.toUpperCase()}", "@if{true}x@end{}", "${firstName" }) {
+      try {
+        simple.compile(template);
+        fail(template);
+      } catch (final IllegalStateException expected) {
+
+      }
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testSimpleEngineUnresolvableVariable() {
+    final TemplateEngine simple = new SimpleTemplateEngine();
+    simple.execute(simple.compile("${nickname}"), new TemplateContext(this.dude));
+  }
+
+}
@@ -0,0 +1,129 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestCaseUpdateTransactions {
+
+  public TestCaseUpdateTransactions() {
+    super();
+  }
+
+  @Test
+  public void testNameUpdateCoalescesChanges() {
+    final Name name = new Name("Laird");
+    final List<Object[]> changes = new ArrayList<Object[]>();
+    name.addPropertyListener(null, new PropertyListener<Name>() {
+        @Override
+        public final void propertyChanged(final Name source, final String propertyName, final Object oldValue, final Object newValue) {
+          changes.add(new Object[] { propertyName, oldValue, newValue });
+        }
+      });
+    name.beginUpdate();
+    name.setValue("Jarrett");
+    name.beginUpdate();
+    name.setValue("Nelson");
+    name.commit();
+    assertTrue(changes.isEmpty());
+    assertEquals("Nelson", name.getValue());
+    name.commit();
+
+    int valueChanges = 0;
+    int nameValueChanges = 0;
+    for (final Object[] change : changes) {
+      if ("value".equals(change[0])) {
+        valueChanges++;
+        assertEquals("Laird", change[1]);
+        assertEquals("Nelson", change[2]);
+      } else if ("nameValue".equals(change[0])) {
+        nameValueChanges++;
+        assertEquals("Laird", ((NameValue)change[1]).getValue());
+        assertEquals("Nelson", ((NameValue)change[2]).getValue());
+      }
+    }
+    assertEquals(1, valueChanges);
+    assertEquals(1, nameValueChanges);
+  }
+
+  @Test
+  public void testRevertedNameUpdateIsSilent() {
+    final Name name = new Name("Laird");
+    final List<String> changes = new ArrayList<String>();
+    name.addPropertyListener("value", new PropertyListener<Name>() {
+        @Override
+        public final void propertyChanged(final Name source, final String propertyName, final Object oldValue, final Object newValue) {
+          changes.add(propertyName);
+        }
+      });
+    name.beginUpdate();
+    name.setValue("Jarrett");
+    name.setValue("Laird");
+    name.commit();
+    assertTrue(changes.isEmpty());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testCommitWithoutUpdate() {
+    new Name("Laird").commit();
+  }
+
+  @Test
+  public void testNamedUpdateCoalescesChanges() {
+    final AbstractNamed dude = new AbstractNamed() {
+        private static final long serialVersionUID = 1L;
+      };
+    final List<Set<?>> changes = new ArrayList<Set<?>>();
+    dude.addPropertyListener("names", new PropertyListener<AbstractNamed>() {
+        @Override
+        public final void propertyChanged(final AbstractNamed source, final String propertyName, final Object oldValue, final Object newValue) {
+          changes.add((Set<?>)newValue);
+        }
+      });
+    final NameType first = new NameType("first");
+    final NameType last = new NameType("last");
+    dude.beginUpdate();
+    dude.putName(first, new Name(new NameValue("Laird", true)));
+    dude.putName(last, new Name(new NameValue("Nelson", true)));
+    dude.removeName(first);
+    assertTrue(changes.isEmpty());
+    dude.commit();
+    assertEquals(1, changes.size());
+    final Set<?> nameTypes = changes.get(0);
+    assertEquals(2, nameTypes.size());
+    assertTrue(nameTypes.contains(first));
+    assertTrue(nameTypes.contains(last));
+  }
+
+}
@@ -0,0 +1,222 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2014 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+
+import java.util.Collections;
+import java.util.Locale;
+
+import com.edugility.nomen.AbstractNamed;
+import com.edugility.nomen.LocalizedNameValue;
+import com.edugility.nomen.Name;
+import com.edugility.nomen.NameType;
+import com.edugility.nomen.NameValue;
+import com.edugility.nomen.TemplateCatalog;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestCaseNameCodec {
+
+  private static final String FULL_NAME_TEMPLATE = "${firstName} ${lastName}";
+
+  private AbstractNamed dude;
+
+  public TestCaseNameCodec() {
+    super();
+  }
+
+  @Before
+  public void setUp() {
+    this.dude = new AbstractNamed() {
+        private static final long serialVersionUID = 1L;
+      };
+    final Name laird = new Name(new NameValue("Laird", true));
+    this.dude.putName(new NameType("firstName"), laird);
+    this.dude.putName(new NameType("preferredName"), laird);
+    this.dude.putName(new NameType("lastName"), new Name(new NameValue("Nelson", true)));
+    this.dude.putName(new NameType("fullName"), new Name(new NameValue(FULL_NAME_TEMPLATE)));
+  }
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    final TemplateCatalog catalog = new TemplateCatalog();
+    catalog.register(FULL_NAME_TEMPLATE);
+
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    final NameEncoder encoder = new NameEncoder(new DataOutputStream(bytes), catalog);
+    encoder.writeNamed(this.dude);
+    encoder.writeNamed(this.dude);
+
+    final AbstractNamed copy1 = new AbstractNamed() {
+        private static final long serialVersionUID = 1L;
+      };
+    final AbstractNamed copy2 = new AbstractNamed() {
+        private static final long serialVersionUID = 1L;
+      };
+    final NameDecoder decoder = new NameDecoder(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), catalog);
+    assertEquals(4, decoder.readNames(copy1));
+    assertEquals(4, decoder.readNames(copy2));
+
+    for (final AbstractNamed copy : new AbstractNamed[] { copy1, copy2 }) {
+      assertEquals(4, copy.getNameTypes().size());
+      assertEquals("Laird Nelson", copy.getName(new NameType("fullName")).getValue());
+      final Name first = copy.getName(new NameType("firstName"));
+      assertSame(copy, first.getNamed());
+      assertSame(first, copy.getName(new NameType("preferredName")));
+      assertTrue(first.getNameValue().isAtomic());
+      assertEquals(" ", copy.getName(new NameType("fullName")).getNameValue().getWhitespaceReplacement());
+    }
+  }
+
+  @Test
+  public void testLocalizedRoundTrip() throws IOException {
+    final NameValue localized = new LocalizedNameValue(FULL_NAME_TEMPLATE, Collections.singletonMap(Locale.JAPANESE, "${lastName} ${firstName}"));
+    this.dude.putName(new NameType("fullName"), new Name(localized));
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    new NameEncoder(new DataOutputStream(bytes)).writeNamed(this.dude);
+
+    final AbstractNamed copy = new AbstractNamed() {
+        private static final long serialVersionUID = 1L;
+      };
+    new NameDecoder(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))).readNames(copy);
+    final Name fullName = copy.getName(new NameType("fullName"));
+    assertEquals(localized, fullName.getNameValue());
+    assertEquals("Nelson Laird", fullName.getValue(Locale.JAPAN));
+    assertEquals("Laird Nelson", fullName.getValue(Locale.US));
+  }
+
+  @Test
+  public void testCompactness() throws IOException {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    new NameEncoder(new DataOutputStream(bytes)).writeNamed(this.dude);
+
+    final ByteArrayOutputStream serializedBytes = new ByteArrayOutputStream();
+    final ObjectOutputStream oos = new ObjectOutputStream(serializedBytes);
+    oos.writeObject(this.dude.getName(new NameType("fullName")).getNameValue());
+    oos.close();
+
+    // The whole name set is smaller than one serialized NameValue.
+    assertTrue(bytes.size() < serializedBytes.size());
+  }
+
+  @Test(expected = StreamCorruptedException.class)
+  public void testUnknownCatalogId() throws IOException {
+    final TemplateCatalog catalog = new TemplateCatalog();
+    catalog.register(FULL_NAME_TEMPLATE);
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    new NameEncoder(new DataOutputStream(bytes), catalog).writeNamed(this.dude);
+    final AbstractNamed copy = new AbstractNamed() {
+        private static final long serialVersionUID = 1L;
+      };
+    new NameDecoder(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), new TemplateCatalog()).readNames(copy);
+  }
+
+  @Test(expected = StreamCorruptedException.class)
+  public void testCatalogMismatch() throws IOException {
+    final TemplateCatalog writerCatalog = new TemplateCatalog();
+    writerCatalog.register("${lastName}, ${firstName}");
+    writerCatalog.register(FULL_NAME_TEMPLATE);
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    new NameEncoder(new DataOutputStream(bytes), writerCatalog).writeNamed(this.dude);
+
+    // Same templates, different order, so id 1 means something else.
+    final TemplateCatalog readerCatalog = new TemplateCatalog();
+    readerCatalog.register(FULL_NAME_TEMPLATE);
+    readerCatalog.register("${lastName}, ${firstName}");
+    final AbstractNamed copy = new AbstractNamed() {
+        private static final long serialVersionUID = 1L;
+      };
+    new NameDecoder(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), readerCatalog).readNames(copy);
+  }
+
+  @Test
+  public void testCompilingDoesNotRegister() {
+    final String template = "${lastName} (" + this.getClass().getName() + ")";
+    this.dude.putName(new NameType("custom"), new Name(new NameValue(template)));
+    assertNotNull(TemplateCatalog.getInstance().getCompiledTemplate(template));
+    assertEquals(-1, TemplateCatalog.getInstance().getId(template));
+  }
+
+  @Test
+  public void testLongString() throws IOException {
+    final StringBuilder sb = new StringBuilder();
+    while (sb.length() < 70000) {
+      sb.append("Ll\u00e6\u00efr\ud83d\ude00d ");
+    }
+    final String value = sb.toString();
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    new NameEncoder(new DataOutputStream(bytes)).writeNameValue(new NameValue(value, true));
+    final NameValue copy = new NameDecoder(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))).readNameValue();
+    assertEquals(value, copy.getValue());
+  }
+
+  @Test(expected = StreamCorruptedException.class)
+  public void testBadMagic() throws IOException {
+    new NameDecoder(new DataInputStream(new ByteArrayInputStream(new byte[] { 1, 2, 3, 4, 5 }))).readName();
+  }
+
+  @Test
+  public void testVarIntBounds() throws IOException {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    NameCodec.writeVarInt(new DataOutputStream(bytes), Integer.MAX_VALUE);
+    assertEquals(Integer.MAX_VALUE, NameCodec.readVarInt(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))));
+    final byte[][] malformed = {
+      { (byte)0xFF, (byte)0xFF, (byte)0xFF, (byte)0xFF, 0x08 }, // negative
+      { (byte)0xFF, (byte)0xFF, (byte)0xFF, (byte)0xFF, 0x17 }, // high bits
+      { (byte)0x80, (byte)0x80, (byte)0x80, (byte)0x80, (byte)0x80, 0x00 } // too long
+    };
+    for (final byte[] b : malformed) {
+      try {
+        NameCodec.readVarInt(new DataInputStream(new ByteArrayInputStream(b)));
+        fail();
+      } catch (final StreamCorruptedException expected) {
+
+      }
+    }
+  }
+
+  @Test(expected = StreamCorruptedException.class)
+  public void testImplausibleStringLength() throws IOException {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    final DataOutputStream out = new DataOutputStream(bytes);
+    NameCodec.writeVarInt(out, Integer.MAX_VALUE);
+    out.writeBytes("Laird");
+    NameCodec.readString(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+  }
+
+}
@@ -0,0 +1,163 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2015 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.edugility.nomen.AbstractNamed;
+import com.edugility.nomen.Name;
+import com.edugility.nomen.NameType;
+import com.edugility.nomen.NameValue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestCaseNameExporter {
+
+  private static final NameType FIRST_NAME = new NameType("firstName");
+
+  private static final NameType LAST_NAME = new NameType("lastName");
+
+  private static final NameType FULL_NAME = new NameType("fullName");
+
+  private List<AbstractNamed> nameds;
+
+  public TestCaseNameExporter() {
+    super();
+  }
+
+  @Before
+  public void setUp() {
+    this.nameds = new ArrayList<AbstractNamed>();
+    this.nameds.add(newNamed("Laird", "Nelson"));
+    this.nameds.add(null);
+    this.nameds.add(newNamed("Zoë", "Æsir"));
+  }
+
+  private static final AbstractNamed newNamed(final String firstName, final String lastName) {
+    final AbstractNamed named = new AbstractNamed() {
+        private static final long serialVersionUID = 1L;
+      };
+    named.putName(FIRST_NAME, new Name(new NameValue(firstName, true)));
+    if (lastName != null) {
+      named.putName(LAST_NAME, new Name(new NameValue(lastName, true)));
+    }
+    named.putName(FULL_NAME, new Name(new NameValue("${firstName} ${lastName}")));
+    return named;
+  }
+
+  private final String export(final NameExporter exporter) throws IOException {
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    final WritableByteChannel channel = Channels.newChannel(baos);
+    final long count = exporter.export(this.nameds, channel);
+    assertEquals((long)(this.nameds.size() - 1), count);
+    return new String(baos.toByteArray(), "UTF-8");
+  }
+
+  @Test
+  public void testDelimited() throws IOException {
+    final NameExporter exporter = new NameExporter(FULL_NAME, LAST_NAME, new NameType("nickname"));
+    exporter.setDelimiter(",");
+    assertEquals("Laird Nelson,Nelson,\nZoë Æsir,Æsir,\n", this.export(exporter));
+  }
+
+  @Test
+  public void testDelimitedRoundTrip() throws IOException {
+    this.nameds.add(newNamed("Jean, \"JJ\"", "Smith\r\nJones\nJr."));
+    final NameExporter exporter = new NameExporter(FIRST_NAME, LAST_NAME);
+    exporter.setDelimiter(",");
+    final String csv = this.export(exporter);
+    assertEquals("Laird,Nelson\nZoë,Æsir\n\"Jean, \"\"JJ\"\"\",\"Smith\r\nJones\nJr.\"\n", csv);
+
+    final NameImporter<AbstractNamed> importer = new NameImporter<AbstractNamed>(NameImporter.Format.CSV, new NamedFactory<AbstractNamed>() {
+        @Override
+        public final AbstractNamed newNamed() {
+          return new AbstractNamed() {
+            private static final long serialVersionUID = 1L;
+          };
+        }
+      });
+    final List<AbstractNamed> results = new ArrayList<AbstractNamed>();
+    importer.importNames(new StringReader("firstName,lastName\n" + csv), new NamedSink<AbstractNamed>() {
+        @Override
+        public final void accept(final AbstractNamed named) {
+          results.add(named);
+        }
+      });
+    assertEquals(3, results.size());
+    assertEquals("Jean, \"JJ\"", results.get(2).getName(FIRST_NAME).getValue());
+    assertEquals("Smith\r\nJones\nJr.", results.get(2).getName(LAST_NAME).getValue());
+  }
+
+  @Test
+  public void testSurrogatesAcrossFields() throws IOException {
+    this.nameds.clear();
+    this.nameds.add(null);
+    // The pair is split between two fields with nothing between them.
+    this.nameds.add(newNamed("Smile \ud83d", "\ude00!"));
+    final NameExporter exporter = new NameExporter(FIRST_NAME, LAST_NAME);
+    exporter.setDelimiter("");
+    assertEquals("Smile \ud83d\ude00!\n", this.export(exporter));
+  }
+
+  @Test
+  public void testFixedWidthCodePoints() throws IOException {
+    this.nameds.clear();
+    this.nameds.add(null);
+    this.nameds.add(newNamed("\ud83d\ude00\ud83d\ude00\ud83d\ude00", "Zoë"));
+    final NameExporter exporter = new NameExporter(FIRST_NAME, LAST_NAME);
+    exporter.setFieldWidths(2, 4);
+    assertEquals("\ud83d\ude00\ud83d\ude00Zoë \n", this.export(exporter));
+  }
+
+  @Test
+  public void testFixedWidth() throws IOException {
+    final NameExporter exporter = new NameExporter(FIRST_NAME, LAST_NAME);
+    exporter.setFieldWidths(4, 8);
+    exporter.setRecordSeparator("\r\n");
+    assertEquals("LairNelson  \r\nZoë Æsir    \r\n", this.export(exporter));
+  }
+
+  @Test
+  public void testSmallBuffers() throws IOException {
+    final NameExporter exporter = new NameExporter(FULL_NAME, FIRST_NAME);
+    exporter.setByteBufferPool(new ByteBufferPool(4, 1));
+    assertEquals("Laird Nelson\tLaird\nZoë Æsir\tZoë\n", this.export(exporter));
+  }
+
+}
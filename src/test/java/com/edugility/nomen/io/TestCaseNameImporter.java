@@ -0,0 +1,144 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2014 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen.io;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.edugility.nomen.AbstractNamed;
+import com.edugility.nomen.NameType;
+import com.edugility.nomen.NameValue;
+import com.edugility.nomen.NameValuePool;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestCaseNameImporter {
+
+  private static final NameType FIRST_NAME = new NameType("firstName");
+
+  private static final NameType LAST_NAME = new NameType("lastName");
+
+  private static final NameType FULL_NAME = new NameType("fullName");
+
+  private static final NamedFactory<AbstractNamed> FACTORY = new NamedFactory<AbstractNamed>() {
+    @Override
+    public final AbstractNamed newNamed() {
+      return new AbstractNamed() {
+        private static final long serialVersionUID = 1L;
+      };
+    }
+  };
+
+  public TestCaseNameImporter() {
+    super();
+  }
+
+  @Test
+  public void testCsv() throws IOException {
+    final String csv =
+      "firstName,lastName\r\n" +
+      "Laird,Nelson\r\n" +
+      "\n" +
+      "\"Jean, \"\"JJ\"\"\",\"Smith\nJones\"\n" +
+      "Laird,\n";
+    final NameImporter<AbstractNamed> importer = new NameImporter<AbstractNamed>(NameImporter.Format.CSV, FACTORY);
+    final NameValuePool pool = new NameValuePool();
+    importer.setNameValuePool(pool);
+    final NameValue fullNameTemplate = new NameValue("${firstName} ${lastName}");
+    importer.putTemplate(FULL_NAME, fullNameTemplate);
+    final List<AbstractNamed> results = new ArrayList<AbstractNamed>();
+    assertEquals(3L, importer.importNames(new StringReader(csv), new ListSink(results)));
+    assertEquals(3, results.size());
+
+    assertEquals("Laird Nelson", results.get(0).getName(FULL_NAME).getValue());
+    assertEquals("Jean, \"JJ\"", results.get(1).getName(FIRST_NAME).getValue());
+    assertEquals("Smith\nJones", results.get(1).getName(LAST_NAME).getValue());
+    assertNull(results.get(2).getName(LAST_NAME));
+
+    // Atomic values are shared through the pool, and the template is
+    // shared outright.
+    assertSame(results.get(0).getName(FIRST_NAME).getNameValue(), results.get(2).getName(FIRST_NAME).getNameValue());
+    assertSame(fullNameTemplate, results.get(2).getName(FULL_NAME).getNameValue());
+  }
+
+  @Test
+  public void testParallelJsonLines() throws IOException {
+    final StringBuilder json = new StringBuilder();
+    final int count = 1000;
+    for (int i = 0; i < count; i++) {
+      json.append("{\"firstName\":{\"value\":\"").append(i).append("\",\"atomic\":true}}\n");
+    }
+    for (final boolean ordered : new boolean[] { true, false }) {
+      final NameImporter<AbstractNamed> importer = new NameImporter<AbstractNamed>(NameImporter.Format.JSON_LINES, FACTORY);
+      importer.setThreads(4);
+      importer.setBatchSize(7);
+      importer.setOrdered(ordered);
+      final List<AbstractNamed> results = new ArrayList<AbstractNamed>();
+      assertEquals((long)count, importer.importNames(new StringReader(json.toString()), new ListSink(results)));
+      final Set<String> values = new HashSet<String>();
+      for (int i = 0; i < count; i++) {
+        final String value = results.get(i).getName(FIRST_NAME).getValue();
+        if (ordered) {
+          assertEquals(String.valueOf(i), value);
+        }
+        values.add(value);
+      }
+      assertEquals(count, values.size());
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testTooManyFields() throws IOException {
+    final NameImporter<AbstractNamed> importer = new NameImporter<AbstractNamed>(NameImporter.Format.CSV, FACTORY);
+    importer.importNames(new StringReader("firstName\nLaird,Nelson\n"), new ListSink(new ArrayList<AbstractNamed>()));
+  }
+
+  private static final class ListSink implements NamedSink<AbstractNamed> {
+
+    private final List<AbstractNamed> list;
+
+    private ListSink(final List<AbstractNamed> list) {
+      super();
+      this.list = list;
+    }
+
+    @Override
+    public final void accept(final AbstractNamed named) {
+      this.list.add(named);
+    }
+
+  }
+
+}
@@ -0,0 +1,172 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright (c) 2013-2014 Edugility LLC.
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THIS SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT.  IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *
+ * The original copy of this license is available at
+ * http://www.opensource.org/license/mit-license.html.
+ */
+package com.edugility.nomen.io;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import com.edugility.nomen.AbstractNamed;
+import com.edugility.nomen.LocalizedNameValue;
+import com.edugility.nomen.Name;
+import com.edugility.nomen.NameType;
+import com.edugility.nomen.NameValue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestCaseNameJson {
+
+  private AbstractNamed dude;
+
+  public TestCaseNameJson() {
+    super();
+  }
+
+  @Before
+  public void setUp() {
+    this.dude = newNamed();
+    final Name laird = new Name(new NameValue("Laird", true));
+    this.dude.putName(new NameType("firstName"), laird);
+    this.dude.putName(new NameType("preferredName"), laird);
+    this.dude.putName(new NameType("lastName"), new Name(new NameValue("O'Nelson \"Jr.\"\t\\", true)));
+    this.dude.putName(new NameType("fullName"), new Name(new NameValue("${firstName} ${lastName}")));
+  }
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    final StringWriter json = new StringWriter();
+    final NameJsonWriter writer = new NameJsonWriter(json);
+    writer.writeNamed(this.dude);
+    writer.writeNamed(this.dude);
+    writer.flush();
+
+    final NameJsonReader reader = new NameJsonReader(new StringReader(json.toString()));
+    for (int i = 0; i < 2; i++) {
+      final AbstractNamed copy = newNamed();
+      assertTrue(reader.readNames(copy));
+      assertEquals(4, copy.getNameTypes().size());
+      assertEquals("O'Nelson \"Jr.\"\t\\", copy.getName(new NameType("lastName")).getValue());
+      assertEquals("Laird O'Nelson \"Jr.\" \\", copy.getName(new NameType("fullName")).getValue());
+      final Name first = copy.getName(new NameType("firstName"));
+      assertTrue(first.getNameValue().isAtomic());
+      assertSame(first, copy.getName(new NameType("preferredName")));
+    }
+    assertFalse(reader.readNames(newNamed()));
+  }
+
+  @Test
+  public void testLocalizedRoundTrip() throws IOException {
+    final Map<Locale, String> templates = new LinkedHashMap<Locale, String>();
+    templates.put(Locale.JAPANESE, "${lastName} ${firstName}");
+    templates.put(new Locale("ja", "JP", "x_y"), "${lastName}${firstName}");
+    final NameValue localized = new LocalizedNameValue("${firstName} ${lastName}", templates);
+    this.dude.putName(new NameType("fullName"), new Name(localized));
+    final StringWriter json = new StringWriter();
+    final NameJsonWriter writer = new NameJsonWriter(json);
+    writer.writeNamed(this.dude);
+    writer.flush();
+
+    final AbstractNamed copy = newNamed();
+    assertTrue(new NameJsonReader(new StringReader(json.toString())).readNames(copy));
+    final Name fullName = copy.getName(new NameType("fullName"));
+    assertEquals(localized, fullName.getNameValue());
+    assertEquals("O'Nelson \"Jr.\" \\ Laird", fullName.getValue(Locale.JAPAN));
+    assertEquals("Laird O'Nelson \"Jr.\" \\", fullName.getValue(Locale.US));
+  }
+
+  @Test
+  public void testArrayAndDefaults() throws IOException {
+    final String json =
+      "[ {\"a\": {\"value\": \"x\", \"extra\": [1, -2.5e3, {\"q\": null}]}},\n" +
+      "  {\"b\": {\"sameAs\": \"c\"}, \"c\": {\"value\": \"\\u0041\", \"atomic\": true}},\n" +
+      "  {} ]";
+    final NameJsonReader reader = new NameJsonReader(new StringReader(json));
+
+    final AbstractNamed one = newNamed();
+    assertTrue(reader.readNames(one));
+    final NameValue a = one.getName(new NameType("a")).getNameValue();
+    assertFalse(a.isAtomic());
+    assertEquals(" ", a.getWhitespaceReplacement());
+
+    final AbstractNamed two = newNamed();
+    assertTrue(reader.readNames(two));
+    assertEquals("A", two.getName(new NameType("b")).getValue());
+    assertSame(two.getName(new NameType("b")), two.getName(new NameType("c")));
+
+    final AbstractNamed three = newNamed();
+    assertTrue(reader.readNames(three));
+    assertTrue(three.getNameTypes().isEmpty());
+
+    assertFalse(reader.readNames(newNamed()));
+  }
+
+  @Test(expected = IOException.class)
+  public void testMalformed() throws IOException {
+    new NameJsonReader(new StringReader("{\"a\": {\"value\": \"x\"")).readNames(newNamed());
+  }
+
+  @Test(expected = IOException.class)
+  public void testMissingComma() throws IOException {
+    final NameJsonReader reader = new NameJsonReader(new StringReader("[ {\"a\": {\"value\": \"x\"}} {\"b\": {\"value\": \"y\"}} ]"));
+    assertTrue(reader.readNames(newNamed()));
+    reader.readNames(newNamed());
+  }
+
+  @Test
+  public void testRoundTripNameWithoutNameValue() throws IOException {
+    final Name empty = new Name() {
+        private static final long serialVersionUID = 1L;
+      };
+    this.dude.putName(new NameType("nickname"), empty);
+    this.dude.putName(new NameType("alias"), empty);
+    final StringWriter json = new StringWriter();
+    final NameJsonWriter writer = new NameJsonWriter(json);
+    writer.writeNamed(this.dude);
+    writer.flush();
+
+    final AbstractNamed copy = newNamed();
+    assertTrue(new NameJsonReader(new StringReader(json.toString())).readNames(copy));
+    assertEquals(4, copy.getNameTypes().size());
+    assertNull(copy.getName(new NameType("nickname")));
+    assertEquals("Laird", copy.getName(new NameType("firstName")).getValue());
+  }
+
+  private static final AbstractNamed newNamed() {
+    return new AbstractNamed() {
+      private static final long serialVersionUID = 1L;
+    };
+  }
+
+}